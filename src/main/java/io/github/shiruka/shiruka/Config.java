@@ -1,5 +1,8 @@
 package io.github.shiruka.shiruka;
 
+import io.github.shiruka.shiruka.accounting.QuotaAction;
+import io.github.shiruka.shiruka.log.LogOverflowPolicy;
+import io.github.shiruka.shiruka.scheduler.DrainPolicy;
 import java.nio.file.Path;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -19,7 +22,88 @@ import tr.com.infumia.infumialib.transformer.resolvers.Snakeyaml;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 @Version
 @Names(modifier = Names.Modifier.TO_LOWER_CASE, strategy = Names.Strategy.HYPHEN_CASE)
-final class Config extends TransformedObject {
+public final class Config extends TransformedObject {
+
+  /**
+   * the compression level.
+   */
+  @Comment({
+    "Defines the highest deflate level of outgoing batches.",
+    "The level is lowered automatically while the compression threads are busy."
+  })
+  public static int compressionLevel = 7;
+
+  /**
+   * the compression threads.
+   */
+  @Comment("Defines the number of batch compression threads, 0 means a quarter of the available processors.")
+  public static int compressionThreads = 0;
+
+  /**
+   * the compression threshold.
+   */
+  @Comment({
+    "Defines the smallest batch size in bytes which is compressed, smaller batches are stored as they are.",
+    "The threshold is raised automatically while the compression threads are busy."
+  })
+  public static int compressionThreshold = 256;
+
+  /**
+   * the data cache.
+   */
+  @Comment("Defines the maximum bytes of the plugin and player data files which are kept in memory.")
+  public static long dataCache = 16L * 1024L * 1024L;
+
+  /**
+   * the data directory.
+   */
+  @Comment("Defines the directory which the plugin and player data files are stored in.")
+  public static String dataDirectory = "data";
+
+  /**
+   * the data flush interval.
+   */
+  @Comment("Defines how many ticks the data file writes are buffered in memory before they are flushed to the disk.")
+  public static long dataFlushInterval = 20L;
+
+  /**
+   * the generation seed.
+   */
+  @Comment("Defines the seed of the generated terrain.")
+  public static long generationSeed = 0L;
+
+  /**
+   * the generation threads.
+   */
+  @Comment("Defines the number of chunk generation threads, 0 means the number of available processors.")
+  public static int generationThreads = 0;
+
+  /**
+   * the inbound bytes per tick.
+   */
+  @Comment("Defines the maximum inbound packet bytes which are handled per tick for a connection.")
+  public static long inboundBytesPerTick = 1024L * 1024L;
+
+  /**
+   * the inbound max bytes.
+   */
+  @Comment("Defines the maximum inbound packet bytes which wait for the main thread for a connection.")
+  public static long inboundMaxBytes = 4L * 1024L * 1024L;
+
+  /**
+   * the inbound max packets.
+   */
+  @Comment({
+    "Defines the maximum inbound packets which wait for the main thread for a connection.",
+    "Movement packets are dropped when the queue is full, any other packet disconnects the connection."
+  })
+  public static int inboundMaxPackets = 2048;
+
+  /**
+   * the inbound packets per tick.
+   */
+  @Comment("Defines the maximum inbound packets which are handled per tick for a connection.")
+  public static int inboundPacketsPerTick = 256;
 
   /**
    * the Server's language.
@@ -27,6 +111,187 @@ final class Config extends TransformedObject {
   @Comment("Defines the server'a language.")
   public static Locale lang = Locale.US;
 
+  /**
+   * the log overflow policy.
+   */
+  @Comment({
+    "Defines what happens to a log event when the async logging queue is full.",
+    "BLOCK waits for space, DROP_BELOW_WARN (the default) drops info and debug events and waits for warnings",
+    "and errors so they are never lost, DISCARD drops every event so a logging storm never slows the ticks down,",
+    "warnings and errors included. Dropped events are counted."
+  })
+  public static LogOverflowPolicy logOverflowPolicy = LogOverflowPolicy.DROP_BELOW_WARN;
+
+  /**
+   * the login threads.
+   */
+  @Comment("Defines the number of login chain verification threads, 0 means the number of available processors.")
+  public static int loginThreads = 0;
+
+  /**
+   * the max players.
+   */
+  @Comment("Defines the maximum player count which is advertised to the server list.")
+  public static int maxPlayers = 20;
+
+  /**
+   * the metrics address.
+   */
+  @Comment("Defines the address which the Prometheus metrics endpoint listens.")
+  public static String metricsAddress = "127.0.0.1";
+
+  /**
+   * the metrics port.
+   */
+  @Comment({
+    "Defines the port of the Prometheus metrics endpoint, 0 disables it.",
+    "The metrics are served at http://<metrics-address>:<metrics-port>/metrics."
+  })
+  public static int metricsPort = 0;
+
+  /**
+   * the motd.
+   */
+  @Comment("Defines the message of the day which is advertised to the server list.")
+  public static String motd = "Shiru ka";
+
+  /**
+   * the network channels.
+   */
+  @Comment({
+    "Defines the number of UDP channels bound to the same address with SO_REUSEPORT.",
+    "The kernel spreads datagrams across them, so each one lands on its own event loop.",
+    "Only used with the native epoll transport, 0 means the same as network-threads."
+  })
+  public static int networkChannels = 0;
+
+  /**
+   * the network threads.
+   */
+  @Comment("Defines the number of network event loop threads, 0 means the number of available processors.")
+  public static int networkThreads = 0;
+
+  /**
+   * the online mode.
+   */
+  @Comment("Defines whether only the players who are authenticated by Xbox Live can join.")
+  public static boolean onlineMode = true;
+
+  /**
+   * the plugin accounting.
+   */
+  @Comment("Defines whether the cpu time and allocated bytes of the plugins' tasks are accounted.")
+  public static boolean pluginAccounting = true;
+
+  /**
+   * the plugin quota.
+   */
+  @Comment({
+    "Defines the share of a tick which the sync tasks of a single plugin may use, 0 disables the quota.",
+    "For example 0.2 means 10 ms of the 50 ms tick."
+  })
+  public static double pluginQuota = 0.2D;
+
+  /**
+   * the plugin quota action.
+   */
+  @Comment({
+    "Defines what happens when a plugin exceeds its quota.",
+    "WARN only logs, THROTTLE runs the plugin's sync tasks every other tick while its average is over the quota,",
+    "DEFER moves the plugin's remaining sync tasks to the next tick once it used up its quota in a tick."
+  })
+  public static QuotaAction pluginQuotaAction = QuotaAction.WARN;
+
+  /**
+   * the region merge radius.
+   */
+  @Comment("Defines how many sections apart two sections may be to be merged into the same region.")
+  public static int regionMergeRadius = 1;
+
+  /**
+   * the region section shift.
+   */
+  @Comment({
+    "Defines the size of a region section as a power of two in chunks.",
+    "For example 3 means sections of 8x8 chunks."
+  })
+  public static int regionSectionShift = 3;
+
+  /**
+   * the region threading.
+   */
+  @Comment({
+    "Defines whether far apart parts of the worlds are ticked in parallel by the region threads.",
+    "The main thread still runs the network and the global schedulers, then waits for the regions every tick."
+  })
+  public static boolean regionThreading = false;
+
+  /**
+   * the region threads.
+   */
+  @Comment("Defines the number of region threads, 0 means the number of available processors.")
+  public static int regionThreads = 0;
+
+  /**
+   * the shutdown drain policy.
+   */
+  @Comment({
+    "Defines what happens to the pending one-shot tasks when the server stops, repeating tasks are always cancelled.",
+    "RUN runs them right away without waiting for their delays, CANCEL drops them."
+  })
+  public static DrainPolicy shutdownDrainPolicy = DrainPolicy.RUN;
+
+  /**
+   * the shutdown timeout.
+   */
+  @Comment({
+    "Defines how long in milliseconds the server waits for the plugins, the async tasks and the services to stop.",
+    "The steps which are still running then are reported and left behind."
+  })
+  public static long shutdownTimeout = 10000L;
+
+  /**
+   * the storage block cache.
+   */
+  @Comment("Defines the maximum bytes of the decompressed world storage blocks which are kept in memory.")
+  public static long storageBlockCache = 64L * 1024L * 1024L;
+
+  /**
+   * the use native transport.
+   */
+  @Comment("Defines whether the native epoll transport is used when it is available.")
+  public static boolean useNativeTransport = true;
+
+  /**
+   * the watchdog kill threshold.
+   */
+  @Comment({
+    "Defines the tick duration in milliseconds which halts the server after writing a stall report.",
+    "0 disables halting, the server keeps waiting for the main thread."
+  })
+  public static long watchdogKillThreshold = 0L;
+
+  /**
+   * the watchdog sample interval.
+   */
+  @Comment("Defines how often in milliseconds the main thread's stack is sampled during a stall.")
+  public static long watchdogSampleInterval = 500L;
+
+  /**
+   * the watchdog threshold.
+   */
+  @Comment({
+    "Defines the tick duration in milliseconds which is reported as a stall of the main thread.",
+    "Stall reports are written into the stalls directory, 0 disables the watchdog."
+  })
+  public static long watchdogThreshold = 5000L;
+
+  /**
+   * the world directory.
+   */
+  @Comment("Defines the directory of the bedrock edition world whose db directory stores the chunks.")
+  public static String worldDirectory = "worlds/world";
+
   /**
    * loads the config.
    *
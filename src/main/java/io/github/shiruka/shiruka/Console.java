@@ -1,7 +1,18 @@
 package io.github.shiruka.shiruka;
 
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import io.github.shiruka.shiruka.benchmark.ChunkBenchmark;
+import io.github.shiruka.shiruka.benchmark.GenerationBenchmark;
+import io.github.shiruka.shiruka.benchmark.NetworkBenchmark;
+import io.github.shiruka.shiruka.benchmark.StorageBenchmark;
+import io.github.shiruka.shiruka.benchmark.TickBenchmark;
+import io.github.shiruka.shiruka.benchmark.TrackingBenchmark;
+import io.github.shiruka.shiruka.loadtest.LoadGenerator;
 import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Locale;
 import java.util.function.Function;
@@ -35,6 +46,85 @@ final class Console implements Runnable {
     return -1;
   };
 
+  /**
+   * the address.
+   */
+  @Nullable
+  @CommandLine.Option(names = {"-a", "--address"}, description = "Address to listen.", defaultValue = "0.0.0.0:19132")
+  private InetSocketAddress address;
+
+  /**
+   * the measured ticks of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark", description = "Ticks to run headless as fast as possible, 0 to disable.",
+    defaultValue = "0")
+  private Integer benchmark;
+
+  /**
+   * the async handoffs per tick of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-async",
+    description = "Tasks handed to the async scheduler and back per tick.", defaultValue = "100")
+  private Integer benchmarkAsync;
+
+  /**
+   * the cancelled tasks per tick of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-churn", description = "Delayed tasks scheduled and cancelled per tick.",
+    defaultValue = "100")
+  private Integer benchmarkChurn;
+
+  /**
+   * the movers which the events of the benchmark are coalesced over.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-coalesced",
+    description = "Movers which the events are posted as coalesced movements of, 0 to call every event.",
+    defaultValue = "0")
+  private Integer benchmarkCoalesced;
+
+  /**
+   * the event calls per tick of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-events", description = "Events called per tick.", defaultValue = "1000")
+  private Integer benchmarkEvents;
+
+  /**
+   * the work iterations of a benchmark task.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-task-work", description = "Work iterations of a repeating task.",
+    defaultValue = "100")
+  private Integer benchmarkTaskWork;
+
+  /**
+   * the repeating tasks of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-tasks", description = "Repeating sync tasks which run every tick.",
+    defaultValue = "1000")
+  private Integer benchmarkTasks;
+
+  /**
+   * the warm-up ticks of the benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--benchmark-warmup", description = "Warm-up ticks before measuring.",
+    defaultValue = "200")
+  private Integer benchmarkWarmup;
+
+  /**
+   * the chunks of the chunk benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--chunk-benchmark", description = "Chunks to benchmark the memory and block access of.",
+    defaultValue = "0")
+  private Integer chunkBenchmark;
+
   /**
    * the config path.
    */
@@ -49,6 +139,14 @@ final class Console implements Runnable {
   @CommandLine.Option(names = {"-d", "--debug"}, description = "Debug mode.", defaultValue = "false")
   private Boolean debug;
 
+  /**
+   * the radius of the generation benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--generation-benchmark",
+    description = "Radius in chunks of the square to benchmark the pregeneration of.", defaultValue = "0")
+  private Integer generationBenchmark;
+
   /**
    * the server language.
    */
@@ -56,6 +154,69 @@ final class Console implements Runnable {
   @CommandLine.Option(names = {"-l", "--lang"}, description = "Shiru ka language.", defaultValue = "en_US")
   private Locale lang;
 
+  /**
+   * the simulated clients of the load test.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--load-test", description = "Simulated clients to run a load test, 0 to disable.",
+    defaultValue = "0")
+  private Integer loadTest;
+
+  /**
+   * the chat rate of the load test.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--load-test-chat-rate", description = "Chat messages per second per client.",
+    defaultValue = "0.2")
+  private Double loadTestChatRate;
+
+  /**
+   * the duration of the load test.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--load-test-duration", description = "Load test duration in seconds.",
+    defaultValue = "60")
+  private Integer loadTestDuration;
+
+  /**
+   * the movement rate of the load test.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--load-test-move-rate", description = "Movement packets per second per client.",
+    defaultValue = "20")
+  private Double loadTestMoveRate;
+
+  /**
+   * the latency probe rate of the load test.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--load-test-ping-rate", description = "Latency probes per second per client.",
+    defaultValue = "1")
+  private Double loadTestPingRate;
+
+  /**
+   * the megabytes of the network benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--network-benchmark",
+    description = "Megabytes to send through a loopback RakNet session, 0 to disable.", defaultValue = "0")
+  private Integer networkBenchmark;
+
+  /**
+   * the loss of the network benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--network-benchmark-loss", description = "Share of the datagrams to drop, 0 to 1.",
+    defaultValue = "0")
+  private Double networkBenchmarkLoss;
+
+  /**
+   * the message size of the network benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--network-benchmark-size", description = "Bytes per message.", defaultValue = "1024")
+  private Integer networkBenchmarkSize;
+
   /**
    * the plugins path.
    */
@@ -63,6 +224,75 @@ final class Console implements Runnable {
   @CommandLine.Option(names = {"-p", "--plugins"}, description = "Plugins path.", defaultValue = "plugins")
   private Path pluginsPath;
 
+  /**
+   * the world directory of the storage benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--storage-benchmark", description = "World directory to benchmark the chunk loads of.")
+  private Path storageBenchmark;
+
+  /**
+   * the chunk reads in flight of the storage benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--storage-benchmark-in-flight", description = "Chunk reads in flight.",
+    defaultValue = "64")
+  private Integer storageBenchmarkInFlight;
+
+  /**
+   * the chunk radius of the storage benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--storage-benchmark-radius", description = "Chunk radius around the origin to read.",
+    defaultValue = "32")
+  private Integer storageBenchmarkRadius;
+
+  /**
+   * the entities of the tracking benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--tracking-benchmark", description = "Entities to benchmark the entity tracking of.",
+    defaultValue = "0")
+  private Integer trackingBenchmark;
+
+  /**
+   * the players of the tracking benchmark.
+   */
+  @Nullable
+  @CommandLine.Option(names = "--tracking-benchmark-players", description = "Players who track the entities.",
+    defaultValue = "500")
+  private Integer trackingBenchmarkPlayers;
+
+  /**
+   * closes the storages of the given benchmark server and deletes the given directory.
+   *
+   * @param server the server to close.
+   * @param directory the directory to delete.
+   */
+  private static void closeBenchmark(@NotNull final ShirukaServer server, @NotNull final Path directory) {
+    server.worldStorage().close();
+    server.dataStorage().close();
+    try {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (final IOException e) {
+      Console.log.warn("Could not delete the benchmark directory {}:", directory, e);
+    }
+  }
+
+  /**
+   * creates a temporary directory for the storages of a benchmark.
+   *
+   * @return benchmark directory.
+   */
+  @NotNull
+  private static Path createBenchmarkDirectory() {
+    try {
+      return Files.createTempDirectory("shiruka-benchmark");
+    } catch (final IOException e) {
+      throw new IllegalStateException("Could not create the benchmark directory!", e);
+    }
+  }
+
   /**
    * initiate the console commands.
    *
@@ -76,6 +306,7 @@ final class Console implements Runnable {
       .registerConverter(Locale.class, new LocaleConverter())
       .registerConverter(Path.class, Path::of)
       .execute(args);
+    LogManager.shutdown();
     System.exit(exitCode);
   }
 
@@ -97,7 +328,124 @@ final class Console implements Runnable {
     config.language(this.lang == null
       ? Locale.ENGLISH
       : this.lang);
-    new ShirukaServer(pluginsPath);
+    final var address = this.address == null
+      ? new InetSocketAddress(19132)
+      : this.address;
+    final var benchmark = this.benchmark == null
+      ? 0
+      : this.benchmark;
+    final var clients = this.loadTest == null
+      ? 0
+      : this.loadTest;
+    if (this.chunkBenchmark != null && this.chunkBenchmark > 0) {
+      new ChunkBenchmark(this.chunkBenchmark).run();
+    } else if (this.generationBenchmark != null && this.generationBenchmark > 0) {
+      new GenerationBenchmark(this.generationBenchmark).run();
+    } else if (this.networkBenchmark != null && this.networkBenchmark > 0) {
+      this.runNetworkBenchmark(this.networkBenchmark);
+    } else if (this.trackingBenchmark != null && this.trackingBenchmark > 0) {
+      new TrackingBenchmark(this.trackingBenchmark,
+        this.trackingBenchmarkPlayers == null ? 500 : this.trackingBenchmarkPlayers)
+        .run();
+    } else if (this.storageBenchmark != null) {
+      this.runStorageBenchmark(this.storageBenchmark, pluginsPath, address);
+    } else if (benchmark > 0) {
+      this.runTickBenchmark(benchmark, pluginsPath, address);
+    } else if (clients > 0) {
+      this.runLoadTest(clients, pluginsPath, address);
+    } else {
+      new ShirukaServer(pluginsPath, address).start();
+    }
+  }
+
+  /**
+   * runs a load test against a server on the given address.
+   *
+   * @param clients the simulated clients.
+   * @param pluginsPath the plugins path.
+   * @param address the address to listen.
+   */
+  private void runLoadTest(final int clients, @NotNull final Path pluginsPath,
+                           @NotNull final InetSocketAddress address) {
+    Config.onlineMode = false;
+    final var server = new ShirukaServer(pluginsPath, address);
+    new LoadGenerator(server, address, clients,
+      this.loadTestDuration == null ? 60 : this.loadTestDuration,
+      this.loadTestMoveRate == null ? 20.0D : this.loadTestMoveRate,
+      this.loadTestChatRate == null ? 0.2D : this.loadTestChatRate,
+      this.loadTestPingRate == null ? 1.0D : this.loadTestPingRate)
+      .start();
+    server.start();
+  }
+
+  /**
+   * runs the network benchmark.
+   *
+   * @param megabytes the megabytes to send.
+   */
+  private void runNetworkBenchmark(final int megabytes) {
+    try {
+      new NetworkBenchmark(megabytes,
+        this.networkBenchmarkSize == null ? 1024 : this.networkBenchmarkSize,
+        this.networkBenchmarkLoss == null ? 0.0D : this.networkBenchmarkLoss)
+        .run();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * runs the storage benchmark on the given world directory, the data storage is opened in a temporary directory.
+   *
+   * @param worldDirectory the world directory to read.
+   * @param pluginsPath the plugins path.
+   * @param address the address of the server.
+   */
+  private void runStorageBenchmark(@NotNull final Path worldDirectory, @NotNull final Path pluginsPath,
+                                   @NotNull final InetSocketAddress address) {
+    final var directory = Console.createBenchmarkDirectory();
+    Config.metricsPort = 0;
+    Config.worldDirectory = Constants.herePath().resolve(worldDirectory).toString();
+    Config.dataDirectory = directory.resolve("data").toString();
+    final var server = new ShirukaServer(pluginsPath, address);
+    try {
+      new StorageBenchmark(server,
+        this.storageBenchmarkRadius == null ? 32 : this.storageBenchmarkRadius,
+        this.storageBenchmarkInFlight == null ? 64 : this.storageBenchmarkInFlight)
+        .run();
+    } finally {
+      Console.closeBenchmark(server, directory);
+    }
+  }
+
+  /**
+   * runs the tick benchmark, the storages are opened in a temporary directory.
+   *
+   * @param ticks the measured ticks.
+   * @param pluginsPath the plugins path.
+   * @param address the address of the server.
+   */
+  private void runTickBenchmark(final int ticks, @NotNull final Path pluginsPath,
+                                @NotNull final InetSocketAddress address) {
+    final var directory = Console.createBenchmarkDirectory();
+    Config.metricsPort = 0;
+    Config.pluginQuota = 0.0D;
+    Config.worldDirectory = directory.resolve("world").toString();
+    Config.dataDirectory = directory.resolve("data").toString();
+    final var server = new ShirukaServer(pluginsPath, address);
+    try {
+      new TickBenchmark(server, ticks,
+        this.benchmarkWarmup == null ? 200 : this.benchmarkWarmup,
+        this.benchmarkTasks == null ? 1000 : this.benchmarkTasks,
+        this.benchmarkTaskWork == null ? 100 : this.benchmarkTaskWork,
+        this.benchmarkAsync == null ? 100 : this.benchmarkAsync,
+        this.benchmarkEvents == null ? 1000 : this.benchmarkEvents,
+        this.benchmarkCoalesced == null ? 0 : this.benchmarkCoalesced,
+        this.benchmarkChurn == null ? 100 : this.benchmarkChurn)
+        .run();
+    } finally {
+      Console.closeBenchmark(server, directory);
+    }
   }
 
   /**
@@ -0,0 +1,196 @@
+package io.github.shiruka.shiruka.accounting;
+
+import io.github.shiruka.api.plugin.Plugin;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents accounting of the cpu time and allocated bytes of the plugins.
+ * <p>
+ * tasks are measured with the per-thread cpu and allocation counters of the jvm. the quota is a share of the tick
+ * duration which a plugin's sync tasks may use, it is checked against both the current tick and the rolling
+ * average of the last {@value PluginUsage#WINDOW} ticks.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class PluginAccounting {
+
+  /**
+   * the minimum interval between two warnings of a plugin in nanoseconds.
+   */
+  private static final long WARN_INTERVAL = TimeUnit.MINUTES.toNanos(1L);
+
+  /**
+   * the action.
+   */
+  @NotNull
+  @Getter
+  private final QuotaAction action;
+
+  /**
+   * whether the allocation counters are supported.
+   */
+  private final boolean allocationSupported;
+
+  /**
+   * the quota in nanoseconds, 0 disables it.
+   */
+  @Getter
+  private final long quota;
+
+  /**
+   * the threads.
+   */
+  private final com.sun.management.ThreadMXBean threads;
+
+  /**
+   * the usages.
+   */
+  private final Map<Plugin.Container, PluginUsage> usages = new ConcurrentHashMap<>();
+
+  /**
+   * the last warning times of the plugins, only accessed by the main thread.
+   */
+  private final Map<PluginUsage, Long> warnings = new HashMap<>();
+
+  /**
+   * the current tick.
+   */
+  private int currentTick;
+
+  /**
+   * ctor.
+   *
+   * @param tickDuration the tick duration in nanoseconds.
+   * @param quota the share of the tick which a plugin may use, 0 disables the quota.
+   * @param action the action to take when a plugin exceeds the quota.
+   */
+  public PluginAccounting(final long tickDuration, final double quota, @NotNull final QuotaAction action) {
+    this.quota = (long) (tickDuration * Math.max(0.0D, quota));
+    this.action = action;
+    this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (this.threads.isThreadCpuTimeSupported() && !this.threads.isThreadCpuTimeEnabled()) {
+      this.threads.setThreadCpuTimeEnabled(true);
+    }
+    this.allocationSupported = this.threads.isThreadAllocatedMemorySupported();
+    if (this.allocationSupported && !this.threads.isThreadAllocatedMemoryEnabled()) {
+      this.threads.setThreadAllocatedMemoryEnabled(true);
+    }
+  }
+
+  /**
+   * obtains the allocated bytes of the current thread.
+   *
+   * @return allocated bytes.
+   */
+  public long allocatedBytes() {
+    return this.allocationSupported
+      ? this.threads.getCurrentThreadAllocatedBytes()
+      : 0L;
+  }
+
+  /**
+   * obtains the cpu time of the current thread.
+   *
+   * @return cpu time in nanoseconds.
+   */
+  public long cpuTime() {
+    return this.threads.getCurrentThreadCpuTime();
+  }
+
+  /**
+   * checks if the sync tasks of the given plugin should be deferred to the next tick.
+   * <p>
+   * called by the main thread.
+   *
+   * @param plugin the plugin to check.
+   *
+   * @return {@code true} if the plugin's task should not run in the current tick.
+   */
+  public boolean defer(@NotNull final Plugin.Container plugin) {
+    if (this.quota <= 0L || this.action == QuotaAction.WARN) {
+      return false;
+    }
+    final var usage = this.usages.get(plugin);
+    if (usage == null) {
+      return false;
+    }
+    if (this.action == QuotaAction.DEFER) {
+      return usage.tickTime() >= this.quota;
+    }
+    return (this.currentTick & 1) == 1 && usage.averageTickTime() >= this.quota;
+  }
+
+  /**
+   * records a task invocation of the given plugin.
+   *
+   * @param plugin the plugin to record.
+   * @param cpuTime the {@link #cpuTime()} before the invocation.
+   * @param allocated the {@link #allocatedBytes()} before the invocation.
+   * @param sync whether the invocation ran on the main thread.
+   */
+  public void record(@NotNull final Plugin.Container plugin, final long cpuTime, final long allocated,
+                     final boolean sync) {
+    this.usage(plugin).record(this.cpuTime() - cpuTime, this.allocatedBytes() - allocated, sync);
+  }
+
+  /**
+   * ends the current tick, rolls the windows and warns about the plugins which exceed the quota.
+   * <p>
+   * called at the end of every tick by the main thread.
+   *
+   * @param tick the tick which ends.
+   */
+  public void tick(final int tick) {
+    this.currentTick = tick + 1;
+    final var now = System.nanoTime();
+    for (final var usage : this.usages.values()) {
+      final var tickTime = usage.tickTime();
+      usage.roll();
+      if (this.quota <= 0L || tickTime < this.quota && usage.averageTickTime() < this.quota) {
+        continue;
+      }
+      final var last = this.warnings.get(usage);
+      if (last != null && now - last < PluginAccounting.WARN_INTERVAL) {
+        continue;
+      }
+      this.warnings.put(usage, now);
+      PluginAccounting.log.warn("Plugin {} used {} ms of the main thread in tick {}, {} ms on average, "
+          + "its quota is {} ms per tick ({})", usage.name(), TimeUnit.NANOSECONDS.toMillis(tickTime), tick,
+        TimeUnit.NANOSECONDS.toMillis(usage.averageTickTime()), TimeUnit.NANOSECONDS.toMillis(this.quota),
+        this.action.name().toLowerCase(Locale.ROOT));
+    }
+  }
+
+  /**
+   * obtains the usages of the plugins which ran a task.
+   *
+   * @return plugin usages.
+   */
+  @NotNull
+  public Collection<PluginUsage> usages() {
+    return Collections.unmodifiableCollection(this.usages.values());
+  }
+
+  /**
+   * obtains or creates the usage of the given plugin.
+   *
+   * @param plugin the plugin to get.
+   *
+   * @return usage of the plugin.
+   */
+  @NotNull
+  private PluginUsage usage(@NotNull final Plugin.Container plugin) {
+    return this.usages.computeIfAbsent(plugin, key -> new PluginUsage(key.description().name()));
+  }
+}
@@ -0,0 +1,149 @@
+package io.github.shiruka.shiruka.accounting;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the resources which a plugin used.
+ * <p>
+ * the totals are striped counters which any thread can add to, the per-tick values are updated only by the main
+ * thread and published through volatile fields.
+ */
+@Accessors(fluent = true)
+public final class PluginUsage {
+
+  /**
+   * the rolling window in ticks.
+   */
+  static final int WINDOW = 100;
+
+  /**
+   * the allocated bytes.
+   */
+  private final LongAdder allocatedBytes = new LongAdder();
+
+  /**
+   * the async cpu time in nanoseconds.
+   */
+  private final LongAdder asyncCpuTime = new LongAdder();
+
+  /**
+   * the invocations.
+   */
+  private final LongAdder invocations = new LongAdder();
+
+  /**
+   * the name.
+   */
+  @NotNull
+  @Getter
+  private final String name;
+
+  /**
+   * the sync cpu time in nanoseconds.
+   */
+  private final LongAdder syncCpuTime = new LongAdder();
+
+  /**
+   * the sync cpu times of the ticks in the window.
+   */
+  private final long[] window = new long[PluginUsage.WINDOW];
+
+  /**
+   * the average sync cpu time per tick in the window in nanoseconds.
+   */
+  @Getter
+  private volatile long averageTickTime;
+
+  /**
+   * the sync cpu time of the current tick in nanoseconds.
+   */
+  @Getter
+  private long tickTime;
+
+  /**
+   * the index of the window.
+   */
+  private int index;
+
+  /**
+   * the total of the window.
+   */
+  private long windowTotal;
+
+  /**
+   * ctor.
+   *
+   * @param name the name.
+   */
+  PluginUsage(@NotNull final String name) {
+    this.name = name;
+  }
+
+  /**
+   * obtains the bytes which are allocated by the plugin's tasks.
+   *
+   * @return allocated bytes.
+   */
+  public long allocatedBytes() {
+    return this.allocatedBytes.sum();
+  }
+
+  /**
+   * obtains the cpu time of the plugin's async tasks.
+   *
+   * @return async cpu time in nanoseconds.
+   */
+  public long asyncCpuTime() {
+    return this.asyncCpuTime.sum();
+  }
+
+  /**
+   * obtains the count of the measured invocations.
+   *
+   * @return invocation count.
+   */
+  public long invocations() {
+    return this.invocations.sum();
+  }
+
+  /**
+   * obtains the cpu time of the plugin's sync tasks.
+   *
+   * @return sync cpu time in nanoseconds.
+   */
+  public long syncCpuTime() {
+    return this.syncCpuTime.sum();
+  }
+
+  /**
+   * records an invocation.
+   *
+   * @param cpuTime the cpu time of the invocation.
+   * @param allocated the allocated bytes of the invocation.
+   * @param sync whether the invocation ran on the main thread.
+   */
+  void record(final long cpuTime, final long allocated, final boolean sync) {
+    this.invocations.increment();
+    this.allocatedBytes.add(allocated);
+    if (sync) {
+      this.syncCpuTime.add(cpuTime);
+      this.tickTime += cpuTime;
+    } else {
+      this.asyncCpuTime.add(cpuTime);
+    }
+  }
+
+  /**
+   * moves the current tick into the rolling window.
+   */
+  void roll() {
+    this.windowTotal += this.tickTime - this.window[this.index];
+    this.window[this.index] = this.tickTime;
+    this.index = (this.index + 1) % PluginUsage.WINDOW;
+    this.tickTime = 0L;
+    this.averageTickTime = this.windowTotal / PluginUsage.WINDOW;
+  }
+}
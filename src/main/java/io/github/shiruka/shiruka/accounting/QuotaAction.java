@@ -0,0 +1,19 @@
+package io.github.shiruka.shiruka.accounting;
+
+/**
+ * an enum class that contains the actions which are taken when a plugin exceeds its share of the tick.
+ */
+public enum QuotaAction {
+  /**
+   * only warns about the plugin.
+   */
+  WARN,
+  /**
+   * warns and runs the plugin's sync tasks only every other tick while its rolling average exceeds the quota.
+   */
+  THROTTLE,
+  /**
+   * warns and defers the plugin's remaining sync tasks to the next tick once it used up its quota in a tick.
+   */
+  DEFER
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains per-plugin resource accounting classes.
+ */
+package io.github.shiruka.shiruka.accounting;
@@ -0,0 +1,10 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.api.event.Event;
+
+/**
+ * a class that represents the synthetic events which are called by the tick benchmark.
+ */
+final class BenchmarkEvent implements Event {
+
+}
@@ -0,0 +1,51 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.shiruka.event.CoalescibleEvent;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the synthetic movements which are posted by the tick benchmark.
+ */
+final class BenchmarkMoveEvent implements CoalescibleEvent<BenchmarkMoveEvent> {
+
+  /**
+   * the mover.
+   */
+  private final int mover;
+
+  /**
+   * the position which the mover moves to.
+   */
+  private final long to;
+
+  /**
+   * the position which the mover moves from.
+   */
+  private long from;
+
+  /**
+   * ctor.
+   *
+   * @param mover the mover.
+   * @param from the position which the mover moves from.
+   * @param to the position which the mover moves to.
+   */
+  BenchmarkMoveEvent(final int mover, final long from, final long to) {
+    this.mover = mover;
+    this.from = from;
+    this.to = to;
+  }
+
+  @NotNull
+  @Override
+  public Object coalesceKey() {
+    return this.mover;
+  }
+
+  @NotNull
+  @Override
+  public BenchmarkMoveEvent merge(@NotNull final BenchmarkMoveEvent later) {
+    later.from = this.from;
+    return later;
+  }
+}
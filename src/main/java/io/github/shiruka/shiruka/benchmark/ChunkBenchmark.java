@@ -0,0 +1,254 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.shiruka.Config;
+import io.github.shiruka.shiruka.chunk.Chunk;
+import io.github.shiruka.shiruka.chunk.PalettedStorage;
+import io.github.shiruka.shiruka.network.BatchCompressor;
+import io.github.shiruka.shiruka.network.ChunkPacketCache;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that measures the memory of the loaded chunks and the throughput of their block accesses.
+ * <p>
+ * the chunks are filled with a layered terrain of stone with ores, dirt, grass and water up to a random surface
+ * height. the heap which they retain is measured after a collection and compared to a flat int array per
+ * sub-chunk, then random block gets, block sets and network serializations are timed. at last the compressed level
+ * chunk packets are timed once encoded for every send and once shared by the {@link ChunkPacketCache}.
+ */
+@Log4j2
+public final class ChunkBenchmark {
+
+  /**
+   * the runtime id of air.
+   */
+  private static final int AIR = 0;
+
+  /**
+   * the first biome id.
+   */
+  private static final int BIOME = 1;
+
+  /**
+   * the maximum compressed bytes of the packet cache.
+   */
+  private static final long CACHE_SIZE = 256L * 1024L * 1024L;
+
+  /**
+   * the runtime id of dirt.
+   */
+  private static final int DIRT = 2;
+
+  /**
+   * the runtime id of grass.
+   */
+  private static final int GRASS = 3;
+
+  /**
+   * the batch size of the timed operations.
+   */
+  private static final int OPERATIONS = 100_000;
+
+  /**
+   * the duration of a timed phase in nanoseconds.
+   */
+  private static final long PHASE = TimeUnit.SECONDS.toNanos(2L);
+
+  /**
+   * the sea level.
+   */
+  private static final int SEA_LEVEL = 62;
+
+  /**
+   * the runtime id of stone.
+   */
+  private static final int STONE = 1;
+
+  /**
+   * the runtime id of water.
+   */
+  private static final int WATER = 4;
+
+  /**
+   * the chunk count.
+   */
+  private final int chunks;
+
+  /**
+   * the sink which keeps the reads from being optimized away.
+   */
+  private volatile long sink;
+
+  /**
+   * ctor.
+   *
+   * @param chunks the chunk count.
+   */
+  public ChunkBenchmark(final int chunks) {
+    this.chunks = chunks;
+  }
+
+  /**
+   * formats the given operations per nanoseconds as millions per second.
+   *
+   * @param operations the operations to format.
+   * @param nanos the nanos to format.
+   *
+   * @return formatted rate.
+   */
+  @NotNull
+  private static String millions(final long operations, final long nanos) {
+    return "%.1f".formatted(operations * 1000.0D / nanos);
+  }
+
+  /**
+   * fills the given chunk with the layered terrain.
+   *
+   * @param chunk the chunk to fill.
+   * @param random the random to fill.
+   */
+  private static void terrain(@NotNull final Chunk chunk, @NotNull final SplittableRandom random) {
+    final var surface = 56 + random.nextInt(16);
+    for (var x = 0; x < 16; x++) {
+      for (var z = 0; z < 16; z++) {
+        final var height = surface + random.nextInt(3);
+        for (var y = Chunk.MIN_Y; y <= height; y++) {
+          final int block;
+          if (y == height) {
+            block = height < ChunkBenchmark.SEA_LEVEL ? ChunkBenchmark.DIRT : ChunkBenchmark.GRASS;
+          } else if (y > height - 4) {
+            block = ChunkBenchmark.DIRT;
+          } else if (random.nextInt(50) == 0) {
+            block = 5 + random.nextInt(8);
+          } else {
+            block = ChunkBenchmark.STONE;
+          }
+          chunk.setBlock(x, y, z, block);
+        }
+        for (var y = height + 1; y < ChunkBenchmark.SEA_LEVEL; y++) {
+          chunk.setBlock(x, y, z, ChunkBenchmark.WATER);
+        }
+        chunk.setBiome(x, height, z, ChunkBenchmark.BIOME + random.nextInt(3));
+      }
+    }
+    chunk.compact();
+  }
+
+  /**
+   * collects the garbage and obtains the used heap.
+   *
+   * @return used heap bytes.
+   */
+  private static long usedHeap() {
+    for (var index = 0; index < 3; index++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   */
+  public void run() {
+    final var random = new SplittableRandom(1L);
+    ChunkBenchmark.log.info("Benchmarking {} chunk(s) of {} sub-chunk(s)", this.chunks, Chunk.SECTIONS);
+    final var before = ChunkBenchmark.usedHeap();
+    final var loaded = new Chunk[this.chunks];
+    var estimated = 0L;
+    for (var index = 0; index < this.chunks; index++) {
+      loaded[index] = new Chunk(index, 0, ChunkBenchmark.AIR, ChunkBenchmark.BIOME);
+      ChunkBenchmark.terrain(loaded[index], random);
+      estimated += loaded[index].memoryUsage();
+    }
+    final var retained = ChunkBenchmark.usedHeap() - before;
+    ChunkBenchmark.log.info("  memory: {} KB per chunk measured, {} KB estimated, {} KB as flat int arrays",
+      "%.1f".formatted(retained / (double) this.chunks / 1024.0D),
+      "%.1f".formatted(estimated / (double) this.chunks / 1024.0D),
+      Chunk.SECTIONS * PalettedStorage.SIZE * 4 / 1024);
+    var operations = 0L;
+    var value = 0L;
+    var start = System.nanoTime();
+    while (System.nanoTime() - start < ChunkBenchmark.PHASE) {
+      for (var index = 0; index < ChunkBenchmark.OPERATIONS; index++) {
+        final var chunk = loaded[random.nextInt(loaded.length)];
+        value += chunk.getBlock(random.nextInt(16), random.nextInt(Chunk.MIN_Y, 80), random.nextInt(16));
+      }
+      operations += ChunkBenchmark.OPERATIONS;
+    }
+    this.sink = value;
+    ChunkBenchmark.log.info("  block gets: {} million/s", ChunkBenchmark.millions(operations,
+      System.nanoTime() - start));
+    operations = 0L;
+    start = System.nanoTime();
+    while (System.nanoTime() - start < ChunkBenchmark.PHASE) {
+      for (var index = 0; index < ChunkBenchmark.OPERATIONS; index++) {
+        final var chunk = loaded[random.nextInt(loaded.length)];
+        chunk.setBlock(random.nextInt(16), random.nextInt(Chunk.MIN_Y, 80), random.nextInt(16), random.nextInt(20));
+      }
+      operations += ChunkBenchmark.OPERATIONS;
+    }
+    ChunkBenchmark.log.info("  block sets: {} million/s", ChunkBenchmark.millions(operations,
+      System.nanoTime() - start));
+    final var buffer = PooledByteBufAllocator.DEFAULT.directBuffer(1 << 16);
+    try {
+      operations = 0L;
+      var bytes = 0L;
+      start = System.nanoTime();
+      while (System.nanoTime() - start < ChunkBenchmark.PHASE) {
+        for (final var chunk : loaded) {
+          buffer.clear();
+          chunk.write(buffer);
+          bytes += buffer.readableBytes();
+        }
+        operations += loaded.length;
+      }
+      final var seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1L);
+      ChunkBenchmark.log.info("  serialization: {} chunks/s, {} KB per chunk", "%.0f".formatted(operations / seconds),
+        "%.1f".formatted(bytes / (double) operations / 1024.0D));
+    } finally {
+      buffer.release();
+    }
+    this.packets(loaded);
+  }
+
+  /**
+   * times the compressed level chunk packets which are encoded for every send and which are shared by the cache.
+   *
+   * @param loaded the loaded chunks to send.
+   */
+  private void packets(@NotNull final Chunk[] loaded) {
+    final var compressor = new BatchCompressor(1, Config.compressionLevel, Config.compressionThreshold);
+    final var cache = new ChunkPacketCache(compressor, ChunkBenchmark.CACHE_SIZE);
+    try {
+      for (final var cached : new boolean[]{false, true}) {
+        var operations = 0L;
+        var bytes = 0L;
+        final var start = System.nanoTime();
+        while (System.nanoTime() - start < ChunkBenchmark.PHASE) {
+          for (final var chunk : loaded) {
+            if (!cached) {
+              cache.invalidate(0, chunk.x(), chunk.z());
+            }
+            final var batch = cache.acquire(0, chunk).join();
+            bytes += batch.readableBytes();
+            batch.release();
+          }
+          operations += loaded.length;
+        }
+        final var seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1L);
+        ChunkBenchmark.log.info("  {} packets: {} chunks/s, {} KB compressed per chunk",
+          cached ? "cached" : "encoded", "%.0f".formatted(operations / seconds),
+          "%.1f".formatted(bytes / (double) operations / 1024.0D));
+      }
+      ChunkBenchmark.log.info("  packet cache: {} hit rate, {} evictions, {} MB cached",
+        "%.3f".formatted(cache.hitRate()), cache.evictions(), cache.bytes() / 1_048_576L);
+    } finally {
+      cache.clear();
+      compressor.shutdown();
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.shiruka.Config;
+import io.github.shiruka.shiruka.generation.GenerationPipeline;
+import io.github.shiruka.shiruka.generation.GenerationStage;
+import io.github.shiruka.shiruka.generation.TerrainGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that measures how the pregeneration of a square of chunks scales with the generation threads.
+ * <p>
+ * the square is pregenerated by a fresh pipeline for every thread count from 1 up to the available processors,
+ * while the current thread plays the main thread and drains the handed over chunks once per tick.
+ */
+@Log4j2
+public final class GenerationBenchmark {
+
+  /**
+   * the tick duration in nanoseconds.
+   */
+  private static final long TICK = TimeUnit.MILLISECONDS.toNanos(50L);
+
+  /**
+   * the radius of the square in chunks.
+   */
+  private final int radius;
+
+  /**
+   * ctor.
+   *
+   * @param radius the radius of the square in chunks.
+   */
+  public GenerationBenchmark(final int radius) {
+    this.radius = radius;
+  }
+
+  /**
+   * creates the thread counts to measure, the powers of two and the available processors.
+   *
+   * @return thread counts.
+   */
+  @NotNull
+  private static List<Integer> threadCounts() {
+    final var processors = Runtime.getRuntime().availableProcessors();
+    final var counts = new ArrayList<Integer>();
+    for (var threads = 1; threads < processors; threads <<= 1) {
+      counts.add(threads);
+    }
+    counts.add(processors);
+    return counts;
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   */
+  public void run() {
+    final var side = (this.radius << 1) + 1;
+    GenerationBenchmark.log.info("Benchmarking the pregeneration of {}x{} chunk(s) on {} processor(s)", side, side,
+      Runtime.getRuntime().availableProcessors());
+    var baseline = 0.0D;
+    for (final var threads : GenerationBenchmark.threadCounts()) {
+      final var pipeline = new GenerationPipeline(new TerrainGenerator(Config.generationSeed), threads);
+      try {
+        final var start = System.nanoTime();
+        final var done = pipeline.pregenerate(0, 0, this.radius);
+        var ticks = 0;
+        var maxDrained = 0;
+        while (!done.isDone()) {
+          LockSupport.parkNanos(GenerationBenchmark.TICK);
+          maxDrained = Math.max(maxDrained, pipeline.drain());
+          ticks++;
+        }
+        final var seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1L);
+        final var rate = side * side / seconds;
+        if (baseline == 0.0D) {
+          baseline = rate;
+        }
+        final var times = pipeline.stageTimes();
+        final var total = times.values().stream().mapToLong(Long::longValue).sum();
+        final var shares = new StringBuilder();
+        for (final var stage : GenerationStage.values()) {
+          shares.append(' ').append(stage).append(' ')
+            .append("%.0f%%".formatted(times.get(stage) * 100.0D / Math.max(1L, total)));
+        }
+        GenerationBenchmark.log.info("  {} thread(s): {} chunks/s, {}x, {} chunk(s) generated in {} tick(s), " +
+            "at most {} handed over in a tick,{}", threads, "%.0f".formatted(rate),
+          "%.2f".formatted(rate / baseline), pipeline.generated(), ticks, maxDrained, shares);
+      } finally {
+        pipeline.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,275 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.shiruka.shiruka.network.NetworkTransport;
+import io.github.shiruka.shiruka.network.raknet.OfflineHandler;
+import io.github.shiruka.shiruka.network.raknet.RakNet;
+import io.github.shiruka.shiruka.network.raknet.RakNetClient;
+import io.github.shiruka.shiruka.network.raknet.RakNetSession;
+import io.github.shiruka.shiruka.network.raknet.SessionListener;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that measures the throughput of the RakNet sessions over loopback.
+ * <p>
+ * a client opens a session to a server channel through the offline handshake, then sends numbered game messages as
+ * fast as the receiver keeps up while the server checks that every message arrives exactly once and in order. a
+ * share of the inbound datagrams of the server may be dropped to measure the recovery through the negative
+ * acknowledgements and the resends.
+ */
+@Log4j2
+public final class NetworkBenchmark {
+
+  /**
+   * the maximum bytes which are sent but not received yet.
+   */
+  private static final long IN_FLIGHT = 4L * 1024L * 1024L;
+
+  /**
+   * the time which the handshake and the transfer may take in seconds.
+   */
+  private static final long TIMEOUT = 120L;
+
+  /**
+   * the share of the inbound datagrams of the server which are dropped.
+   */
+  private final double loss;
+
+  /**
+   * the megabytes to transfer.
+   */
+  private final int megabytes;
+
+  /**
+   * the message size in bytes.
+   */
+  private final int size;
+
+  /**
+   * ctor.
+   *
+   * @param megabytes the megabytes to transfer.
+   * @param size the message size in bytes.
+   * @param loss the share of the inbound datagrams of the server which are dropped.
+   */
+  public NetworkBenchmark(final int megabytes, final int size, final double loss) {
+    this.megabytes = megabytes;
+    this.size = Math.max(5, size);
+    this.loss = loss;
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting.
+   */
+  public void run() throws InterruptedException {
+    final var transport = NetworkTransport.detect(true);
+    final var group = transport.eventLoopGroup(2, new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Network Benchmark Thread - %1$d")
+      .setDaemon(true)
+      .build());
+    final var messages = (int) Math.max(1L, this.megabytes * 1024L * 1024L / this.size);
+    final var receiver = new Receiver(messages);
+    final var server = new Server(receiver, this.loss);
+    final var bootstrap = new Bootstrap()
+      .group(group)
+      .channel(transport.datagramChannel())
+      .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
+    try {
+      final var serverChannel = bootstrap.clone().handler(server)
+        .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).syncUninterruptibly().channel();
+      final var connected = new CountDownLatch(1);
+      final var client = new RakNetClient((InetSocketAddress) serverChannel.localAddress(), new SessionListener() {
+        @Override
+        public void connected() {
+          connected.countDown();
+        }
+
+        @Override
+        public void message(@NotNull final ByteBuf message) {
+        }
+      });
+      client.connect(bootstrap);
+      if (!connected.await(NetworkBenchmark.TIMEOUT, TimeUnit.SECONDS)) {
+        NetworkBenchmark.log.error("The client could not connect to the benchmark server.");
+        return;
+      }
+      final var session = client.session();
+      NetworkBenchmark.log.info("Benchmarking {} MiB in {} messages of {} bytes over loopback, mtu {}, {}% loss",
+        this.megabytes, messages, this.size, session.mtu(), "%.1f".formatted(this.loss * 100.0D));
+      final var start = System.nanoTime();
+      for (var index = 0; index < messages; index++) {
+        while ((long) (index - receiver.received()) * this.size > NetworkBenchmark.IN_FLIGHT) {
+          LockSupport.parkNanos(50_000L);
+        }
+        final var message = PooledByteBufAllocator.DEFAULT.directBuffer(this.size);
+        message.writeByte(RakNet.GAME_PACKET);
+        message.writeInt(index);
+        message.writeZero(this.size - message.writerIndex());
+        session.send(message);
+      }
+      final var completed = receiver.done.await(NetworkBenchmark.TIMEOUT, TimeUnit.SECONDS);
+      final var seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1L);
+      final var serverSession = server.session;
+      NetworkBenchmark.log.info("  transfer: {}, {} of {} message(s) in {} s",
+        completed ? "completed" : "timed out", receiver.received(), messages, "%.2f".formatted(seconds));
+      NetworkBenchmark.log.info("  throughput: {} MiB/s, {} messages/s",
+        "%.1f".formatted(receiver.received() * (double) this.size / (1024.0D * 1024.0D) / seconds),
+        "%.0f".formatted(receiver.received() / seconds));
+      NetworkBenchmark.log.info("  recovery: {} datagram(s) dropped, {} frame(s) resent, {} out of order",
+        server.dropped.get(), session.resent(), receiver.disordered.get());
+      client.close();
+      if (serverSession != null) {
+        serverSession.close();
+      }
+    } finally {
+      group.shutdownGracefully(0L, 1L, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+  }
+
+  /**
+   * a class that represents the listener which checks and counts the received messages.
+   */
+  private static final class Receiver implements SessionListener {
+
+    /**
+     * the disordered message count.
+     */
+    private final AtomicLong disordered = new AtomicLong();
+
+    /**
+     * the latch which is counted down when every message is received.
+     */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * the expected message count.
+     */
+    private final int expected;
+
+    /**
+     * the received message count.
+     */
+    private volatile int received;
+
+    /**
+     * ctor.
+     *
+     * @param expected the expected message count.
+     */
+    private Receiver(final int expected) {
+      this.expected = expected;
+    }
+
+    @Override
+    public void message(@NotNull final ByteBuf message) {
+      final var index = message.getInt(message.readerIndex() + 1);
+      if (index != this.received) {
+        this.disordered.incrementAndGet();
+      }
+      this.received = index + 1;
+      if (this.received == this.expected) {
+        this.done.countDown();
+      }
+    }
+
+    /**
+     * obtains the received message count.
+     *
+     * @return received message count.
+     */
+    private int received() {
+      return this.received;
+    }
+  }
+
+  /**
+   * a class that represents the server channel handler which drops a share of the datagrams.
+   */
+  private static final class Server extends SimpleChannelInboundHandler<DatagramPacket> {
+
+    /**
+     * the dropped datagram count.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * the share of the datagrams which are dropped.
+     */
+    private final double loss;
+
+    /**
+     * the offline handshake handler.
+     */
+    @NotNull
+    private final OfflineHandler offline;
+
+    /**
+     * the receiver.
+     */
+    @NotNull
+    private final Receiver receiver;
+
+    /**
+     * the session.
+     */
+    @Nullable
+    private volatile RakNetSession session;
+
+    /**
+     * ctor.
+     *
+     * @param receiver the receiver.
+     * @param loss the share of the datagrams which are dropped.
+     */
+    private Server(@NotNull final Receiver receiver, final double loss) {
+      final var guid = ThreadLocalRandom.current().nextLong();
+      this.receiver = receiver;
+      this.loss = loss;
+      this.offline = new OfflineHandler(guid, () -> "MCPE;Shiru ka Benchmark;", (channel, address, mtu, peer) -> {
+        if (this.session == null) {
+          final var session = new RakNetSession(channel, address, mtu, guid, peer, false, this.receiver);
+          this.session = session;
+          session.start();
+        }
+      });
+    }
+
+    @Override
+    protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg) {
+      final var content = msg.content();
+      if (!content.isReadable()) {
+        return;
+      }
+      if ((content.getUnsignedByte(content.readerIndex()) & RakNet.VALID) == 0) {
+        this.offline.handle(ctx.channel(), msg.sender(), content);
+        return;
+      }
+      if (this.loss > 0.0D && ThreadLocalRandom.current().nextDouble() < this.loss) {
+        this.dropped.incrementAndGet();
+        return;
+      }
+      final var session = this.session;
+      if (session != null) {
+        session.receive(content);
+      }
+    }
+  }
+}
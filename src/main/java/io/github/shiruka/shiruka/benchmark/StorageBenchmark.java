@@ -0,0 +1,135 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.shiruka.metrics.Histogram;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that measures the chunk-load latency and throughput of the world storage on an existing world.
+ * <p>
+ * the chunks in the given radius around the origin are read through the async scheduler with a bounded number of
+ * reads in flight while the main thread runs ticks back to back. the first pass starts with an empty block cache and
+ * the second one reads the same chunks again, so the report shows both the cold and the cached behavior.
+ */
+@Log4j2
+public final class StorageBenchmark {
+
+  /**
+   * the chunk reads in flight.
+   */
+  private final int inFlight;
+
+  /**
+   * the chunk radius around the origin.
+   */
+  private final int radius;
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * ctor.
+   *
+   * @param server the server whose world storage is read.
+   * @param radius the chunk radius around the origin.
+   * @param inFlight the chunk reads in flight.
+   */
+  public StorageBenchmark(@NotNull final ShirukaServer server, final int radius, final int inFlight) {
+    this.server = server;
+    this.radius = radius;
+    this.inFlight = inFlight;
+  }
+
+  /**
+   * formats the given nanoseconds as milliseconds.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds.
+   */
+  @NotNull
+  private static String millis(final double nanos) {
+    return "%.3f".formatted(nanos / TimeUnit.MILLISECONDS.toNanos(1L));
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   */
+  public void run() {
+    final var storage = this.server.worldStorage();
+    final var database = storage.database();
+    final var side = this.radius * 2 + 1;
+    StorageBenchmark.log.info("Benchmarking the world storage {} with {} chunk(s) and {} read(s) in flight",
+      database.directory(), side * side, this.inFlight);
+    StorageBenchmark.log.info("  tables per level: L0 {} L1 {} L2 {} L3 {} L4 {} L5 {} L6 {}", database.tables(0),
+      database.tables(1), database.tables(2), database.tables(3), database.tables(4), database.tables(5),
+      database.tables(6));
+    this.pass("cold");
+    this.pass("cached");
+  }
+
+  /**
+   * reads every chunk in the radius once and reports the pass.
+   *
+   * @param name the name of the pass.
+   */
+  private void pass(@NotNull final String name) {
+    final var storage = this.server.worldStorage();
+    final var cacheBefore = storage.database().blockCacheStats();
+    storage.readLatency().reset();
+    final var latency = new Histogram();
+    final var pending = new AtomicInteger();
+    final var found = new LongAdder();
+    final var bytes = new LongAdder();
+    final var failures = new LongAdder();
+    final var side = this.radius * 2 + 1;
+    final var total = side * side;
+    var next = 0;
+    final var start = System.nanoTime();
+    while (next < total || pending.get() > 0) {
+      while (next < total && pending.get() < this.inFlight) {
+        final var chunkX = next % side - this.radius;
+        final var chunkZ = next / side - this.radius;
+        final var submitted = System.nanoTime();
+        pending.incrementAndGet();
+        storage.readChunk(chunkX, chunkZ, 0).whenComplete((records, throwable) -> {
+          latency.record(System.nanoTime() - submitted);
+          if (throwable != null) {
+            if (failures.sum() == 0L) {
+              StorageBenchmark.log.error("Could not read the chunk {}, {}:", chunkX, chunkZ, throwable);
+            }
+            failures.increment();
+          } else if (records.exists()) {
+            found.increment();
+            bytes.add(records.size());
+          }
+          pending.decrementAndGet();
+        });
+        next++;
+      }
+      this.server.runTicks(1);
+    }
+    final var elapsed = System.nanoTime() - start;
+    final var seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1L);
+    final var cache = storage.database().blockCacheStats().minus(cacheBefore);
+    final var keys = storage.readLatency();
+    StorageBenchmark.log.info("Storage benchmark {} pass over {} s:", name, "%.2f".formatted(seconds));
+    StorageBenchmark.log.info("  throughput: {} chunks/s, {} MB/s, {} of {} chunk(s) found, {} failure(s)",
+      "%.0f".formatted(total / seconds), "%.2f".formatted(bytes.sum() / seconds / 1_048_576.0D), found.sum(), total,
+      failures.sum());
+    StorageBenchmark.log.info("  chunk load ms: mean {} p50 {} p90 {} p99 {} max {}",
+      StorageBenchmark.millis(latency.mean()), StorageBenchmark.millis(latency.percentile(50.0D)),
+      StorageBenchmark.millis(latency.percentile(90.0D)), StorageBenchmark.millis(latency.percentile(99.0D)),
+      StorageBenchmark.millis(latency.max()));
+    StorageBenchmark.log.info("  key read us: mean {} p50 {} p99 {} over {} key(s), block cache hit rate {}%",
+      "%.1f".formatted(keys.mean() / 1000.0D), "%.1f".formatted(keys.percentile(50.0D) / 1000.0D),
+      "%.1f".formatted(keys.percentile(99.0D) / 1000.0D), keys.count(), "%.1f".formatted(cache.hitRate() * 100.0D));
+  }
+}
@@ -0,0 +1,314 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.api.Shiruka;
+import io.github.shiruka.api.plugin.Plugin;
+import io.github.shiruka.api.scheduler.ScheduledTask;
+import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.event.ShirukaEventManager;
+import io.github.shiruka.shiruka.scheduler.AsyncScheduler;
+import io.github.shiruka.shiruka.scheduler.SyncScheduler;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that runs the server's tick loop headless and as fast as possible under synthetic workloads.
+ * <p>
+ * the network is never bound and no plugin is loaded. the server's world and data storages are opened in a
+ * temporary directory, so the benchmark neither takes the lock of the real world nor writes next to it. every tick
+ * runs the given repeating sync tasks, calls the given events, or posts them as movements coalesced over the given
+ * movers, hands the given tasks over to the async scheduler and back, and schedules and cancels the given delayed
+ * tasks. after the warm-up the throughput, the tick time percentiles and the allocation rate are reported,
+ * so builds and jvm flags can be compared on the same hardware.
+ */
+@Log4j2
+public final class TickBenchmark {
+
+  /**
+   * the delay of the churned tasks which are cancelled before they run.
+   */
+  private static final long CHURN_DELAY = 100L;
+
+  /**
+   * the async handoffs per tick.
+   */
+  private final int asyncHandoffs;
+
+  /**
+   * the cancelled tasks per tick.
+   */
+  private final int churn;
+
+  /**
+   * the tasks which are scheduled in the last tick to be cancelled.
+   */
+  private final List<ScheduledTask> churned = new ArrayList<>();
+
+  /**
+   * the movers which the events are coalesced over, 0 to call every event.
+   */
+  private final int coalesced;
+
+  /**
+   * the event calls per tick.
+   */
+  private final int events;
+
+  /**
+   * the handoffs which came back to the main thread.
+   */
+  private final LongAdder handoffs = new LongAdder();
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the repeating task runs.
+   */
+  private final LongAdder taskRuns = new LongAdder();
+
+  /**
+   * the work iterations of a task.
+   */
+  private final int taskWork;
+
+  /**
+   * the repeating tasks.
+   */
+  private final int tasks;
+
+  /**
+   * the measured ticks.
+   */
+  private final int ticks;
+
+  /**
+   * the warm-up ticks.
+   */
+  private final int warmup;
+
+  /**
+   * the sink which keeps the work from being optimized away.
+   */
+  private volatile long sink;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param ticks the measured ticks.
+   * @param warmup the warm-up ticks.
+   * @param tasks the repeating tasks.
+   * @param taskWork the work iterations of a task.
+   * @param asyncHandoffs the async handoffs per tick.
+   * @param events the event calls per tick.
+   * @param coalesced the movers which the events are coalesced over, 0 to call every event.
+   * @param churn the cancelled tasks per tick.
+   */
+  public TickBenchmark(@NotNull final ShirukaServer server, final int ticks, final int warmup, final int tasks,
+                       final int taskWork, final int asyncHandoffs, final int events, final int coalesced,
+                       final int churn) {
+    this.server = server;
+    this.ticks = ticks;
+    this.warmup = warmup;
+    this.tasks = tasks;
+    this.taskWork = taskWork;
+    this.asyncHandoffs = asyncHandoffs;
+    this.events = events;
+    this.coalesced = coalesced;
+    this.churn = churn;
+  }
+
+  /**
+   * sums the allocated bytes of the live threads.
+   *
+   * @param threads the threads to sum.
+   *
+   * @return allocated bytes.
+   */
+  private static long allocatedBytes(@NotNull final com.sun.management.ThreadMXBean threads) {
+    var allocated = 0L;
+    for (final var bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      if (bytes > 0L) {
+        allocated += bytes;
+      }
+    }
+    return allocated;
+  }
+
+  /**
+   * sums the collections and the collection time of the garbage collectors.
+   *
+   * @return collections at index 0 and the collection time in milliseconds at index 1.
+   */
+  @NotNull
+  private static long[] collections() {
+    final var collections = new long[2];
+    for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      collections[0] += Math.max(0L, collector.getCollectionCount());
+      collections[1] += Math.max(0L, collector.getCollectionTime());
+    }
+    return collections;
+  }
+
+  /**
+   * formats the given nanoseconds as milliseconds.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds.
+   */
+  @NotNull
+  private static String millis(final double nanos) {
+    return "%.3f".formatted(nanos / TimeUnit.MILLISECONDS.toNanos(1L));
+  }
+
+  /**
+   * sums the merged events of the given event manager.
+   *
+   * @param eventManager the event manager to sum.
+   *
+   * @return merged event count.
+   */
+  private static long saved(@NotNull final ShirukaEventManager eventManager) {
+    return eventManager.coalesced().values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   */
+  public void run() {
+    final var plugin = ShirukaServer.getInternalPlugin();
+    final var sync = this.server.syncScheduler();
+    final var async = this.server.asyncScheduler();
+    for (var index = 0; index < this.tasks; index++) {
+      sync.execute(Task.syncBuilder()
+        .withPlugin(plugin)
+        .withName("Benchmark Task")
+        .withInterval(1L)
+        .withJob(task -> {
+          this.work();
+          this.taskRuns.increment();
+        })
+        .build());
+    }
+    sync.execute(Task.syncBuilder()
+      .withPlugin(plugin)
+      .withName("Benchmark Driver")
+      .withInterval(1L)
+      .withJob(task -> this.drive(plugin, sync, async))
+      .build());
+    final var runtime = ManagementFactory.getRuntimeMXBean();
+    TickBenchmark.log.info("Benchmarking {} tick(s) after {} warm-up tick(s) on {} {} with {} processor(s)",
+      this.ticks, this.warmup, runtime.getVmName(), runtime.getVmVersion(),
+      Runtime.getRuntime().availableProcessors());
+    TickBenchmark.log.info("  jvm flags: {}", runtime.getInputArguments());
+    TickBenchmark.log.info("  load per tick: {} task(s) x {} work, {} async handoff(s), {} event(s), {} cancel(s)",
+      this.tasks, this.taskWork, this.asyncHandoffs, this.events, this.churn);
+    this.server.runTicks(this.warmup);
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var statistics = this.server.tickStatistics();
+    statistics.histogram().reset();
+    final var taskRuns = this.taskRuns.sum();
+    final var handoffs = this.handoffs.sum();
+    final var saved = TickBenchmark.saved(this.server.eventManager());
+    final var mainAllocated = threads.getCurrentThreadAllocatedBytes();
+    final var allocated = TickBenchmark.allocatedBytes(threads);
+    final var collections = TickBenchmark.collections();
+    final var start = System.nanoTime();
+    this.server.runTicks(this.ticks);
+    final var elapsed = System.nanoTime() - start;
+    final var collectionsAfter = TickBenchmark.collections();
+    final var seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1L);
+    final var mspt = statistics.histogram();
+    TickBenchmark.log.info("Tick benchmark report over {} s:", "%.2f".formatted(seconds));
+    TickBenchmark.log.info("  throughput: {} ticks/s, {} task runs/s, {} events/s, {} handoffs/s",
+      "%.0f".formatted(this.ticks / seconds), "%.0f".formatted((this.taskRuns.sum() - taskRuns) / seconds),
+      "%.0f".formatted((long) this.events * this.ticks / seconds),
+      "%.0f".formatted((this.handoffs.sum() - handoffs) / seconds));
+    TickBenchmark.log.info("  MSPT: mean {} p50 {} p90 {} p99 {} p99.9 {} max {}",
+      TickBenchmark.millis(mspt.mean()), TickBenchmark.millis(mspt.percentile(50.0D)),
+      TickBenchmark.millis(mspt.percentile(90.0D)), TickBenchmark.millis(mspt.percentile(99.0D)),
+      TickBenchmark.millis(mspt.percentile(99.9D)), TickBenchmark.millis(mspt.max()));
+    TickBenchmark.log.info("  allocation: {} MB/s in total, {} KB per tick on the main thread",
+      "%.1f".formatted((TickBenchmark.allocatedBytes(threads) - allocated) / seconds / 1_048_576.0D),
+      "%.1f".formatted((threads.getCurrentThreadAllocatedBytes() - mainAllocated) / (double) this.ticks / 1024.0D));
+    TickBenchmark.log.info("  gc: {} collection(s), {} ms",
+      collectionsAfter[0] - collections[0], collectionsAfter[1] - collections[1]);
+    if (this.coalesced > 0) {
+      final var savedPerTick = (TickBenchmark.saved(this.server.eventManager()) - saved) / this.ticks;
+      TickBenchmark.log.info("  coalescing: {} event(s) dispatched and {} saved per tick over {} mover(s)",
+        this.events - savedPerTick, savedPerTick, this.coalesced);
+    }
+  }
+
+  /**
+   * calls or posts the events, cancels the last tick's churned tasks, schedules new ones and hands tasks over to the
+   * async scheduler.
+   *
+   * @param plugin the plugin to schedule.
+   * @param sync the sync scheduler to schedule.
+   * @param async the async scheduler to schedule.
+   */
+  private void drive(@NotNull final Plugin.Container plugin, @NotNull final SyncScheduler sync,
+                     @NotNull final AsyncScheduler async) {
+    if (this.coalesced > 0) {
+      final var eventManager = this.server.eventManager();
+      for (var index = 0; index < this.events; index++) {
+        eventManager.post(new BenchmarkMoveEvent(index % this.coalesced, index, index + 1L));
+      }
+    } else {
+      final var eventManager = Shiruka.eventManager();
+      for (var index = 0; index < this.events; index++) {
+        eventManager.call(new BenchmarkEvent());
+      }
+    }
+    for (final var task : this.churned) {
+      task.cancel();
+    }
+    this.churned.clear();
+    for (var index = 0; index < this.churn; index++) {
+      this.churned.add(sync.execute(Task.syncBuilder()
+        .withPlugin(plugin)
+        .withName("Benchmark Churn")
+        .withDelay(TickBenchmark.CHURN_DELAY)
+        .withJob(task -> {
+        })
+        .build()));
+    }
+    for (var index = 0; index < this.asyncHandoffs; index++) {
+      async.execute(Task.asyncBuilder()
+        .withPlugin(plugin)
+        .withName("Benchmark Handoff")
+        .withJob(task -> {
+          this.work();
+          sync.execute(Task.syncBuilder()
+            .withPlugin(plugin)
+            .withName("Benchmark Handoff Result")
+            .withJob(result -> this.handoffs.increment())
+            .build());
+        })
+        .build());
+    }
+  }
+
+  /**
+   * does the synthetic work of a task.
+   */
+  private void work() {
+    var value = this.sink;
+    for (var index = 0; index < this.taskWork; index++) {
+      value = value * 31L + index;
+    }
+    this.sink = value;
+  }
+}
@@ -0,0 +1,202 @@
+package io.github.shiruka.shiruka.benchmark;
+
+import io.github.shiruka.shiruka.entity.EntityTracker;
+import io.github.shiruka.shiruka.entity.SpatialIndex;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that measures the entity tracking of many players among many moving entities.
+ * <p>
+ * the entities and the players are spread around hubs, as the players gather in the towns and the farms, and take
+ * a random walk every tick. after the warm-up the moves, the tracking deltas and the allocation of the main thread
+ * are measured and compared to the naive tracking which checks the distance of every player and entity pair.
+ */
+@Log4j2
+public final class TrackingBenchmark {
+
+  /**
+   * the players and the entities per hub.
+   */
+  private static final int HUB_SIZE = 200;
+
+  /**
+   * the spread around a hub in blocks.
+   */
+  private static final double HUB_SPREAD = 96.0D;
+
+  /**
+   * the measured ticks.
+   */
+  private static final int TICKS = 200;
+
+  /**
+   * the tracking range of the players in blocks.
+   */
+  private static final double RANGE = 64.0D;
+
+  /**
+   * the warm-up ticks.
+   */
+  private static final int WARMUP = 100;
+
+  /**
+   * the world size in blocks.
+   */
+  private static final double WORLD = 8192.0D;
+
+  /**
+   * the entity count, without the players.
+   */
+  private final int entities;
+
+  /**
+   * the player count.
+   */
+  private final int players;
+
+  /**
+   * the sink which keeps the naive tracking from being optimized away.
+   */
+  private volatile long sink;
+
+  /**
+   * ctor.
+   *
+   * @param entities the entity count, without the players.
+   * @param players the player count.
+   */
+  public TrackingBenchmark(final int entities, final int players) {
+    this.entities = entities;
+    this.players = players;
+  }
+
+  /**
+   * formats the given nanoseconds per tick as milliseconds.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds per tick.
+   */
+  @NotNull
+  private static String perTick(final long nanos) {
+    return "%.3f".formatted(nanos / (double) TrackingBenchmark.TICKS / TimeUnit.MILLISECONDS.toNanos(1L));
+  }
+
+  /**
+   * moves every entity and player a small random step.
+   *
+   * @param random the random to move.
+   * @param index the index to move.
+   * @param x the x positions.
+   * @param y the y positions.
+   * @param z the z positions.
+   */
+  private static void walk(@NotNull final SplittableRandom random, @NotNull final SpatialIndex index,
+                           @NotNull final double[] x, @NotNull final double[] y, @NotNull final double[] z) {
+    for (var id = 0; id < x.length; id++) {
+      x[id] += random.nextDouble(-0.5D, 0.5D);
+      z[id] += random.nextDouble(-0.5D, 0.5D);
+      index.move(id, x[id], y[id], z[id]);
+    }
+  }
+
+  /**
+   * runs the benchmark on the current thread and reports the results.
+   */
+  public void run() {
+    final var random = new SplittableRandom(1L);
+    final var total = this.entities + this.players;
+    final var hubs = Math.max(1, total / TrackingBenchmark.HUB_SIZE);
+    final var hubX = new double[hubs];
+    final var hubZ = new double[hubs];
+    for (var hub = 0; hub < hubs; hub++) {
+      hubX[hub] = random.nextDouble(TrackingBenchmark.WORLD);
+      hubZ[hub] = random.nextDouble(TrackingBenchmark.WORLD);
+    }
+    final var x = new double[total];
+    final var y = new double[total];
+    final var z = new double[total];
+    final var index = new SpatialIndex();
+    final var tracker = new EntityTracker(index);
+    for (var id = 0; id < total; id++) {
+      final var hub = random.nextInt(hubs);
+      x[id] = hubX[hub] + random.nextDouble(-TrackingBenchmark.HUB_SPREAD, TrackingBenchmark.HUB_SPREAD);
+      y[id] = 64.0D + random.nextDouble(16.0D);
+      z[id] = hubZ[hub] + random.nextDouble(-TrackingBenchmark.HUB_SPREAD, TrackingBenchmark.HUB_SPREAD);
+      index.add(id, x[id], y[id], z[id]);
+      if (id >= this.entities) {
+        tracker.addViewer(id, TrackingBenchmark.RANGE);
+      }
+    }
+    TrackingBenchmark.log.info("Benchmarking the tracking of {} entities by {} players in {} hub(s), {} blocks range",
+      this.entities, this.players, hubs, TrackingBenchmark.RANGE);
+    for (var tick = 0; tick < TrackingBenchmark.WARMUP; tick++) {
+      TrackingBenchmark.walk(random, index, x, y, z);
+      tracker.tick();
+    }
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var added = tracker.added();
+    final var removed = tracker.removed();
+    var moveTime = 0L;
+    var trackTime = 0L;
+    var visible = 0L;
+    final var allocated = threads.getCurrentThreadAllocatedBytes();
+    for (var tick = 0; tick < TrackingBenchmark.TICKS; tick++) {
+      final var start = System.nanoTime();
+      TrackingBenchmark.walk(random, index, x, y, z);
+      final var moved = System.nanoTime();
+      tracker.tick();
+      trackTime += System.nanoTime() - moved;
+      moveTime += moved - start;
+    }
+    final var allocatedPerTick = (threads.getCurrentThreadAllocatedBytes() - allocated) / TrackingBenchmark.TICKS;
+    for (var player = this.entities; player < total; player++) {
+      visible += tracker.visible(player);
+    }
+    var naiveTime = 0L;
+    var pairs = 0L;
+    for (var tick = 0; tick < TrackingBenchmark.TICKS; tick++) {
+      final var start = System.nanoTime();
+      pairs = this.naive(x, y, z);
+      naiveTime += System.nanoTime() - start;
+    }
+    this.sink = pairs;
+    TrackingBenchmark.log.info("  moves: {} ms/tick, {} section(s) occupied", TrackingBenchmark.perTick(moveTime),
+      index.sections());
+    TrackingBenchmark.log.info("  tracking: {} ms/tick, {} added and {} removed per tick, {} visible per player",
+      TrackingBenchmark.perTick(trackTime), (tracker.added() - added) / TrackingBenchmark.TICKS,
+      (tracker.removed() - removed) / TrackingBenchmark.TICKS, visible / this.players);
+    TrackingBenchmark.log.info("  naive tracking: {} ms/tick, {} visible per player",
+      TrackingBenchmark.perTick(naiveTime), pairs / this.players);
+    TrackingBenchmark.log.info("  allocation: {} bytes per tick on the main thread", allocatedPerTick);
+  }
+
+  /**
+   * counts the visible pairs by checking the distance of every player and entity pair.
+   *
+   * @param x the x positions.
+   * @param y the y positions.
+   * @param z the z positions.
+   *
+   * @return visible pair count.
+   */
+  private long naive(@NotNull final double[] x, @NotNull final double[] y, @NotNull final double[] z) {
+    final var range = TrackingBenchmark.RANGE * TrackingBenchmark.RANGE;
+    var visible = 0L;
+    for (var player = this.entities; player < x.length; player++) {
+      for (var entity = 0; entity < x.length; entity++) {
+        final var dx = x[entity] - x[player];
+        final var dy = y[entity] - y[player];
+        final var dz = z[entity] - z[player];
+        if (entity != player && dx * dx + dy * dy + dz * dz <= range) {
+          visible++;
+        }
+      }
+    }
+    return visible;
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains benchmark classes.
+ */
+package io.github.shiruka.shiruka.benchmark;
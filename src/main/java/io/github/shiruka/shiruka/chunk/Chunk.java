@@ -0,0 +1,355 @@
+package io.github.shiruka.shiruka.chunk;
+
+import io.netty.buffer.ByteBuf;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the loaded chunks of the overworld's height, from y -64 to 319.
+ * <p>
+ * the sub-chunks are allocated on their first non-air block, the biomes are kept in a paletted storage per
+ * sub-chunk which starts as a single value storage. every change gives the chunk a new {@link #version()}, which is
+ * unique among all the chunks, so encoded copies of the chunk can tell whether they are stale even across worlds and
+ * reloads. the chunks are not thread-safe, the owner of the chunk writes them.
+ */
+@Accessors(fluent = true)
+public final class Chunk {
+
+  /**
+   * the lowest sub-chunk index.
+   */
+  public static final int MIN_SECTION = -4;
+
+  /**
+   * the sub-chunk count.
+   */
+  public static final int SECTIONS = 24;
+
+  /**
+   * the lowest y.
+   */
+  public static final int MIN_Y = Chunk.MIN_SECTION << 4;
+
+  /**
+   * the highest y.
+   */
+  public static final int MAX_Y = (Chunk.MIN_SECTION + Chunk.SECTIONS << 4) - 1;
+
+  /**
+   * the last version which is given to a chunk.
+   */
+  private static final AtomicLong VERSIONS = new AtomicLong();
+
+  /**
+   * the runtime id of air.
+   */
+  private final int air;
+
+  /**
+   * the biomes of the sub-chunks.
+   */
+  private final PalettedStorage[] biomes = new PalettedStorage[Chunk.SECTIONS];
+
+  /**
+   * the heights of the columns, the y above their highest non-air block.
+   */
+  private final short[] heights = new short[256];
+
+  /**
+   * the sub-chunks, {@code null} until they have a block.
+   */
+  private final SubChunk[] sections = new SubChunk[Chunk.SECTIONS];
+
+  /**
+   * the chunk x.
+   */
+  @Getter
+  private final int x;
+
+  /**
+   * the chunk z.
+   */
+  @Getter
+  private final int z;
+
+  /**
+   * the block and biome changes.
+   */
+  private long changes;
+
+  /**
+   * the changes which the heights are computed for, -1 until they are computed.
+   */
+  private long heightsChanges = -1L;
+
+  /**
+   * the version, which is drawn again once the chunk changed since.
+   */
+  private long version = Chunk.VERSIONS.incrementAndGet();
+
+  /**
+   * the changes which the version is drawn for.
+   */
+  private long versionChanges;
+
+  /**
+   * ctor.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   * @param air the runtime id of air.
+   * @param biome the initial biome id.
+   */
+  public Chunk(final int x, final int z, final int air, final int biome) {
+    this.x = x;
+    this.z = z;
+    this.air = air;
+    for (var index = 0; index < Chunk.SECTIONS; index++) {
+      this.biomes[index] = new PalettedStorage(biome);
+    }
+  }
+
+  /**
+   * creates the key of the given chunk position.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   *
+   * @return key of the position.
+   */
+  public static long key(final int x, final int z) {
+    return (long) x << 32 | z & 0xFFFFFFFFL;
+  }
+
+  /**
+   * checks the given y.
+   *
+   * @param y the y to check.
+   *
+   * @return sub-chunk position of the y.
+   */
+  private static int section(final int y) {
+    if (y < Chunk.MIN_Y || y > Chunk.MAX_Y) {
+      throw new IllegalArgumentException("The y %d is out of the chunk's height!".formatted(y));
+    }
+    return (y >> 4) - Chunk.MIN_SECTION;
+  }
+
+  /**
+   * compacts the palettes and releases the sub-chunks which became empty.
+   */
+  public void compact() {
+    for (var index = 0; index < Chunk.SECTIONS; index++) {
+      final var section = this.sections[index];
+      if (section != null) {
+        section.compact();
+        if (section.isEmpty()) {
+          this.sections[index] = null;
+        }
+      }
+      this.biomes[index].compact();
+    }
+  }
+
+  /**
+   * obtains the biome id at the given position.
+   *
+   * @param x the x to get, from 0 to 15.
+   * @param y the y to get.
+   * @param z the z to get, from 0 to 15.
+   *
+   * @return biome id.
+   */
+  public int getBiome(final int x, final int y, final int z) {
+    return this.biomes[Chunk.section(y)].get(PalettedStorage.index(x, y & 15, z));
+  }
+
+  /**
+   * obtains the runtime id of the block at the given position.
+   *
+   * @param x the x to get, from 0 to 15.
+   * @param y the y to get.
+   * @param z the z to get, from 0 to 15.
+   *
+   * @return runtime id.
+   */
+  public int getBlock(final int x, final int y, final int z) {
+    return this.getBlock(x, y, z, 0);
+  }
+
+  /**
+   * obtains the runtime id of the block at the given position and layer.
+   *
+   * @param x the x to get, from 0 to 15.
+   * @param y the y to get.
+   * @param z the z to get, from 0 to 15.
+   * @param layer the layer to get, 0 or 1.
+   *
+   * @return runtime id.
+   */
+  public int getBlock(final int x, final int y, final int z, final int layer) {
+    final var section = this.sections[Chunk.section(y)];
+    return section == null ? this.air : section.get(x, y & 15, z, layer);
+  }
+
+  /**
+   * obtains the height of the given column, computing the heights again if a block changed since.
+   *
+   * @param x the x to get, from 0 to 15.
+   * @param z the z to get, from 0 to 15.
+   *
+   * @return the y above the highest non-air block, {@link #MIN_Y} if the column is empty.
+   */
+  public int height(final int x, final int z) {
+    if (this.heightsChanges != this.changes) {
+      this.updateHeights();
+    }
+    return this.heights[z << 4 | x];
+  }
+
+  /**
+   * estimates the heap bytes of the chunk.
+   *
+   * @return estimated bytes.
+   */
+  public long memoryUsage() {
+    var bytes = 48L + 2L * (16L + Chunk.SECTIONS * 4L) + 16L + this.heights.length * 2L;
+    for (var index = 0; index < Chunk.SECTIONS; index++) {
+      final var section = this.sections[index];
+      if (section != null) {
+        bytes += section.memoryUsage();
+      }
+      bytes += this.biomes[index].memoryUsage();
+    }
+    return bytes;
+  }
+
+  /**
+   * sets the biome id at the given position.
+   *
+   * @param x the x to set, from 0 to 15.
+   * @param y the y to set.
+   * @param z the z to set, from 0 to 15.
+   * @param biome the biome id to set.
+   */
+  public void setBiome(final int x, final int y, final int z, final int biome) {
+    this.biomes[Chunk.section(y)].set(PalettedStorage.index(x, y & 15, z), biome);
+    this.changes++;
+  }
+
+  /**
+   * sets the runtime id of the block at the given position.
+   *
+   * @param x the x to set, from 0 to 15.
+   * @param y the y to set.
+   * @param z the z to set, from 0 to 15.
+   * @param block the runtime id to set.
+   */
+  public void setBlock(final int x, final int y, final int z, final int block) {
+    this.setBlock(x, y, z, 0, block);
+  }
+
+  /**
+   * sets the runtime id of the block at the given position and layer.
+   *
+   * @param x the x to set, from 0 to 15.
+   * @param y the y to set.
+   * @param z the z to set, from 0 to 15.
+   * @param layer the layer to set, 0 or 1.
+   * @param block the runtime id to set.
+   */
+  public void setBlock(final int x, final int y, final int z, final int layer, final int block) {
+    final var index = Chunk.section(y);
+    var section = this.sections[index];
+    if (section == null) {
+      if (block == this.air) {
+        return;
+      }
+      section = new SubChunk(this.air);
+      this.sections[index] = section;
+    }
+    section.set(x, y & 15, z, layer, block);
+    this.changes++;
+  }
+
+  /**
+   * obtains the count of the sub-chunks which are sent, the ones above the highest non-empty sub-chunk are not.
+   *
+   * @return sub-chunk count.
+   */
+  public int subChunkCount() {
+    for (var index = Chunk.SECTIONS - 1; index >= 0; index--) {
+      final var section = this.sections[index];
+      if (section != null && !section.isEmpty()) {
+        return index + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * computes the heights of the columns, the generation's lighting stage calls this so the main thread finds them
+   * ready.
+   */
+  public void updateHeights() {
+    final var top = this.subChunkCount();
+    for (var x = 0; x < 16; x++) {
+      for (var z = 0; z < 16; z++) {
+        var height = Chunk.MIN_Y;
+        for (var index = top - 1; index >= 0 && height == Chunk.MIN_Y; index--) {
+          final var section = this.sections[index];
+          if (section == null) {
+            continue;
+          }
+          for (var y = 15; y >= 0; y--) {
+            if (section.get(x, y, z, 0) != this.air) {
+              height = (index + Chunk.MIN_SECTION << 4) + y + 1;
+              break;
+            }
+          }
+        }
+        this.heights[z << 4 | x] = (short) height;
+      }
+    }
+    this.heightsChanges = this.changes;
+  }
+
+  /**
+   * obtains the version of the chunk, which is unique among all the chunks and increases with every change, the
+   * cached packets of older versions are stale.
+   *
+   * @return version.
+   */
+  public long version() {
+    if (this.versionChanges != this.changes) {
+      this.versionChanges = this.changes;
+      this.version = Chunk.VERSIONS.incrementAndGet();
+    }
+    return this.version;
+  }
+
+  /**
+   * writes the payload of the level chunk packet.
+   * <p>
+   * the payload has the first {@link #subChunkCount()} sub-chunks, the biomes of every sub-chunk and the empty
+   * border block list, the block entities are not written.
+   *
+   * @param buffer the buffer to write.
+   *
+   * @return the sub-chunk count of the packet.
+   */
+  public int write(@NotNull final ByteBuf buffer) {
+    final var count = this.subChunkCount();
+    for (var index = 0; index < count; index++) {
+      final var section = this.sections[index];
+      (section == null ? new SubChunk(this.air) : section).write(buffer, index + Chunk.MIN_SECTION);
+    }
+    for (final var biome : this.biomes) {
+      biome.write(buffer);
+    }
+    buffer.writeByte(0);
+    return count;
+  }
+}
@@ -0,0 +1,371 @@
+package io.github.shiruka.shiruka.chunk;
+
+import io.github.shiruka.shiruka.network.VarInts;
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents bedrock edition's paletted storages of the 4096 values of a sub-chunk.
+ * <p>
+ * the values are stored as indexes into a palette, packed into ints with as few bits per entry as the palette needs
+ * and never across the word boundaries. a storage which holds a single value keeps neither the words nor the
+ * reverse lookup, so uniform sub-chunks, such as air, cost a few bytes. the palette grows to the next supported entry
+ * size when it is full and {@link #compact()} shrinks it back by dropping the unused values.
+ * <p>
+ * the storages are not thread-safe, the owner of the chunk writes them.
+ */
+public final class PalettedStorage {
+
+  /**
+   * the entry count.
+   */
+  public static final int SIZE = 4096;
+
+  /**
+   * the supported bits per entry.
+   */
+  private static final int[] BITS = {1, 2, 3, 4, 5, 6, 8, 16};
+
+  /**
+   * the palette.
+   */
+  private final IntArrayList palette = new IntArrayList(1);
+
+  /**
+   * the bits per entry, 0 for the single value storages.
+   */
+  private int bits;
+
+  /**
+   * the palette indexes of the values, {@code null} for the single value storages.
+   */
+  @Nullable
+  private Int2IntOpenHashMap indexes;
+
+  /**
+   * the entry mask.
+   */
+  private int mask;
+
+  /**
+   * the entries per word.
+   */
+  private int perWord;
+
+  /**
+   * the packed palette indexes, {@code null} for the single value storages.
+   */
+  @Nullable
+  private int[] words;
+
+  /**
+   * ctor.
+   *
+   * @param value the value of every entry.
+   */
+  public PalettedStorage(final int value) {
+    this.palette.add(value);
+  }
+
+  /**
+   * obtains the index of the given position.
+   *
+   * @param x the x to get.
+   * @param y the y to get.
+   * @param z the z to get.
+   *
+   * @return index in the bedrock edition's xzy order.
+   */
+  public static int index(final int x, final int y, final int z) {
+    return x << 8 | z << 4 | y;
+  }
+
+  /**
+   * obtains the smallest supported bits per entry which fits the given palette size.
+   *
+   * @param size the palette size to fit.
+   *
+   * @return bits per entry.
+   */
+  private static int bitsFor(final int size) {
+    for (final var bits : PalettedStorage.BITS) {
+      if (size <= 1 << bits) {
+        return bits;
+      }
+    }
+    throw new IllegalStateException("The palette is too big " + size);
+  }
+
+  /**
+   * obtains the bits per entry.
+   *
+   * @return bits per entry, 0 for the single value storages.
+   */
+  public int bitsPerEntry() {
+    return this.bits;
+  }
+
+  /**
+   * drops the values which no entry uses any more and packs the entries with the fewest bits.
+   */
+  public void compact() {
+    if (this.bits == 0) {
+      return;
+    }
+    final var words = this.words();
+    final var used = new boolean[this.palette.size()];
+    var usedCount = 0;
+    for (var index = 0; index < PalettedStorage.SIZE; index++) {
+      final var entry = this.raw(words, index);
+      if (!used[entry]) {
+        used[entry] = true;
+        usedCount++;
+      }
+    }
+    if (usedCount == this.palette.size() && PalettedStorage.bitsFor(usedCount) == this.bits) {
+      return;
+    }
+    if (usedCount == 1) {
+      this.fill(this.get(0));
+      return;
+    }
+    final var remap = new int[this.palette.size()];
+    final var palette = new IntArrayList(usedCount);
+    final var indexes = new Int2IntOpenHashMap(usedCount);
+    indexes.defaultReturnValue(-1);
+    for (var entry = 0; entry < used.length; entry++) {
+      if (used[entry]) {
+        remap[entry] = palette.size();
+        indexes.put(this.palette.getInt(entry), palette.size());
+        palette.add(this.palette.getInt(entry));
+      }
+    }
+    final var oldBits = this.bits;
+    final var oldMask = this.mask;
+    final var oldPerWord = this.perWord;
+    this.resize(PalettedStorage.bitsFor(usedCount));
+    final var packed = this.words();
+    for (var index = 0; index < PalettedStorage.SIZE; index++) {
+      final var entry = words[index / oldPerWord] >>> index % oldPerWord * oldBits & oldMask;
+      this.write(packed, index, remap[entry]);
+    }
+    this.palette.clear();
+    this.palette.addAll(palette);
+    this.indexes = indexes;
+  }
+
+  /**
+   * sets every entry to the given value and switches to the single value storage.
+   *
+   * @param value the value to fill.
+   */
+  public void fill(final int value) {
+    this.palette.clear();
+    this.palette.add(value);
+    this.indexes = null;
+    this.words = null;
+    this.bits = 0;
+    this.mask = 0;
+    this.perWord = 0;
+  }
+
+  /**
+   * obtains the value of the given index.
+   *
+   * @param index the index to get.
+   *
+   * @return value.
+   */
+  public int get(final int index) {
+    if (this.bits == 0) {
+      return this.palette.getInt(0);
+    }
+    return this.palette.getInt(this.raw(this.words(), index));
+  }
+
+  /**
+   * checks if every entry has the given value.
+   *
+   * @param value the value to check.
+   *
+   * @return {@code true} if the storage is a single value storage of the value.
+   */
+  public boolean isUniform(final int value) {
+    return this.bits == 0 && this.palette.getInt(0) == value;
+  }
+
+  /**
+   * estimates the heap bytes of the storage.
+   *
+   * @return estimated bytes.
+   */
+  public long memoryUsage() {
+    var bytes = 24L + 24L + 16L + (long) this.palette.elements().length * 4L;
+    if (this.words != null) {
+      bytes += 16L + this.words.length * 4L;
+    }
+    if (this.indexes != null) {
+      bytes += 64L + (this.indexes.size() * 4L / 3L + 2L) * 8L;
+    }
+    return bytes;
+  }
+
+  /**
+   * obtains the palette size.
+   *
+   * @return palette size.
+   */
+  public int paletteSize() {
+    return this.palette.size();
+  }
+
+  /**
+   * sets the value of the given index.
+   *
+   * @param index the index to set.
+   * @param value the value to set.
+   */
+  public void set(final int index, final int value) {
+    if (this.bits == 0 && this.palette.getInt(0) == value) {
+      return;
+    }
+    final var entry = this.entry(value);
+    this.write(this.words(), index, entry);
+  }
+
+  /**
+   * writes the storage in the network format.
+   * <p>
+   * the header has the bits per entry and the runtime flag, the words follow in little endian and the palette size
+   * and the values are zigzag var ints. a single value storage writes only its value.
+   *
+   * @param buffer the buffer to write.
+   */
+  public void write(@NotNull final ByteBuf buffer) {
+    buffer.writeByte(this.bits << 1 | 1);
+    if (this.bits == 0) {
+      VarInts.writeSigned(buffer, this.palette.getInt(0));
+      return;
+    }
+    for (final var word : this.words()) {
+      buffer.writeIntLE(word);
+    }
+    VarInts.writeSigned(buffer, this.palette.size());
+    for (var index = 0; index < this.palette.size(); index++) {
+      VarInts.writeSigned(buffer, this.palette.getInt(index));
+    }
+  }
+
+  /**
+   * obtains the palette index of the given value, adding it to the palette and growing the words if needed.
+   *
+   * @param value the value to get.
+   *
+   * @return palette index.
+   */
+  private int entry(final int value) {
+    if (this.bits == 0) {
+      final var indexes = new Int2IntOpenHashMap(4);
+      indexes.defaultReturnValue(-1);
+      indexes.put(this.palette.getInt(0), 0);
+      this.indexes = indexes;
+      this.resize(PalettedStorage.BITS[0]);
+    } else {
+      final var entry = this.indexes().get(value);
+      if (entry != -1) {
+        return entry;
+      }
+    }
+    final var entry = this.palette.size();
+    if (entry >= 1 << this.bits) {
+      this.grow(PalettedStorage.bitsFor(entry + 1));
+    }
+    this.palette.add(value);
+    this.indexes().put(value, entry);
+    return entry;
+  }
+
+  /**
+   * repacks the words with the given bits per entry, keeping the palette indexes.
+   *
+   * @param bits the bits to grow.
+   */
+  private void grow(final int bits) {
+    final var words = this.words();
+    final var oldBits = this.bits;
+    final var oldMask = this.mask;
+    final var oldPerWord = this.perWord;
+    this.resize(bits);
+    final var packed = this.words();
+    for (var index = 0; index < PalettedStorage.SIZE; index++) {
+      this.write(packed, index, words[index / oldPerWord] >>> index % oldPerWord * oldBits & oldMask);
+    }
+  }
+
+  /**
+   * obtains the reverse lookup of a storage which is not a single value one.
+   *
+   * @return palette indexes of the values.
+   */
+  @NotNull
+  private Int2IntOpenHashMap indexes() {
+    final var indexes = this.indexes;
+    if (indexes == null) {
+      throw new IllegalStateException("The storage has a single value!");
+    }
+    return indexes;
+  }
+
+  /**
+   * reads the palette index of the given index.
+   *
+   * @param words the words to read.
+   * @param index the index to read.
+   *
+   * @return palette index.
+   */
+  private int raw(final int @NotNull [] words, final int index) {
+    return words[index / this.perWord] >>> index % this.perWord * this.bits & this.mask;
+  }
+
+  /**
+   * allocates empty words with the given bits per entry.
+   *
+   * @param bits the bits to allocate.
+   */
+  private void resize(final int bits) {
+    this.bits = bits;
+    this.mask = (1 << bits) - 1;
+    this.perWord = 32 / bits;
+    this.words = new int[(PalettedStorage.SIZE + this.perWord - 1) / this.perWord];
+  }
+
+  /**
+   * obtains the words of a storage which is not a single value one.
+   *
+   * @return words.
+   */
+  private int @NotNull [] words() {
+    final var words = this.words;
+    if (words == null) {
+      throw new IllegalStateException("The storage has a single value!");
+    }
+    return words;
+  }
+
+  /**
+   * writes the palette index of the given index.
+   *
+   * @param words the words to write.
+   * @param index the index to write.
+   * @param entry the palette index to write.
+   */
+  private void write(final int @NotNull [] words, final int index, final int entry) {
+    final var word = index / this.perWord;
+    final var shift = index % this.perWord * this.bits;
+    words[word] = words[word] & ~(this.mask << shift) | entry << shift;
+  }
+}
@@ -0,0 +1,133 @@
+package io.github.shiruka.shiruka.chunk;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the 16x16x16 block sections of a chunk.
+ * <p>
+ * the first layer holds the blocks and the second one, which is allocated on its first non-air block, holds the
+ * blocks which share the position, such as the water of the waterlogged blocks.
+ */
+public final class SubChunk {
+
+  /**
+   * the network format version which has the sub-chunk index.
+   */
+  private static final int VERSION = 9;
+
+  /**
+   * the runtime id of air.
+   */
+  private final int air;
+
+  /**
+   * the block layer.
+   */
+  @NotNull
+  private final PalettedStorage blocks;
+
+  /**
+   * the extra block layer, {@code null} until a block is set in it.
+   */
+  @Nullable
+  private PalettedStorage extra;
+
+  /**
+   * ctor.
+   *
+   * @param air the runtime id of air.
+   */
+  public SubChunk(final int air) {
+    this.air = air;
+    this.blocks = new PalettedStorage(air);
+  }
+
+  /**
+   * compacts the palettes of the layers and releases the extra layer if it is all air.
+   */
+  public void compact() {
+    this.blocks.compact();
+    if (this.extra != null) {
+      this.extra.compact();
+      if (this.extra.isUniform(this.air)) {
+        this.extra = null;
+      }
+    }
+  }
+
+  /**
+   * obtains the runtime id of the block at the given position.
+   *
+   * @param x the x to get, from 0 to 15.
+   * @param y the y to get, from 0 to 15.
+   * @param z the z to get, from 0 to 15.
+   * @param layer the layer to get, 0 or 1.
+   *
+   * @return runtime id.
+   */
+  public int get(final int x, final int y, final int z, final int layer) {
+    if (layer == 0) {
+      return this.blocks.get(PalettedStorage.index(x, y, z));
+    }
+    return this.extra == null ? this.air : this.extra.get(PalettedStorage.index(x, y, z));
+  }
+
+  /**
+   * checks if every block of the sub-chunk is air.
+   *
+   * @return {@code true} if the sub-chunk is empty.
+   */
+  public boolean isEmpty() {
+    return this.blocks.isUniform(this.air) && (this.extra == null || this.extra.isUniform(this.air));
+  }
+
+  /**
+   * estimates the heap bytes of the sub-chunk.
+   *
+   * @return estimated bytes.
+   */
+  public long memoryUsage() {
+    return 24L + this.blocks.memoryUsage() + (this.extra == null ? 0L : this.extra.memoryUsage());
+  }
+
+  /**
+   * sets the runtime id of the block at the given position.
+   *
+   * @param x the x to set, from 0 to 15.
+   * @param y the y to set, from 0 to 15.
+   * @param z the z to set, from 0 to 15.
+   * @param layer the layer to set, 0 or 1.
+   * @param block the runtime id to set.
+   */
+  public void set(final int x, final int y, final int z, final int layer, final int block) {
+    if (layer == 0) {
+      this.blocks.set(PalettedStorage.index(x, y, z), block);
+      return;
+    }
+    if (this.extra == null) {
+      if (block == this.air) {
+        return;
+      }
+      this.extra = new PalettedStorage(this.air);
+    }
+    this.extra.set(PalettedStorage.index(x, y, z), block);
+  }
+
+  /**
+   * writes the sub-chunk in the network format.
+   *
+   * @param buffer the buffer to write.
+   * @param index the sub-chunk index of the sub-chunk.
+   */
+  public void write(@NotNull final ByteBuf buffer, final int index) {
+    buffer.writeByte(SubChunk.VERSION);
+    buffer.writeByte(this.extra == null ? 1 : 2);
+    buffer.writeByte(index);
+    this.blocks.write(buffer);
+    if (this.extra != null) {
+      this.extra.write(buffer);
+    }
+  }
+}
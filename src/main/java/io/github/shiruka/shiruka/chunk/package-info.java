@@ -0,0 +1,4 @@
+/**
+ * the package that contains chunk classes.
+ */
+package io.github.shiruka.shiruka.chunk;
@@ -0,0 +1,85 @@
+package io.github.shiruka.shiruka.console;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jline.reader.Candidate;
+import org.jline.reader.Completer;
+import org.jline.reader.LineReader;
+import org.jline.reader.ParsedLine;
+
+/**
+ * a class that completes the console lines on the console worker and caches the suggestions by the typed text.
+ * <p>
+ * the console thread waits only a short while for the suggestions, when they are not ready yet the tab press shows
+ * nothing and the next one is answered from the cache.
+ */
+@Log4j2
+final class CachedCompleter implements Completer {
+
+  /**
+   * the time which the console thread waits for the suggestions in milliseconds.
+   */
+  private static final long TIMEOUT = 50L;
+
+  /**
+   * the suggestions by the typed text.
+   */
+  private final Cache<String, CompletableFuture<List<String>>> cache = CacheBuilder.newBuilder()
+    .maximumSize(256L)
+    .expireAfterWrite(5L, TimeUnit.SECONDS)
+    .build();
+
+  /**
+   * the commands.
+   */
+  @NotNull
+  private final ConsoleCommands commands;
+
+  /**
+   * the worker.
+   */
+  @NotNull
+  private final Executor worker;
+
+  /**
+   * ctor.
+   *
+   * @param commands the commands.
+   * @param worker the worker.
+   */
+  CachedCompleter(@NotNull final ConsoleCommands commands, @NotNull final Executor worker) {
+    this.commands = commands;
+    this.worker = worker;
+  }
+
+  @Override
+  public void complete(final LineReader reader, final ParsedLine line, final List<Candidate> candidates) {
+    final var typed = line.line().substring(0, line.cursor());
+    final CompletableFuture<List<String>> future;
+    try {
+      future = this.cache.get(typed, () -> CompletableFuture.supplyAsync(() -> this.commands.complete(typed),
+        this.worker));
+    } catch (final ExecutionException e) {
+      return;
+    }
+    try {
+      for (final var suggestion : future.get(CachedCompleter.TIMEOUT, TimeUnit.MILLISECONDS)) {
+        candidates.add(new Candidate(suggestion));
+      }
+    } catch (final TimeoutException ignored) {
+    } catch (final ExecutionException e) {
+      this.cache.invalidate(typed);
+      CachedCompleter.log.debug("Could not complete '{}':", typed, e.getCause());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package io.github.shiruka.shiruka.console;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine commands which are typed into the server console.
+ */
+@FunctionalInterface
+public interface ConsoleCommand {
+
+  /**
+   * obtains the suggestions of the last argument.
+   * <p>
+   * called by the console worker thread, never by the main thread, so implementations must only read thread-safe
+   * state.
+   *
+   * @param args the args which are typed so far, the last one may be empty.
+   *
+   * @return suggestions.
+   */
+  @NotNull
+  default List<String> complete(@NotNull final List<String> args) {
+    return List.of();
+  }
+
+  /**
+   * executes the command.
+   *
+   * @param args the args to execute.
+   */
+  void execute(@NotNull List<String> args);
+}
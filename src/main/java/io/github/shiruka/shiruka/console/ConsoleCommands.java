@@ -0,0 +1,213 @@
+package io.github.shiruka.shiruka.console;
+
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that contains the console commands and the queue of the typed lines.
+ * <p>
+ * the console thread only queues the lines, the main thread runs the sync commands at the start of the next tick and
+ * the other commands run on the console worker, so neither reading the console nor a slow command stalls the other.
+ */
+@Log4j2
+public final class ConsoleCommands {
+
+  /**
+   * the maximum commands which the main thread runs per tick.
+   */
+  private static final int MAX_COMMANDS_PER_TICK = 16;
+
+  /**
+   * the commands.
+   */
+  private final Map<String, Registration> commands = new ConcurrentSkipListMap<>();
+
+  /**
+   * the lines which wait for the main thread.
+   */
+  private final Queue<String> lines = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the worker.
+   */
+  @NotNull
+  private final Executor worker;
+
+  /**
+   * ctor.
+   *
+   * @param worker the worker which runs the completions and the commands that are not sync.
+   */
+  public ConsoleCommands(@NotNull final Executor worker) {
+    this.worker = worker;
+  }
+
+  /**
+   * splits the given line into arguments, a trailing space adds an empty argument.
+   *
+   * @param line the line to split.
+   *
+   * @return arguments.
+   */
+  @NotNull
+  private static List<String> split(@NotNull final String line) {
+    final var stripped = line.stripLeading();
+    if (stripped.isEmpty()) {
+      return List.of("");
+    }
+    return Arrays.asList(stripped.split(" +", -1));
+  }
+
+  /**
+   * obtains the suggestions of the last word of the given line.
+   *
+   * @param line the line to complete.
+   *
+   * @return suggestions.
+   */
+  @NotNull
+  public List<String> complete(@NotNull final String line) {
+    final var args = ConsoleCommands.split(line);
+    final var last = args.get(args.size() - 1);
+    if (args.size() == 1) {
+      final var suggestions = new ArrayList<String>();
+      for (final var name : this.commands.keySet()) {
+        if (name.startsWith(last.toLowerCase(Locale.ROOT))) {
+          suggestions.add(name);
+        }
+      }
+      return suggestions;
+    }
+    final var registration = this.commands.get(args.get(0).toLowerCase(Locale.ROOT));
+    if (registration == null) {
+      return List.of();
+    }
+    final var suggestions = new ArrayList<String>();
+    for (final var suggestion : registration.command().complete(args.subList(1, args.size()))) {
+      if (suggestion.regionMatches(true, 0, last, 0, last.length())) {
+        suggestions.add(suggestion);
+      }
+    }
+    return suggestions;
+  }
+
+  /**
+   * runs the queued lines of the sync commands.
+   * <p>
+   * called at the start of every tick by the main thread, at most {@value #MAX_COMMANDS_PER_TICK} commands run per
+   * tick and the rest waits for the next ticks.
+   */
+  public void drain() {
+    for (var index = 0; index < ConsoleCommands.MAX_COMMANDS_PER_TICK; index++) {
+      final var line = this.lines.poll();
+      if (line == null) {
+        return;
+      }
+      this.dispatch(line);
+    }
+  }
+
+  /**
+   * obtains the usage lines of the commands.
+   *
+   * @return usage lines.
+   */
+  @NotNull
+  public List<String> help() {
+    final var help = new ArrayList<String>();
+    for (final var registration : this.commands.values()) {
+      help.add("%s - %s".formatted(registration.usage(), registration.description()));
+    }
+    return help;
+  }
+
+  /**
+   * registers the given command.
+   *
+   * @param name the name to register.
+   * @param usage the usage to register.
+   * @param description the description to register.
+   * @param sync {@code true} to run the command on the main thread, {@code false} to run it on the console worker.
+   * @param command the command to register.
+   */
+  public void register(@NotNull final String name, @NotNull final String usage, @NotNull final String description,
+                       final boolean sync, @NotNull final ConsoleCommand command) {
+    final var key = name.toLowerCase(Locale.ROOT);
+    Preconditions.checkArgument(!key.isBlank() && key.indexOf(' ') < 0, "Invalid command name: '%s'", name);
+    Preconditions.checkState(this.commands.putIfAbsent(key, new Registration(usage, description, sync, command))
+      == null, "The command '%s' is already registered!", key);
+  }
+
+  /**
+   * queues the given typed line, this is safe to call by any thread.
+   *
+   * @param line the line to submit.
+   */
+  public void submit(@NotNull final String line) {
+    final var trimmed = line.trim();
+    if (trimmed.isEmpty()) {
+      return;
+    }
+    final var registration = this.commands.get(ConsoleCommands.split(trimmed).get(0).toLowerCase(Locale.ROOT));
+    if (registration != null && !registration.sync()) {
+      this.worker.execute(() -> this.dispatch(trimmed));
+    } else {
+      this.lines.add(trimmed);
+    }
+  }
+
+  /**
+   * unregisters the given command.
+   *
+   * @param name the name to unregister.
+   */
+  public void unregister(@NotNull final String name) {
+    this.commands.remove(name.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * runs the given line.
+   *
+   * @param line the line to dispatch.
+   */
+  private void dispatch(@NotNull final String line) {
+    final var args = ConsoleCommands.split(line);
+    final var registration = this.commands.get(args.get(0).toLowerCase(Locale.ROOT));
+    if (registration == null) {
+      ConsoleCommands.log.warn("Unknown command '{}', type 'help' for the commands.", args.get(0));
+      return;
+    }
+    try {
+      registration.command().execute(args.subList(1, args.size()));
+    } catch (final Exception e) {
+      ConsoleCommands.log.error("An exception occurred while running the command '{}':", line, e);
+    }
+  }
+
+  /**
+   * a record class that represents registered commands.
+   *
+   * @param usage the usage.
+   * @param description the description.
+   * @param sync the sync.
+   * @param command the command.
+   */
+  private record Registration(
+    @NotNull String usage,
+    @NotNull String description,
+    boolean sync,
+    @NotNull ConsoleCommand command
+  ) {
+
+  }
+}
@@ -0,0 +1,90 @@
+package io.github.shiruka.shiruka.console;
+
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import net.minecrell.terminalconsole.SimpleTerminalConsole;
+import org.jetbrains.annotations.NotNull;
+import org.jline.reader.LineReader;
+import org.jline.reader.LineReaderBuilder;
+
+/**
+ * a class that reads the server console on its own thread and hands the typed lines over to the commands.
+ * <p>
+ * the log lines are printed above the prompt by the terminal console appender, and since the loggers are
+ * asynchronous, neither a slow terminal nor a flood of log lines blocks the main thread.
+ */
+public final class ShirukaConsole extends SimpleTerminalConsole {
+
+  /**
+   * the commands.
+   */
+  @NotNull
+  private final ConsoleCommands commands;
+
+  /**
+   * the history file.
+   */
+  @NotNull
+  private final Path history;
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the worker.
+   */
+  @NotNull
+  private final Executor worker;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param commands the commands.
+   * @param worker the worker which computes the completions.
+   * @param history the history file.
+   */
+  public ShirukaConsole(@NotNull final ShirukaServer server, @NotNull final ConsoleCommands commands,
+                        @NotNull final Executor worker, @NotNull final Path history) {
+    this.server = server;
+    this.commands = commands;
+    this.worker = worker;
+    this.history = history;
+  }
+
+  /**
+   * starts reading the console on a new daemon thread.
+   */
+  public void startThread() {
+    final var thread = new Thread(this::start, "Shiru ka Console Thread");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  protected LineReader buildReader(final LineReaderBuilder builder) {
+    return super.buildReader(builder
+      .appName("Shiru ka")
+      .variable(LineReader.HISTORY_FILE, this.history)
+      .completer(new CachedCompleter(this.commands, this.worker)));
+  }
+
+  @Override
+  protected boolean isRunning() {
+    return this.server.running();
+  }
+
+  @Override
+  protected void runCommand(final String command) {
+    this.commands.submit(command);
+  }
+
+  @Override
+  protected void shutdown() {
+    this.server.stop();
+  }
+}
@@ -0,0 +1,567 @@
+package io.github.shiruka.shiruka.data;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.github.shiruka.api.scheduler.ScheduledTask;
+import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.metrics.Histogram;
+import io.github.shiruka.shiruka.scheduler.AsyncScheduler;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the write-behind storage of the plugins' and the players' data files.
+ * <p>
+ * the writes only replace the file's pending value in memory, so the repeated writes of a file between two flushes
+ * are coalesced and the main thread never touches the disk. the pending values are flushed on the async scheduler
+ * every flush interval in batches, a batch writes every file to a temporary file next to it, forces them all to the
+ * disk, moves them over the files atomically and forces each directory once, so a crash leaves either the old or
+ * the new file. the failed files stay pending and are retried by the next flush. the reads see the pending values
+ * first, then a cache of the recently read and written files which is bounded by bytes, and only then read the disk
+ * on the async scheduler. the last flush runs when the storage is closed.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class DataStorage {
+
+  /**
+   * the files which are written by a flush batch.
+   */
+  private static final int BATCH = 128;
+
+  /**
+   * the cached value of the files which do not exist.
+   */
+  private static final byte[] MISSING = new byte[0];
+
+  /**
+   * the suffix of the temporary files.
+   */
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  /**
+   * the cache.
+   */
+  private final Cache<Path, byte[]> cache;
+
+  /**
+   * the writes which replaced a pending value.
+   */
+  private final LongAdder coalesced = new LongAdder();
+
+  /**
+   * the directory.
+   */
+  @NotNull
+  @Getter
+  private final Path directory;
+
+  /**
+   * the pending values by file.
+   */
+  private final Map<Path, Pending> dirty = new ConcurrentHashMap<>();
+
+  /**
+   * the files which could not be flushed.
+   */
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * the lock which lets one flush run at a time.
+   */
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  /**
+   * the files which are flushed.
+   */
+  private final LongAdder flushed = new LongAdder();
+
+  /**
+   * the time from a file's first pending write to its flush in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram flushLag = new Histogram();
+
+  /**
+   * the reads which were answered from the memory.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * the reads which read the disk.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * the scheduler.
+   */
+  @NotNull
+  private final AsyncScheduler scheduler;
+
+  /**
+   * the writes.
+   */
+  private final LongAdder writes = new LongAdder();
+
+  /**
+   * the closed.
+   */
+  private volatile boolean closed;
+
+  /**
+   * the repeating flush task.
+   */
+  @Nullable
+  private ScheduledTask flushTask;
+
+  /**
+   * ctor.
+   *
+   * @param directory the directory which the keys are resolved against.
+   * @param cacheBytes the maximum bytes of the cached files.
+   * @param flushInterval the ticks between two flushes.
+   * @param scheduler the scheduler.
+   */
+  public DataStorage(@NotNull final Path directory, final long cacheBytes, final long flushInterval,
+                     @NotNull final AsyncScheduler scheduler) {
+    this.directory = directory.toAbsolutePath().normalize();
+    this.scheduler = scheduler;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(cacheBytes)
+      .<Path, byte[]>weigher((key, value) -> value.length)
+      .build();
+    this.flushTask = scheduler.execute(Task.asyncBuilder()
+      .withPlugin(ShirukaServer.getInternalPlugin())
+      .withName("Data Storage Flush")
+      .withDelay(flushInterval)
+      .withInterval(flushInterval)
+      .withJob(task -> this.flush(false))
+      .build());
+  }
+
+  /**
+   * closes the given channel and ignores the failure.
+   *
+   * @param channel the channel to close.
+   */
+  private static void closeQuietly(@Nullable final FileChannel channel) {
+    if (channel == null) {
+      return;
+    }
+    try {
+      channel.close();
+    } catch (final IOException ignored) {
+    }
+  }
+
+  /**
+   * copies the given value.
+   *
+   * @param value the value to copy.
+   *
+   * @return copied value, {@code null} if the value is missing.
+   */
+  @Nullable
+  private static byte[] copy(@Nullable final byte[] value) {
+    return value == null || value == DataStorage.MISSING ? null : value.clone();
+  }
+
+  /**
+   * forces the given directory to the disk, so the moves into it survive a crash.
+   *
+   * @param directory the directory to force.
+   */
+  private static void forceDirectory(@NotNull final Path directory) {
+    try (final var channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (final IOException e) {
+      // the directories can not be opened on some platforms, the moves are still atomic there.
+      DataStorage.log.debug("Could not force the directory {}:", directory, e);
+    }
+  }
+
+  /**
+   * reads the given file.
+   *
+   * @param file the file to read.
+   *
+   * @return contents of the file, or {@link #MISSING} if the file does not exist.
+   *
+   * @throws IOException if the file could not be read.
+   */
+  @NotNull
+  private static byte[] load(@NotNull final Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return DataStorage.MISSING;
+    }
+    return Files.readAllBytes(file);
+  }
+
+  /**
+   * flushes the pending values and stops the flushes, the later writes are refused.
+   */
+  public void close() {
+    this.closed = true;
+    final var task = this.flushTask;
+    if (task != null) {
+      task.cancel();
+      this.flushTask = null;
+    }
+    this.flush(true);
+    if (!this.dirty.isEmpty()) {
+      DataStorage.log.error("Could not flush {} data file(s) in {}!", this.dirty.size(), this.directory);
+    }
+  }
+
+  /**
+   * obtains the writes which replaced a pending value.
+   *
+   * @return coalesced write count.
+   */
+  public long coalesced() {
+    return this.coalesced.sum();
+  }
+
+  /**
+   * deletes the file of the given key with the next flush.
+   *
+   * @param key the key to delete.
+   *
+   * @throws IllegalArgumentException if the key leaves the directory.
+   * @throws IllegalStateException if the storage is closed.
+   */
+  public void delete(@NotNull final String key) {
+    this.put(this.resolve(key), null);
+  }
+
+  /**
+   * obtains the count of the files which wait for a flush.
+   *
+   * @return dirty file count.
+   */
+  public int dirty() {
+    return this.dirty.size();
+  }
+
+  /**
+   * obtains the files which could not be flushed.
+   *
+   * @return failure count.
+   */
+  public long failures() {
+    return this.failures.sum();
+  }
+
+  /**
+   * flushes the pending values.
+   *
+   * @param wait whether to wait for a running flush, otherwise the flush is skipped if another one runs.
+   *
+   * @return flushed file count.
+   */
+  public int flush(final boolean wait) {
+    if (wait) {
+      this.flushLock.lock();
+    } else if (!this.flushLock.tryLock()) {
+      return 0;
+    }
+    try {
+      var flushed = 0;
+      final var batch = new ArrayList<Map.Entry<Path, Pending>>(DataStorage.BATCH);
+      for (final var entry : this.dirty.entrySet()) {
+        batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        if (batch.size() == DataStorage.BATCH) {
+          flushed += this.flushBatch(batch);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        flushed += this.flushBatch(batch);
+      }
+      return flushed;
+    } finally {
+      this.flushLock.unlock();
+    }
+  }
+
+  /**
+   * obtains the files which are flushed.
+   *
+   * @return flushed file count.
+   */
+  public long flushed() {
+    return this.flushed.sum();
+  }
+
+  /**
+   * obtains the reads which were answered from the memory.
+   *
+   * @return hit count.
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * obtains the time since the oldest pending write.
+   *
+   * @return the oldest pending write's age in nanoseconds, 0 if nothing is pending.
+   */
+  public long lag() {
+    final var now = System.nanoTime();
+    var lag = 0L;
+    for (final var pending : this.dirty.values()) {
+      lag = Math.max(lag, now - pending.since());
+    }
+    return lag;
+  }
+
+  /**
+   * obtains the reads which read the disk.
+   *
+   * @return miss count.
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * reads the value of the given key, the pending and the cached values are returned without reading the disk.
+   *
+   * @param key the key to read.
+   *
+   * @return a future which completes with a copy of the value, or {@code null} if the file does not exist.
+   *
+   * @throws IllegalArgumentException if the key leaves the directory.
+   */
+  @NotNull
+  public CompletableFuture<byte[]> read(@NotNull final String key) {
+    final var file = this.resolve(key);
+    final var pending = this.dirty.get(file);
+    if (pending != null) {
+      this.hits.increment();
+      return CompletableFuture.completedFuture(DataStorage.copy(pending.value()));
+    }
+    final var cached = this.cache.getIfPresent(file);
+    if (cached != null) {
+      this.hits.increment();
+      return CompletableFuture.completedFuture(DataStorage.copy(cached));
+    }
+    this.misses.increment();
+    final var future = new CompletableFuture<byte[]>();
+    this.scheduler.execute(Task.asyncBuilder()
+      .withPlugin(ShirukaServer.getInternalPlugin())
+      .withName("Data Storage Read")
+      .withJob(task -> {
+        try {
+          final var loaded = this.cache.get(file, () -> DataStorage.load(file));
+          final var written = this.dirty.get(file);
+          future.complete(DataStorage.copy(written == null ? loaded : written.value()));
+        } catch (final ExecutionException e) {
+          future.completeExceptionally(e.getCause());
+        } catch (final RuntimeException e) {
+          future.completeExceptionally(e);
+        }
+      })
+      .build());
+    return future;
+  }
+
+  /**
+   * writes the given value to the file of the given key with the next flush.
+   *
+   * @param key the key to write.
+   * @param value the value to write, it is copied.
+   *
+   * @throws IllegalArgumentException if the key leaves the directory.
+   * @throws IllegalStateException if the storage is closed.
+   */
+  public void write(@NotNull final String key, @NotNull final byte[] value) {
+    this.put(this.resolve(key), value.clone());
+  }
+
+  /**
+   * obtains the writes.
+   *
+   * @return write count.
+   */
+  public long writes() {
+    return this.writes.sum();
+  }
+
+  /**
+   * writes, forces and moves the given pending values, then removes the ones which are not written again meanwhile.
+   *
+   * @param batch the batch to flush.
+   *
+   * @return flushed file count.
+   */
+  private int flushBatch(@NotNull final List<Map.Entry<Path, Pending>> batch) {
+    final var staged = new ArrayList<Staged>(batch.size());
+    for (final var entry : batch) {
+      final var file = entry.getKey();
+      final var pending = entry.getValue();
+      final var value = pending.value();
+      if (value == null) {
+        staged.add(new Staged(file, pending, null, null));
+        continue;
+      }
+      final var temp = file.resolveSibling(file.getFileName() + DataStorage.TEMP_SUFFIX);
+      FileChannel channel = null;
+      try {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+        final var buffer = ByteBuffer.wrap(value);
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        staged.add(new Staged(file, pending, temp, channel));
+      } catch (final IOException e) {
+        this.fail(file, e);
+        DataStorage.closeQuietly(channel);
+      }
+    }
+    for (final var iterator = staged.iterator(); iterator.hasNext();) {
+      final var stage = iterator.next();
+      if (stage.channel() == null) {
+        continue;
+      }
+      try (final var channel = stage.channel()) {
+        channel.force(true);
+      } catch (final IOException e) {
+        this.fail(stage.file(), e);
+        iterator.remove();
+      }
+    }
+    final var directories = new HashSet<Path>();
+    final var moved = new ArrayList<Staged>(staged.size());
+    for (final var stage : staged) {
+      try {
+        if (stage.temp() == null) {
+          Files.deleteIfExists(stage.file());
+        } else {
+          Files.move(stage.temp(), stage.file(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        }
+        directories.add(stage.file().getParent());
+        moved.add(stage);
+      } catch (final IOException e) {
+        this.fail(stage.file(), e);
+      }
+    }
+    directories.forEach(DataStorage::forceDirectory);
+    final var now = System.nanoTime();
+    for (final var stage : moved) {
+      final var pending = stage.pending();
+      this.dirty.remove(stage.file(), pending);
+      this.flushLag.record(now - pending.since());
+    }
+    this.flushed.add(moved.size());
+    return moved.size();
+  }
+
+  /**
+   * reports a file which could not be flushed, it stays pending for the next flush.
+   *
+   * @param file the file to report.
+   * @param exception the exception to report.
+   */
+  private void fail(@NotNull final Path file, @NotNull final IOException exception) {
+    this.failures.increment();
+    DataStorage.log.error("Could not flush the data file {}:", file, exception);
+  }
+
+  /**
+   * replaces the pending value of the given file.
+   *
+   * @param file the file to replace.
+   * @param value the value to replace, {@code null} to delete the file.
+   */
+  private void put(@NotNull final Path file, @Nullable final byte[] value) {
+    if (this.closed) {
+      throw new IllegalStateException("The data storage %s is closed!".formatted(this.directory));
+    }
+    this.writes.increment();
+    this.dirty.compute(file, (key, previous) -> {
+      if (previous == null) {
+        return new Pending(value, System.nanoTime());
+      }
+      this.coalesced.increment();
+      return new Pending(value, previous.since());
+    });
+    this.cache.put(file, value == null ? DataStorage.MISSING : value);
+  }
+
+  /**
+   * resolves the file of the given key.
+   *
+   * @param key the key to resolve.
+   *
+   * @return resolved file.
+   *
+   * @throws IllegalArgumentException if the key leaves the directory or names a temporary file.
+   */
+  @NotNull
+  private Path resolve(@NotNull final String key) {
+    final var file = this.directory.resolve(key).normalize();
+    if (!file.startsWith(this.directory) || file.equals(this.directory)) {
+      throw new IllegalArgumentException("The key %s is not a file in %s!".formatted(key, this.directory));
+    }
+    if (file.getFileName().toString().endsWith(DataStorage.TEMP_SUFFIX)) {
+      throw new IllegalArgumentException("The key %s names a temporary file!".formatted(key));
+    }
+    return file;
+  }
+
+  /**
+   * a class that represents the pending values of the files.
+   *
+   * @param value the value, {@code null} to delete the file.
+   * @param since the time of the first write since the last flush in nanoseconds.
+   */
+  private record Pending(
+    @Nullable byte[] value,
+    long since
+  ) {
+
+  }
+
+  /**
+   * a class that represents the files of a flush batch.
+   *
+   * @param file the file.
+   * @param pending the pending value.
+   * @param temp the temporary file, {@code null} if the file is deleted.
+   * @param channel the channel of the temporary file, {@code null} if the file is deleted.
+   */
+  private record Staged(
+    @NotNull Path file,
+    @NotNull Pending pending,
+    @Nullable Path temp,
+    @Nullable FileChannel channel
+  ) {
+
+  }
+}
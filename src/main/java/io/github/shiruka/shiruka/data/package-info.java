@@ -0,0 +1,4 @@
+/**
+ * the package that contains plugin and player data storage classes.
+ */
+package io.github.shiruka.shiruka.data;
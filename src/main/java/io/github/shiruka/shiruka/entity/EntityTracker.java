@@ -0,0 +1,260 @@
+package io.github.shiruka.shiruka.entity;
+
+import io.github.shiruka.shiruka.metrics.Histogram;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that tracks which entities every viewer sees and reports the changes once per tick.
+ * <p>
+ * the viewers are entities of the {@link SpatialIndex} too, such as the players. every tick the index is queried
+ * around each viewer and the result is compared with the last tick's visible entities by marking them with stamps,
+ * so the deltas are found in time linear to the visible entities and without allocating. the entities which left
+ * the index are reported as removed on the next tick. the tracker is not thread-safe, the main thread ticks it.
+ */
+@Accessors(fluent = true)
+public final class EntityTracker {
+
+  /**
+   * the added deltas.
+   */
+  private final LongAdder added = new LongAdder();
+
+  /**
+   * the index.
+   */
+  @NotNull
+  @Getter
+  private final SpatialIndex index;
+
+  /**
+   * the removed deltas.
+   */
+  private final LongAdder removed = new LongAdder();
+
+  /**
+   * the found entities of the current viewer.
+   */
+  private final IntArrayList scratch = new IntArrayList();
+
+  /**
+   * the duration of the tracking ticks in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram tickTime = new Histogram();
+
+  /**
+   * the viewers.
+   */
+  private final Int2ObjectOpenHashMap<Viewer> viewers = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * the listener.
+   */
+  @NotNull
+  @Setter
+  private TrackingListener listener = TrackingListener.NONE;
+
+  /**
+   * the stamp which marks an entity by entity id.
+   */
+  private int[] marks = new int[0];
+
+  /**
+   * the last stamp.
+   */
+  private int stamp;
+
+  /**
+   * ctor.
+   *
+   * @param index the index.
+   */
+  public EntityTracker(@NotNull final SpatialIndex index) {
+    this.index = index;
+  }
+
+  /**
+   * obtains the count of the added deltas.
+   *
+   * @return added delta count.
+   */
+  public long added() {
+    return this.added.sum();
+  }
+
+  /**
+   * adds the given viewer, it sees the entities from the next tick.
+   *
+   * @param id the entity id of the viewer.
+   * @param range the range of the viewer in blocks.
+   */
+  public void addViewer(final int id, final double range) {
+    final var viewer = this.viewers.get(id);
+    if (viewer == null) {
+      this.viewers.put(id, new Viewer(id, range));
+    } else {
+      viewer.range = range;
+    }
+  }
+
+  /**
+   * obtains the count of the removed deltas.
+   *
+   * @return removed delta count.
+   */
+  public long removed() {
+    return this.removed.sum();
+  }
+
+  /**
+   * removes the given viewer and reports its visible entities as removed.
+   *
+   * @param id the entity id of the viewer.
+   */
+  public void removeViewer(final int id) {
+    final var viewer = this.viewers.remove(id);
+    if (viewer == null) {
+      return;
+    }
+    final var visible = viewer.visible;
+    for (var index = 0; index < visible.size(); index++) {
+      this.listener.removed(id, visible.getInt(index));
+    }
+    this.removed.add(visible.size());
+  }
+
+  /**
+   * updates the visible entities of every viewer and reports the deltas.
+   */
+  public void tick() {
+    final var start = System.nanoTime();
+    var added = 0L;
+    var removed = 0L;
+    for (final var viewer : this.viewers.values()) {
+      if (!this.index.contains(viewer.id)) {
+        continue;
+      }
+      if (this.stamp > Integer.MAX_VALUE - 2) {
+        Arrays.fill(this.marks, 0);
+        this.stamp = 0;
+      }
+      final var previous = ++this.stamp;
+      final var visible = viewer.visible;
+      for (var index = 0; index < visible.size(); index++) {
+        this.mark(visible.getInt(index), previous);
+      }
+      final var current = ++this.stamp;
+      final var found = this.scratch;
+      found.clear();
+      this.index.queryRadius(this.index.x(viewer.id), this.index.y(viewer.id), this.index.z(viewer.id),
+        viewer.range, found);
+      final var next = viewer.next;
+      next.clear();
+      for (var index = 0; index < found.size(); index++) {
+        final var entity = found.getInt(index);
+        if (entity == viewer.id) {
+          continue;
+        }
+        if (entity >= this.marks.length || this.marks[entity] != previous) {
+          this.listener.added(viewer.id, entity);
+          added++;
+        }
+        this.mark(entity, current);
+        next.add(entity);
+      }
+      for (var index = 0; index < visible.size(); index++) {
+        final var entity = visible.getInt(index);
+        if (this.marks[entity] == previous) {
+          this.listener.removed(viewer.id, entity);
+          removed++;
+        }
+      }
+      viewer.next = visible;
+      viewer.visible = next;
+    }
+    this.added.add(added);
+    this.removed.add(removed);
+    this.tickTime.record(System.nanoTime() - start);
+  }
+
+  /**
+   * obtains the count of the viewers.
+   *
+   * @return viewer count.
+   */
+  public int viewers() {
+    return this.viewers.size();
+  }
+
+  /**
+   * obtains the count of the entities which the given viewer sees.
+   *
+   * @param id the entity id of the viewer.
+   *
+   * @return visible entity count.
+   */
+  public int visible(final int id) {
+    final var viewer = this.viewers.get(id);
+    return viewer == null ? 0 : viewer.visible.size();
+  }
+
+  /**
+   * marks the given entity with the given stamp.
+   *
+   * @param entity the entity id to mark.
+   * @param stamp the stamp to mark.
+   */
+  private void mark(final int entity, final int stamp) {
+    if (entity >= this.marks.length) {
+      this.marks = Arrays.copyOf(this.marks, Math.max(entity + 1, Math.max(64, this.marks.length << 1)));
+    }
+    this.marks[entity] = stamp;
+  }
+
+  /**
+   * a class that represents the viewers and the entities which they see.
+   */
+  private static final class Viewer {
+
+    /**
+     * the entity id.
+     */
+    private final int id;
+
+    /**
+     * the spare list which becomes the visible entities of the next tick.
+     */
+    @NotNull
+    private IntArrayList next = new IntArrayList();
+
+    /**
+     * the range in blocks.
+     */
+    private double range;
+
+    /**
+     * the entities which the viewer sees.
+     */
+    @NotNull
+    private IntArrayList visible = new IntArrayList();
+
+    /**
+     * ctor.
+     *
+     * @param id the entity id.
+     * @param range the range in blocks.
+     */
+    private Viewer(final int id, final double range) {
+      this.id = id;
+      this.range = range;
+    }
+  }
+}
@@ -0,0 +1,507 @@
+package io.github.shiruka.shiruka.entity;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents grids of chunk sections which index the entity positions for range queries.
+ * <p>
+ * the entities are identified by their runtime ids, which should be dense since the positions are kept in arrays
+ * indexed by the id. a move only touches the grid when the entity crosses a section border. the sections are kept
+ * by their chunk column together with a mask of the occupied ones, so a query looks up every column once and visits
+ * only its occupied sections. the sections above and below the 64 section rows around y 0 are clamped into the
+ * outermost rows. the emptied sections and columns are reused and the queries append into the given list, so the
+ * queries and the moves allocate nothing. the index is not thread-safe, the owner of the world uses it.
+ */
+public final class SpatialIndex {
+
+  /**
+   * the section rows of a column.
+   */
+  private static final int ROWS = Long.SIZE;
+
+  /**
+   * the lowest section row.
+   */
+  private static final int MIN_ROW = -SpatialIndex.ROWS / 2;
+
+  /**
+   * the section shift.
+   */
+  private static final int SHIFT = 4;
+
+  /**
+   * the columns which have an occupied section.
+   */
+  private final Long2ObjectOpenHashMap<Column> columns = new Long2ObjectOpenHashMap<>();
+
+  /**
+   * the empty columns which are reused.
+   */
+  private final ObjectArrayList<Column> freeColumns = new ObjectArrayList<>();
+
+  /**
+   * the empty sections which are reused.
+   */
+  private final ObjectArrayList<Section> freeSections = new ObjectArrayList<>();
+
+  /**
+   * the sections by entity id, {@code null} if the entity is not indexed.
+   */
+  private Section[] owners = new Section[0];
+
+  /**
+   * the occupied section count.
+   */
+  private int sections;
+
+  /**
+   * the indexed entity count.
+   */
+  private int size;
+
+  /**
+   * the slots in the sections by entity id.
+   */
+  private int[] slots = new int[0];
+
+  /**
+   * the x positions by entity id.
+   */
+  private double[] xs = new double[0];
+
+  /**
+   * the y positions by entity id.
+   */
+  private double[] ys = new double[0];
+
+  /**
+   * the z positions by entity id.
+   */
+  private double[] zs = new double[0];
+
+  /**
+   * converts the given coordinate to its chunk coordinate.
+   *
+   * @param coordinate the coordinate to convert.
+   *
+   * @return chunk coordinate.
+   */
+  private static int chunk(final double coordinate) {
+    return (int) Math.floor(coordinate) >> SpatialIndex.SHIFT;
+  }
+
+  /**
+   * creates the key of the given chunk column.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   *
+   * @return column key.
+   */
+  private static long column(final int x, final int z) {
+    return (long) x << 32 | z & 0xFFFFFFFFL;
+  }
+
+  /**
+   * converts the given y to its clamped section row.
+   *
+   * @param y the y to convert.
+   *
+   * @return section row from 0 to 63.
+   */
+  private static int row(final double y) {
+    final var row = SpatialIndex.chunk(y) - SpatialIndex.MIN_ROW;
+    return Math.max(0, Math.min(SpatialIndex.ROWS - 1, row));
+  }
+
+  /**
+   * adds the given entity.
+   *
+   * @param id the entity id to add.
+   * @param x the x to add.
+   * @param y the y to add.
+   * @param z the z to add.
+   *
+   * @throws IllegalArgumentException if the entity is already indexed.
+   */
+  public void add(final int id, final double x, final double y, final double z) {
+    if (this.contains(id)) {
+      throw new IllegalArgumentException("The entity %d is already indexed!".formatted(id));
+    }
+    this.ensureCapacity(id);
+    this.xs[id] = x;
+    this.ys[id] = y;
+    this.zs[id] = z;
+    this.insert(id, SpatialIndex.chunk(x), SpatialIndex.chunk(z), SpatialIndex.row(y));
+    this.size++;
+  }
+
+  /**
+   * checks if the given entity is indexed.
+   *
+   * @param id the entity id to check.
+   *
+   * @return {@code true} if the entity is indexed.
+   */
+  public boolean contains(final int id) {
+    return id >= 0 && id < this.owners.length && this.owners[id] != null;
+  }
+
+  /**
+   * moves the given entity, it changes the grid only if the entity leaves its section.
+   *
+   * @param id the entity id to move.
+   * @param x the x to move.
+   * @param y the y to move.
+   * @param z the z to move.
+   *
+   * @throws IllegalArgumentException if the entity is not indexed.
+   */
+  public void move(final int id, final double x, final double y, final double z) {
+    if (!this.contains(id)) {
+      throw new IllegalArgumentException("The entity %d is not indexed!".formatted(id));
+    }
+    this.xs[id] = x;
+    this.ys[id] = y;
+    this.zs[id] = z;
+    final var chunkX = SpatialIndex.chunk(x);
+    final var chunkZ = SpatialIndex.chunk(z);
+    final var row = SpatialIndex.row(y);
+    final var owner = this.owners[id];
+    if (owner.row != row || owner.column.x != chunkX || owner.column.z != chunkZ) {
+      this.unlink(id);
+      this.insert(id, chunkX, chunkZ, row);
+    }
+  }
+
+  /**
+   * appends the entities within the given box to the given list.
+   *
+   * @param minX the lowest x.
+   * @param minY the lowest y.
+   * @param minZ the lowest z.
+   * @param maxX the highest x.
+   * @param maxY the highest y.
+   * @param maxZ the highest z.
+   * @param output the list to append.
+   *
+   * @return appended entity count.
+   */
+  public int queryBox(final double minX, final double minY, final double minZ, final double maxX,
+                      final double maxY, final double maxZ, @NotNull final IntArrayList output) {
+    return this.query(minX, minY, minZ, maxX, maxY, maxZ, 0.0D, 0.0D, 0.0D, -1.0D, output);
+  }
+
+  /**
+   * appends the entities within the given sphere to the given list.
+   *
+   * @param x the center x.
+   * @param y the center y.
+   * @param z the center z.
+   * @param radius the radius.
+   * @param output the list to append.
+   *
+   * @return appended entity count.
+   */
+  public int queryRadius(final double x, final double y, final double z, final double radius,
+                         @NotNull final IntArrayList output) {
+    return this.query(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, x, y, z,
+      radius * radius, output);
+  }
+
+  /**
+   * removes the given entity.
+   *
+   * @param id the entity id to remove.
+   *
+   * @return {@code true} if the entity was indexed.
+   */
+  public boolean remove(final int id) {
+    if (!this.contains(id)) {
+      return false;
+    }
+    this.unlink(id);
+    this.owners[id] = null;
+    this.size--;
+    return true;
+  }
+
+  /**
+   * obtains the count of the occupied sections.
+   *
+   * @return section count.
+   */
+  public int sections() {
+    return this.sections;
+  }
+
+  /**
+   * obtains the count of the indexed entities.
+   *
+   * @return entity count.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * obtains the x of the given entity.
+   *
+   * @param id the entity id to get.
+   *
+   * @return x position.
+   */
+  public double x(final int id) {
+    return this.xs[id];
+  }
+
+  /**
+   * obtains the y of the given entity.
+   *
+   * @param id the entity id to get.
+   *
+   * @return y position.
+   */
+  public double y(final int id) {
+    return this.ys[id];
+  }
+
+  /**
+   * obtains the z of the given entity.
+   *
+   * @param id the entity id to get.
+   *
+   * @return z position.
+   */
+  public double z(final int id) {
+    return this.zs[id];
+  }
+
+  /**
+   * grows the arrays to fit the given entity id.
+   *
+   * @param id the entity id to fit.
+   */
+  private void ensureCapacity(final int id) {
+    if (id < 0) {
+      throw new IllegalArgumentException("The entity id %d is negative!".formatted(id));
+    }
+    if (id < this.owners.length) {
+      return;
+    }
+    final var capacity = Math.max(id + 1, Math.max(64, this.owners.length << 1));
+    this.owners = Arrays.copyOf(this.owners, capacity);
+    this.slots = Arrays.copyOf(this.slots, capacity);
+    this.xs = Arrays.copyOf(this.xs, capacity);
+    this.ys = Arrays.copyOf(this.ys, capacity);
+    this.zs = Arrays.copyOf(this.zs, capacity);
+  }
+
+  /**
+   * inserts the given entity into the given section.
+   *
+   * @param id the entity id to insert.
+   * @param x the chunk x.
+   * @param z the chunk z.
+   * @param row the section row.
+   */
+  private void insert(final int id, final int x, final int z, final int row) {
+    final var key = SpatialIndex.column(x, z);
+    var column = this.columns.get(key);
+    if (column == null) {
+      column = this.freeColumns.isEmpty() ? new Column() : this.freeColumns.pop();
+      column.x = x;
+      column.z = z;
+      this.columns.put(key, column);
+    }
+    var section = column.sections[row];
+    if (section == null) {
+      section = this.freeSections.isEmpty() ? new Section() : this.freeSections.pop();
+      section.column = column;
+      section.row = row;
+      column.sections[row] = section;
+      column.occupied |= 1L << row;
+      this.sections++;
+    }
+    this.owners[id] = section;
+    this.slots[id] = section.add(id);
+  }
+
+  /**
+   * appends the entities within the given box, and within the given sphere if the squared radius is not negative.
+   *
+   * @param minX the lowest x.
+   * @param minY the lowest y.
+   * @param minZ the lowest z.
+   * @param maxX the highest x.
+   * @param maxY the highest y.
+   * @param maxZ the highest z.
+   * @param x the sphere's center x.
+   * @param y the sphere's center y.
+   * @param z the sphere's center z.
+   * @param radiusSquared the sphere's squared radius, negative to query only the box.
+   * @param output the list to append.
+   *
+   * @return appended entity count.
+   */
+  private int query(final double minX, final double minY, final double minZ, final double maxX, final double maxY,
+                    final double maxZ, final double x, final double y, final double z, final double radiusSquared,
+                    @NotNull final IntArrayList output) {
+    final var start = output.size();
+    final var maxRow = SpatialIndex.row(maxY);
+    final var rows = (maxRow == SpatialIndex.ROWS - 1 ? -1L : (1L << maxRow + 1) - 1L) & -1L << SpatialIndex.row(minY);
+    final var maxChunkX = SpatialIndex.chunk(maxX);
+    final var minChunkZ = SpatialIndex.chunk(minZ);
+    final var maxChunkZ = SpatialIndex.chunk(maxZ);
+    for (var chunkX = SpatialIndex.chunk(minX); chunkX <= maxChunkX; chunkX++) {
+      for (var chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+        final var column = this.columns.get(SpatialIndex.column(chunkX, chunkZ));
+        if (column == null) {
+          continue;
+        }
+        var occupied = column.occupied & rows;
+        while (occupied != 0L) {
+          final var section = column.sections[Long.numberOfTrailingZeros(occupied)];
+          occupied &= occupied - 1L;
+          final var ids = section.ids;
+          for (var index = 0; index < section.size; index++) {
+            final var id = ids[index];
+            final var entityX = this.xs[id];
+            final var entityY = this.ys[id];
+            final var entityZ = this.zs[id];
+            if (entityX < minX || entityX > maxX || entityY < minY || entityY > maxY || entityZ < minZ ||
+              entityZ > maxZ) {
+              continue;
+            }
+            if (radiusSquared >= 0.0D) {
+              final var dx = entityX - x;
+              final var dy = entityY - y;
+              final var dz = entityZ - z;
+              if (dx * dx + dy * dy + dz * dz > radiusSquared) {
+                continue;
+              }
+            }
+            output.add(id);
+          }
+        }
+      }
+    }
+    return output.size() - start;
+  }
+
+  /**
+   * removes the given entity from its section, releasing the section and the column if they become empty.
+   *
+   * @param id the entity id to remove.
+   */
+  private void unlink(final int id) {
+    final var section = this.owners[id];
+    final var moved = section.remove(this.slots[id]);
+    if (moved >= 0) {
+      this.slots[moved] = this.slots[id];
+    }
+    if (section.size > 0) {
+      return;
+    }
+    final var column = section.column;
+    column.sections[section.row] = null;
+    column.occupied &= ~(1L << section.row);
+    section.column = null;
+    this.freeSections.push(section);
+    this.sections--;
+    if (column.occupied == 0L) {
+      this.columns.remove(SpatialIndex.column(column.x, column.z));
+      this.freeColumns.push(column);
+    }
+  }
+
+  /**
+   * a class that represents the sections of a chunk column.
+   */
+  private static final class Column {
+
+    /**
+     * the sections by row.
+     */
+    private final Section[] sections = new Section[SpatialIndex.ROWS];
+
+    /**
+     * the mask of the occupied rows.
+     */
+    private long occupied;
+
+    /**
+     * the chunk x.
+     */
+    private int x;
+
+    /**
+     * the chunk z.
+     */
+    private int z;
+  }
+
+  /**
+   * a class that represents the entities of a section.
+   */
+  private static final class Section {
+
+    /**
+     * the column, {@code null} while the section is free.
+     */
+    @Nullable
+    private Column column;
+
+    /**
+     * the entity ids.
+     */
+    private int[] ids = new int[8];
+
+    /**
+     * the row.
+     */
+    private int row;
+
+    /**
+     * the entity count.
+     */
+    private int size;
+
+    /**
+     * adds the given entity.
+     *
+     * @param id the entity id to add.
+     *
+     * @return slot of the entity.
+     */
+    private int add(final int id) {
+      if (this.size == this.ids.length) {
+        this.ids = Arrays.copyOf(this.ids, this.size << 1);
+      }
+      this.ids[this.size] = id;
+      return this.size++;
+    }
+
+    /**
+     * removes the entity of the given slot by moving the last entity into it.
+     *
+     * @param slot the slot to remove.
+     *
+     * @return the entity id which moved into the slot, -1 if the last slot is removed.
+     */
+    private int remove(final int slot) {
+      final var last = --this.size;
+      if (slot == last) {
+        return -1;
+      }
+      final var moved = this.ids[last];
+      this.ids[slot] = moved;
+      return moved;
+    }
+  }
+}
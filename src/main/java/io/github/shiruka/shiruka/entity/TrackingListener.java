@@ -0,0 +1,37 @@
+package io.github.shiruka.shiruka.entity;
+
+/**
+ * an interface to determine listeners which receive the viewer deltas of the {@link EntityTracker}, such as to
+ * send the add and remove entity packets.
+ */
+public interface TrackingListener {
+
+  /**
+   * the listener which ignores the deltas.
+   */
+  TrackingListener NONE = new TrackingListener() {
+    @Override
+    public void added(final int viewer, final int entity) {
+    }
+
+    @Override
+    public void removed(final int viewer, final int entity) {
+    }
+  };
+
+  /**
+   * runs when the given entity comes into the given viewer's range.
+   *
+   * @param viewer the viewer id.
+   * @param entity the entity id.
+   */
+  void added(int viewer, int entity);
+
+  /**
+   * runs when the given entity leaves the given viewer's range or the index.
+   *
+   * @param viewer the viewer id.
+   * @param entity the entity id.
+   */
+  void removed(int viewer, int entity);
+}
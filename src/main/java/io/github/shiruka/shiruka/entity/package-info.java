@@ -0,0 +1,4 @@
+/**
+ * the package that contains entity tracking classes.
+ */
+package io.github.shiruka.shiruka.entity;
@@ -0,0 +1,46 @@
+package io.github.shiruka.shiruka.event;
+
+import io.github.shiruka.api.event.Event;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine the events which may be merged with the later events of the same key in a tick.
+ * <p>
+ * the events are posted by {@link ShirukaEventManager#post(CoalescibleEvent)} and dispatched once per tick, so they
+ * suit the events which fire many times per tick while the listeners care only about the latest state, such as the
+ * movements. the poster does not see the outcome of the listeners, so an event which can be cancelled applies or
+ * reverts its change in {@link #dispatched()}, after every listener has seen the merged event.
+ *
+ * @param <E> type of the event.
+ */
+public interface CoalescibleEvent<E extends CoalescibleEvent<E>> extends Event {
+
+  /**
+   * obtains the key of the event, the events of the same class and equal keys in a tick are merged.
+   *
+   * @return coalesce key.
+   */
+  @NotNull
+  Object coalesceKey();
+
+  /**
+   * runs after the listeners have seen the event, to apply or revert the change by the listeners' outcome.
+   */
+  default void dispatched() {
+  }
+
+  /**
+   * merges the given later event of the same key into this one.
+   * <p>
+   * the default keeps only the later event, the events which carry the starting state too, such as the movement's
+   * origin, should copy it into the later event.
+   *
+   * @param later the later event to merge.
+   *
+   * @return the merged event which is dispatched, or merged with the next event of the same key.
+   */
+  @NotNull
+  default E merge(@NotNull final E later) {
+    return later;
+  }
+}
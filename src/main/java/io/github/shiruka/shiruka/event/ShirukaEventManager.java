@@ -1,12 +1,41 @@
 package io.github.shiruka.shiruka.event;
 
+import io.github.shiruka.api.event.Event;
 import io.github.shiruka.api.event.EventManager;
 import io.github.shiruka.api.event.method.MethodAdapter;
 import io.github.shiruka.api.event.method.SimpleMethodAdapter;
+import io.github.shiruka.api.plugin.Plugin;
+import io.github.shiruka.api.plugin.PluginManager;
+import io.github.shiruka.shiruka.accounting.PluginAccounting;
+import io.github.shiruka.shiruka.jfr.EventDispatchEvent;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.experimental.Delegate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * a class that represents Shiru ka's event manager.
+ * <p>
+ * the {@link CoalescibleEvent}s may be posted instead of called, then the events of the same class and key are
+ * merged until {@link #dispatchCoalesced()} dispatches them once per tick, in the order of their first post. the
+ * server dispatches them after the network, the commands and the generation hand their work over and before the
+ * sync tasks run, so the events of the tick's packets are seen within the tick. a listener which cancels a merged
+ * event cancels the merged change as a whole, the event learns it in {@link CoalescibleEvent#dispatched()}. the
+ * events which are posted during the dispatch wait for the next one.
+ * <p>
+ * when the plugins are accounted, the listeners of a plugin are registered to an adapter of the plugin and the cpu
+ * time and allocations of their calls are recorded to the plugin. the server's listeners are called first, then the
+ * plugins' listeners plugin by plugin in the order of their first registration, the priorities order the listeners
+ * of a plugin. the listener calls are not deferred since the caller reads the outcome of the event once the call
+ * returns, their time counts towards the plugin's quota, so the plugin's sync tasks are deferred instead.
  */
 public final class ShirukaEventManager implements EventManager {
 
@@ -15,4 +44,302 @@ public final class ShirukaEventManager implements EventManager {
    */
   @Delegate
   private final MethodAdapter adapter = new SimpleMethodAdapter();
+
+  /**
+   * the dispatch counts by event class.
+   */
+  private final Map<Class<?>, LongAdder> calls = new ConcurrentHashMap<>();
+
+  /**
+   * the coalescers by event class.
+   */
+  private final Map<Class<?>, Coalescer> coalescers = new ConcurrentHashMap<>();
+
+  /**
+   * the lock which guards the pending events and the slots of the coalescers.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * the listeners of the plugins, in the order of their first registration.
+   */
+  private final List<PluginListeners> plugins = new CopyOnWriteArrayList<>();
+
+  /**
+   * the plugin accounting, {@code null} if the plugins are not accounted.
+   */
+  @Nullable
+  private volatile PluginAccounting accounting;
+
+  /**
+   * the main thread.
+   */
+  @NotNull
+  private volatile Supplier<Thread> mainThread = () -> null;
+
+  /**
+   * the plugin manager which owns the listeners.
+   */
+  @Nullable
+  private volatile PluginManager pluginManager;
+
+  /**
+   * the posted events which wait for the next dispatch, in the order of their first post.
+   */
+  @NotNull
+  private ObjectArrayList<CoalescibleEvent<?>> pending = new ObjectArrayList<>();
+
+  /**
+   * the spare list which becomes the pending events after the next dispatch.
+   */
+  @NotNull
+  private ObjectArrayList<CoalescibleEvent<?>> spare = new ObjectArrayList<>();
+
+  /**
+   * sums the given counts by class name.
+   *
+   * @param counts the counts to sum.
+   *
+   * @return counts by class name.
+   */
+  @NotNull
+  private static Map<String, Long> sums(@NotNull final Map<Class<?>, LongAdder> counts) {
+    return counts.entrySet().stream()
+      .collect(Collectors.toMap(entry -> entry.getKey().getSimpleName(), entry -> entry.getValue().sum(), Long::sum));
+  }
+
+  /**
+   * accounts the listeners of the plugins which are registered from now on.
+   *
+   * @param accounting the accounting to record.
+   * @param pluginManager the plugin manager which owns the listeners.
+   * @param mainThread the main thread, which runs the sync calls.
+   */
+  public void accounting(@NotNull final PluginAccounting accounting, @NotNull final PluginManager pluginManager,
+                         @NotNull final Supplier<Thread> mainThread) {
+    this.mainThread = mainThread;
+    this.pluginManager = pluginManager;
+    this.accounting = accounting;
+  }
+
+  @Override
+  public void call(@NotNull final Event event) {
+    this.calls.computeIfAbsent(event.getClass(), key -> new LongAdder()).increment();
+    final var dispatch = new EventDispatchEvent();
+    dispatch.begin();
+    try {
+      this.adapter.call(event);
+      if (!this.plugins.isEmpty()) {
+        this.callPlugins(event);
+      }
+    } finally {
+      dispatch.end();
+      if (dispatch.shouldCommit()) {
+        dispatch.eventType = event.getClass();
+        dispatch.commit();
+      }
+    }
+  }
+
+  /**
+   * obtains the dispatch counts by event class name.
+   *
+   * @return dispatch counts.
+   */
+  @NotNull
+  public Map<String, Long> calls() {
+    return ShirukaEventManager.sums(this.calls);
+  }
+
+  /**
+   * obtains the merged event counts by event class name, which are the dispatches saved by coalescing.
+   *
+   * @return merged event counts.
+   */
+  @NotNull
+  public Map<String, Long> coalesced() {
+    return this.coalescers.entrySet().stream()
+      .collect(Collectors.toMap(entry -> entry.getKey().getSimpleName(), entry -> entry.getValue().merged.sum(),
+        Long::sum));
+  }
+
+  /**
+   * dispatches the posted events, it is called by the main thread once per tick.
+   *
+   * @return dispatched event count.
+   */
+  public int dispatchCoalesced() {
+    final ObjectArrayList<CoalescibleEvent<?>> events;
+    synchronized (this.lock) {
+      if (this.pending.isEmpty()) {
+        return 0;
+      }
+      events = this.pending;
+      this.pending = this.spare;
+      this.spare = events;
+      for (final var coalescer : this.coalescers.values()) {
+        if (!coalescer.slots.isEmpty()) {
+          coalescer.slots.clear();
+        }
+      }
+    }
+    final var dispatched = events.size();
+    try {
+      for (final var event : events) {
+        try {
+          this.call(event);
+        } finally {
+          event.dispatched();
+        }
+      }
+    } finally {
+      events.clear();
+    }
+    return dispatched;
+  }
+
+  /**
+   * obtains the count of the posted events which wait for the next dispatch.
+   *
+   * @return pending event count.
+   */
+  public int pendingCoalesced() {
+    synchronized (this.lock) {
+      return this.pending.size();
+    }
+  }
+
+  /**
+   * posts the given event to the next dispatch, merging it with the posted event of the same class and key.
+   *
+   * @param event the event to post.
+   * @param <E> type of the event.
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends CoalescibleEvent<E>> void post(@NotNull final E event) {
+    final var key = event.coalesceKey();
+    final var coalescer = this.coalescers.computeIfAbsent(event.getClass(), type -> new Coalescer());
+    synchronized (this.lock) {
+      final var slot = coalescer.slots.getInt(key);
+      if (slot < 0) {
+        coalescer.slots.put(key, this.pending.size());
+        this.pending.add(event);
+        return;
+      }
+      this.pending.set(slot, ((E) this.pending.get(slot)).merge(event));
+    }
+    coalescer.merged.increment();
+  }
+
+  @Override
+  public void register(@NotNull final Object listener) {
+    final var plugin = this.owner(listener);
+    if (plugin == null) {
+      this.adapter.register(listener);
+      return;
+    }
+    synchronized (this.plugins) {
+      for (final var listeners : this.plugins) {
+        if (listeners.plugin() == plugin) {
+          listeners.adapter().register(listener);
+          return;
+        }
+      }
+      final var adapter = new SimpleMethodAdapter();
+      adapter.register(listener);
+      this.plugins.add(new PluginListeners(plugin, adapter));
+    }
+  }
+
+  @Override
+  public void unregister(@NotNull final Object listener) {
+    this.adapter.unregister(listener);
+    for (final var listeners : this.plugins) {
+      listeners.adapter().unregister(listener);
+    }
+  }
+
+  /**
+   * calls the given event for the listeners of the plugins and records their calls.
+   *
+   * @param event the event to call.
+   */
+  private void callPlugins(@NotNull final Event event) {
+    final var accounting = this.accounting;
+    if (accounting == null) {
+      return;
+    }
+    final var sync = Thread.currentThread() == this.mainThread.get();
+    for (final var listeners : this.plugins) {
+      final var cpuTime = accounting.cpuTime();
+      final var allocated = accounting.allocatedBytes();
+      try {
+        listeners.adapter().call(event);
+      } finally {
+        accounting.record(listeners.plugin(), cpuTime, allocated, sync);
+      }
+    }
+  }
+
+  /**
+   * finds the plugin which loaded the given listener.
+   *
+   * @param listener the listener to find.
+   *
+   * @return plugin of the listener, {@code null} if the plugins are not accounted or the server owns the listener.
+   */
+  @Nullable
+  private Plugin.Container owner(@NotNull final Object listener) {
+    final var pluginManager = this.pluginManager;
+    if (this.accounting == null || pluginManager == null) {
+      return null;
+    }
+    final var loader = listener.getClass().getClassLoader();
+    if (loader == ShirukaEventManager.class.getClassLoader()) {
+      return null;
+    }
+    for (final var plugin : pluginManager.getPlugins()) {
+      final var instance = plugin.plugin();
+      if (instance != null && instance.getClass().getClassLoader() == loader) {
+        return plugin;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * a record class that represents the listeners of a plugin.
+   *
+   * @param plugin the plugin.
+   * @param adapter the adapter of the plugin's listeners.
+   */
+  private record PluginListeners(
+    @NotNull Plugin.Container plugin,
+    @NotNull MethodAdapter adapter
+  ) {
+
+  }
+
+  /**
+   * a class that represents the posted events of an event class.
+   */
+  private static final class Coalescer {
+
+    /**
+     * the merged event count.
+     */
+    private final LongAdder merged = new LongAdder();
+
+    /**
+     * the slots of the pending events by coalesce key.
+     */
+    private final Object2IntOpenHashMap<Object> slots = new Object2IntOpenHashMap<>();
+
+    /**
+     * ctor.
+     */
+    private Coalescer() {
+      this.slots.defaultReturnValue(-1);
+    }
+  }
 }
@@ -0,0 +1,32 @@
+package io.github.shiruka.shiruka.generation;
+
+import io.github.shiruka.shiruka.chunk.Chunk;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine chunk generators which run the stages of the {@link GenerationPipeline}.
+ * <p>
+ * the stages of different chunks run in parallel, so the generators have to be thread-safe. a stage touches only the
+ * chunks of its region, which are claimed by it until it returns.
+ */
+public interface ChunkGenerator {
+
+  /**
+   * creates the empty chunk at the given position.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   *
+   * @return empty chunk.
+   */
+  @NotNull
+  Chunk create(int x, int z);
+
+  /**
+   * runs the given stage on the center chunk of the given region.
+   *
+   * @param stage the stage to run.
+   * @param region the region to run.
+   */
+  void generate(@NotNull GenerationStage stage, @NotNull GenerationRegion region);
+}
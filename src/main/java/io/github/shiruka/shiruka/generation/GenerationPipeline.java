@@ -0,0 +1,485 @@
+package io.github.shiruka.shiruka.generation;
+
+import io.github.shiruka.shiruka.chunk.Chunk;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that generates the requested chunks through the {@link GenerationStage}s on a work-stealing pool.
+ * <p>
+ * a request raises the target stage of the chunk and, following the stages' dependency radius, of the neighbours
+ * which it depends on. a stage becomes ready once its dependencies completed the previous stage and nothing else
+ * claims the chunks of its claim radius, then it waits in a priority queue which favours the chunks nearest to the
+ * focus positions, so the chunks around the players are generated before the pregenerated ones. the requested
+ * chunks which completed every stage are handed over to the main thread together by {@link #drain()} once per tick,
+ * which completes their futures on the main thread.
+ */
+@Log4j2
+public final class GenerationPipeline {
+
+  /**
+   * the stages.
+   */
+  private static final GenerationStage[] STAGES = GenerationStage.values();
+
+  /**
+   * the last stage.
+   */
+  private static final int LAST_STAGE = GenerationPipeline.STAGES.length - 1;
+
+  /**
+   * the radius of the chunks which a completed stage may unblock.
+   */
+  private static final int UNBLOCK_RADIUS = GenerationPipeline.unblockRadius();
+
+  /**
+   * the chunks which completed every stage and are handed over.
+   */
+  private final LongSet completed = new LongOpenHashSet();
+
+  /**
+   * the requested chunks which wait for the main thread.
+   */
+  private final Queue<ProtoChunk> finished = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the generated chunks.
+   */
+  private final LongAdder generated = new LongAdder();
+
+  /**
+   * the generator.
+   */
+  @NotNull
+  private final ChunkGenerator generator;
+
+  /**
+   * the lock which guards the scheduling state.
+   */
+  private final Object lock = new Object();
+
+  /**
+   * the pool.
+   */
+  @NotNull
+  private final ForkJoinPool pool;
+
+  /**
+   * the chunks which are being generated.
+   */
+  private final Long2ObjectMap<ProtoChunk> protos = new Long2ObjectOpenHashMap<>();
+
+  /**
+   * the chunks whose next stage is ready to run.
+   */
+  private final PriorityQueue<ProtoChunk> ready = new PriorityQueue<>(Comparator
+    .<ProtoChunk>comparingLong(ProtoChunk::priority)
+    .thenComparing(Comparator.<ProtoChunk>comparingInt(ProtoChunk::completed).reversed()));
+
+  /**
+   * the time which the stages took in nanoseconds.
+   */
+  private final Map<GenerationStage, LongAdder> stageTimes = new EnumMap<>(GenerationStage.class);
+
+  /**
+   * the focus positions.
+   */
+  private long[] focus = new long[0];
+
+  /**
+   * ctor.
+   *
+   * @param generator the generator.
+   * @param threads the threads, 0 means the number of available processors.
+   */
+  public GenerationPipeline(@NotNull final ChunkGenerator generator, final int threads) {
+    this.generator = generator;
+    for (final var stage : GenerationPipeline.STAGES) {
+      this.stageTimes.put(stage, new LongAdder());
+    }
+    final var count = threads > 0
+      ? threads
+      : Runtime.getRuntime().availableProcessors();
+    this.pool = new ForkJoinPool(count, pool -> {
+      final var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+      thread.setName("Shiru ka Generation Thread - " + thread.getPoolIndex());
+      return thread;
+    }, null, true);
+  }
+
+  /**
+   * calculates the squared distance between the given chunk and the nearest focus position.
+   *
+   * @param focus the focus positions to calculate.
+   * @param x the chunk x.
+   * @param z the chunk z.
+   *
+   * @return squared distance, 0 if there is no focus position.
+   */
+  private static long distance(@NotNull final long[] focus, final int x, final int z) {
+    var nearest = focus.length == 0 ? 0L : Long.MAX_VALUE;
+    for (final var position : focus) {
+      final long dx = (int) (position >> 32) - x;
+      final long dz = (int) position - z;
+      nearest = Math.min(nearest, dx * dx + dz * dz);
+    }
+    return nearest;
+  }
+
+  /**
+   * calculates the radius of the chunks whose stage may wait for a completed stage, the dependents of the chunk and
+   * the chunks whose claims overlap its released claims.
+   *
+   * @return unblock radius.
+   */
+  private static int unblockRadius() {
+    var claim = 0;
+    var dependency = 0;
+    for (final var stage : GenerationPipeline.STAGES) {
+      claim = Math.max(claim, stage.claimRadius());
+      dependency = Math.max(dependency, stage.dependencyRadius());
+    }
+    return claim + Math.max(claim, dependency);
+  }
+
+  /**
+   * shuts the pool down, the unfinished requests are never completed.
+   */
+  public void close() {
+    this.pool.shutdownNow();
+  }
+
+  /**
+   * hands the chunks which completed since the last call over to the main thread by completing their futures.
+   * <p>
+   * this should be called by the main thread once per tick.
+   *
+   * @return handed over chunk count.
+   */
+  public int drain() {
+    var count = 0;
+    ProtoChunk proto;
+    while ((proto = this.finished.poll()) != null) {
+      final var future = proto.future();
+      if (future != null) {
+        future.complete(proto.chunk());
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * sets the positions which the generation favours, such as the chunk positions of the players.
+   *
+   * @param positions the chunk positions, created by {@link Chunk#key(int, int)}.
+   */
+  public void focus(@NotNull final long... positions) {
+    synchronized (this.lock) {
+      this.focus = positions.clone();
+      final var queued = new ArrayList<>(this.ready);
+      this.ready.clear();
+      for (final var proto : queued) {
+        proto.priority(GenerationPipeline.distance(this.focus, proto.x(), proto.z()));
+        this.ready.add(proto);
+      }
+    }
+  }
+
+  /**
+   * obtains the count of the generated chunks.
+   *
+   * @return generated chunk count.
+   */
+  public long generated() {
+    return this.generated.sum();
+  }
+
+  /**
+   * obtains the count of the chunks which are being generated, including the dependencies of the requested ones.
+   *
+   * @return pending chunk count.
+   */
+  public int pending() {
+    synchronized (this.lock) {
+      return this.protos.size();
+    }
+  }
+
+  /**
+   * requests the generation of every chunk within the given square radius.
+   *
+   * @param x the center chunk x.
+   * @param z the center chunk z.
+   * @param radius the radius in chunks.
+   *
+   * @return a future which completes on the main thread once every chunk is handed over.
+   */
+  @NotNull
+  public CompletableFuture<Void> pregenerate(final int x, final int z, final int radius) {
+    final var futures = new ArrayList<CompletableFuture<Chunk>>();
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        futures.add(this.request(x + dx, z + dz));
+      }
+    }
+    return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+  }
+
+  /**
+   * requests the generation of the given chunk.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   *
+   * @return a future which completes on the main thread once the chunk is handed over.
+   */
+  @NotNull
+  public CompletableFuture<Chunk> request(final int x, final int z) {
+    synchronized (this.lock) {
+      if (this.completed.contains(Chunk.key(x, z))) {
+        return CompletableFuture.failedFuture(new IllegalStateException(
+          "The chunk %d, %d is already generated!".formatted(x, z)));
+      }
+      final var proto = this.require(x, z, GenerationPipeline.LAST_STAGE);
+      var future = proto.future();
+      if (future == null) {
+        future = new CompletableFuture<>();
+        proto.future(future);
+      }
+      return future;
+    }
+  }
+
+  /**
+   * obtains the stage times.
+   *
+   * @return time of the stages in nanoseconds.
+   */
+  @NotNull
+  public Map<GenerationStage, Long> stageTimes() {
+    final var times = new EnumMap<GenerationStage, Long>(GenerationStage.class);
+    this.stageTimes.forEach((stage, time) -> times.put(stage, time.sum()));
+    return times;
+  }
+
+  /**
+   * obtains the count of the threads.
+   *
+   * @return thread count.
+   */
+  public int threads() {
+    return this.pool.getParallelism();
+  }
+
+  /**
+   * checks if every chunk within the given radius is not claimed.
+   *
+   * @param proto the center to check.
+   * @param radius the radius to check.
+   *
+   * @return {@code true} if the chunks can be claimed.
+   */
+  private boolean claimable(@NotNull final ProtoChunk proto, final int radius) {
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        final var neighbour = this.protos.get(Chunk.key(proto.x() + dx, proto.z() + dz));
+        if (neighbour == null || neighbour.claims() > 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * changes the claims of every chunk within the given radius.
+   *
+   * @param proto the center to claim.
+   * @param radius the radius to claim.
+   * @param delta the delta to add, 1 to claim and -1 to release.
+   */
+  private void claim(@NotNull final ProtoChunk proto, final int radius, final int delta) {
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        final var neighbour = this.protos.get(Chunk.key(proto.x() + dx, proto.z() + dz));
+        neighbour.claims(neighbour.claims() + delta);
+      }
+    }
+  }
+
+  /**
+   * completes the given stage of the given chunk and schedules the stages which waited for it.
+   *
+   * @param proto the chunk to complete.
+   * @param stage the stage to complete.
+   */
+  private void complete(@NotNull final ProtoChunk proto, @NotNull final GenerationStage stage) {
+    this.claim(proto, stage.claimRadius(), -1);
+    proto.completed(stage.ordinal());
+    proto.queued(false);
+    if (stage.ordinal() == GenerationPipeline.LAST_STAGE) {
+      this.protos.remove(proto.key());
+      this.completed.add(proto.key());
+      this.generated.increment();
+      this.finished.add(proto);
+    } else {
+      this.schedule(proto);
+    }
+    final var radius = GenerationPipeline.UNBLOCK_RADIUS;
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        final var neighbour = this.protos.get(Chunk.key(proto.x() + dx, proto.z() + dz));
+        if (neighbour != null) {
+          this.schedule(neighbour);
+        }
+      }
+    }
+  }
+
+  /**
+   * checks if every chunk within the given radius completed the given stage.
+   *
+   * @param proto the center to check.
+   * @param radius the radius to check.
+   * @param stage the ordinal of the stage to check.
+   *
+   * @return {@code true} if the dependencies are completed.
+   */
+  private boolean dependenciesCompleted(@NotNull final ProtoChunk proto, final int radius, final int stage) {
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        final var key = Chunk.key(proto.x() + dx, proto.z() + dz);
+        if (this.completed.contains(key)) {
+          continue;
+        }
+        final var neighbour = this.protos.get(key);
+        if (neighbour == null || neighbour.completed() < stage) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * creates the region of the given stage's claims.
+   *
+   * @param proto the center to create.
+   * @param stage the stage to create.
+   *
+   * @return region of the stage.
+   */
+  @NotNull
+  private GenerationRegion region(@NotNull final ProtoChunk proto, @NotNull final GenerationStage stage) {
+    final var radius = stage.claimRadius();
+    final var size = (radius << 1) + 1;
+    final var chunks = new Chunk[size * size];
+    for (var dx = -radius; dx <= radius; dx++) {
+      for (var dz = -radius; dz <= radius; dz++) {
+        chunks[(dx + radius) * size + dz + radius] = this.protos.get(Chunk.key(proto.x() + dx, proto.z() + dz))
+          .chunk();
+      }
+    }
+    return new GenerationRegion(proto.x(), proto.z(), radius, chunks);
+  }
+
+  /**
+   * raises the target stage of the given chunk and of its dependencies.
+   *
+   * @param x the chunk x.
+   * @param z the chunk z.
+   * @param stage the ordinal of the stage to reach.
+   *
+   * @return the chunk which is being generated.
+   */
+  @NotNull
+  private ProtoChunk require(final int x, final int z, final int stage) {
+    final var key = Chunk.key(x, z);
+    var proto = this.protos.get(key);
+    if (proto == null) {
+      proto = new ProtoChunk(this.generator.create(x, z));
+      this.protos.put(key, proto);
+    }
+    if (proto.target() >= stage) {
+      return proto;
+    }
+    final var from = proto.target() + 1;
+    proto.target(stage);
+    for (var next = Math.max(1, from); next <= stage; next++) {
+      final var radius = GenerationPipeline.STAGES[next].dependencyRadius();
+      for (var dx = -radius; dx <= radius; dx++) {
+        for (var dz = -radius; dz <= radius; dz++) {
+          if ((dx != 0 || dz != 0) && !this.completed.contains(Chunk.key(x + dx, z + dz))) {
+            this.require(x + dx, z + dz, next - 1);
+          }
+        }
+      }
+    }
+    this.schedule(proto);
+    return proto;
+  }
+
+  /**
+   * runs the ready stage with the highest priority on the calling worker.
+   */
+  private void runNext() {
+    final ProtoChunk proto;
+    final GenerationStage stage;
+    final GenerationRegion region;
+    synchronized (this.lock) {
+      proto = this.ready.poll();
+      if (proto == null) {
+        return;
+      }
+      stage = GenerationPipeline.STAGES[proto.completed() + 1];
+      region = this.region(proto, stage);
+    }
+    final var start = System.nanoTime();
+    try {
+      this.generator.generate(stage, region);
+    } catch (final Throwable t) {
+      GenerationPipeline.log.error("Could not run the {} stage of the chunk {}, {}:", stage, proto.x(), proto.z(),
+        t);
+    }
+    this.stageTimes.get(stage).add(System.nanoTime() - start);
+    synchronized (this.lock) {
+      this.complete(proto, stage);
+    }
+  }
+
+  /**
+   * queues the next stage of the given chunk if it is ready to run, claiming its chunks.
+   *
+   * @param proto the chunk to schedule.
+   */
+  private void schedule(@NotNull final ProtoChunk proto) {
+    if (proto.queued() || proto.completed() >= proto.target()) {
+      return;
+    }
+    final var stage = GenerationPipeline.STAGES[proto.completed() + 1];
+    if (!this.dependenciesCompleted(proto, stage.dependencyRadius(), stage.ordinal() - 1) ||
+      !this.claimable(proto, stage.claimRadius())) {
+      return;
+    }
+    this.claim(proto, stage.claimRadius(), 1);
+    proto.queued(true);
+    proto.priority(GenerationPipeline.distance(this.focus, proto.x(), proto.z()));
+    this.ready.add(proto);
+    this.pool.execute(this::runNext);
+  }
+}
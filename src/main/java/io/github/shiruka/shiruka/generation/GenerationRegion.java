@@ -0,0 +1,110 @@
+package io.github.shiruka.shiruka.generation;
+
+import io.github.shiruka.shiruka.chunk.Chunk;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the chunks which a running stage claims, the center chunk and its neighbours within the
+ * stage's claim radius.
+ */
+@Accessors(fluent = true)
+public final class GenerationRegion {
+
+  /**
+   * the chunks, row by row from the lowest x and z.
+   */
+  @NotNull
+  private final Chunk[] chunks;
+
+  /**
+   * the radius.
+   */
+  @Getter
+  private final int radius;
+
+  /**
+   * the center chunk x.
+   */
+  @Getter
+  private final int x;
+
+  /**
+   * the center chunk z.
+   */
+  @Getter
+  private final int z;
+
+  /**
+   * ctor.
+   *
+   * @param x the center chunk x.
+   * @param z the center chunk z.
+   * @param radius the radius.
+   * @param chunks the chunks, row by row from the lowest x and z.
+   */
+  GenerationRegion(final int x, final int z, final int radius, @NotNull final Chunk[] chunks) {
+    this.x = x;
+    this.z = z;
+    this.radius = radius;
+    this.chunks = chunks;
+  }
+
+  /**
+   * obtains the center chunk.
+   *
+   * @return center chunk.
+   */
+  @NotNull
+  public Chunk center() {
+    return this.chunks[this.chunks.length >> 1];
+  }
+
+  /**
+   * obtains the chunk at the given position.
+   *
+   * @param x the chunk x to get.
+   * @param z the chunk z to get.
+   *
+   * @return chunk at the position.
+   *
+   * @throws IllegalArgumentException if the position is out of the region.
+   */
+  @NotNull
+  public Chunk chunk(final int x, final int z) {
+    final var dx = x - this.x + this.radius;
+    final var dz = z - this.z + this.radius;
+    final var size = (this.radius << 1) + 1;
+    if (dx < 0 || dz < 0 || dx >= size || dz >= size) {
+      throw new IllegalArgumentException("The chunk %d, %d is out of the region of %d, %d!"
+        .formatted(x, z, this.x, this.z));
+    }
+    return this.chunks[dx * size + dz];
+  }
+
+  /**
+   * obtains the runtime id of the block at the given world position.
+   *
+   * @param x the world x to get.
+   * @param y the y to get.
+   * @param z the world z to get.
+   *
+   * @return runtime id.
+   */
+  public int getBlock(final int x, final int y, final int z) {
+    return this.chunk(x >> 4, z >> 4).getBlock(x & 15, y, z & 15);
+  }
+
+  /**
+   * sets the runtime id of the block at the given world position.
+   *
+   * @param x the world x to set.
+   * @param y the y to set.
+   * @param z the world z to set.
+   * @param block the runtime id to set.
+   */
+  public void setBlock(final int x, final int y, final int z, final int block) {
+    this.chunk(x >> 4, z >> 4).setBlock(x & 15, y, z & 15, block);
+  }
+}
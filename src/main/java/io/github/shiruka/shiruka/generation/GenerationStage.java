@@ -0,0 +1,44 @@
+package io.github.shiruka.shiruka.generation;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * an enum class that contains the stages of the chunk generation in their order.
+ * <p>
+ * a stage of a chunk runs once the chunk and its neighbours within the {@link #dependencyRadius()} completed the
+ * previous stage. while a stage runs, the chunks within its {@link #claimRadius()} are claimed by it, so it may read
+ * and write them and no other stage touches them.
+ */
+@Getter
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+public enum GenerationStage {
+  /**
+   * fills the terrain's shape from the noise.
+   */
+  NOISE(0, 0),
+  /**
+   * replaces the top blocks of the terrain.
+   */
+  SURFACE(0, 0),
+  /**
+   * places the ores and the structures, which may reach into the neighbours.
+   */
+  FEATURES(1, 1),
+  /**
+   * computes the heights which the sky light starts from, after the neighbours' features stopped writing.
+   */
+  LIGHTING(1, 0);
+
+  /**
+   * the radius of the neighbours which have to complete the previous stage.
+   */
+  private final int dependencyRadius;
+
+  /**
+   * the radius of the chunks which the stage reads and writes.
+   */
+  private final int claimRadius;
+}
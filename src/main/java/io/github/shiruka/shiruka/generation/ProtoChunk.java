@@ -0,0 +1,88 @@
+package io.github.shiruka.shiruka.generation;
+
+import io.github.shiruka.shiruka.chunk.Chunk;
+import java.util.concurrent.CompletableFuture;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the chunks which are being generated, every field except the chunk is guarded by the
+ * pipeline's lock.
+ */
+@Getter
+@Accessors(fluent = true)
+final class ProtoChunk {
+
+  /**
+   * the chunk.
+   */
+  @NotNull
+  private final Chunk chunk;
+
+  /**
+   * the key.
+   */
+  private final long key;
+
+  /**
+   * the chunk x.
+   */
+  private final int x;
+
+  /**
+   * the chunk z.
+   */
+  private final int z;
+
+  /**
+   * the running stages which claim the chunk.
+   */
+  @Setter
+  private int claims;
+
+  /**
+   * the ordinal of the last completed stage, -1 if none is completed.
+   */
+  @Setter
+  private int completed = -1;
+
+  /**
+   * the future of the request, {@code null} if the chunk is only a dependency of the requested ones.
+   */
+  @Nullable
+  @Setter
+  private CompletableFuture<Chunk> future;
+
+  /**
+   * the priority, lower runs first.
+   */
+  @Setter
+  private long priority;
+
+  /**
+   * the queued, {@code true} while the next stage waits in the ready queue or runs.
+   */
+  @Setter
+  private boolean queued;
+
+  /**
+   * the ordinal of the stage which the chunk has to reach, -1 if none.
+   */
+  @Setter
+  private int target = -1;
+
+  /**
+   * ctor.
+   *
+   * @param chunk the chunk.
+   */
+  ProtoChunk(@NotNull final Chunk chunk) {
+    this.chunk = chunk;
+    this.x = chunk.x();
+    this.z = chunk.z();
+    this.key = Chunk.key(this.x, this.z);
+  }
+}
@@ -0,0 +1,280 @@
+package io.github.shiruka.shiruka.generation;
+
+import io.github.shiruka.shiruka.chunk.Chunk;
+import java.util.SplittableRandom;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that generates hills of value noise with a water level, ores and trees.
+ * <p>
+ * the blocks are the runtime ids of a fixed test palette, so the generator serves the benchmarks and the worlds
+ * without a generator of their own. every stage is deterministic for the seed and the chunk position.
+ */
+public final class TerrainGenerator implements ChunkGenerator {
+
+  /**
+   * the runtime id of air.
+   */
+  private static final int AIR = 0;
+
+  /**
+   * the runtime id of bedrock.
+   */
+  private static final int BEDROCK = 8;
+
+  /**
+   * the plains biome id.
+   */
+  private static final int BIOME = 1;
+
+  /**
+   * the runtime id of dirt.
+   */
+  private static final int DIRT = 2;
+
+  /**
+   * the runtime id of grass.
+   */
+  private static final int GRASS = 3;
+
+  /**
+   * the runtime id of leaves.
+   */
+  private static final int LEAVES = 7;
+
+  /**
+   * the runtime id of logs.
+   */
+  private static final int LOG = 6;
+
+  /**
+   * the runtime id of ore.
+   */
+  private static final int ORE = 5;
+
+  /**
+   * the ore veins per chunk.
+   */
+  private static final int ORE_VEINS = 16;
+
+  /**
+   * the runtime id of sand.
+   */
+  private static final int SAND = 9;
+
+  /**
+   * the sea level.
+   */
+  private static final int SEA_LEVEL = 62;
+
+  /**
+   * the runtime id of stone.
+   */
+  private static final int STONE = 1;
+
+  /**
+   * the runtime id of water.
+   */
+  private static final int WATER = 4;
+
+  /**
+   * the seed.
+   */
+  private final long seed;
+
+  /**
+   * ctor.
+   *
+   * @param seed the seed.
+   */
+  public TerrainGenerator(final long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * mixes the bits of the given value.
+   *
+   * @param value the value to mix.
+   *
+   * @return mixed value.
+   */
+  private static long mix(final long value) {
+    var mixed = (value ^ value >>> 33) * 0xFF51AFD7ED558CCDL;
+    mixed = (mixed ^ mixed >>> 33) * 0xC4CEB9FE1A85EC53L;
+    return mixed ^ mixed >>> 33;
+  }
+
+  /**
+   * eases the given fraction.
+   *
+   * @param fraction the fraction to ease.
+   *
+   * @return eased fraction.
+   */
+  private static double smooth(final double fraction) {
+    return fraction * fraction * (3.0D - 2.0D * fraction);
+  }
+
+  @NotNull
+  @Override
+  public Chunk create(final int x, final int z) {
+    return new Chunk(x, z, TerrainGenerator.AIR, TerrainGenerator.BIOME);
+  }
+
+  @Override
+  public void generate(@NotNull final GenerationStage stage, @NotNull final GenerationRegion region) {
+    switch (stage) {
+      case NOISE -> this.noise(region.center());
+      case SURFACE -> this.surface(region.center());
+      case FEATURES -> this.features(region);
+      case LIGHTING -> region.center().updateHeights();
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * places the ore veins and the trees of the center chunk, which may reach into the neighbours.
+   *
+   * @param region the region to place.
+   */
+  private void features(@NotNull final GenerationRegion region) {
+    final var random = new SplittableRandom(TerrainGenerator.mix(this.seed ^ Chunk.key(region.x(), region.z())));
+    final var baseX = region.x() << 4;
+    final var baseZ = region.z() << 4;
+    for (var vein = 0; vein < TerrainGenerator.ORE_VEINS; vein++) {
+      final var x = baseX + random.nextInt(16);
+      final var y = random.nextInt(Chunk.MIN_Y + 1, 40);
+      final var z = baseZ + random.nextInt(16);
+      for (var index = 0; index < 8; index++) {
+        final var oreX = x + random.nextInt(-1, 2);
+        final var oreY = y + random.nextInt(-1, 2);
+        final var oreZ = z + random.nextInt(-1, 2);
+        if (region.getBlock(oreX, oreY, oreZ) == TerrainGenerator.STONE) {
+          region.setBlock(oreX, oreY, oreZ, TerrainGenerator.ORE);
+        }
+      }
+    }
+    final var trees = random.nextInt(3);
+    for (var tree = 0; tree < trees; tree++) {
+      final var x = baseX + random.nextInt(16);
+      final var z = baseZ + random.nextInt(16);
+      final var ground = this.height(x, z);
+      if (ground < TerrainGenerator.SEA_LEVEL || region.getBlock(x, ground, z) != TerrainGenerator.GRASS) {
+        continue;
+      }
+      final var top = ground + 4 + random.nextInt(3);
+      for (var leafX = x - 2; leafX <= x + 2; leafX++) {
+        for (var leafZ = z - 2; leafZ <= z + 2; leafZ++) {
+          for (var leafY = top - 2; leafY <= top + 1; leafY++) {
+            final var spread = leafY > top - 1 ? 1 : 2;
+            if (Math.abs(leafX - x) <= spread && Math.abs(leafZ - z) <= spread &&
+              region.getBlock(leafX, leafY, leafZ) == TerrainGenerator.AIR) {
+              region.setBlock(leafX, leafY, leafZ, TerrainGenerator.LEAVES);
+            }
+          }
+        }
+      }
+      for (var y = ground + 1; y <= top; y++) {
+        region.setBlock(x, y, z, TerrainGenerator.LOG);
+      }
+    }
+  }
+
+  /**
+   * calculates the terrain height of the given world column.
+   *
+   * @param x the world x to calculate.
+   * @param z the world z to calculate.
+   *
+   * @return the y of the column's highest solid block.
+   */
+  private int height(final int x, final int z) {
+    return 64 + (int) ((this.noise(x, z, 64) - 0.5D) * 48.0D + (this.noise(x, z, 16) - 0.5D) * 12.0D);
+  }
+
+  /**
+   * obtains the lattice value of the given lattice point.
+   *
+   * @param x the lattice x.
+   * @param z the lattice z.
+   * @param scale the scale of the lattice.
+   *
+   * @return lattice value from 0 to 1.
+   */
+  private double lattice(final int x, final int z, final int scale) {
+    final var hash = TerrainGenerator.mix(this.seed ^ x * 0x9E3779B97F4A7C15L ^ z * 0xC2B2AE3D27D4EB4FL ^ scale);
+    return (hash >>> 11) * 0x1.0p-53;
+  }
+
+  /**
+   * fills the stone and the water of the given chunk.
+   *
+   * @param chunk the chunk to fill.
+   */
+  private void noise(@NotNull final Chunk chunk) {
+    final var baseX = chunk.x() << 4;
+    final var baseZ = chunk.z() << 4;
+    for (var x = 0; x < 16; x++) {
+      for (var z = 0; z < 16; z++) {
+        final var height = this.height(baseX + x, baseZ + z);
+        for (var y = Chunk.MIN_Y; y <= height; y++) {
+          chunk.setBlock(x, y, z, TerrainGenerator.STONE);
+        }
+        for (var y = height + 1; y < TerrainGenerator.SEA_LEVEL; y++) {
+          chunk.setBlock(x, y, z, TerrainGenerator.WATER);
+        }
+      }
+    }
+  }
+
+  /**
+   * calculates the value noise of the given world column.
+   *
+   * @param x the world x to calculate.
+   * @param z the world z to calculate.
+   * @param scale the blocks between the lattice points.
+   *
+   * @return noise from 0 to 1.
+   */
+  private double noise(final int x, final int z, final int scale) {
+    final var cellX = Math.floorDiv(x, scale);
+    final var cellZ = Math.floorDiv(z, scale);
+    final var fractionX = TerrainGenerator.smooth(Math.floorMod(x, scale) / (double) scale);
+    final var fractionZ = TerrainGenerator.smooth(Math.floorMod(z, scale) / (double) scale);
+    final var low = this.lattice(cellX, cellZ, scale) +
+      (this.lattice(cellX + 1, cellZ, scale) - this.lattice(cellX, cellZ, scale)) * fractionX;
+    final var high = this.lattice(cellX, cellZ + 1, scale) +
+      (this.lattice(cellX + 1, cellZ + 1, scale) - this.lattice(cellX, cellZ + 1, scale)) * fractionX;
+    return low + (high - low) * fractionZ;
+  }
+
+  /**
+   * replaces the top blocks of the given chunk with grass and dirt, or sand under the water, and the bottom with
+   * bedrock.
+   *
+   * @param chunk the chunk to replace.
+   */
+  private void surface(@NotNull final Chunk chunk) {
+    final var baseX = chunk.x() << 4;
+    final var baseZ = chunk.z() << 4;
+    for (var x = 0; x < 16; x++) {
+      for (var z = 0; z < 16; z++) {
+        final var height = this.height(baseX + x, baseZ + z);
+        final var dry = height >= TerrainGenerator.SEA_LEVEL - 1;
+        for (var y = height - 3; y <= height; y++) {
+          final int block;
+          if (!dry) {
+            block = TerrainGenerator.SAND;
+          } else if (y == height) {
+            block = TerrainGenerator.GRASS;
+          } else {
+            block = TerrainGenerator.DIRT;
+          }
+          chunk.setBlock(x, y, z, block);
+        }
+        chunk.setBlock(x, Chunk.MIN_Y, z, TerrainGenerator.BEDROCK);
+      }
+    }
+  }
+}
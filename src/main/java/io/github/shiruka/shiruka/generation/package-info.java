@@ -0,0 +1,4 @@
+/**
+ * the package that contains chunk generation classes.
+ */
+package io.github.shiruka.shiruka.generation;
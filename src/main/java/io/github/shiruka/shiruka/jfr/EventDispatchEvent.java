@@ -0,0 +1,24 @@
+package io.github.shiruka.shiruka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a class that represents flight recorder events of event dispatches.
+ */
+@Name("shiruka.EventDispatch")
+@Label("Event Dispatch")
+@Category({"Shiru ka", "Event"})
+@Description("A dispatch of an event to its listeners.")
+@StackTrace(false)
+public final class EventDispatchEvent extends jdk.jfr.Event {
+
+  /**
+   * the event type.
+   */
+  @Label("Event Type")
+  public Class<?> eventType;
+}
@@ -0,0 +1,84 @@
+package io.github.shiruka.shiruka.jfr;
+
+import io.github.shiruka.shiruka.scheduler.AsyncScheduler;
+import io.github.shiruka.shiruka.scheduler.SyncScheduler;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents periodic flight recorder snapshots of the schedulers' queues.
+ */
+@Name("shiruka.SchedulerSnapshot")
+@Label("Scheduler Snapshot")
+@Category({"Shiru ka", "Scheduler"})
+@Description("The queue sizes of the sync and async schedulers.")
+@Period("1 s")
+@StackTrace(false)
+public final class SchedulerSnapshotEvent extends jdk.jfr.Event {
+
+  /**
+   * the active async workers.
+   */
+  @Label("Active Async Workers")
+  public int asyncActiveWorkers;
+
+  /**
+   * the pending async tasks.
+   */
+  @Label("Pending Async Tasks")
+  public int asyncPending;
+
+  /**
+   * the unfinished async tasks.
+   */
+  @Label("Unfinished Async Tasks")
+  public int asyncRunners;
+
+  /**
+   * the async workers.
+   */
+  @Label("Async Workers")
+  public int asyncWorkers;
+
+  /**
+   * the pending sync tasks.
+   */
+  @Label("Pending Sync Tasks")
+  public int syncPending;
+
+  /**
+   * the unfinished sync tasks.
+   */
+  @Label("Unfinished Sync Tasks")
+  public int syncRunners;
+
+  /**
+   * registers the periodic snapshot of the given schedulers.
+   *
+   * @param sync the sync scheduler to snapshot.
+   * @param async the async scheduler to snapshot.
+   *
+   * @return hook to pass {@link FlightRecorder#removePeriodicEvent(Runnable)}.
+   */
+  @NotNull
+  public static Runnable register(@NotNull final SyncScheduler sync, @NotNull final AsyncScheduler async) {
+    final Runnable hook = () -> {
+      final var event = new SchedulerSnapshotEvent();
+      event.syncPending = sync.pendingTasks();
+      event.syncRunners = sync.runningTasks();
+      event.asyncPending = async.pendingTasks();
+      event.asyncRunners = async.runningTasks();
+      event.asyncWorkers = async.workers();
+      event.asyncActiveWorkers = async.activeWorkers();
+      event.commit();
+    };
+    FlightRecorder.addPeriodicEvent(SchedulerSnapshotEvent.class, hook);
+    return hook;
+  }
+}
@@ -0,0 +1,43 @@
+package io.github.shiruka.shiruka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a class that represents flight recorder events of scheduled task executions.
+ */
+@Name("shiruka.Task")
+@Label("Scheduled Task")
+@Category({"Shiru ka", "Scheduler"})
+@Description("An execution of a sync or async scheduled task.")
+@StackTrace(false)
+public final class TaskEvent extends jdk.jfr.Event {
+
+  /**
+   * the task id.
+   */
+  @Label("Task Id")
+  public int id;
+
+  /**
+   * the task name.
+   */
+  @Label("Task Name")
+  public String name;
+
+  /**
+   * the plugin.
+   */
+  @Label("Plugin")
+  public String plugin;
+
+  /**
+   * the sync.
+   */
+  @Label("Sync")
+  @Description("Whether the task ran on the main thread.")
+  public boolean sync;
+}
@@ -0,0 +1,31 @@
+package io.github.shiruka.shiruka.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * a class that represents flight recorder events of the main thread's ticks.
+ */
+@Name("shiruka.Tick")
+@Label("Tick")
+@Category({"Shiru ka", "Server"})
+@Description("A tick of the main thread.")
+@StackTrace(false)
+public final class TickEvent extends jdk.jfr.Event {
+
+  /**
+   * the average milliseconds per tick.
+   */
+  @Label("MSPT")
+  @Description("Average milliseconds per tick over the last 100 ticks.")
+  public double mspt;
+
+  /**
+   * the tick.
+   */
+  @Label("Tick")
+  public int tick;
+}
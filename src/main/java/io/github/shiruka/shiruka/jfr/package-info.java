@@ -0,0 +1,4 @@
+/**
+ * the package that contains Java Flight Recorder event classes.
+ */
+package io.github.shiruka.shiruka.jfr;
@@ -0,0 +1,265 @@
+package io.github.shiruka.shiruka.loadtest;
+
+import io.github.shiruka.shiruka.network.PacketIds;
+import io.github.shiruka.shiruka.network.VarInts;
+import io.github.shiruka.shiruka.network.raknet.RakNetClient;
+import io.github.shiruka.shiruka.network.raknet.RakNetSession;
+import io.github.shiruka.shiruka.network.raknet.SessionListener;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.DataFormatException;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents simulated clients which log in and send movement, chat and latency probes.
+ * <p>
+ * the clients open a RakNet session like the real ones, so the server sees the same handshake, splits and
+ * acknowledgements which it sees in production. the packets are written with the server's {@link PacketIds} and
+ * batch format, so the clients send exactly what the server's handlers decode.
+ */
+@Accessors(fluent = true)
+final class Bot implements SessionListener {
+
+  /**
+   * the protocol version which is sent in the login packet.
+   */
+  private static final int PROTOCOL_VERSION = 471;
+
+  /**
+   * the client.
+   */
+  @NotNull
+  private final RakNetClient client;
+
+  /**
+   * the generator.
+   */
+  @NotNull
+  private final LoadGenerator generator;
+
+  /**
+   * the login request.
+   */
+  @NotNull
+  private final byte[] loginRequest;
+
+  /**
+   * the name.
+   */
+  @NotNull
+  private final String name;
+
+  /**
+   * whether the session is closed or the server disconnected the bot.
+   */
+  @Getter
+  private volatile boolean closed;
+
+  /**
+   * the logged in.
+   */
+  @Getter
+  private volatile boolean loggedIn;
+
+  /**
+   * the login sent at.
+   */
+  private long loginSentAt;
+
+  /**
+   * the movement tick.
+   */
+  private long movementTick;
+
+  /**
+   * ctor.
+   *
+   * @param generator the generator.
+   * @param name the name.
+   * @param target the target.
+   * @param loginRequest the login request.
+   */
+  Bot(@NotNull final LoadGenerator generator, @NotNull final String name, @NotNull final InetSocketAddress target,
+      @NotNull final byte[] loginRequest) {
+    this.generator = generator;
+    this.name = name;
+    this.loginRequest = loginRequest.clone();
+    this.client = new RakNetClient(target, this);
+  }
+
+  /**
+   * writes the given string with its var int length.
+   *
+   * @param buffer the buffer to write.
+   * @param value the value to write.
+   */
+  private static void writeString(@NotNull final ByteBuf buffer, @NotNull final String value) {
+    VarInts.writeUnsigned(buffer, ByteBufUtil.utf8Bytes(value));
+    buffer.writeCharSequence(value, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * sends a chat message.
+   */
+  void chat() {
+    final var session = this.session();
+    if (session == null) {
+      return;
+    }
+    final var packet = session.channel().alloc().buffer();
+    VarInts.writeUnsigned(packet, PacketIds.TEXT);
+    packet.writeByte(1);
+    packet.writeBoolean(false);
+    Bot.writeString(packet, this.name);
+    Bot.writeString(packet, "Hello from " + this.name + " at " + System.currentTimeMillis());
+    Bot.writeString(packet, "");
+    Bot.writeString(packet, "");
+    this.send(session, packet);
+  }
+
+  /**
+   * binds a channel and starts the handshake, the login packet is sent once the session is connected.
+   *
+   * @param bootstrap the bootstrap to bind.
+   */
+  void connect(@NotNull final Bootstrap bootstrap) {
+    this.client.connect(bootstrap);
+  }
+
+  /**
+   * closes the session and the channel.
+   */
+  void close() {
+    this.client.close();
+  }
+
+  /**
+   * sends a movement.
+   */
+  void move() {
+    final var session = this.session();
+    if (session == null) {
+      return;
+    }
+    final var random = ThreadLocalRandom.current();
+    final var packet = session.channel().alloc().buffer(48);
+    VarInts.writeUnsigned(packet, PacketIds.MOVE_PLAYER);
+    VarInts.writeUnsigned(packet, 1);
+    packet.writeFloatLE(random.nextFloat() * 256.0F);
+    packet.writeFloatLE(64.0F);
+    packet.writeFloatLE(random.nextFloat() * 256.0F);
+    packet.writeFloatLE(random.nextFloat() * 180.0F - 90.0F);
+    packet.writeFloatLE(random.nextFloat() * 360.0F);
+    packet.writeFloatLE(random.nextFloat() * 360.0F);
+    packet.writeByte(0);
+    packet.writeBoolean(true);
+    VarInts.writeUnsigned(packet, 0);
+    VarInts.writeUnsigned(packet, (int) this.movementTick++);
+    this.send(session, packet);
+  }
+
+  /**
+   * sends a latency probe which the server answers from the main thread.
+   */
+  void ping() {
+    final var session = this.session();
+    if (session == null) {
+      return;
+    }
+    final var packet = session.channel().alloc().buffer(10);
+    VarInts.writeUnsigned(packet, PacketIds.NETWORK_STACK_LATENCY);
+    packet.writeLongLE(System.nanoTime());
+    packet.writeBoolean(true);
+    this.send(session, packet);
+  }
+
+  @Override
+  public void connected() {
+    final var session = this.client.session();
+    if (session == null) {
+      return;
+    }
+    final var packet = session.channel().alloc().buffer(this.loginRequest.length + 10);
+    VarInts.writeUnsigned(packet, PacketIds.LOGIN);
+    packet.writeInt(Bot.PROTOCOL_VERSION);
+    VarInts.writeUnsigned(packet, this.loginRequest.length);
+    packet.writeBytes(this.loginRequest);
+    this.loginSentAt = System.nanoTime();
+    this.send(session, packet);
+  }
+
+  @Override
+  public void disconnected() {
+    this.closed = true;
+  }
+
+  @Override
+  public void message(@NotNull final ByteBuf message) {
+    try {
+      BotCodec.decode(message, this::handle);
+    } catch (final DataFormatException | IndexOutOfBoundsException e) {
+      this.generator.errors().increment();
+    }
+  }
+
+  /**
+   * handles the given packet.
+   *
+   * @param packet the packet to handle.
+   */
+  private void handle(@NotNull final ByteBuf packet) {
+    this.generator.received().increment();
+    switch (VarInts.readUnsigned(packet) & 0x3FF) {
+      case PacketIds.PLAY_STATUS -> {
+        if (packet.readInt() == 0 && !this.loggedIn) {
+          this.loggedIn = true;
+          this.generator.loginLatency().record(System.nanoTime() - this.loginSentAt);
+        }
+      }
+      case PacketIds.NETWORK_STACK_LATENCY -> {
+        final var timestamp = packet.readLongLE();
+        final var session = this.client.session();
+        if (!packet.readBoolean()) {
+          this.generator.responseLatency().record(System.nanoTime() - timestamp);
+        } else if (session != null) {
+          final var answer = session.channel().alloc().buffer(10);
+          VarInts.writeUnsigned(answer, PacketIds.NETWORK_STACK_LATENCY);
+          answer.writeLongLE(timestamp);
+          answer.writeBoolean(false);
+          this.send(session, answer);
+        }
+      }
+      case PacketIds.DISCONNECT -> this.closed = true;
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * sends the given packet in its own batch, reliably and in order.
+   *
+   * @param session the session to send.
+   * @param packet the packet to send.
+   */
+  private void send(@NotNull final RakNetSession session, @NotNull final ByteBuf packet) {
+    session.send(BotCodec.encode(session.channel().alloc(), packet));
+    this.generator.sent().increment();
+  }
+
+  /**
+   * obtains the session if the bot is logged in.
+   *
+   * @return session, {@code null} if the bot is not logged in yet.
+   */
+  @Nullable
+  private RakNetSession session() {
+    return this.loggedIn ? this.client.session() : null;
+  }
+}
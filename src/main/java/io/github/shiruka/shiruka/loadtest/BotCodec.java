@@ -0,0 +1,103 @@
+package io.github.shiruka.shiruka.loadtest;
+
+import io.github.shiruka.shiruka.network.BatchCompressor;
+import io.github.shiruka.shiruka.network.VarInts;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that encodes and decodes the batches of simulated clients.
+ * <p>
+ * the client side favours simplicity over speed, so it works on heap arrays.
+ */
+final class BotCodec {
+
+  /**
+   * the deflaters.
+   */
+  private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() ->
+    new Deflater(Deflater.BEST_SPEED, true));
+
+  /**
+   * the inflaters.
+   */
+  private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * the buffer size.
+   */
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * ctor.
+   */
+  private BotCodec() {
+  }
+
+  /**
+   * decodes the given datagram content and passes every packet to the consumer.
+   *
+   * @param content the content to decode.
+   * @param consumer the consumer to pass the packets, their reader index points to the packet id.
+   *
+   * @throws DataFormatException if the batch is corrupted.
+   */
+  static void decode(@NotNull final ByteBuf content, @NotNull final Consumer<ByteBuf> consumer)
+    throws DataFormatException {
+    if (!content.isReadable() || content.readUnsignedByte() != BatchCompressor.BATCH_HEADER) {
+      return;
+    }
+    final var input = new byte[content.readableBytes()];
+    content.readBytes(input);
+    final var inflater = BotCodec.INFLATERS.get();
+    inflater.reset();
+    inflater.setInput(input);
+    final var batch = Unpooled.buffer(BotCodec.BUFFER_SIZE);
+    final var output = new byte[BotCodec.BUFFER_SIZE];
+    while (!inflater.finished()) {
+      final var inflated = inflater.inflate(output);
+      if (inflated == 0 && inflater.needsInput()) {
+        break;
+      }
+      batch.writeBytes(output, 0, inflated);
+    }
+    while (batch.isReadable()) {
+      consumer.accept(batch.readSlice(VarInts.readUnsigned(batch)));
+    }
+  }
+
+  /**
+   * encodes the given packets into a batch.
+   *
+   * @param allocator the allocator to allocate.
+   * @param packets the packets to encode, they are released.
+   *
+   * @return encoded batch.
+   */
+  @NotNull
+  static ByteBuf encode(@NotNull final ByteBufAllocator allocator, @NotNull final ByteBuf... packets) {
+    final var raw = Unpooled.buffer();
+    for (final var packet : packets) {
+      VarInts.writeUnsigned(raw, packet.readableBytes());
+      raw.writeBytes(packet);
+      packet.release();
+    }
+    final var deflater = BotCodec.DEFLATERS.get();
+    deflater.reset();
+    deflater.setInput(raw.array(), raw.arrayOffset(), raw.readableBytes());
+    deflater.finish();
+    final var output = new byte[BotCodec.BUFFER_SIZE];
+    final var batch = allocator.buffer(raw.readableBytes() / 2 + 16);
+    batch.writeByte(BatchCompressor.BATCH_HEADER);
+    while (!deflater.finished()) {
+      batch.writeBytes(output, 0, deflater.deflate(output));
+    }
+    return batch;
+  }
+}
@@ -0,0 +1,329 @@
+package io.github.shiruka.shiruka.loadtest;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.shiruka.shiruka.metrics.Histogram;
+import io.github.shiruka.shiruka.network.NetworkTransport;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents load generators which run simulated clients against a server in the same process.
+ * <p>
+ * the clients open RakNet sessions to the server over loopback, log in with self-signed chains, send movement, chat
+ * and latency probes at the given rates and finally report the client side latencies together with the server's tick
+ * times.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class LoadGenerator {
+
+  /**
+   * the clients which are connected at once while ramping up.
+   */
+  private static final int RAMP_UP_BATCH = 100;
+
+  /**
+   * the clients.
+   */
+  private final int clients;
+
+  /**
+   * the chat rate per second per client.
+   */
+  private final double chatRate;
+
+  /**
+   * the duration in seconds.
+   */
+  private final int duration;
+
+  /**
+   * the errors.
+   */
+  @Getter
+  private final LongAdder errors = new LongAdder();
+
+  /**
+   * the login latency in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram loginLatency = new Histogram();
+
+  /**
+   * the movement rate per second per client.
+   */
+  private final double moveRate;
+
+  /**
+   * the latency probe rate per second per client.
+   */
+  private final double pingRate;
+
+  /**
+   * the received packets.
+   */
+  @Getter
+  private final LongAdder received = new LongAdder();
+
+  /**
+   * the response latency of the latency probes in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram responseLatency = new Histogram();
+
+  /**
+   * the sent packets.
+   */
+  @Getter
+  private final LongAdder sent = new LongAdder();
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the target.
+   */
+  @NotNull
+  private final InetSocketAddress target;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param address the address which the server listens.
+   * @param clients the clients.
+   * @param duration the duration in seconds.
+   * @param moveRate the movement rate per second per client.
+   * @param chatRate the chat rate per second per client.
+   * @param pingRate the latency probe rate per second per client.
+   */
+  public LoadGenerator(@NotNull final ShirukaServer server, @NotNull final InetSocketAddress address,
+                       final int clients, final int duration, final double moveRate, final double chatRate,
+                       final double pingRate) {
+    this.server = server;
+    this.target = address.getAddress() == null || address.getAddress().isAnyLocalAddress()
+      ? new InetSocketAddress(InetAddress.getLoopbackAddress(), address.getPort())
+      : address;
+    this.clients = clients;
+    this.duration = duration;
+    this.moveRate = moveRate;
+    this.chatRate = chatRate;
+    this.pingRate = pingRate;
+  }
+
+  /**
+   * creates the login request which contains a self-signed chain.
+   *
+   * @param keyPair the key pair to sign.
+   * @param name the name of the client.
+   *
+   * @return login request.
+   *
+   * @throws GeneralSecurityException if the chain could not be signed.
+   */
+  @NotNull
+  static byte[] loginRequest(@NotNull final KeyPair keyPair, @NotNull final String name)
+    throws GeneralSecurityException {
+    final var publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    final var now = System.currentTimeMillis() / 1000L;
+    final var identity = LoadGenerator.token(keyPair, """
+      {"nbf":%d,"exp":%d,"identityPublicKey":"%s","extraData":{"displayName":"%s","identity":"%s"}}"""
+      .formatted(now - 60L, now + 86400L, publicKey, name, UUID.randomUUID()));
+    final var chain = ("{\"chain\":[\"" + identity + "\"]}").getBytes(StandardCharsets.UTF_8);
+    final var skin = LoadGenerator.token(keyPair, "{\"SkinId\":\"Standard_Custom\",\"DeviceOS\":7}")
+      .getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(8 + chain.length + skin.length)
+      .order(ByteOrder.LITTLE_ENDIAN)
+      .putInt(chain.length)
+      .put(chain)
+      .putInt(skin.length)
+      .put(skin)
+      .array();
+  }
+
+  /**
+   * signs a token with the given payload.
+   *
+   * @param keyPair the key pair to sign.
+   * @param payload the payload to sign.
+   *
+   * @return signed token.
+   *
+   * @throws GeneralSecurityException if the token could not be signed.
+   */
+  @NotNull
+  static String token(@NotNull final KeyPair keyPair, @NotNull final String payload)
+    throws GeneralSecurityException {
+    final var encoder = Base64.getUrlEncoder().withoutPadding();
+    final var x5u = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    final var content = encoder.encodeToString(("{\"alg\":\"ES384\",\"x5u\":\"" + x5u + "\"}")
+      .getBytes(StandardCharsets.UTF_8)) + '.' + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    final var signature = Signature.getInstance("SHA384withECDSAinP1363Format");
+    signature.initSign(keyPair.getPrivate());
+    signature.update(content.getBytes(StandardCharsets.US_ASCII));
+    return content + '.' + encoder.encodeToString(signature.sign());
+  }
+
+  /**
+   * formats the given nanoseconds as milliseconds.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds.
+   */
+  @NotNull
+  private static String millis(final double nanos) {
+    return "%.2f".formatted(nanos / TimeUnit.MILLISECONDS.toNanos(1L));
+  }
+
+  /**
+   * schedules the given action at the given rate with a random start offset.
+   *
+   * @param group the group to schedule.
+   * @param rate the rate per second.
+   * @param action the action to schedule.
+   */
+  private static void schedule(@NotNull final EventLoopGroup group, final double rate,
+                               @NotNull final Runnable action) {
+    if (rate <= 0.0D) {
+      return;
+    }
+    final var period = (long) (TimeUnit.SECONDS.toMicros(1L) / rate);
+    group.scheduleAtFixedRate(action, ThreadLocalRandom.current().nextLong(period), period, TimeUnit.MICROSECONDS);
+  }
+
+  /**
+   * starts the load generator on its own thread.
+   * <p>
+   * the server is stopped after the report is printed.
+   */
+  public void start() {
+    final var thread = new Thread(() -> {
+      try {
+        this.run();
+      } catch (final Exception e) {
+        LoadGenerator.log.error("The load test failed:", e);
+      } finally {
+        this.server.stop();
+      }
+    }, "Shiru ka Load Generator");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * prints the report.
+   *
+   * @param bots the bots to report.
+   * @param elapsed the elapsed time in nanoseconds.
+   * @param ticks the ticks which the server run while measuring.
+   */
+  private void report(@NotNull final List<Bot> bots, final long elapsed, final long ticks) {
+    final var loggedIn = bots.stream().filter(Bot::loggedIn).count();
+    final var disconnected = bots.stream().filter(Bot::closed).count();
+    final var seconds = elapsed / (double) TimeUnit.SECONDS.toNanos(1L);
+    final var mspt = this.server.tickStatistics().histogram();
+    LoadGenerator.log.info("Load test report for {} client(s) over {} s:", this.clients, "%.1f".formatted(seconds));
+    LoadGenerator.log.info("  clients: {} logged in, {} disconnected, {} decode error(s)",
+      loggedIn, disconnected, this.errors.sum());
+    LoadGenerator.log.info("  packets: {} sent ({}/s), {} received ({}/s)",
+      this.sent.sum(), "%.0f".formatted(this.sent.sum() / seconds),
+      this.received.sum(), "%.0f".formatted(this.received.sum() / seconds));
+    LoadGenerator.log.info("  server: {} TPS, MSPT mean {} p50 {} p95 {} p99 {} max {}",
+      "%.2f".formatted(ticks / seconds), LoadGenerator.millis(mspt.mean()),
+      LoadGenerator.millis(mspt.percentile(50.0D)), LoadGenerator.millis(mspt.percentile(95.0D)),
+      LoadGenerator.millis(mspt.percentile(99.0D)), LoadGenerator.millis(mspt.max()));
+    this.reportLatency("login", this.loginLatency);
+    this.reportLatency("response", this.responseLatency);
+  }
+
+  /**
+   * prints the percentiles of the given latency.
+   *
+   * @param name the name to print.
+   * @param latency the latency to print.
+   */
+  private void reportLatency(@NotNull final String name, @NotNull final Histogram latency) {
+    LoadGenerator.log.info("  {} latency (ms): count {} p50 {} p95 {} p99 {} max {}",
+      name, latency.count(), LoadGenerator.millis(latency.percentile(50.0D)),
+      LoadGenerator.millis(latency.percentile(95.0D)), LoadGenerator.millis(latency.percentile(99.0D)),
+      LoadGenerator.millis(latency.max()));
+  }
+
+  /**
+   * runs the load test.
+   *
+   * @throws Exception if the load test fails.
+   */
+  private void run() throws Exception {
+    while (this.server.network().listener().group() == null) {
+      Thread.sleep(100L);
+    }
+    final var transport = NetworkTransport.detect(true);
+    final var group = transport.eventLoopGroup(0, new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Load Generator Thread - %1$d")
+      .setDaemon(true)
+      .build());
+    final var bootstrap = new Bootstrap()
+      .group(group)
+      .channel(transport.datagramChannel())
+      .option(ChannelOption.ALLOCATOR, ByteBufAllocator.DEFAULT);
+    final var generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec("secp384r1"));
+    final var keyPair = generator.generateKeyPair();
+    final var bots = new ArrayList<Bot>(this.clients);
+    LoadGenerator.log.info("Connecting {} simulated client(s) to {}", this.clients, this.target);
+    try {
+      for (var index = 0; index < this.clients; index++) {
+        final var name = "Bot" + index;
+        final var bot = new Bot(this, name, this.target, LoadGenerator.loginRequest(keyPair, name));
+        bots.add(bot);
+        bot.connect(bootstrap);
+        LoadGenerator.schedule(group, this.moveRate, bot::move);
+        LoadGenerator.schedule(group, this.chatRate, bot::chat);
+        LoadGenerator.schedule(group, this.pingRate, bot::ping);
+        if ((index + 1) % LoadGenerator.RAMP_UP_BATCH == 0) {
+          Thread.sleep(50L);
+        }
+      }
+      final var statistics = this.server.tickStatistics();
+      statistics.histogram().reset();
+      final var startTicks = statistics.ticks();
+      final var start = System.nanoTime();
+      Thread.sleep(TimeUnit.SECONDS.toMillis(this.duration));
+      this.report(bots, System.nanoTime() - start, statistics.ticks() - startTicks);
+    } finally {
+      bots.forEach(Bot::close);
+      group.shutdownGracefully().syncUninterruptibly();
+    }
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains load test classes.
+ */
+package io.github.shiruka.shiruka.loadtest;
@@ -0,0 +1,19 @@
+package io.github.shiruka.shiruka.log;
+
+/**
+ * an enum class that contains policies which are applied when the async loggers' ring buffer is full.
+ */
+public enum LogOverflowPolicy {
+  /**
+   * waits until the ring buffer has space, the logging thread stalls until the appenders catch up.
+   */
+  BLOCK,
+  /**
+   * drops the events which are less severe than warnings and waits for the rest.
+   */
+  DROP_BELOW_WARN,
+  /**
+   * drops every event, so logging never stalls the logging thread.
+   */
+  DISCARD
+}
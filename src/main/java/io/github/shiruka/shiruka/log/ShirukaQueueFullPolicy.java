@@ -0,0 +1,103 @@
+package io.github.shiruka.shiruka.log;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.EventRoute;
+import org.apache.logging.log4j.spi.StandardLevel;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that decides what happens to a log event when the async loggers' ring buffer is full.
+ * <p>
+ * log4j creates the policy before the config is loaded, so the policy is kept in a static field and starts as
+ * {@link LogOverflowPolicy#BLOCK}, which is log4j's default behaviour. the dropped events are counted per level.
+ */
+public final class ShirukaQueueFullPolicy implements AsyncQueueFullPolicy {
+
+  /**
+   * the dropped events by level.
+   */
+  private static final Map<StandardLevel, LongAdder> DROPPED = new EnumMap<>(StandardLevel.class);
+
+  /**
+   * the events which found the ring buffer full.
+   */
+  private static final LongAdder QUEUE_FULL = new LongAdder();
+
+  /**
+   * the policy.
+   */
+  @NotNull
+  private static volatile LogOverflowPolicy policy = LogOverflowPolicy.BLOCK;
+
+  static {
+    for (final var level : StandardLevel.values()) {
+      ShirukaQueueFullPolicy.DROPPED.put(level, new LongAdder());
+    }
+  }
+
+  /**
+   * obtains the count of the dropped events.
+   *
+   * @return dropped event count.
+   */
+  public static long dropped() {
+    var dropped = 0L;
+    for (final var counter : ShirukaQueueFullPolicy.DROPPED.values()) {
+      dropped += counter.sum();
+    }
+    return dropped;
+  }
+
+  /**
+   * obtains the counts of the dropped events by level.
+   *
+   * @return dropped event counts by level name.
+   */
+  @NotNull
+  public static Map<String, Long> droppedByLevel() {
+    final var dropped = new HashMap<String, Long>();
+    ShirukaQueueFullPolicy.DROPPED.forEach((level, counter) -> dropped.put(level.name(), counter.sum()));
+    return dropped;
+  }
+
+  /**
+   * sets the policy.
+   *
+   * @param policy the policy to set.
+   */
+  public static void policy(@NotNull final LogOverflowPolicy policy) {
+    ShirukaQueueFullPolicy.policy = policy;
+  }
+
+  /**
+   * obtains the count of the events which found the ring buffer full.
+   *
+   * @return queue full count.
+   */
+  public static long queueFull() {
+    return ShirukaQueueFullPolicy.QUEUE_FULL.sum();
+  }
+
+  @Override
+  public EventRoute getRoute(final long backgroundThreadId, final Level level) {
+    ShirukaQueueFullPolicy.QUEUE_FULL.increment();
+    if (Thread.currentThread().getId() == backgroundThreadId) {
+      return EventRoute.SYNCHRONOUS;
+    }
+    final var drop = switch (ShirukaQueueFullPolicy.policy) {
+      case BLOCK -> false;
+      case DROP_BELOW_WARN -> level.intLevel() > Level.WARN.intLevel();
+      case DISCARD -> true;
+    };
+    if (!drop) {
+      return EventRoute.ENQUEUE;
+    }
+    ShirukaQueueFullPolicy.DROPPED.get(level.getStandardLevel()).increment();
+    return EventRoute.DISCARD;
+  }
+}
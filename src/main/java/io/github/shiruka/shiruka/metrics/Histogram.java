@@ -0,0 +1,193 @@
+package io.github.shiruka.shiruka.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a class that represents lock-free histograms of non-negative values.
+ * <p>
+ * values are counted in exponential buckets which are split into four linear sub-buckets, so percentiles are
+ * accurate to 25% of the value. recording never allocates and threads contend only on striped adders.
+ */
+public final class Histogram {
+
+  /**
+   * the bucket count.
+   */
+  private static final int BUCKETS = 252;
+
+  /**
+   * the buckets.
+   */
+  private final LongAdder[] buckets = new LongAdder[Histogram.BUCKETS];
+
+  /**
+   * the count.
+   */
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * the max.
+   */
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+  /**
+   * the sum.
+   */
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * ctor.
+   */
+  public Histogram() {
+    for (var index = 0; index < Histogram.BUCKETS; index++) {
+      this.buckets[index] = new LongAdder();
+    }
+  }
+
+  /**
+   * obtains the bucket index of the given value.
+   *
+   * @param value the value to get.
+   *
+   * @return bucket index.
+   */
+  private static int index(final long value) {
+    if (value < 4L) {
+      return (int) Math.max(value, 0L);
+    }
+    final var exponent = 63 - Long.numberOfLeadingZeros(value);
+    final var sub = (int) (value >>> exponent - 2) & 3;
+    return (exponent - 1) * 4 + sub;
+  }
+
+  /**
+   * obtains the highest value of the given bucket.
+   *
+   * @param index the index to get.
+   *
+   * @return highest value of the bucket.
+   */
+  private static long upperBound(final int index) {
+    if (index < 4) {
+      return index;
+    }
+    final var exponent = index / 4 + 1;
+    final var sub = index % 4;
+    final var lower = (long) (4 | sub) << exponent - 2;
+    return lower + (1L << exponent - 2) - 1L;
+  }
+
+  /**
+   * obtains the recorded value count.
+   *
+   * @return recorded value count.
+   */
+  public long count() {
+    return this.count.sum();
+  }
+
+  /**
+   * obtains the count of the recorded values which are less than or equal to the given bound.
+   * <p>
+   * the count is exact only at bucket boundaries.
+   *
+   * @param bound the bound to count.
+   *
+   * @return count of the values which are less than or equal to the bound.
+   */
+  public long countAtOrBelow(final long bound) {
+    if (bound < 0L) {
+      return 0L;
+    }
+    final var last = Histogram.index(bound);
+    var total = 0L;
+    for (var index = 0; index <= last; index++) {
+      total += this.buckets[index].sum();
+    }
+    return total;
+  }
+
+  /**
+   * obtains the highest recorded value.
+   *
+   * @return highest recorded value.
+   */
+  public long max() {
+    return this.max.get();
+  }
+
+  /**
+   * obtains the mean of the recorded values.
+   *
+   * @return mean of the recorded values.
+   */
+  public double mean() {
+    final var count = this.count();
+    return count == 0L
+      ? 0.0D
+      : (double) this.sum() / count;
+  }
+
+  /**
+   * estimates the given percentile of the recorded values.
+   *
+   * @param percentile the percentile to estimate, between 0 and 100.
+   *
+   * @return estimated percentile.
+   */
+  public long percentile(final double percentile) {
+    final var counts = new long[Histogram.BUCKETS];
+    var total = 0L;
+    for (var index = 0; index < Histogram.BUCKETS; index++) {
+      counts[index] = this.buckets[index].sum();
+      total += counts[index];
+    }
+    if (total == 0L) {
+      return 0L;
+    }
+    final var rank = (long) Math.ceil(total * Math.min(100.0D, Math.max(0.0D, percentile)) / 100.0D);
+    var seen = 0L;
+    for (var index = 0; index < Histogram.BUCKETS; index++) {
+      seen += counts[index];
+      if (seen >= rank && counts[index] > 0L) {
+        return Math.min(Histogram.upperBound(index), this.max());
+      }
+    }
+    return this.max();
+  }
+
+  /**
+   * records the given value.
+   *
+   * @param value the value to record, negative values are recorded as 0.
+   */
+  public void record(final long value) {
+    final var positive = Math.max(value, 0L);
+    this.buckets[Histogram.index(positive)].increment();
+    this.count.increment();
+    this.sum.add(positive);
+    this.max.accumulate(positive);
+  }
+
+  /**
+   * resets the histogram.
+   */
+  public void reset() {
+    for (final var bucket : this.buckets) {
+      bucket.reset();
+    }
+    this.count.reset();
+    this.sum.reset();
+    this.max.reset();
+  }
+
+  /**
+   * obtains the sum of the recorded values.
+   *
+   * @return sum of the recorded values.
+   */
+  public long sum() {
+    return this.sum.sum();
+  }
+}
@@ -0,0 +1,133 @@
+package io.github.shiruka.shiruka.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents exporters which serve a {@link MetricsRegistry} in the Prometheus text format.
+ * <p>
+ * the metrics are served at {@code /metrics} by the JDK's built-in http server on a single daemon thread, so
+ * scrapes never touch the main thread.
+ */
+@Log4j2
+public final class MetricsExporter {
+
+  /**
+   * the content type.
+   */
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  /**
+   * the address.
+   */
+  @NotNull
+  private final InetSocketAddress address;
+
+  /**
+   * the registry.
+   */
+  @NotNull
+  private final MetricsRegistry registry;
+
+  /**
+   * the executor.
+   */
+  @Nullable
+  private ExecutorService executor;
+
+  /**
+   * the server.
+   */
+  @Nullable
+  private HttpServer server;
+
+  /**
+   * ctor.
+   *
+   * @param registry the registry.
+   * @param address the address.
+   */
+  public MetricsExporter(@NotNull final MetricsRegistry registry, @NotNull final InetSocketAddress address) {
+    this.registry = registry;
+    this.address = address;
+  }
+
+  /**
+   * starts serving the metrics.
+   *
+   * @throws IOException if the address could not be bound.
+   */
+  public synchronized void start() throws IOException {
+    if (this.server != null) {
+      return;
+    }
+    final var server = HttpServer.create(this.address, 0);
+    final var executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Metrics Thread")
+      .setDaemon(true)
+      .build());
+    server.createContext("/metrics", this::handle);
+    server.setExecutor(executor);
+    server.start();
+    this.server = server;
+    this.executor = executor;
+    MetricsExporter.log.info("Serving metrics on http://{}:{}/metrics",
+      this.address.getHostString(), server.getAddress().getPort());
+  }
+
+  /**
+   * stops serving the metrics.
+   */
+  public synchronized void stop() {
+    if (this.server != null) {
+      this.server.stop(0);
+      this.server = null;
+    }
+    if (this.executor != null) {
+      this.executor.shutdown();
+      this.executor = null;
+    }
+  }
+
+  /**
+   * handles the given exchange.
+   *
+   * @param exchange the exchange to handle.
+   *
+   * @throws IOException if the response could not be sent.
+   */
+  private void handle(@NotNull final HttpExchange exchange) throws IOException {
+    try (exchange) {
+      final var method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        exchange.sendResponseHeaders(405, -1L);
+        return;
+      }
+      final var builder = new StringBuilder(16 * 1024);
+      try {
+        this.registry.write(builder);
+      } catch (final RuntimeException e) {
+        MetricsExporter.log.error("Could not collect the metrics:", e);
+        exchange.sendResponseHeaders(500, -1L);
+        return;
+      }
+      final var body = builder.toString().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", MetricsExporter.CONTENT_TYPE);
+      if ("HEAD".equals(method)) {
+        exchange.sendResponseHeaders(200, -1L);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+    }
+  }
+}
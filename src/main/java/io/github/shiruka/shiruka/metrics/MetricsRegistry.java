@@ -0,0 +1,269 @@
+package io.github.shiruka.shiruka.metrics;
+
+import com.google.common.base.Preconditions;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the registry of the server's counters, gauges and histograms.
+ * <p>
+ * registering is cheap and thread-safe, the values are read only when {@link #write(StringBuilder)} is called, so
+ * the recording side never pays for the exporting side. histograms are exported as summaries.
+ */
+public final class MetricsRegistry {
+
+  /**
+   * the pattern of the metric names.
+   */
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+  /**
+   * the quantiles of the exported histograms.
+   */
+  private static final double[] QUANTILES = {0.5D, 0.9D, 0.99D};
+
+  /**
+   * the metrics.
+   */
+  private final Map<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+  /**
+   * escapes the given label value.
+   *
+   * @param value the value to escape.
+   *
+   * @return escaped label value.
+   */
+  @NotNull
+  private static String escape(@NotNull final String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  /**
+   * formats the given value.
+   *
+   * @param value the value to format.
+   *
+   * @return formatted value.
+   */
+  @NotNull
+  private static String format(final double value) {
+    if (Double.isNaN(value)) {
+      return "NaN";
+    }
+    if (Double.isInfinite(value)) {
+      return value > 0.0D ? "+Inf" : "-Inf";
+    }
+    if (value == Math.rint(value) && Math.abs(value) < 1.0E15D) {
+      return Long.toString((long) value);
+    }
+    return Double.toString(value);
+  }
+
+  /**
+   * registers a new counter.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   *
+   * @return counter to increment.
+   */
+  @NotNull
+  public LongAdder counter(@NotNull final String name, @NotNull final String help) {
+    final var counter = new LongAdder();
+    this.counter(name, help, counter::sum);
+    return counter;
+  }
+
+  /**
+   * registers a counter which is read from the given supplier.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   * @param value the value to register.
+   */
+  public void counter(@NotNull final String name, @NotNull final String help, @NotNull final DoubleSupplier value) {
+    this.register(name, help, Type.COUNTER, (builder, metric) ->
+      MetricsRegistry.sample(builder, metric, "", value.getAsDouble()));
+  }
+
+  /**
+   * registers a gauge which is read from the given supplier.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   * @param value the value to register.
+   */
+  public void gauge(@NotNull final String name, @NotNull final String help, @NotNull final DoubleSupplier value) {
+    this.register(name, help, Type.GAUGE, (builder, metric) ->
+      MetricsRegistry.sample(builder, metric, "", value.getAsDouble()));
+  }
+
+  /**
+   * registers a new histogram.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   *
+   * @return histogram to record.
+   */
+  @NotNull
+  public Histogram histogram(@NotNull final String name, @NotNull final String help) {
+    final var histogram = new Histogram();
+    this.histogram(name, help, histogram, 1.0D);
+    return histogram;
+  }
+
+  /**
+   * registers the given histogram.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   * @param histogram the histogram to register.
+   * @param scale the scale which the recorded values are multiplied by, such as 1e-9 for nanoseconds to seconds.
+   */
+  public void histogram(@NotNull final String name, @NotNull final String help, @NotNull final Histogram histogram,
+                        final double scale) {
+    this.register(name, help, Type.SUMMARY, (builder, metric) -> {
+      for (final var quantile : MetricsRegistry.QUANTILES) {
+        MetricsRegistry.sample(builder, metric, "quantile=\"" + quantile + '"',
+          histogram.percentile(quantile * 100.0D) * scale);
+      }
+      MetricsRegistry.sample(builder, metric + "_sum", "", histogram.sum() * scale);
+      MetricsRegistry.sample(builder, metric + "_count", "", histogram.count());
+    });
+  }
+
+  /**
+   * registers a family of labelled values which is read from the given supplier on every export.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   * @param type the type to register.
+   * @param label the name of the label.
+   * @param values the values by the label value.
+   *
+   * @throws IllegalArgumentException if the type is summary.
+   */
+  public void labelled(@NotNull final String name, @NotNull final String help, @NotNull final Type type,
+                       @NotNull final String label, @NotNull final Supplier<Map<String, ? extends Number>> values) {
+    Preconditions.checkArgument(type != Type.SUMMARY, "Labelled summaries are not supported");
+    this.register(name, help, type, (builder, metric) -> values.get().forEach((key, value) ->
+      MetricsRegistry.sample(builder, metric, label + "=\"" + MetricsRegistry.escape(key) + '"',
+        value.doubleValue())));
+  }
+
+  /**
+   * unregisters the metric of the given name.
+   *
+   * @param name the name to unregister.
+   */
+  public void unregister(@NotNull final String name) {
+    this.metrics.remove(name);
+  }
+
+  /**
+   * writes every metric in the Prometheus text format.
+   *
+   * @param builder the builder to write.
+   */
+  public void write(@NotNull final StringBuilder builder) {
+    this.metrics.forEach((name, metric) -> {
+      builder.append("# HELP ").append(name).append(' ').append(metric.help().replace("\n", " ")).append('\n');
+      builder.append("# TYPE ").append(name).append(' ').append(metric.type().name().toLowerCase(Locale.ROOT))
+        .append('\n');
+      metric.writer().write(builder, name);
+    });
+  }
+
+  /**
+   * appends a sample.
+   *
+   * @param builder the builder to append.
+   * @param name the name of the sample.
+   * @param labels the labels of the sample.
+   * @param value the value of the sample.
+   */
+  private static void sample(@NotNull final StringBuilder builder, @NotNull final String name,
+                             @NotNull final String labels, final double value) {
+    builder.append(name);
+    if (!labels.isEmpty()) {
+      builder.append('{').append(labels).append('}');
+    }
+    builder.append(' ').append(MetricsRegistry.format(value)).append('\n');
+  }
+
+  /**
+   * registers the given metric.
+   *
+   * @param name the name to register.
+   * @param help the help to register.
+   * @param type the type to register.
+   * @param writer the writer to register.
+   *
+   * @throws IllegalArgumentException if the name is invalid or already registered.
+   */
+  private void register(@NotNull final String name, @NotNull final String help, @NotNull final Type type,
+                        @NotNull final Writer writer) {
+    if (!MetricsRegistry.NAME.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid metric name '%s'".formatted(name));
+    }
+    if (this.metrics.putIfAbsent(name, new Metric(help, type, writer)) != null) {
+      throw new IllegalArgumentException("Metric '%s' is already registered".formatted(name));
+    }
+  }
+
+  /**
+   * an enum class that contains the types of metrics.
+   */
+  public enum Type {
+    /**
+     * the counter.
+     */
+    COUNTER,
+    /**
+     * the gauge.
+     */
+    GAUGE,
+    /**
+     * the summary.
+     */
+    SUMMARY
+  }
+
+  /**
+   * an interface to determine writers of metric samples.
+   */
+  @FunctionalInterface
+  private interface Writer {
+
+    /**
+     * writes the samples of the metric.
+     *
+     * @param builder the builder to write.
+     * @param name the name of the metric.
+     */
+    void write(@NotNull StringBuilder builder, @NotNull String name);
+  }
+
+  /**
+   * a record class that represents registered metrics.
+   *
+   * @param help the help.
+   * @param type the type.
+   * @param writer the writer.
+   */
+  private record Metric(
+    @NotNull String help,
+    @NotNull Type type,
+    @NotNull Writer writer
+  ) {
+
+  }
+}
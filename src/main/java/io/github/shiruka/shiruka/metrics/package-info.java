@@ -0,0 +1,4 @@
+/**
+ * the package that contains metric classes.
+ */
+package io.github.shiruka.shiruka.metrics;
@@ -0,0 +1,334 @@
+package io.github.shiruka.shiruka.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the outbound stage which compresses per-tick packet batches off the main thread.
+ * <p>
+ * each connection is pinned to one worker, so the batches of a connection are sent in order and every worker
+ * reuses its own {@link Deflater}. the shared batches of the caches are deflated by the workers in turn and the
+ * connections wait for them in their own order, so the main thread never deflates.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class BatchCompressor {
+
+  /**
+   * the batch header.
+   */
+  public static final int BATCH_HEADER = 0xFE;
+
+  /**
+   * the adapting interval in nanoseconds.
+   */
+  private static final long ADAPT_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+
+  /**
+   * the busy ratio of the workers which lowers the compression.
+   */
+  private static final double HIGH_LOAD = 0.75D;
+
+  /**
+   * the busy ratio of the workers which raises the compression.
+   */
+  private static final double LOW_LOAD = 0.25D;
+
+  /**
+   * the maximum threshold.
+   */
+  private static final int MAX_THRESHOLD = 8192;
+
+  /**
+   * the allocator.
+   */
+  private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+  /**
+   * the busy time of the workers in nanoseconds.
+   */
+  private final LongAdder busy = new LongAdder();
+
+  /**
+   * the deflaters of the workers.
+   */
+  private final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() ->
+    new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+  /**
+   * the maximum level.
+   */
+  private final int maxLevel;
+
+  /**
+   * the minimum threshold.
+   */
+  private final int minThreshold;
+
+  /**
+   * the worker which deflates the next shared batch.
+   */
+  private final AtomicInteger nextWorker = new AtomicInteger();
+
+  /**
+   * the workers.
+   */
+  private final ExecutorService[] workers;
+
+  /**
+   * the current compression level.
+   */
+  @Getter
+  private volatile int level;
+
+  /**
+   * the last adapt time.
+   */
+  private long lastAdapt = System.nanoTime();
+
+  /**
+   * the current compression threshold, smaller batches are stored without compression.
+   */
+  @Getter
+  private volatile int threshold;
+
+  /**
+   * ctor.
+   *
+   * @param threads the threads, 0 means a quarter of the available processors.
+   * @param maxLevel the maximum compression level.
+   * @param minThreshold the minimum compression threshold.
+   */
+  public BatchCompressor(final int threads, final int maxLevel, final int minThreshold) {
+    final var count = threads > 0
+      ? threads
+      : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    this.maxLevel = Math.max(Deflater.BEST_SPEED, Math.min(Deflater.BEST_COMPRESSION, maxLevel));
+    this.minThreshold = Math.max(0, minThreshold);
+    this.level = this.maxLevel;
+    this.threshold = this.minThreshold;
+    this.workers = new ExecutorService[count];
+    for (var index = 0; index < count; index++) {
+      this.workers[index] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("Shiru ka Compression Thread - " + index)
+        .setDaemon(true)
+        .build());
+    }
+  }
+
+  /**
+   * adapts the compression level and threshold to the load of the workers.
+   * <p>
+   * called once per tick by the main thread.
+   */
+  public void adapt() {
+    final var now = System.nanoTime();
+    final var elapsed = now - this.lastAdapt;
+    if (elapsed < BatchCompressor.ADAPT_INTERVAL) {
+      return;
+    }
+    this.lastAdapt = now;
+    final var load = (double) this.busy.sumThenReset() / (elapsed * this.workers.length);
+    if (load > BatchCompressor.HIGH_LOAD) {
+      this.level = Math.max(Deflater.BEST_SPEED, this.level - 1);
+      this.threshold = Math.min(BatchCompressor.MAX_THRESHOLD, Math.max(64, this.threshold * 2));
+    } else if (load < BatchCompressor.LOW_LOAD) {
+      this.level = Math.min(this.maxLevel, this.level + 1);
+      this.threshold = Math.max(this.minThreshold, this.threshold / 2);
+    }
+  }
+
+  /**
+   * compresses the given packets into a batch and sends it to the connection.
+   *
+   * @param connection the connection to send.
+   * @param packets the packets to compress, they are released after compression.
+   */
+  public void compress(@NotNull final Connection connection, @NotNull final List<ByteBuf> packets) {
+    this.worker(connection).execute(() -> {
+      final var start = System.nanoTime();
+      try {
+        var uncompressed = 0L;
+        for (final var packet : packets) {
+          uncompressed += packet.readableBytes();
+        }
+        final var batch = this.deflateNow(packets);
+        connection.metrics().compressed(uncompressed, batch.readableBytes());
+        connection.write(connection.seal(batch, false));
+      } catch (final Throwable t) {
+        BatchCompressor.log.error("Could not compress a batch for {}", connection.address(), t);
+      } finally {
+        packets.forEach(ReferenceCountUtil::safeRelease);
+        final var elapsed = System.nanoTime() - start;
+        this.busy.add(elapsed);
+        connection.metrics().encodeTime().record(elapsed);
+      }
+    });
+  }
+
+  /**
+   * sends the given shared batch to the connections after their previously compressed batches.
+   * <p>
+   * every connection waits for the batch on its own worker, which is safe since the batch is deflated by a task
+   * which is queued before and never waits itself.
+   *
+   * @param connections the connections to send.
+   * @param batch the batch to send, the connections take the ownership of it.
+   */
+  public void send(@NotNull final Collection<Connection> connections, @NotNull final CompletableFuture<ByteBuf> batch) {
+    if (connections.isEmpty()) {
+      batch.thenAccept(ByteBuf::release);
+      return;
+    }
+    final var remaining = new AtomicInteger(connections.size());
+    for (final var connection : connections) {
+      this.worker(connection).execute(() -> {
+        final ByteBuf ready;
+        try {
+          ready = batch.join();
+        } catch (final CancellationException | CompletionException e) {
+          BatchCompressor.log.error("Could not compress a shared batch for {}", connection.address(), e);
+          return;
+        }
+        try {
+          connection.write(connection.seal(ready.retainedDuplicate(), true));
+        } finally {
+          if (remaining.decrementAndGet() == 0) {
+            ready.release();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * shuts the workers down.
+   */
+  public void shutdown() {
+    for (final var worker : this.workers) {
+      worker.shutdown();
+    }
+  }
+
+  /**
+   * deflates the given packets into a pooled direct buffer on the next worker.
+   *
+   * @param packets the packets to deflate, they are released after compression.
+   *
+   * @return a future which completes on the worker with the deflated batch.
+   */
+  @NotNull
+  CompletableFuture<ByteBuf> deflate(@NotNull final List<ByteBuf> packets) {
+    final var worker = this.workers[Math.floorMod(this.nextWorker.getAndIncrement(), this.workers.length)];
+    return CompletableFuture.supplyAsync(() -> {
+      final var start = System.nanoTime();
+      try {
+        return this.deflateNow(packets);
+      } finally {
+        packets.forEach(ReferenceCountUtil::safeRelease);
+        this.busy.add(System.nanoTime() - start);
+      }
+    }, worker);
+  }
+
+  /**
+   * runs the given task on the worker of the connection after its previously queued batches.
+   *
+   * @param connection the connection to run.
+   * @param task the task to run.
+   */
+  void execute(@NotNull final Connection connection, @NotNull final Runnable task) {
+    this.worker(connection).execute(task);
+  }
+
+  /**
+   * deflates the given packets into a pooled direct buffer on the calling thread.
+   *
+   * @param packets the packets to deflate.
+   *
+   * @return deflated batch.
+   */
+  @NotNull
+  private ByteBuf deflateNow(@NotNull final List<ByteBuf> packets) {
+    var length = 0;
+    for (final var packet : packets) {
+      length += VarInts.size(packet.readableBytes()) + packet.readableBytes();
+    }
+    final var deflater = this.deflaters.get();
+    deflater.reset();
+    deflater.setLevel(length < this.threshold ? Deflater.NO_COMPRESSION : this.level);
+    final var output = this.allocator.directBuffer(length + (length >> 3) + 64);
+    output.writeByte(BatchCompressor.BATCH_HEADER);
+    try {
+      final var header = new byte[VarInts.MAX_SIZE];
+      for (final var packet : packets) {
+        deflater.setInput(header, 0, VarInts.writeUnsigned(header, packet.readableBytes()));
+        BatchCompressor.drain(deflater, output);
+        deflater.setInput(packet.nioBuffer());
+        BatchCompressor.drain(deflater, output);
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        BatchCompressor.deflateInto(deflater, output);
+      }
+      return output;
+    } catch (final Throwable t) {
+      output.release();
+      throw t;
+    }
+  }
+
+  /**
+   * obtains the worker of the given connection.
+   *
+   * @param connection the connection to get.
+   *
+   * @return worker of the connection.
+   */
+  @NotNull
+  private ExecutorService worker(@NotNull final Connection connection) {
+    return this.workers[Math.floorMod(connection.address().hashCode(), this.workers.length)];
+  }
+
+  /**
+   * deflates until the deflater needs more input.
+   *
+   * @param deflater the deflater to drain.
+   * @param output the output to write.
+   */
+  private static void drain(@NotNull final Deflater deflater, @NotNull final ByteBuf output) {
+    while (!deflater.needsInput()) {
+      BatchCompressor.deflateInto(deflater, output);
+    }
+  }
+
+  /**
+   * deflates directly into the writable bytes of the output.
+   *
+   * @param deflater the deflater to deflate.
+   * @param output the output to write.
+   */
+  private static void deflateInto(@NotNull final Deflater deflater, @NotNull final ByteBuf output) {
+    output.ensureWritable(256);
+    final var buffer = output.nioBuffer(output.writerIndex(), output.writableBytes());
+    output.writerIndex(output.writerIndex() + deflater.deflate(buffer));
+  }
+}
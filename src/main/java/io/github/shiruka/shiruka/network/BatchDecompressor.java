@@ -0,0 +1,74 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that inflates inbound batches on the network threads.
+ */
+final class BatchDecompressor {
+
+  /**
+   * the allocator.
+   */
+  private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+  /**
+   * the inflaters of the network threads.
+   */
+  private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * the maximum size of an inflated batch.
+   */
+  private static final int MAX_SIZE = 8 * 1024 * 1024;
+
+  /**
+   * ctor.
+   */
+  private BatchDecompressor() {
+  }
+
+  /**
+   * inflates the given compressed batch body into a pooled direct buffer.
+   *
+   * @param compressed the compressed to inflate.
+   *
+   * @return inflated batch.
+   *
+   * @throws CorruptedFrameException if the batch is corrupted or bigger than {@link #MAX_SIZE} bytes.
+   */
+  @NotNull
+  static ByteBuf inflate(@NotNull final ByteBuf compressed) {
+    final var inflater = BatchDecompressor.INFLATERS.get();
+    inflater.reset();
+    inflater.setInput(compressed.nioBuffer());
+    final var output = BatchDecompressor.ALLOCATOR.directBuffer(compressed.readableBytes() * 4);
+    try {
+      while (!inflater.finished()) {
+        if (output.readableBytes() >= BatchDecompressor.MAX_SIZE) {
+          throw new CorruptedFrameException("Batch is too big");
+        }
+        output.ensureWritable(1024);
+        final var buffer = output.nioBuffer(output.writerIndex(), output.writableBytes());
+        final var inflated = inflater.inflate(buffer);
+        if (inflated == 0 && inflater.needsInput()) {
+          break;
+        }
+        output.writerIndex(output.writerIndex() + inflated);
+      }
+      return output;
+    } catch (final DataFormatException e) {
+      output.release();
+      throw new CorruptedFrameException(e);
+    } catch (final RuntimeException e) {
+      output.release();
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package io.github.shiruka.shiruka.network;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.IllegalReferenceCountException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents caches of compressed single packet batches which are sent unchanged to many players.
+ * <p>
+ * a miss encodes the packet on the calling thread and deflates it on a compression worker, the batch is cached once
+ * it is deflated, so the misses of a key which overlap that compress it again.
+ */
+final class BroadcastCache {
+
+  /**
+   * the cache.
+   */
+  private final Cache<Object, ByteBuf> cache;
+
+  /**
+   * the compressor.
+   */
+  @NotNull
+  private final BatchCompressor compressor;
+
+  /**
+   * ctor.
+   *
+   * @param compressor the compressor.
+   * @param maxBytes the maximum compressed bytes to keep.
+   */
+  BroadcastCache(@NotNull final BatchCompressor compressor, final long maxBytes) {
+    this.compressor = compressor;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxBytes)
+      .<Object, ByteBuf>weigher((key, value) -> value.readableBytes())
+      .removalListener((RemovalNotification<Object, ByteBuf> notification) -> notification.getValue().release())
+      .build();
+  }
+
+  /**
+   * obtains the compressed batch of the given key, compressing the packet if it is not cached yet.
+   *
+   * @param key the key to get.
+   * @param packet the packet to compress if absent, the cache takes the ownership of it.
+   *
+   * @return a future of a retained duplicate of the compressed batch which the caller has to release.
+   */
+  @NotNull
+  CompletableFuture<ByteBuf> acquire(@NotNull final Object key, @NotNull final Supplier<ByteBuf> packet) {
+    final var cached = this.cache.getIfPresent(key);
+    if (cached != null) {
+      try {
+        return CompletableFuture.completedFuture(cached.retainedDuplicate());
+      } catch (final IllegalReferenceCountException e) {
+        this.cache.asMap().remove(key, cached);
+      }
+    }
+    return this.compressor.deflate(List.of(packet.get())).thenApply(batch -> {
+      final var result = batch.retainedDuplicate();
+      this.cache.put(key, batch);
+      return result;
+    });
+  }
+
+  /**
+   * invalidates all the cached batches.
+   */
+  void clear() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * invalidates the cached batch of the given key.
+   *
+   * @param key the key to invalidate.
+   */
+  void invalidate(@NotNull final Object key) {
+    this.cache.invalidate(key);
+  }
+}
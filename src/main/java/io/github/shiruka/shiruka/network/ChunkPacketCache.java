@@ -0,0 +1,265 @@
+package io.github.shiruka.shiruka.network;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import io.github.shiruka.shiruka.chunk.Chunk;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.IllegalReferenceCountException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents caches of compressed level chunk batches which are shared by the players who load the
+ * same chunks.
+ * <p>
+ * a chunk position of a dimension keeps one batch together with the {@link Chunk#version()} which it was encoded
+ * from. the versions are unique among all the chunks, so a block change or a reloaded chunk makes the batch stale and
+ * the next send encodes and replaces it. a miss encodes the chunk on the calling thread and deflates it on a
+ * compression worker, which caches the batch unless a newer version is cached meanwhile. the batches are reference
+ * counted, the cache and every queued send hold a reference, so an evicted or replaced batch is freed only after its
+ * last send. the cache is bounded by the compressed bytes and evicts the least recently used batches first.
+ */
+public final class ChunkPacketCache {
+
+  /**
+   * the compressed bytes of the cached batches.
+   */
+  private final LongAdder bytes = new LongAdder();
+
+  /**
+   * the cache.
+   */
+  private final Cache<Key, Encoded> cache;
+
+  /**
+   * the compressor.
+   */
+  @NotNull
+  private final BatchCompressor compressor;
+
+  /**
+   * the batches which are evicted to stay within the size.
+   */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * the sends which found a batch of the chunk's version.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * the sends which encoded the chunk.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * ctor.
+   *
+   * @param compressor the compressor.
+   * @param maxBytes the maximum compressed bytes to keep.
+   */
+  public ChunkPacketCache(@NotNull final BatchCompressor compressor, final long maxBytes) {
+    this.compressor = compressor;
+    this.cache = CacheBuilder.newBuilder()
+      .maximumWeight(maxBytes)
+      .<Key, Encoded>weigher((key, value) -> value.batch().readableBytes())
+      .removalListener(this::removed)
+      .build();
+  }
+
+  /**
+   * encodes the level chunk packet of the given chunk.
+   *
+   * @param chunk the chunk to encode.
+   *
+   * @return encoded packet.
+   */
+  @NotNull
+  private static ByteBuf encode(@NotNull final Chunk chunk) {
+    final var payload = PooledByteBufAllocator.DEFAULT.directBuffer(16384);
+    try {
+      final var count = chunk.write(payload);
+      final var packet = PooledByteBufAllocator.DEFAULT.directBuffer(payload.readableBytes() + 32);
+      VarInts.writeUnsigned(packet, PacketIds.LEVEL_CHUNK);
+      VarInts.writeSigned(packet, chunk.x());
+      VarInts.writeSigned(packet, chunk.z());
+      VarInts.writeUnsigned(packet, count);
+      packet.writeBoolean(false);
+      VarInts.writeUnsigned(packet, payload.readableBytes());
+      packet.writeBytes(payload);
+      return packet;
+    } finally {
+      payload.release();
+    }
+  }
+
+  /**
+   * picks the batch of the newer chunk version.
+   *
+   * @param cached the cached batch.
+   * @param encoded the encoded batch.
+   *
+   * @return the batch to keep.
+   */
+  @NotNull
+  private static Encoded newer(@NotNull final Encoded cached, @NotNull final Encoded encoded) {
+    return cached.version() > encoded.version() ? cached : encoded;
+  }
+
+  /**
+   * obtains the compressed batch of the given chunk, encoding and compressing it if the cached one is missing or
+   * stale.
+   * <p>
+   * this should be called by the owner of the chunk, since a miss reads the chunk.
+   *
+   * @param dimension the dimension of the chunk.
+   * @param chunk the chunk to get.
+   *
+   * @return a future of a retained duplicate of the compressed batch which the caller has to release.
+   */
+  @NotNull
+  public CompletableFuture<ByteBuf> acquire(final int dimension, @NotNull final Chunk chunk) {
+    final var key = new Key(dimension, Chunk.key(chunk.x(), chunk.z()));
+    final var version = chunk.version();
+    final var cached = this.cache.getIfPresent(key);
+    if (cached != null && cached.version() == version) {
+      try {
+        final var batch = cached.batch().retainedDuplicate();
+        this.hits.increment();
+        return CompletableFuture.completedFuture(batch);
+      } catch (final IllegalReferenceCountException ignored) {
+        // evicted while it was read, encode it again.
+      }
+    }
+    this.misses.increment();
+    return this.compressor.deflate(List.of(ChunkPacketCache.encode(chunk))).thenApply(batch -> {
+      final var result = batch.retainedDuplicate();
+      final var encoded = new Encoded(version, batch);
+      this.bytes.add(batch.readableBytes());
+      if (this.cache.asMap().merge(key, encoded, ChunkPacketCache::newer) != encoded) {
+        this.bytes.add(-batch.readableBytes());
+        batch.release();
+      }
+      return result;
+    });
+  }
+
+  /**
+   * obtains the compressed bytes of the cached batches.
+   *
+   * @return cached bytes.
+   */
+  public long bytes() {
+    return this.bytes.sum();
+  }
+
+  /**
+   * invalidates all the cached batches.
+   */
+  public void clear() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * obtains the count of the batches which are evicted to stay within the size.
+   *
+   * @return evicted batch count.
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * obtains the count of the sends which found a batch of the chunk's version.
+   *
+   * @return hit count.
+   */
+  public long hits() {
+    return this.hits.sum();
+  }
+
+  /**
+   * obtains the ratio of the sends which found a batch of the chunk's version.
+   *
+   * @return hit ratio from 0 to 1, 0 if nothing is sent yet.
+   */
+  public double hitRate() {
+    final var hits = this.hits.sum();
+    final var total = hits + this.misses.sum();
+    return total == 0L ? 0.0D : hits / (double) total;
+  }
+
+  /**
+   * invalidates the cached batch of the given chunk position, such as when the chunk is unloaded.
+   *
+   * @param dimension the dimension of the chunk.
+   * @param x the chunk x.
+   * @param z the chunk z.
+   */
+  public void invalidate(final int dimension, final int x, final int z) {
+    this.cache.invalidate(new Key(dimension, Chunk.key(x, z)));
+  }
+
+  /**
+   * obtains the count of the sends which encoded the chunk.
+   *
+   * @return miss count.
+   */
+  public long misses() {
+    return this.misses.sum();
+  }
+
+  /**
+   * obtains the count of the cached batches.
+   *
+   * @return cached batch count.
+   */
+  public long size() {
+    return this.cache.size();
+  }
+
+  /**
+   * releases the cache's reference of the removed batch.
+   *
+   * @param notification the notification to release.
+   */
+  private void removed(@NotNull final RemovalNotification<Key, Encoded> notification) {
+    final var batch = notification.getValue().batch();
+    if (notification.getCause() == RemovalCause.SIZE) {
+      this.evictions.increment();
+    }
+    this.bytes.add(-batch.readableBytes());
+    batch.release();
+  }
+
+  /**
+   * a record class that represents the keys of the cached batches.
+   *
+   * @param dimension the dimension of the chunk.
+   * @param position the position key of the chunk.
+   */
+  private record Key(
+    int dimension,
+    long position
+  ) {
+
+  }
+
+  /**
+   * a record class that represents compressed batches of a chunk version.
+   *
+   * @param version the chunk version.
+   * @param batch the compressed batch.
+   */
+  private record Encoded(
+    long version,
+    @NotNull ByteBuf batch
+  ) {
+
+  }
+}
@@ -0,0 +1,458 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.github.shiruka.shiruka.network.raknet.RakNetSession;
+import io.github.shiruka.shiruka.network.raknet.SessionListener;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.SecretKey;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents remote peers which send datagrams to the server.
+ * <p>
+ * the batches travel in the game messages of a {@link RakNetSession}, which delivers them reliably and in order, so
+ * the streaming cipher of an encrypted session never sees a lost or a reordered batch.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class Connection {
+
+  /**
+   * the mask of packet ids in packet headers.
+   */
+  private static final int PACKET_ID_MASK = 0x3FF;
+
+  /**
+   * the address.
+   */
+  @NotNull
+  @Getter
+  private final InetSocketAddress address;
+
+  /**
+   * the channel that received the offline handshake of the peer.
+   */
+  @NotNull
+  @Getter
+  private final Channel channel;
+
+  /**
+   * the inbound packets.
+   */
+  @NotNull
+  private final InboundQueue inbound;
+
+  /**
+   * the manager.
+   */
+  @NotNull
+  private final NetworkManager manager;
+
+  /**
+   * the outbound packets of the current tick.
+   */
+  private final Queue<ByteBuf> outbound = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the count of the outbound packets of the current tick.
+   */
+  private final AtomicInteger outboundDepth = new AtomicInteger();
+
+  /**
+   * the received datagram bytes.
+   */
+  private final LongAdder receivedBytes = new LongAdder();
+
+  /**
+   * the sent batch bytes.
+   */
+  private final LongAdder sentBytes = new LongAdder();
+
+  /**
+   * the session.
+   */
+  @NotNull
+  @Getter
+  private final RakNetSession session;
+
+  /**
+   * the cipher.
+   */
+  @Nullable
+  private volatile ConnectionCipher cipher;
+
+  /**
+   * the last activity.
+   */
+  @Getter
+  private volatile long lastActivity = System.currentTimeMillis();
+
+  /**
+   * the send time of the last latency probe in nanoseconds.
+   */
+  private volatile long pingSentAt;
+
+  /**
+   * the timestamp of the last latency probe.
+   */
+  private volatile long pingTimestamp = -1L;
+
+  /**
+   * the round trip time in nanoseconds, -1 if it is not measured yet.
+   */
+  @Getter
+  private volatile long rtt = -1L;
+
+  /**
+   * ctor.
+   *
+   * @param address the address.
+   * @param channel the channel.
+   * @param manager the manager.
+   * @param limits the limits of the inbound queue.
+   * @param mtu the mtu which is negotiated by the offline handshake.
+   * @param guid the guid of the peer.
+   */
+  Connection(@NotNull final InetSocketAddress address, @NotNull final Channel channel,
+             @NotNull final NetworkManager manager, @NotNull final InboundLimits limits, final int mtu,
+             final long guid) {
+    this.address = address;
+    this.channel = channel;
+    this.manager = manager;
+    this.inbound = new InboundQueue(limits);
+    this.session = new RakNetSession(channel, address, mtu, manager.guid(), guid, false, new Listener());
+  }
+
+  /**
+   * closes the connection.
+   */
+  public void close() {
+    this.manager.remove(this);
+    this.session.close();
+    ByteBuf packet;
+    while ((packet = this.outbound.poll()) != null) {
+      this.outboundDepth.decrementAndGet();
+      packet.release();
+    }
+    this.inbound.clear();
+  }
+
+  /**
+   * sends a disconnect packet with the given reason and closes the connection after it is sent.
+   *
+   * @param reason the reason to disconnect.
+   */
+  public void disconnect(@NotNull final String reason) {
+    final var packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+    VarInts.writeUnsigned(packet, PacketIds.DISCONNECT);
+    packet.writeBoolean(false);
+    VarInts.writeUnsigned(packet, ByteBufUtil.utf8Bytes(reason));
+    packet.writeCharSequence(reason, StandardCharsets.UTF_8);
+    this.send(packet);
+    final var compressor = this.manager.compressor();
+    this.flush(compressor);
+    compressor.execute(this, this::close);
+  }
+
+  /**
+   * obtains the count of inbound packets which are dropped since the queue was full.
+   *
+   * @return dropped inbound packet count.
+   */
+  public long droppedPackets() {
+    return this.inbound.dropped();
+  }
+
+  /**
+   * obtains the bytes of the inbound packets which wait for the main thread.
+   *
+   * @return queued inbound bytes.
+   */
+  public long queuedBytes() {
+    return this.inbound.bytes();
+  }
+
+  /**
+   * obtains the count of inbound packets which wait for the main thread.
+   *
+   * @return queued inbound packet count.
+   */
+  public int queueDepth() {
+    return this.inbound.depth();
+  }
+
+  /**
+   * obtains the count of outbound packets which wait for the end of the current tick.
+   *
+   * @return queued outbound packet count.
+   */
+  public int outboundDepth() {
+    return this.outboundDepth.get();
+  }
+
+  /**
+   * obtains the datagram bytes which are received from the peer.
+   *
+   * @return received bytes.
+   */
+  public long receivedBytes() {
+    return this.receivedBytes.sum();
+  }
+
+  /**
+   * obtains the batch bytes which are sent to the peer.
+   *
+   * @return sent bytes.
+   */
+  public long sentBytes() {
+    return this.sentBytes.sum();
+  }
+
+  /**
+   * enables the encryption of the session.
+   * <p>
+   * the packets which are queued before are sent without encryption, so this should be called right after queueing
+   * the server to client handshake.
+   *
+   * @param key the key to enable.
+   *
+   * @throws GeneralSecurityException if the ciphers could not be initiated.
+   */
+  public void enableEncryption(@NotNull final SecretKey key) throws GeneralSecurityException {
+    final var cipher = new ConnectionCipher(key);
+    final var compressor = this.manager.compressor();
+    this.flush(compressor);
+    compressor.execute(this, () -> this.cipher = cipher);
+  }
+
+  /**
+   * checks if the session is encrypted.
+   *
+   * @return {@code true} if the session is encrypted.
+   */
+  public boolean encrypted() {
+    return this.cipher != null;
+  }
+
+  /**
+   * queues the given encoded packet to send at the end of the current tick.
+   *
+   * @param packet the packet to send, the connection takes the ownership of it.
+   */
+  public void send(@NotNull final ByteBuf packet) {
+    this.outboundDepth.incrementAndGet();
+    this.outbound.add(packet);
+  }
+
+  /**
+   * handles the queued inbound packets within the per-tick budget.
+   *
+   * @param handlers the handlers to handle.
+   */
+  void drain(@NotNull final PacketHandlers handlers) {
+    this.inbound.drain(this, handlers);
+  }
+
+  /**
+   * hands the packets of the current tick over to the compressor.
+   *
+   * @param compressor the compressor to flush.
+   */
+  void flush(@NotNull final BatchCompressor compressor) {
+    if (this.outbound.isEmpty()) {
+      return;
+    }
+    final var metrics = this.metrics();
+    final var packets = new ArrayList<ByteBuf>(this.outbound.size());
+    ByteBuf packet;
+    while ((packet = this.outbound.poll()) != null) {
+      this.outboundDepth.decrementAndGet();
+      metrics.outbound(VarInts.getUnsigned(packet, packet.readerIndex()), packet.readableBytes());
+      packets.add(packet);
+    }
+    compressor.compress(this, packets);
+  }
+
+  /**
+   * obtains the metrics of the network.
+   *
+   * @return network metrics.
+   */
+  @NotNull
+  NetworkMetrics metrics() {
+    return this.manager.metrics();
+  }
+
+  /**
+   * queues a latency probe which the peer answers, the answer updates {@link #rtt}.
+   * <p>
+   * called by the main thread right before {@link #flush(BatchCompressor)}.
+   */
+  void ping() {
+    final var timestamp = System.currentTimeMillis();
+    final var packet = PooledByteBufAllocator.DEFAULT.directBuffer(10);
+    VarInts.writeUnsigned(packet, PacketIds.NETWORK_STACK_LATENCY);
+    packet.writeLongLE(timestamp);
+    packet.writeBoolean(true);
+    this.pingTimestamp = timestamp;
+    this.pingSentAt = System.nanoTime();
+    this.send(packet);
+  }
+
+  /**
+   * receives the given connected datagram.
+   * <p>
+   * called by the event loop of the channel.
+   *
+   * @param datagram the datagram to receive.
+   */
+  void receive(@NotNull final ByteBuf datagram) {
+    this.lastActivity = System.currentTimeMillis();
+    this.metrics().received(datagram.readableBytes());
+    this.receivedBytes.add(datagram.readableBytes());
+    this.session.receive(datagram);
+  }
+
+  /**
+   * encrypts the given compressed batch if the session is encrypted.
+   * <p>
+   * called only by the compression worker of the connection.
+   *
+   * @param batch the batch to encrypt.
+   * @param shared whether the batch is shared with other connections and must be left untouched.
+   *
+   * @return batch to send.
+   */
+  @NotNull
+  ByteBuf seal(@NotNull final ByteBuf batch, final boolean shared) {
+    final var cipher = this.cipher;
+    if (cipher == null) {
+      return batch;
+    }
+    final var bodyIndex = batch.readerIndex() + 1;
+    if (shared) {
+      return cipher.encryptCopy(batch, bodyIndex);
+    }
+    cipher.encrypt(batch, bodyIndex);
+    return batch;
+  }
+
+  /**
+   * writes the given batch to the peer as a game message of the session.
+   *
+   * @param batch the batch to write.
+   */
+  void write(@NotNull final ByteBuf batch) {
+    final var bytes = batch.readableBytes();
+    this.metrics().sent(bytes);
+    this.sentBytes.add(bytes);
+    this.session.send(batch);
+  }
+
+  /**
+   * consumes the given latency packet if it answers the last probe of the server.
+   * <p>
+   * the answers are consumed on the network thread, so the round trip time does not include the wait for the next
+   * tick. vanilla clients answer with the timestamp multiplied by 1000, so both forms are accepted.
+   *
+   * @param payload the payload to consume.
+   *
+   * @return {@code true} if the packet is consumed.
+   */
+  private boolean pong(@NotNull final ByteBuf payload) {
+    final var timestamp = this.pingTimestamp;
+    if (timestamp < 0L || payload.readableBytes() < 9 || payload.getBoolean(payload.readerIndex() + 8)) {
+      return false;
+    }
+    final var answer = payload.getLongLE(payload.readerIndex());
+    if (answer != timestamp && answer != timestamp * 1000L) {
+      return false;
+    }
+    this.rtt = System.nanoTime() - this.pingSentAt;
+    this.pingTimestamp = -1L;
+    return true;
+  }
+
+  /**
+   * receives the given game message which the session delivers.
+   *
+   * @param content the content to receive.
+   */
+  private void receiveBatch(@NotNull final ByteBuf content) {
+    final var metrics = this.metrics();
+    if (!content.isReadable() || content.readUnsignedByte() != BatchCompressor.BATCH_HEADER) {
+      return;
+    }
+    final var start = System.nanoTime();
+    final ByteBuf batch;
+    try {
+      final var cipher = this.cipher;
+      if (cipher != null) {
+        cipher.decrypt(content);
+      }
+      batch = BatchDecompressor.inflate(content);
+    } catch (final CorruptedFrameException e) {
+      Connection.log.debug("Disconnecting {} because of a corrupted batch", this.address, e);
+      this.close();
+      return;
+    }
+    try {
+      while (batch.isReadable()) {
+        final var packet = batch.readSlice(VarInts.readUnsigned(batch));
+        final var length = packet.readableBytes();
+        final var id = VarInts.readUnsigned(packet) & Connection.PACKET_ID_MASK;
+        metrics.inbound(id, length);
+        if (id == PacketIds.NETWORK_STACK_LATENCY && this.pong(packet)) {
+          continue;
+        }
+        final var payload = packet.retainedSlice();
+        if (this.inbound.offer(id, payload)) {
+          continue;
+        }
+        payload.release();
+        if (this.manager.handlers().policy(id) == OverflowPolicy.DISCONNECT) {
+          Connection.log.warn("Disconnecting {} because its inbound queue is full", this.address);
+          this.close();
+          return;
+        }
+      }
+    } catch (final IndexOutOfBoundsException | CorruptedFrameException e) {
+      Connection.log.debug("Disconnecting {} because of a malformed batch", this.address, e);
+      this.close();
+    } finally {
+      batch.release();
+      metrics.decodeTime().record(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * a class that represents the listener which hands the game messages of the session over to the connection.
+   */
+  private final class Listener implements SessionListener {
+
+    @Override
+    public void disconnected() {
+      Connection.this.close();
+    }
+
+    @Override
+    public void message(@NotNull final ByteBuf message) {
+      Connection.this.receiveBatch(message);
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.DigestException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the streaming AES-CTR ciphers of an encrypted Bedrock session.
+ * <p>
+ * one cipher is kept per direction for the whole session, so there is no per-batch cipher setup. AES-CTR is backed
+ * by the JVM's AES intrinsics and both ciphers work on the direct memory of the buffers in place. the outbound side
+ * is used only by the compression worker of the connection and the inbound side only by its network thread.
+ */
+final class ConnectionCipher {
+
+  /**
+   * the allocator.
+   */
+  private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+  /**
+   * the checksum length.
+   */
+  private static final int CHECKSUM_LENGTH = 8;
+
+  /**
+   * the decrypt.
+   */
+  private final Direction decrypt;
+
+  /**
+   * the encrypt.
+   */
+  private final Direction encrypt;
+
+  /**
+   * the key.
+   */
+  private final byte[] key;
+
+  /**
+   * ctor.
+   *
+   * @param key the key.
+   *
+   * @throws GeneralSecurityException if the ciphers could not be initiated.
+   */
+  ConnectionCipher(@NotNull final SecretKey key) throws GeneralSecurityException {
+    this.key = key.getEncoded();
+    final var ivBytes = Arrays.copyOf(this.key, 16);
+    Arrays.fill(ivBytes, 12, 16, (byte) 0);
+    ivBytes[15] = 2;
+    this.encrypt = new Direction(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(ivBytes));
+    this.decrypt = new Direction(Cipher.DECRYPT_MODE, key, new IvParameterSpec(ivBytes));
+  }
+
+  /**
+   * decrypts the body of the given batch in place and verifies its checksum.
+   *
+   * @param batch the batch to decrypt, its reader index has to point to the body after the header.
+   *
+   * @throws CorruptedFrameException if the batch is too short or its checksum does not match.
+   */
+  void decrypt(@NotNull final ByteBuf batch) {
+    final var length = batch.readableBytes();
+    if (length < ConnectionCipher.CHECKSUM_LENGTH) {
+      throw new CorruptedFrameException("Encrypted batch is too short");
+    }
+    final var start = batch.readerIndex();
+    this.decrypt.update(batch.nioBuffer(start, length), batch.nioBuffer(start, length));
+    final var bodyLength = length - ConnectionCipher.CHECKSUM_LENGTH;
+    final var checksum = this.decrypt.checksum(batch.nioBuffer(start, bodyLength), this.key);
+    for (var index = 0; index < ConnectionCipher.CHECKSUM_LENGTH; index++) {
+      if (batch.getByte(start + bodyLength + index) != checksum[index]) {
+        throw new CorruptedFrameException("Invalid batch checksum");
+      }
+    }
+    batch.writerIndex(start + bodyLength);
+  }
+
+  /**
+   * appends the checksum to the given batch and encrypts its body in place.
+   *
+   * @param batch the batch to encrypt, it must not be shared with other connections.
+   * @param bodyIndex the index of the body after the header.
+   */
+  void encrypt(@NotNull final ByteBuf batch, final int bodyIndex) {
+    final var bodyLength = batch.writerIndex() - bodyIndex;
+    batch.writeBytes(this.encrypt.checksum(batch.nioBuffer(bodyIndex, bodyLength), this.key),
+      0, ConnectionCipher.CHECKSUM_LENGTH);
+    final var length = bodyLength + ConnectionCipher.CHECKSUM_LENGTH;
+    this.encrypt.update(batch.nioBuffer(bodyIndex, length), batch.nioBuffer(bodyIndex, length));
+  }
+
+  /**
+   * encrypts the given shared batch into a new buffer.
+   *
+   * @param batch the batch to encrypt, it is released and left untouched.
+   * @param bodyIndex the index of the body after the header.
+   *
+   * @return encrypted copy of the batch.
+   */
+  @NotNull
+  ByteBuf encryptCopy(@NotNull final ByteBuf batch, final int bodyIndex) {
+    try {
+      final var headerLength = bodyIndex - batch.readerIndex();
+      final var bodyLength = batch.writerIndex() - bodyIndex;
+      final var output = ConnectionCipher.ALLOCATOR.directBuffer(
+        headerLength + bodyLength + ConnectionCipher.CHECKSUM_LENGTH);
+      output.writeBytes(batch, batch.readerIndex(), headerLength);
+      output.writerIndex(headerLength + bodyLength);
+      this.encrypt.update(batch.nioBuffer(bodyIndex, bodyLength), output.nioBuffer(headerLength, bodyLength));
+      final var checksum = this.encrypt.checksum(batch.nioBuffer(bodyIndex, bodyLength), this.key);
+      final var checksumIndex = output.writerIndex();
+      output.writeBytes(checksum, 0, ConnectionCipher.CHECKSUM_LENGTH);
+      this.encrypt.update(output.nioBuffer(checksumIndex, ConnectionCipher.CHECKSUM_LENGTH),
+        output.nioBuffer(checksumIndex, ConnectionCipher.CHECKSUM_LENGTH));
+      return output;
+    } finally {
+      batch.release();
+    }
+  }
+
+  /**
+   * a class that represents one direction of the session.
+   */
+  private static final class Direction {
+
+    /**
+     * the cipher.
+     */
+    private final Cipher cipher;
+
+    /**
+     * the counter bytes.
+     */
+    private final ByteBuffer counter = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * the digest.
+     */
+    private final MessageDigest digest;
+
+    /**
+     * the digest output.
+     */
+    private final byte[] digestOutput;
+
+    /**
+     * the batch counter.
+     */
+    private long count;
+
+    /**
+     * ctor.
+     *
+     * @param mode the mode.
+     * @param key the key.
+     * @param iv the iv.
+     *
+     * @throws GeneralSecurityException if the cipher could not be initiated.
+     */
+    private Direction(final int mode, @NotNull final SecretKey key, @NotNull final IvParameterSpec iv)
+      throws GeneralSecurityException {
+      this.cipher = Cipher.getInstance("AES/CTR/NoPadding");
+      this.cipher.init(mode, key, iv);
+      this.digest = MessageDigest.getInstance("SHA-256");
+      this.digestOutput = new byte[this.digest.getDigestLength()];
+    }
+
+    /**
+     * calculates the checksum of the given plain body and increments the counter.
+     *
+     * @param body the body to calculate.
+     * @param key the key to calculate.
+     *
+     * @return a reused array whose first {@link ConnectionCipher#CHECKSUM_LENGTH} bytes are the checksum.
+     */
+    private byte[] checksum(@NotNull final ByteBuffer body, final byte[] key) {
+      this.counter.clear();
+      this.counter.putLong(0, this.count++);
+      this.digest.update(this.counter);
+      this.digest.update(body);
+      this.digest.update(key);
+      try {
+        this.digest.digest(this.digestOutput, 0, this.digestOutput.length);
+      } catch (final DigestException e) {
+        throw new IllegalStateException(e);
+      }
+      return this.digestOutput;
+    }
+
+    /**
+     * streams the input through the cipher into the output.
+     *
+     * @param input the input to update.
+     * @param output the output to update, it may share the memory of the input.
+     */
+    private void update(@NotNull final ByteBuffer input, @NotNull final ByteBuffer output) {
+      try {
+        this.cipher.update(input, output);
+      } catch (final ShortBufferException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package io.github.shiruka.shiruka.network;
+
+import io.github.shiruka.shiruka.network.raknet.RakNet;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents channel handlers which route the connected datagrams to their connections and the offline
+ * ones to the handshake.
+ */
+@Log4j2
+@ChannelHandler.Sharable
+@RequiredArgsConstructor
+final class ConnectionHandler extends SimpleChannelInboundHandler<DatagramPacket> {
+
+  /**
+   * the manager.
+   */
+  @NotNull
+  private final NetworkManager manager;
+
+  @Override
+  public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+    ConnectionHandler.log.error("An exception occurred in the network pipeline:", cause);
+  }
+
+  @Override
+  protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg) {
+    final var content = msg.content();
+    if (!content.isReadable()) {
+      return;
+    }
+    if ((content.getUnsignedByte(content.readerIndex()) & RakNet.VALID) == 0) {
+      this.manager.offline().handle(ctx.channel(), msg.sender(), content);
+      return;
+    }
+    final var connection = this.manager.connection(msg.sender());
+    if (connection != null) {
+      connection.receive(content);
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package io.github.shiruka.shiruka.network;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * a class that represents limits of the per-connection inbound queues.
+ */
+@Getter
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+public final class InboundLimits {
+
+  /**
+   * the maximum bytes which are handled per tick for a connection.
+   */
+  private final long bytesPerTick;
+
+  /**
+   * the maximum bytes which are queued for a connection.
+   */
+  private final long maxBytes;
+
+  /**
+   * the maximum packets which are queued for a connection.
+   */
+  private final int maxPackets;
+
+  /**
+   * the maximum packets which are handled per tick for a connection.
+   */
+  private final int packetsPerTick;
+}
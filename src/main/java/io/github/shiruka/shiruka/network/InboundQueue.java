@@ -0,0 +1,155 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents bounded queues which carry inbound packets from a network thread to the main thread.
+ */
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+final class InboundQueue {
+
+  /**
+   * the bytes.
+   */
+  private final AtomicLong bytes = new AtomicLong();
+
+  /**
+   * the depth.
+   */
+  private final AtomicInteger depth = new AtomicInteger();
+
+  /**
+   * the dropped packets.
+   */
+  private final LongAdder dropped = new LongAdder();
+
+  /**
+   * the limits.
+   */
+  @NotNull
+  private final InboundLimits limits;
+
+  /**
+   * the packets.
+   */
+  private final Queue<Entry> packets = new ConcurrentLinkedQueue<>();
+
+  /**
+   * obtains the queued bytes.
+   *
+   * @return queued bytes.
+   */
+  long bytes() {
+    return this.bytes.get();
+  }
+
+  /**
+   * releases all the queued packets.
+   */
+  void clear() {
+    Entry entry;
+    while ((entry = this.packets.poll()) != null) {
+      this.bytes.addAndGet(-entry.payload().readableBytes());
+      this.depth.decrementAndGet();
+      entry.payload().release();
+    }
+  }
+
+  /**
+   * obtains the queued packet count.
+   *
+   * @return queued packet count.
+   */
+  int depth() {
+    return this.depth.get();
+  }
+
+  /**
+   * handles the queued packets within the per-tick budget.
+   * <p>
+   * at least one packet is handled per call, even if it is bigger than the byte budget.
+   *
+   * @param connection the connection to handle.
+   * @param handlers the handlers to handle.
+   */
+  void drain(@NotNull final Connection connection, @NotNull final PacketHandlers handlers) {
+    var packets = 0;
+    var bytes = 0L;
+    while (packets < this.limits.packetsPerTick() && bytes < this.limits.bytesPerTick()) {
+      final var entry = this.packets.poll();
+      if (entry == null) {
+        return;
+      }
+      final var payload = entry.payload();
+      final var size = payload.readableBytes();
+      this.bytes.addAndGet(-size);
+      this.depth.decrementAndGet();
+      packets++;
+      bytes += size;
+      try {
+        handlers.handle(connection, entry.id(), payload);
+      } finally {
+        payload.release();
+      }
+    }
+  }
+
+  /**
+   * obtains the dropped packet count.
+   *
+   * @return dropped packet count.
+   */
+  long dropped() {
+    return this.dropped.sum();
+  }
+
+  /**
+   * queues the given packet if the queue has room for it.
+   *
+   * @param id the id to queue.
+   * @param payload the payload to queue, the queue takes the ownership of it only if it is queued.
+   *
+   * @return {@code true} if the packet is queued.
+   */
+  boolean offer(final int id, @NotNull final ByteBuf payload) {
+    final var size = payload.readableBytes();
+    if (this.depth.get() >= this.limits.maxPackets() || this.bytes.get() + size > this.limits.maxBytes()) {
+      this.dropped.increment();
+      return false;
+    }
+    this.depth.incrementAndGet();
+    this.bytes.addAndGet(size);
+    this.packets.add(new Entry(id, payload));
+    return true;
+  }
+
+  /**
+   * a class that represents queued packets.
+   */
+  @Getter
+  @Accessors(fluent = true)
+  @RequiredArgsConstructor
+  private static final class Entry {
+
+    /**
+     * the id.
+     */
+    private final int id;
+
+    /**
+     * the payload.
+     */
+    @NotNull
+    private final ByteBuf payload;
+  }
+}
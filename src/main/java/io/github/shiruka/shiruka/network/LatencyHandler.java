@@ -0,0 +1,24 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents handlers of network stack latency packets which answer the probes of clients.
+ */
+public final class LatencyHandler implements PacketHandler {
+
+  @Override
+  public void handle(@NotNull final Connection connection, @NotNull final ByteBuf payload) {
+    final var timestamp = payload.readLongLE();
+    if (!payload.readBoolean()) {
+      return;
+    }
+    final var packet = PooledByteBufAllocator.DEFAULT.directBuffer(10);
+    VarInts.writeUnsigned(packet, PacketIds.NETWORK_STACK_LATENCY);
+    packet.writeLongLE(timestamp);
+    packet.writeBoolean(false);
+    connection.send(packet);
+  }
+}
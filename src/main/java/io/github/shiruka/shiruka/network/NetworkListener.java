@@ -0,0 +1,154 @@
+package io.github.shiruka.shiruka.network;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents UDP listeners which bind one or more datagram channels to the same address.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class NetworkListener {
+
+  /**
+   * the quiet period of the event loops' shutdown in milliseconds.
+   * <p>
+   * netty's default of two seconds would delay every restart, the listener is already closed when the loops stop.
+   */
+  private static final long SHUTDOWN_QUIET_PERIOD = 100L;
+
+  /**
+   * the maximum time which the event loops' shutdown waits in milliseconds.
+   */
+  private static final long SHUTDOWN_TIMEOUT = 5000L;
+
+  /**
+   * the address.
+   */
+  @NotNull
+  @Getter
+  private final InetSocketAddress address;
+
+  /**
+   * the bound channels.
+   */
+  private final List<Channel> channels = new ArrayList<>();
+
+  /**
+   * the channel count.
+   */
+  @Getter
+  private final int channelCount;
+
+  /**
+   * the handler.
+   */
+  @NotNull
+  private final ChannelHandler handler;
+
+  /**
+   * the threads.
+   */
+  @Getter
+  private final int threads;
+
+  /**
+   * the transport.
+   */
+  @NotNull
+  @Getter
+  private final NetworkTransport transport;
+
+  /**
+   * the group.
+   */
+  @Nullable
+  @Getter
+  private EventLoopGroup group;
+
+  /**
+   * ctor.
+   *
+   * @param address the address.
+   * @param transport the transport.
+   * @param threads the threads, 0 means the number of available processors.
+   * @param channels the channels, 0 means the same as threads.
+   * @param handler the handler.
+   */
+  public NetworkListener(@NotNull final InetSocketAddress address, @NotNull final NetworkTransport transport,
+                         final int threads, final int channels, @NotNull final ChannelHandler handler) {
+    this.address = address;
+    this.transport = transport;
+    this.threads = threads > 0
+      ? threads
+      : Runtime.getRuntime().availableProcessors();
+    this.channelCount = transport.supportsReusePort()
+      ? Math.max(1, channels > 0 ? channels : this.threads)
+      : 1;
+    this.handler = handler;
+  }
+
+  /**
+   * binds all the channels to the address.
+   */
+  public synchronized void bind() {
+    if (this.group != null) {
+      return;
+    }
+    this.group = this.transport.eventLoopGroup(this.threads, new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Network Thread - %1$d")
+      .build());
+    final var bootstrap = new Bootstrap()
+      .group(this.group)
+      .channel(this.transport.datagramChannel())
+      .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+      .handler(this.handler);
+    if (this.channelCount > 1) {
+      bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+    }
+    for (var index = 0; index < this.channelCount; index++) {
+      this.channels.add(bootstrap.bind(this.address).syncUninterruptibly().channel());
+    }
+    NetworkListener.log.info("Listening on {} with {} channel(s) over {} {} thread(s).",
+      this.address, this.channelCount, this.threads, this.transport);
+  }
+
+  /**
+   * obtains the bound channels.
+   *
+   * @return bound channels.
+   */
+  @NotNull
+  public synchronized List<Channel> channels() {
+    return Collections.unmodifiableList(new ArrayList<>(this.channels));
+  }
+
+  /**
+   * closes all the channels and shuts the event loops down.
+   */
+  public synchronized void close() {
+    this.channels.forEach(channel -> channel.close().syncUninterruptibly());
+    this.channels.clear();
+    if (this.group != null) {
+      this.group.shutdownGracefully(NetworkListener.SHUTDOWN_QUIET_PERIOD, NetworkListener.SHUTDOWN_TIMEOUT,
+        TimeUnit.MILLISECONDS).syncUninterruptibly();
+      this.group = null;
+    }
+  }
+}
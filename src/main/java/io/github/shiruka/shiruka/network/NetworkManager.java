@@ -0,0 +1,407 @@
+package io.github.shiruka.shiruka.network;
+
+import io.github.shiruka.shiruka.Config;
+import io.github.shiruka.shiruka.chunk.Chunk;
+import io.github.shiruka.shiruka.network.raknet.OfflineHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the server's network layer.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class NetworkManager {
+
+  /**
+   * the maximum bytes of the broadcast cache.
+   */
+  private static final long BROADCAST_CACHE_SIZE = 16L * 1024L * 1024L;
+
+  /**
+   * the maximum bytes of the chunk cache.
+   */
+  private static final long CHUNK_CACHE_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * the connection timeout in milliseconds.
+   */
+  private static final long CONNECTION_TIMEOUT = TimeUnit.SECONDS.toMillis(30L);
+
+  /**
+   * the game protocol version which is advertised in the pongs.
+   */
+  private static final int GAME_PROTOCOL = 471;
+
+  /**
+   * the game version which is advertised in the pongs.
+   */
+  private static final String GAME_VERSION = "1.17.40";
+
+  /**
+   * the latency probe interval in nanoseconds.
+   */
+  private static final long PING_INTERVAL = TimeUnit.SECONDS.toNanos(1L);
+
+  /**
+   * the broadcast cache.
+   */
+  @NotNull
+  private final BroadcastCache broadcastCache;
+
+  /**
+   * the chunk cache.
+   */
+  @NotNull
+  @Getter
+  private final ChunkPacketCache chunkCache;
+
+  /**
+   * the compressor.
+   */
+  @NotNull
+  @Getter
+  private final BatchCompressor compressor;
+
+  /**
+   * the connections.
+   */
+  private final Map<InetSocketAddress, Connection> connections = new ConcurrentHashMap<>();
+
+  /**
+   * the guid of the server.
+   */
+  @Getter
+  private final long guid = ThreadLocalRandom.current().nextLong();
+
+  /**
+   * the tasks which wait for the main thread.
+   */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the handlers.
+   */
+  @NotNull
+  @Getter(AccessLevel.PACKAGE)
+  private final PacketHandlers handlers = new PacketHandlers(OverflowPolicy.DISCONNECT);
+
+  /**
+   * the inbound limits.
+   */
+  @NotNull
+  private final InboundLimits inboundLimits;
+
+  /**
+   * the listener.
+   */
+  @NotNull
+  @Getter
+  private final NetworkListener listener;
+
+  /**
+   * the metrics.
+   */
+  @NotNull
+  @Getter
+  private final NetworkMetrics metrics = new NetworkMetrics();
+
+  /**
+   * the offline handshake handler.
+   */
+  @NotNull
+  @Getter(AccessLevel.PACKAGE)
+  private final OfflineHandler offline = new OfflineHandler(this.guid, this::advertisement, this::open);
+
+  /**
+   * the last latency probe time.
+   */
+  private long lastPing = System.nanoTime();
+
+  /**
+   * ctor.
+   *
+   * @param address the address.
+   * @param transport the transport.
+   * @param threads the threads.
+   * @param channels the channels.
+   * @param compressor the compressor.
+   * @param inboundLimits the inbound limits.
+   */
+  public NetworkManager(@NotNull final InetSocketAddress address, @NotNull final NetworkTransport transport,
+                        final int threads, final int channels, @NotNull final BatchCompressor compressor,
+                        @NotNull final InboundLimits inboundLimits) {
+    this.compressor = compressor;
+    this.inboundLimits = inboundLimits;
+    this.handlers.policy(PacketIds.MOVE_PLAYER, OverflowPolicy.DROP);
+    this.handlers.policy(PacketIds.NETWORK_STACK_LATENCY, OverflowPolicy.DROP);
+    this.handlers.policy(PacketIds.PLAYER_AUTH_INPUT, OverflowPolicy.DROP);
+    this.broadcastCache = new BroadcastCache(compressor, NetworkManager.BROADCAST_CACHE_SIZE);
+    this.chunkCache = new ChunkPacketCache(compressor, NetworkManager.CHUNK_CACHE_SIZE);
+    this.listener = new NetworkListener(address, transport, threads, channels, new ConnectionHandler(this));
+  }
+
+  /**
+   * broadcasts the given encoded packet to the viewers.
+   * <p>
+   * the packet is encoded once and every viewer's batch gets a retained slice of the same buffer.
+   *
+   * @param packet the packet to broadcast, the network takes the ownership of it.
+   * @param viewers the viewers to broadcast.
+   */
+  public void broadcast(@NotNull final ByteBuf packet, @NotNull final Iterable<Connection> viewers) {
+    try {
+      for (final var viewer : viewers) {
+        viewer.send(packet.retainedSlice());
+      }
+    } finally {
+      packet.release();
+    }
+  }
+
+  /**
+   * broadcasts the packet of the given key as a separate pre-compressed batch.
+   * <p>
+   * the packet is encoded and compressed only once per key until the key is invalidated, so this suits packets
+   * which are sent unchanged to many players, such as the ones sent on join. the viewers' queued packets are
+   * flushed first to keep the order, so this should be called by the main thread.
+   *
+   * @param key the key of the packet.
+   * @param packet the packet supplier which is called only when the key is not cached.
+   * @param viewers the viewers to broadcast.
+   */
+  public void broadcastCached(@NotNull final Object key, @NotNull final Supplier<ByteBuf> packet,
+                              @NotNull final Iterable<Connection> viewers) {
+    this.sendShared(this.broadcastCache.acquire(key, packet), viewers);
+  }
+
+  /**
+   * closes the network.
+   */
+  public void close() {
+    this.connections.values().forEach(Connection::close);
+    this.listener.close();
+    this.compressor.shutdown();
+    this.broadcastCache.clear();
+    this.chunkCache.clear();
+  }
+
+  /**
+   * obtains the connections.
+   *
+   * @return connections.
+   */
+  @NotNull
+  public Collection<Connection> connections() {
+    return Collections.unmodifiableCollection(this.connections.values());
+  }
+
+  /**
+   * runs the tasks which are handed over to the main thread and handles the inbound packets which are queued by
+   * the network threads.
+   * <p>
+   * called at the start of every tick by the main thread.
+   */
+  public void drain() {
+    Runnable task;
+    while ((task = this.tasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (final Exception e) {
+        NetworkManager.log.error("An exception occurred while running a network task:", e);
+      }
+    }
+    for (final var connection : this.connections.values()) {
+      connection.drain(this.handlers);
+    }
+  }
+
+  /**
+   * hands the given task over to the main thread, it runs before the inbound packets of the next tick.
+   * <p>
+   * network completions, such as finished login verifications, use this instead of scheduling a task each.
+   *
+   * @param task the task to execute.
+   */
+  public void execute(@NotNull final Runnable task) {
+    this.tasks.add(task);
+  }
+
+  /**
+   * sends the packets which are queued in the current tick.
+   * <p>
+   * called at the end of every tick by the main thread, a latency probe is sent to every connection once a second.
+   */
+  public void flush() {
+    this.compressor.adapt();
+    final var now = System.nanoTime();
+    final var ping = now - this.lastPing >= NetworkManager.PING_INTERVAL;
+    if (ping) {
+      this.lastPing = now;
+    }
+    for (final var connection : this.connections.values()) {
+      if (ping) {
+        connection.ping();
+      }
+      connection.flush(this.compressor);
+    }
+  }
+
+  /**
+   * registers the handler of the given packet id.
+   *
+   * @param id the id to register.
+   * @param handler the handler to register.
+   */
+  public void handler(final int id, @NotNull final PacketHandler handler) {
+    this.handlers.handler(id, handler);
+  }
+
+  /**
+   * invalidates the pre-compressed batch of the given key.
+   *
+   * @param key the key to invalidate.
+   */
+  public void invalidateCached(@NotNull final Object key) {
+    this.broadcastCache.invalidate(key);
+  }
+
+  /**
+   * sets the policy which is applied when a packet of the given id does not fit into an inbound queue.
+   *
+   * @param id the id to set.
+   * @param policy the policy to set.
+   */
+  public void overflowPolicy(final int id, @NotNull final OverflowPolicy policy) {
+    this.handlers.policy(id, policy);
+  }
+
+  /**
+   * sends the level chunk packet of the given chunk to the viewers as a separate pre-compressed batch.
+   * <p>
+   * the chunk is encoded and compressed only once per version and the viewers share the same batch, so join storms
+   * and fly-overs do not encode the same chunks again. the viewers' queued packets are flushed first to keep the
+   * order, so this should be called by the main thread.
+   *
+   * @param dimension the dimension of the chunk.
+   * @param chunk the chunk to send.
+   * @param viewers the viewers to send.
+   */
+  public void sendChunk(final int dimension, @NotNull final Chunk chunk, @NotNull final Iterable<Connection> viewers) {
+    this.sendShared(this.chunkCache.acquire(dimension, chunk), viewers);
+  }
+
+  /**
+   * starts the network.
+   */
+  public void start() {
+    this.listener.bind();
+    Objects.requireNonNull(this.listener.group(), "group")
+      .scheduleAtFixedRate(this::removeTimedOut, 1L, 1L, TimeUnit.SECONDS);
+  }
+
+  /**
+   * obtains the connection of the given address.
+   *
+   * @param address the address to get.
+   *
+   * @return connection, {@code null} if the address has not completed the offline handshake.
+   */
+  @Nullable
+  Connection connection(@NotNull final InetSocketAddress address) {
+    return this.connections.get(address);
+  }
+
+  /**
+   * removes the given connection.
+   *
+   * @param connection the connection to remove.
+   */
+  void remove(@NotNull final Connection connection) {
+    this.connections.remove(connection.address(), connection);
+  }
+
+  /**
+   * creates the advertisement which is sent with the pongs.
+   *
+   * @return advertisement.
+   */
+  @NotNull
+  private String advertisement() {
+    final var port = this.listener.address().getPort();
+    return "MCPE;%s;%d;%s;%d;%d;%d;Shiru ka;Survival;1;%d;%d;".formatted(Config.motd.replace(";", ""),
+      NetworkManager.GAME_PROTOCOL, NetworkManager.GAME_VERSION, this.connections.size(), Config.maxPlayers,
+      this.guid, port, port);
+  }
+
+  /**
+   * opens the connection of the given peer which completed the offline handshake.
+   * <p>
+   * a peer which retries the handshake keeps its connection, a peer which starts over with a new guid replaces it.
+   *
+   * @param channel the channel that received the handshake.
+   * @param address the address of the peer.
+   * @param mtu the negotiated mtu.
+   * @param guid the guid of the peer.
+   */
+  private void open(@NotNull final Channel channel, @NotNull final InetSocketAddress address, final int mtu,
+                    final long guid) {
+    final var existing = this.connections.get(address);
+    if (existing != null) {
+      if (existing.session().peerGuid() == guid) {
+        return;
+      }
+      existing.close();
+    }
+    final var connection = new Connection(address, channel, this, this.inboundLimits, mtu, guid);
+    this.connections.put(address, connection);
+    connection.session().start();
+  }
+
+  /**
+   * removes the connections which have not sent anything for a while.
+   */
+  private void removeTimedOut() {
+    final var now = System.currentTimeMillis();
+    for (final var connection : this.connections.values()) {
+      if (now - connection.lastActivity() > NetworkManager.CONNECTION_TIMEOUT) {
+        connection.close();
+      }
+    }
+  }
+
+  /**
+   * sends the given shared batch to the viewers after their queued packets.
+   *
+   * @param batch the batch to send, the viewers take the ownership of it.
+   * @param viewers the viewers to send.
+   */
+  private void sendShared(@NotNull final CompletableFuture<ByteBuf> batch,
+                          @NotNull final Iterable<Connection> viewers) {
+    final var targets = new ArrayList<Connection>();
+    for (final var viewer : viewers) {
+      viewer.flush(this.compressor);
+      targets.add(viewer);
+    }
+    this.compressor.send(targets, batch);
+  }
+}
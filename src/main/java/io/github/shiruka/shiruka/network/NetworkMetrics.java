@@ -0,0 +1,258 @@
+package io.github.shiruka.shiruka.network;
+
+import io.github.shiruka.shiruka.metrics.Histogram;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the traffic counters of the network.
+ * <p>
+ * every counter is striped, so recording from the network threads, the compression workers and the main thread
+ * does not contend.
+ */
+@Accessors(fluent = true)
+public final class NetworkMetrics {
+
+  /**
+   * the count of packet ids.
+   */
+  public static final int PACKET_IDS = 1024;
+
+  /**
+   * the compressed outbound bytes.
+   */
+  private final LongAdder compressedBytes = new LongAdder();
+
+  /**
+   * the decode time of inbound batches in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram decodeTime = new Histogram();
+
+  /**
+   * the encode time of outbound batches in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram encodeTime = new Histogram();
+
+  /**
+   * the packets.
+   */
+  private final AtomicReferenceArray<PacketMetrics> packets = new AtomicReferenceArray<>(NetworkMetrics.PACKET_IDS);
+
+  /**
+   * the received bytes.
+   */
+  private final LongAdder receivedBytes = new LongAdder();
+
+  /**
+   * the sent bytes.
+   */
+  private final LongAdder sentBytes = new LongAdder();
+
+  /**
+   * the uncompressed outbound bytes.
+   */
+  private final LongAdder uncompressedBytes = new LongAdder();
+
+  /**
+   * formats the given nanoseconds as milliseconds.
+   *
+   * @param nanos the nanos to format.
+   *
+   * @return formatted milliseconds.
+   */
+  @NotNull
+  private static String millis(final double nanos) {
+    return "%.2f".formatted(nanos / TimeUnit.MILLISECONDS.toNanos(1L));
+  }
+
+  /**
+   * obtains the compressed outbound bytes.
+   *
+   * @return compressed bytes.
+   */
+  public long compressedBytes() {
+    return this.compressedBytes.sum();
+  }
+
+  /**
+   * obtains the ratio of the compressed outbound bytes to the uncompressed ones.
+   *
+   * @return compression ratio, 1 if nothing is compressed yet.
+   */
+  public double compressionRatio() {
+    final var uncompressed = this.uncompressedBytes.sum();
+    return uncompressed == 0L
+      ? 1.0D
+      : (double) this.compressedBytes.sum() / uncompressed;
+  }
+
+  /**
+   * obtains the counters of the given packet id.
+   *
+   * @param id the id to get.
+   *
+   * @return packet metrics, {@code null} if no packet of the id is seen yet.
+   */
+  @Nullable
+  public PacketMetrics packet(final int id) {
+    return this.packets.get(id & NetworkMetrics.PACKET_IDS - 1);
+  }
+
+  /**
+   * obtains the counters of the packet ids which are seen.
+   *
+   * @return packet metrics.
+   */
+  @NotNull
+  public List<PacketMetrics> packets() {
+    final var packets = new ArrayList<PacketMetrics>();
+    for (var id = 0; id < NetworkMetrics.PACKET_IDS; id++) {
+      final var packet = this.packets.get(id);
+      if (packet != null) {
+        packets.add(packet);
+      }
+    }
+    return packets;
+  }
+
+  /**
+   * obtains the datagram bytes which are received.
+   *
+   * @return received bytes.
+   */
+  public long receivedBytes() {
+    return this.receivedBytes.sum();
+  }
+
+  /**
+   * creates a human-readable report of the traffic.
+   *
+   * @param connections the connections to report.
+   * @param limit the maximum packet ids and connections to list.
+   *
+   * @return report lines.
+   */
+  @NotNull
+  public List<String> report(@NotNull final Collection<Connection> connections, final int limit) {
+    final var lines = new ArrayList<String>();
+    lines.add("Traffic: %d bytes received, %d bytes sent, compression ratio %.3f".formatted(
+      this.receivedBytes(), this.sentBytes(), this.compressionRatio()));
+    lines.add("Encode (ms): p50 %s p99 %s max %s, decode (ms): p50 %s p99 %s max %s".formatted(
+      NetworkMetrics.millis(this.encodeTime.percentile(50.0D)),
+      NetworkMetrics.millis(this.encodeTime.percentile(99.0D)), NetworkMetrics.millis(this.encodeTime.max()),
+      NetworkMetrics.millis(this.decodeTime.percentile(50.0D)),
+      NetworkMetrics.millis(this.decodeTime.percentile(99.0D)), NetworkMetrics.millis(this.decodeTime.max())));
+    lines.add("Packets by bytes (id: in packets/bytes, out packets/bytes):");
+    this.packets().stream()
+      .sorted(Comparator.comparingLong((PacketMetrics packet) -> packet.bytesIn() + packet.bytesOut()).reversed())
+      .limit(limit)
+      .forEach(packet -> lines.add("  0x%02X: in %d/%d, out %d/%d".formatted(packet.id(),
+        packet.packetsIn(), packet.bytesIn(), packet.packetsOut(), packet.bytesOut())));
+    lines.add("Connections by RTT (address: rtt ms, inbound queue, outbound queue, bytes in/out):");
+    connections.stream()
+      .sorted(Comparator.comparingLong(Connection::rtt).reversed())
+      .limit(limit)
+      .forEach(connection -> lines.add("  %s: %s, %d, %d, %d/%d".formatted(connection.address(),
+        connection.rtt() < 0L ? "-" : NetworkMetrics.millis(connection.rtt()), connection.queueDepth(),
+        connection.outboundDepth(), connection.receivedBytes(), connection.sentBytes())));
+    return lines;
+  }
+
+  /**
+   * obtains the datagram bytes which are sent.
+   *
+   * @return sent bytes.
+   */
+  public long sentBytes() {
+    return this.sentBytes.sum();
+  }
+
+  /**
+   * obtains the uncompressed outbound bytes.
+   *
+   * @return uncompressed bytes.
+   */
+  public long uncompressedBytes() {
+    return this.uncompressedBytes.sum();
+  }
+
+  /**
+   * records a compressed outbound batch.
+   *
+   * @param uncompressed the uncompressed bytes of the batch.
+   * @param compressed the compressed bytes of the batch.
+   */
+  void compressed(final long uncompressed, final int compressed) {
+    this.uncompressedBytes.add(uncompressed);
+    this.compressedBytes.add(compressed);
+  }
+
+  /**
+   * records an inbound packet.
+   *
+   * @param id the id of the packet.
+   * @param bytes the bytes of the packet.
+   */
+  void inbound(final int id, final int bytes) {
+    this.counters(id).inbound(bytes);
+  }
+
+  /**
+   * records an outbound packet.
+   *
+   * @param id the id of the packet.
+   * @param bytes the bytes of the packet.
+   */
+  void outbound(final int id, final int bytes) {
+    this.counters(id).outbound(bytes);
+  }
+
+  /**
+   * records a received datagram.
+   *
+   * @param bytes the bytes of the datagram.
+   */
+  void received(final int bytes) {
+    this.receivedBytes.add(bytes);
+  }
+
+  /**
+   * records a sent datagram.
+   *
+   * @param bytes the bytes of the datagram.
+   */
+  void sent(final int bytes) {
+    this.sentBytes.add(bytes);
+  }
+
+  /**
+   * obtains or creates the counters of the given packet id.
+   *
+   * @param id the id to get.
+   *
+   * @return packet metrics.
+   */
+  @NotNull
+  private PacketMetrics counters(final int id) {
+    final var index = id & NetworkMetrics.PACKET_IDS - 1;
+    final var packet = this.packets.get(index);
+    if (packet != null) {
+      return packet;
+    }
+    this.packets.compareAndSet(index, null, new PacketMetrics(index));
+    return this.packets.get(index);
+  }
+}
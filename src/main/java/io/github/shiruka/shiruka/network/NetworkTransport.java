@@ -0,0 +1,100 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import java.util.concurrent.ThreadFactory;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an enum class that contains network transports.
+ */
+public enum NetworkTransport {
+  /**
+   * the native epoll transport.
+   */
+  EPOLL {
+    @NotNull
+    @Override
+    public Class<? extends DatagramChannel> datagramChannel() {
+      return EpollDatagramChannel.class;
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup eventLoopGroup(final int threads, @NotNull final ThreadFactory factory) {
+      return new EpollEventLoopGroup(threads, factory);
+    }
+
+    @Override
+    public boolean supportsReusePort() {
+      return true;
+    }
+  },
+  /**
+   * the java nio transport.
+   */
+  NIO {
+    @NotNull
+    @Override
+    public Class<? extends DatagramChannel> datagramChannel() {
+      return NioDatagramChannel.class;
+    }
+
+    @NotNull
+    @Override
+    public EventLoopGroup eventLoopGroup(final int threads, @NotNull final ThreadFactory factory) {
+      return new NioEventLoopGroup(threads, factory);
+    }
+
+    @Override
+    public boolean supportsReusePort() {
+      return false;
+    }
+  };
+
+  /**
+   * detects the best transport for the current platform.
+   *
+   * @param preferNative the prefer native to detect.
+   *
+   * @return detected transport.
+   */
+  @NotNull
+  public static NetworkTransport detect(final boolean preferNative) {
+    if (preferNative && Epoll.isAvailable()) {
+      return NetworkTransport.EPOLL;
+    }
+    return NetworkTransport.NIO;
+  }
+
+  /**
+   * obtains the datagram channel class.
+   *
+   * @return datagram channel class.
+   */
+  @NotNull
+  public abstract Class<? extends DatagramChannel> datagramChannel();
+
+  /**
+   * creates a new event loop group.
+   *
+   * @param threads the threads to create.
+   * @param factory the factory to create.
+   *
+   * @return a newly created event loop group.
+   */
+  @NotNull
+  public abstract EventLoopGroup eventLoopGroup(int threads, @NotNull ThreadFactory factory);
+
+  /**
+   * checks if the transport supports {@code SO_REUSEPORT}.
+   *
+   * @return {@code true} if the transport supports {@code SO_REUSEPORT}.
+   */
+  public abstract boolean supportsReusePort();
+}
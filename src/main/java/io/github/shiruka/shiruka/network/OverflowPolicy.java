@@ -0,0 +1,15 @@
+package io.github.shiruka.shiruka.network;
+
+/**
+ * an enum class that contains policies which are applied when an inbound queue of a connection is full.
+ */
+public enum OverflowPolicy {
+  /**
+   * drops the packet and keeps the connection.
+   */
+  DROP,
+  /**
+   * disconnects the connection.
+   */
+  DISCONNECT
+}
@@ -0,0 +1,21 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine handlers of inbound packets.
+ * <p>
+ * handlers are called by the main thread while the inbound queues are drained.
+ */
+@FunctionalInterface
+public interface PacketHandler {
+
+  /**
+   * handles the given packet.
+   *
+   * @param connection the connection that sent the packet.
+   * @param payload the payload of the packet without its header, it is released after the handler returns.
+   */
+  void handle(@NotNull Connection connection, @NotNull ByteBuf payload);
+}
@@ -0,0 +1,102 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents registries of packet handlers and overflow policies.
+ * <p>
+ * the maps are copied on write, since they are read by the network threads and rarely changed.
+ */
+@Log4j2
+final class PacketHandlers {
+
+  /**
+   * the default policy.
+   */
+  @NotNull
+  private final OverflowPolicy defaultPolicy;
+
+  /**
+   * the handlers.
+   */
+  @NotNull
+  private volatile Int2ObjectMap<PacketHandler> handlers = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * the policies.
+   */
+  @NotNull
+  private volatile Int2ObjectMap<OverflowPolicy> policies = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * ctor.
+   *
+   * @param defaultPolicy the default policy.
+   */
+  PacketHandlers(@NotNull final OverflowPolicy defaultPolicy) {
+    this.defaultPolicy = defaultPolicy;
+  }
+
+  /**
+   * handles the given packet.
+   *
+   * @param connection the connection to handle.
+   * @param id the id to handle.
+   * @param payload the payload to handle.
+   */
+  void handle(@NotNull final Connection connection, final int id, @NotNull final ByteBuf payload) {
+    final var handler = this.handlers.get(id);
+    if (handler == null) {
+      PacketHandlers.log.debug("Unhandled packet {} from {}", id, connection.address());
+      return;
+    }
+    try {
+      handler.handle(connection, payload);
+    } catch (final Exception e) {
+      PacketHandlers.log.error("Could not handle packet {} from {}", id, connection.address(), e);
+    }
+  }
+
+  /**
+   * registers the given handler.
+   *
+   * @param id the id to register.
+   * @param handler the handler to register.
+   */
+  synchronized void handler(final int id, @NotNull final PacketHandler handler) {
+    final var copy = new Int2ObjectOpenHashMap<>(this.handlers);
+    copy.put(id, handler);
+    this.handlers = copy;
+  }
+
+  /**
+   * obtains the overflow policy of the given packet id.
+   *
+   * @param id the id to get.
+   *
+   * @return overflow policy.
+   */
+  @NotNull
+  OverflowPolicy policy(final int id) {
+    final var policy = this.policies.get(id);
+    return policy == null
+      ? this.defaultPolicy
+      : policy;
+  }
+
+  /**
+   * sets the overflow policy of the given packet id.
+   *
+   * @param id the id to set.
+   * @param policy the policy to set.
+   */
+  synchronized void policy(final int id, @NotNull final OverflowPolicy policy) {
+    final var copy = new Int2ObjectOpenHashMap<>(this.policies);
+    copy.put(id, policy);
+    this.policies = copy;
+  }
+}
@@ -0,0 +1,53 @@
+package io.github.shiruka.shiruka.network;
+
+/**
+ * an utility class that contains ids of the Bedrock packets which the network layer knows about.
+ */
+public final class PacketIds {
+
+  /**
+   * the disconnect packet id.
+   */
+  public static final int DISCONNECT = 0x05;
+
+  /**
+   * the level chunk packet id.
+   */
+  public static final int LEVEL_CHUNK = 0x3A;
+
+  /**
+   * the login packet id.
+   */
+  public static final int LOGIN = 0x01;
+
+  /**
+   * the move player packet id.
+   */
+  public static final int MOVE_PLAYER = 0x13;
+
+  /**
+   * the network stack latency packet id.
+   */
+  public static final int NETWORK_STACK_LATENCY = 0x73;
+
+  /**
+   * the play status packet id.
+   */
+  public static final int PLAY_STATUS = 0x02;
+
+  /**
+   * the player auth input packet id.
+   */
+  public static final int PLAYER_AUTH_INPUT = 0x90;
+
+  /**
+   * the text packet id.
+   */
+  public static final int TEXT = 0x09;
+
+  /**
+   * ctor.
+   */
+  private PacketIds() {
+  }
+}
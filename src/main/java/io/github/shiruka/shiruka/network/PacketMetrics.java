@@ -0,0 +1,96 @@
+package io.github.shiruka.shiruka.network;
+
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * a class that represents the traffic counters of a packet id.
+ */
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+public final class PacketMetrics {
+
+  /**
+   * the uncompressed inbound bytes.
+   */
+  private final LongAdder bytesIn = new LongAdder();
+
+  /**
+   * the uncompressed outbound bytes.
+   */
+  private final LongAdder bytesOut = new LongAdder();
+
+  /**
+   * the id.
+   */
+  @Getter
+  private final int id;
+
+  /**
+   * the inbound packets.
+   */
+  private final LongAdder packetsIn = new LongAdder();
+
+  /**
+   * the outbound packets.
+   */
+  private final LongAdder packetsOut = new LongAdder();
+
+  /**
+   * obtains the uncompressed inbound bytes.
+   *
+   * @return inbound bytes.
+   */
+  public long bytesIn() {
+    return this.bytesIn.sum();
+  }
+
+  /**
+   * obtains the uncompressed outbound bytes.
+   *
+   * @return outbound bytes.
+   */
+  public long bytesOut() {
+    return this.bytesOut.sum();
+  }
+
+  /**
+   * obtains the inbound packets.
+   *
+   * @return inbound packet count.
+   */
+  public long packetsIn() {
+    return this.packetsIn.sum();
+  }
+
+  /**
+   * obtains the outbound packets.
+   *
+   * @return outbound packet count.
+   */
+  public long packetsOut() {
+    return this.packetsOut.sum();
+  }
+
+  /**
+   * records an inbound packet.
+   *
+   * @param bytes the bytes of the packet.
+   */
+  void inbound(final int bytes) {
+    this.packetsIn.increment();
+    this.bytesIn.add(bytes);
+  }
+
+  /**
+   * records an outbound packet.
+   *
+   * @param bytes the bytes of the packet.
+   */
+  void outbound(final int bytes) {
+    this.packetsOut.increment();
+    this.bytesOut.add(bytes);
+  }
+}
@@ -0,0 +1,126 @@
+package io.github.shiruka.shiruka.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that contains methods to read and write Bedrock's var ints.
+ */
+public final class VarInts {
+
+  /**
+   * the maximum size of a var int.
+   */
+  public static final int MAX_SIZE = 5;
+
+  /**
+   * ctor.
+   */
+  private VarInts() {
+  }
+
+  /**
+   * gets an unsigned var int at the given index without moving the reader index of the buffer.
+   *
+   * @param buffer the buffer to get.
+   * @param index the index to get.
+   *
+   * @return unsigned var int.
+   *
+   * @throws CorruptedFrameException if the var int is longer than {@link #MAX_SIZE} bytes.
+   */
+  public static int getUnsigned(@NotNull final ByteBuf buffer, final int index) {
+    var value = 0;
+    for (var shift = 0; shift < VarInts.MAX_SIZE * 7; shift += 7) {
+      final var current = buffer.getByte(index + shift / 7);
+      value |= (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new CorruptedFrameException("Var int is too big");
+  }
+
+  /**
+   * reads an unsigned var int from the given buffer.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return unsigned var int.
+   *
+   * @throws CorruptedFrameException if the var int is longer than {@link #MAX_SIZE} bytes.
+   */
+  public static int readUnsigned(@NotNull final ByteBuf buffer) {
+    var value = 0;
+    for (var shift = 0; shift < VarInts.MAX_SIZE * 7; shift += 7) {
+      final var current = buffer.readByte();
+      value |= (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new CorruptedFrameException("Var int is too big");
+  }
+
+  /**
+   * calculates the size of the given unsigned var int.
+   *
+   * @param value the value to calculate.
+   *
+   * @return size of the var int in bytes.
+   */
+  public static int size(final int value) {
+    var size = 1;
+    var remaining = value >>> 7;
+    while (remaining != 0) {
+      remaining >>>= 7;
+      size++;
+    }
+    return size;
+  }
+
+  /**
+   * writes the given unsigned var int into the given array.
+   *
+   * @param array the array to write.
+   * @param value the value to write.
+   *
+   * @return written byte count.
+   */
+  public static int writeUnsigned(@NotNull final byte[] array, final int value) {
+    var index = 0;
+    var remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      array[index++] = (byte) (remaining & 0x7F | 0x80);
+      remaining >>>= 7;
+    }
+    array[index++] = (byte) remaining;
+    return index;
+  }
+
+  /**
+   * writes the given unsigned var int into the given buffer.
+   *
+   * @param buffer the buffer to write.
+   * @param value the value to write.
+   */
+  public static void writeUnsigned(@NotNull final ByteBuf buffer, final int value) {
+    var remaining = value;
+    while ((remaining & ~0x7F) != 0) {
+      buffer.writeByte(remaining & 0x7F | 0x80);
+      remaining >>>= 7;
+    }
+    buffer.writeByte(remaining);
+  }
+
+  /**
+   * writes the given signed var int into the given buffer with the zigzag encoding.
+   *
+   * @param buffer the buffer to write.
+   * @param value the value to write.
+   */
+  public static void writeSigned(@NotNull final ByteBuf buffer, final int value) {
+    VarInts.writeUnsigned(buffer, value << 1 ^ value >> 31);
+  }
+}
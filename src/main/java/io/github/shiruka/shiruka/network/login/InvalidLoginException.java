@@ -0,0 +1,33 @@
+package io.github.shiruka.shiruka.network.login;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents exceptions which are thrown when a login chain could not be verified.
+ */
+public final class InvalidLoginException extends RuntimeException {
+
+  /**
+   * the serial version uid.
+   */
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * ctor.
+   *
+   * @param message the message.
+   */
+  public InvalidLoginException(@NotNull final String message) {
+    super(message);
+  }
+
+  /**
+   * ctor.
+   *
+   * @param message the message.
+   * @param cause the cause.
+   */
+  public InvalidLoginException(@NotNull final String message, @NotNull final Throwable cause) {
+    super(message, cause);
+  }
+}
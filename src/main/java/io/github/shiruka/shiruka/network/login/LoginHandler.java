@@ -0,0 +1,90 @@
+package io.github.shiruka.shiruka.network.login;
+
+import io.github.shiruka.shiruka.network.Connection;
+import io.github.shiruka.shiruka.network.NetworkManager;
+import io.github.shiruka.shiruka.network.PacketHandler;
+import io.github.shiruka.shiruka.network.PacketIds;
+import io.github.shiruka.shiruka.network.VarInts;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents handlers of login packets.
+ * <p>
+ * the chain is verified by the {@link LoginVerifier} and the result is handed back to the main thread.
+ */
+@Log4j2
+@RequiredArgsConstructor
+public final class LoginHandler implements PacketHandler {
+
+  /**
+   * the login success status.
+   */
+  private static final int LOGIN_SUCCESS = 0;
+
+  /**
+   * the not authenticated message.
+   */
+  private static final String NOT_AUTHENTICATED = "disconnectionScreen.notAuthenticated";
+
+  /**
+   * the network.
+   */
+  @NotNull
+  private final NetworkManager network;
+
+  /**
+   * whether only the players who are authenticated by Xbox Live can join.
+   */
+  private final boolean onlineMode;
+
+  /**
+   * the verifier.
+   */
+  @NotNull
+  private final LoginVerifier verifier;
+
+  @Override
+  public void handle(@NotNull final Connection connection, @NotNull final ByteBuf payload) {
+    payload.readInt();
+    final var request = payload.readSlice(VarInts.readUnsigned(payload));
+    final var chainLength = request.readIntLE();
+    if (chainLength < 0 || chainLength > request.readableBytes()) {
+      connection.disconnect(LoginHandler.NOT_AUTHENTICATED);
+      return;
+    }
+    final var chain = request.readCharSequence(chainLength, StandardCharsets.UTF_8).toString();
+    this.verifier.verify(chain).whenComplete((result, throwable) ->
+      this.network.execute(() -> this.complete(connection, result, throwable)));
+  }
+
+  /**
+   * completes the login on the main thread.
+   *
+   * @param connection the connection to complete.
+   * @param result the result to complete.
+   * @param throwable the throwable to complete.
+   */
+  private void complete(@NotNull final Connection connection, @Nullable final LoginResult result,
+                        @Nullable final Throwable throwable) {
+    if (result == null || throwable != null) {
+      LoginHandler.log.debug("Login of {} could not be verified", connection.address(), throwable);
+      connection.disconnect(LoginHandler.NOT_AUTHENTICATED);
+      return;
+    }
+    if (this.onlineMode && !result.trusted()) {
+      connection.disconnect(LoginHandler.NOT_AUTHENTICATED);
+      return;
+    }
+    final var packet = PooledByteBufAllocator.DEFAULT.directBuffer();
+    VarInts.writeUnsigned(packet, PacketIds.PLAY_STATUS);
+    packet.writeInt(LoginHandler.LOGIN_SUCCESS);
+    connection.send(packet);
+    LoginHandler.log.info("{} ({}) logged in from {}", result.displayName(), result.identity(), connection.address());
+  }
+}
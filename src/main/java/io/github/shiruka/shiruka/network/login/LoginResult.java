@@ -0,0 +1,51 @@
+package io.github.shiruka.shiruka.network.login;
+
+import java.security.PublicKey;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents verified login chains.
+ */
+@Getter
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+public final class LoginResult {
+
+  /**
+   * the display name.
+   */
+  @NotNull
+  private final String displayName;
+
+  /**
+   * the expiration time of the chain in epoch seconds.
+   */
+  private final long expiresAt;
+
+  /**
+   * the identity.
+   */
+  @NotNull
+  private final UUID identity;
+
+  /**
+   * the identity public key which signs the client data.
+   */
+  @NotNull
+  private final PublicKey identityPublicKey;
+
+  /**
+   * whether the chain is signed by the trusted root key, which means the player is authenticated by Xbox Live.
+   */
+  private final boolean trusted;
+
+  /**
+   * the xuid, empty if the chain is not trusted.
+   */
+  @NotNull
+  private final String xuid;
+}
@@ -0,0 +1,294 @@
+package io.github.shiruka.shiruka.network.login;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.shiruka.shiruka.metrics.Histogram;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents services which verify the JWT certificate chains of logins off the main thread.
+ * <p>
+ * decoded public keys and recently verified chains are cached, so a join storm after a restart verifies every
+ * distinct key and chain only once.
+ */
+@Accessors(fluent = true)
+public final class LoginVerifier {
+
+  /**
+   * the public key of Mojang which signs the chains of the players who are authenticated by Xbox Live.
+   */
+  public static final String MOJANG_PUBLIC_KEY = "MHYwEAYHKoZIzj0CAQYFK4EEACIDYgAE8ELkixyLcwlZryUQcu1TvPOmI2B7" +
+    "vX83ndnWRUaXm74wFfa5f/lwQNTfrLVHa2PmenpGI6JhIMUJaWZrjmMj90NoKNFSNBuKdm8rYiXsfaz3K36x/1U26HpG0ZxK/V1V";
+
+  /**
+   * the clock skew in seconds which is tolerated while checking the times of the chain.
+   */
+  private static final long CLOCK_SKEW = 60L;
+
+  /**
+   * the mapper.
+   */
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /**
+   * the maximum length of a chain.
+   */
+  private static final int MAX_CHAIN_LENGTH = 3;
+
+  /**
+   * the signature algorithm of the chain.
+   */
+  private static final String SIGNATURE_ALGORITHM = "SHA384withECDSAinP1363Format";
+
+  /**
+   * the cache hits.
+   */
+  private final LongAdder cacheHits = new LongAdder();
+
+  /**
+   * the executor.
+   */
+  private final ExecutorService executor;
+
+  /**
+   * the decoded keys.
+   */
+  private final Cache<String, PublicKey> keys = CacheBuilder.newBuilder()
+    .maximumSize(4096L)
+    .build();
+
+  /**
+   * the verification latency in nanoseconds, from the submission to the result.
+   */
+  @NotNull
+  @Getter
+  private final Histogram latency = new Histogram();
+
+  /**
+   * the recently verified chains.
+   */
+  private final Cache<HashCode, LoginResult> results = CacheBuilder.newBuilder()
+    .maximumSize(2048L)
+    .expireAfterWrite(10L, TimeUnit.MINUTES)
+    .build();
+
+  /**
+   * ctor.
+   *
+   * @param threads the threads, 0 means the number of available processors.
+   */
+  public LoginVerifier(final int threads) {
+    this.executor = Executors.newFixedThreadPool(threads > 0
+      ? threads
+      : Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Login Thread - %1$d")
+      .setDaemon(true)
+      .build());
+  }
+
+  /**
+   * decodes the given base64 url encoded part.
+   *
+   * @param part the part to decode.
+   *
+   * @return decoded part.
+   */
+  @NotNull
+  private static byte[] decode(@NotNull final String part) {
+    return Base64.getUrlDecoder().decode(part);
+  }
+
+  /**
+   * reads the given json.
+   *
+   * @param json the json to read.
+   *
+   * @return json node.
+   *
+   * @throws InvalidLoginException if the json is malformed.
+   */
+  @NotNull
+  private static JsonNode read(@NotNull final byte[] json) {
+    try {
+      return LoginVerifier.MAPPER.readTree(json);
+    } catch (final IOException e) {
+      throw new InvalidLoginException("Malformed json", e);
+    }
+  }
+
+  /**
+   * verifies the signature of the given token.
+   *
+   * @param token the token to verify.
+   * @param signature the base64 url encoded signature to verify.
+   * @param key the key to verify.
+   *
+   * @throws InvalidLoginException if the signature does not match.
+   */
+  private static void verifySignature(@NotNull final String token, @NotNull final String signature,
+                                      @NotNull final PublicKey key) {
+    try {
+      final var verifier = Signature.getInstance(LoginVerifier.SIGNATURE_ALGORITHM);
+      verifier.initVerify(key);
+      verifier.update(token.substring(0, token.lastIndexOf('.')).getBytes(StandardCharsets.US_ASCII));
+      if (!verifier.verify(LoginVerifier.decode(signature))) {
+        throw new InvalidLoginException("Invalid signature");
+      }
+    } catch (final GeneralSecurityException | IllegalArgumentException e) {
+      throw new InvalidLoginException("Invalid signature", e);
+    }
+  }
+
+  /**
+   * obtains the count of the verifications which are answered from the cache.
+   *
+   * @return cache hit count.
+   */
+  public long cacheHits() {
+    return this.cacheHits.sum();
+  }
+
+  /**
+   * shuts the verification threads down.
+   */
+  public void shutdown() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * verifies the given chain asynchronously.
+   *
+   * @param chain the chain json of the login packet.
+   *
+   * @return a future which completes with the result or with an {@link InvalidLoginException}.
+   */
+  @NotNull
+  public CompletableFuture<LoginResult> verify(@NotNull final String chain) {
+    final var start = System.nanoTime();
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return this.verifyNow(chain);
+      } finally {
+        this.latency.record(System.nanoTime() - start);
+      }
+    }, this.executor);
+  }
+
+  /**
+   * verifies the given chain on the current thread.
+   *
+   * @param chain the chain json of the login packet.
+   *
+   * @return verified result.
+   *
+   * @throws InvalidLoginException if the chain is malformed, expired or its signatures do not match.
+   */
+  @NotNull
+  public LoginResult verifyNow(@NotNull final String chain) {
+    final var hash = Hashing.sha256().hashString(chain, StandardCharsets.UTF_8);
+    final var now = System.currentTimeMillis() / 1000L;
+    final var cached = this.results.getIfPresent(hash);
+    if (cached != null && cached.expiresAt() > now) {
+      this.cacheHits.increment();
+      return cached;
+    }
+    final var result = this.verifyChain(chain, now);
+    this.results.put(hash, result);
+    return result;
+  }
+
+  /**
+   * obtains the decoded public key of the given base64 encoded key.
+   *
+   * @param encoded the encoded to get.
+   *
+   * @return decoded public key.
+   *
+   * @throws InvalidLoginException if the key could not be decoded.
+   */
+  @NotNull
+  private PublicKey key(@NotNull final String encoded) {
+    try {
+      return this.keys.get(encoded, () -> KeyFactory.getInstance("EC")
+        .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(encoded))));
+    } catch (final ExecutionException e) {
+      throw new InvalidLoginException("Invalid public key", e.getCause());
+    }
+  }
+
+  /**
+   * verifies the given chain.
+   *
+   * @param chain the chain to verify.
+   * @param now the current time in epoch seconds.
+   *
+   * @return verified result.
+   */
+  @NotNull
+  private LoginResult verifyChain(@NotNull final String chain, final long now) {
+    final var tokens = LoginVerifier.read(chain.getBytes(StandardCharsets.UTF_8)).path("chain");
+    if (!tokens.isArray() || tokens.isEmpty() || tokens.size() > LoginVerifier.MAX_CHAIN_LENGTH) {
+      throw new InvalidLoginException("Invalid chain length");
+    }
+    String expectedKey = null;
+    JsonNode payload = null;
+    var trusted = false;
+    var expiresAt = Long.MAX_VALUE;
+    for (final var node : tokens) {
+      final var token = node.asText();
+      final var parts = token.split("\\.");
+      if (parts.length != 3) {
+        throw new InvalidLoginException("Malformed token");
+      }
+      final var signingKey = LoginVerifier.read(LoginVerifier.decode(parts[0])).path("x5u").asText("");
+      if (signingKey.isEmpty() || expectedKey != null && !expectedKey.equals(signingKey)) {
+        throw new InvalidLoginException("Broken chain");
+      }
+      LoginVerifier.verifySignature(token, parts[2], this.key(signingKey));
+      trusted |= LoginVerifier.MOJANG_PUBLIC_KEY.equals(signingKey);
+      payload = LoginVerifier.read(LoginVerifier.decode(parts[1]));
+      final var expiration = payload.path("exp").asLong(Long.MAX_VALUE);
+      if (expiration + LoginVerifier.CLOCK_SKEW < now
+        || payload.path("nbf").asLong(0L) > now + LoginVerifier.CLOCK_SKEW) {
+        throw new InvalidLoginException("Expired chain");
+      }
+      expiresAt = Math.min(expiresAt, expiration);
+      expectedKey = payload.path("identityPublicKey").asText("");
+    }
+    final var extraData = payload.path("extraData");
+    final var displayName = extraData.path("displayName").asText("");
+    if (displayName.isEmpty() || expectedKey.isEmpty()) {
+      throw new InvalidLoginException("Missing identity");
+    }
+    final UUID identity;
+    try {
+      identity = UUID.fromString(extraData.path("identity").asText(""));
+    } catch (final IllegalArgumentException e) {
+      throw new InvalidLoginException("Invalid identity", e);
+    }
+    return new LoginResult(displayName, expiresAt, identity, this.key(expectedKey), trusted,
+      trusted ? extraData.path("XUID").asText("") : "");
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains login classes.
+ */
+package io.github.shiruka.shiruka.network.login;
@@ -0,0 +1,4 @@
+/**
+ * the package that contains network classes.
+ */
+package io.github.shiruka.shiruka.network;
@@ -0,0 +1,123 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents the frames which carry a whole message or a part of a split message.
+ *
+ * @param reliability the reliability of the frame.
+ * @param reliableIndex the reliable index, which detects the duplicates of the reliable frames.
+ * @param sequenceIndex the sequence index, which drops the older sequenced frames.
+ * @param orderIndex the order index within the channel.
+ * @param orderChannel the order channel.
+ * @param splitCount the part count of the split message, 0 if the frame carries a whole message.
+ * @param splitId the id of the split message.
+ * @param splitIndex the index of the part.
+ * @param payload the payload.
+ */
+record Frame(
+  @NotNull Reliability reliability,
+  int reliableIndex,
+  int sequenceIndex,
+  int orderIndex,
+  int orderChannel,
+  int splitCount,
+  int splitId,
+  int splitIndex,
+  @NotNull ByteBuf payload
+) {
+
+  /**
+   * the maximum header size.
+   */
+  static final int MAX_HEADER_SIZE = 23;
+
+  /**
+   * the split flag.
+   */
+  private static final int SPLIT_FLAG = 0x10;
+
+  /**
+   * reads a frame, its payload is a retained slice of the buffer.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return frame.
+   */
+  @NotNull
+  static Frame read(@NotNull final ByteBuf buffer) {
+    final var flags = buffer.readUnsignedByte();
+    final var reliability = Reliability.of(flags >> 5);
+    final var length = buffer.readUnsignedShort() + 7 >> 3;
+    final var reliableIndex = reliability.reliable() ? buffer.readUnsignedMediumLE() : 0;
+    final var sequenceIndex = reliability.sequenced() ? buffer.readUnsignedMediumLE() : 0;
+    final var orderIndex = reliability.arranged() ? buffer.readUnsignedMediumLE() : 0;
+    final var orderChannel = reliability.arranged() ? buffer.readUnsignedByte() : 0;
+    var splitCount = 0;
+    var splitId = 0;
+    var splitIndex = 0;
+    if ((flags & Frame.SPLIT_FLAG) != 0) {
+      splitCount = buffer.readInt();
+      splitId = buffer.readUnsignedShort();
+      splitIndex = buffer.readInt();
+      if (splitCount <= 0 || splitIndex < 0 || splitIndex >= splitCount) {
+        throw new CorruptedFrameException("Invalid split " + splitIndex + " of " + splitCount);
+      }
+    }
+    if (length == 0 || length > buffer.readableBytes()) {
+      throw new CorruptedFrameException("Invalid frame length " + length);
+    }
+    return new Frame(reliability, reliableIndex, sequenceIndex, orderIndex, orderChannel, splitCount, splitId,
+      splitIndex, buffer.readRetainedSlice(length));
+  }
+
+  /**
+   * obtains the encoded size of the frame.
+   *
+   * @return encoded size.
+   */
+  int size() {
+    var size = 3 + this.payload.readableBytes();
+    if (this.reliability.reliable()) {
+      size += 3;
+    }
+    if (this.reliability.sequenced()) {
+      size += 3;
+    }
+    if (this.reliability.arranged()) {
+      size += 4;
+    }
+    if (this.splitCount > 0) {
+      size += 10;
+    }
+    return size;
+  }
+
+  /**
+   * writes the frame, the payload is left untouched so the frame can be resent.
+   *
+   * @param buffer the buffer to write.
+   */
+  void write(@NotNull final ByteBuf buffer) {
+    buffer.writeByte(this.reliability.ordinal() << 5 | (this.splitCount > 0 ? Frame.SPLIT_FLAG : 0));
+    buffer.writeShort(this.payload.readableBytes() << 3);
+    if (this.reliability.reliable()) {
+      buffer.writeMediumLE(this.reliableIndex);
+    }
+    if (this.reliability.sequenced()) {
+      buffer.writeMediumLE(this.sequenceIndex);
+    }
+    if (this.reliability.arranged()) {
+      buffer.writeMediumLE(this.orderIndex);
+      buffer.writeByte(this.orderChannel);
+    }
+    if (this.splitCount > 0) {
+      buffer.writeInt(this.splitCount);
+      buffer.writeShort(this.splitId);
+      buffer.writeInt(this.splitIndex);
+    }
+    buffer.writeBytes(this.payload, this.payload.readerIndex(), this.payload.readableBytes());
+  }
+}
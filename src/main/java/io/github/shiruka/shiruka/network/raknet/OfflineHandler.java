@@ -0,0 +1,187 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the server side of the offline handshake, which answers the pings and negotiates the mtu
+ * of the new sessions.
+ * <p>
+ * the handshake is stateless, the session is opened only when the second open connection request arrives.
+ */
+@Log4j2
+public final class OfflineHandler {
+
+  /**
+   * the advertisement which is sent with the pongs.
+   */
+  @NotNull
+  private final Supplier<String> advertisement;
+
+  /**
+   * the guid of the server.
+   */
+  private final long guid;
+
+  /**
+   * the opener.
+   */
+  @NotNull
+  private final Opener opener;
+
+  /**
+   * ctor.
+   *
+   * @param guid the guid of the server.
+   * @param advertisement the advertisement which is sent with the pongs.
+   * @param opener the opener.
+   */
+  public OfflineHandler(final long guid, @NotNull final Supplier<String> advertisement,
+                        @NotNull final Opener opener) {
+    this.guid = guid;
+    this.advertisement = advertisement;
+    this.opener = opener;
+  }
+
+  /**
+   * handles the given offline message and answers it.
+   *
+   * @param channel the channel that received the message.
+   * @param sender the sender of the message.
+   * @param content the content of the message.
+   */
+  public void handle(@NotNull final Channel channel, @NotNull final InetSocketAddress sender,
+                     @NotNull final ByteBuf content) {
+    final var length = content.readableBytes();
+    try {
+      final var reply = switch (content.readUnsignedByte()) {
+        case RakNet.UNCONNECTED_PING, RakNet.UNCONNECTED_PING_OPEN_CONNECTIONS -> this.pong(channel, content);
+        case RakNet.OPEN_CONNECTION_REQUEST_1 -> this.reply1(channel, content, length);
+        case RakNet.OPEN_CONNECTION_REQUEST_2 -> this.reply2(channel, sender, content);
+        default -> null;
+      };
+      if (reply != null) {
+        channel.writeAndFlush(new DatagramPacket(reply, sender), channel.voidPromise());
+      }
+    } catch (final CorruptedFrameException | IndexOutOfBoundsException e) {
+      OfflineHandler.log.debug("Ignoring a malformed offline message of {}", sender, e);
+    }
+  }
+
+  /**
+   * answers an unconnected ping.
+   *
+   * @param channel the channel to allocate.
+   * @param ping the ping to answer.
+   *
+   * @return pong, {@code null} if the ping is invalid.
+   */
+  @Nullable
+  private ByteBuf pong(@NotNull final Channel channel, @NotNull final ByteBuf ping) {
+    final var time = ping.readLong();
+    if (!RakNet.readMagic(ping)) {
+      return null;
+    }
+    final var advertisement = this.advertisement.get();
+    final var pong = channel.alloc().ioBuffer(35 + advertisement.length());
+    pong.writeByte(RakNet.UNCONNECTED_PONG);
+    pong.writeLong(time);
+    pong.writeLong(this.guid);
+    RakNet.writeMagic(pong);
+    pong.writeShort(ByteBufUtil.utf8Bytes(advertisement));
+    pong.writeCharSequence(advertisement, StandardCharsets.UTF_8);
+    return pong;
+  }
+
+  /**
+   * answers the first open connection request, whose padded size is the mtu which the client tries.
+   *
+   * @param channel the channel to allocate.
+   * @param request the request to answer.
+   * @param length the length of the request.
+   *
+   * @return reply, {@code null} if the request is invalid.
+   */
+  @Nullable
+  private ByteBuf reply1(@NotNull final Channel channel, @NotNull final ByteBuf request, final int length) {
+    if (!RakNet.readMagic(request)) {
+      return null;
+    }
+    final var protocol = request.readUnsignedByte();
+    if (protocol != RakNet.PROTOCOL_VERSION) {
+      final var reply = channel.alloc().ioBuffer(26);
+      reply.writeByte(RakNet.INCOMPATIBLE_PROTOCOL_VERSION);
+      reply.writeByte(RakNet.PROTOCOL_VERSION);
+      RakNet.writeMagic(reply);
+      reply.writeLong(this.guid);
+      return reply;
+    }
+    final var reply = channel.alloc().ioBuffer(28);
+    reply.writeByte(RakNet.OPEN_CONNECTION_REPLY_1);
+    RakNet.writeMagic(reply);
+    reply.writeLong(this.guid);
+    reply.writeBoolean(false);
+    reply.writeShort(Math.min(RakNet.MAX_MTU, length + RakNet.UDP_HEADER_SIZE));
+    return reply;
+  }
+
+  /**
+   * answers the second open connection request and opens the session.
+   *
+   * @param channel the channel that received the request.
+   * @param sender the sender of the request.
+   * @param request the request to answer.
+   *
+   * @return reply, {@code null} if the request is invalid.
+   */
+  @Nullable
+  private ByteBuf reply2(@NotNull final Channel channel, @NotNull final InetSocketAddress sender,
+                         @NotNull final ByteBuf request) {
+    if (!RakNet.readMagic(request)) {
+      return null;
+    }
+    RakNet.readAddress(request);
+    final var mtu = request.readUnsignedShort();
+    final var clientGuid = request.readLong();
+    if (mtu < RakNet.MIN_MTU) {
+      return null;
+    }
+    final var negotiated = Math.min(RakNet.MAX_MTU, mtu);
+    final var reply = channel.alloc().ioBuffer(48);
+    reply.writeByte(RakNet.OPEN_CONNECTION_REPLY_2);
+    RakNet.writeMagic(reply);
+    reply.writeLong(this.guid);
+    RakNet.writeAddress(reply, sender);
+    reply.writeShort(negotiated);
+    reply.writeBoolean(false);
+    this.opener.open(channel, sender, negotiated, clientGuid);
+    return reply;
+  }
+
+  /**
+   * an interface to determine openers of the sessions which complete the offline handshake.
+   */
+  @FunctionalInterface
+  public interface Opener {
+
+    /**
+     * opens the session of the given peer, the peer may retry the handshake, so an existing session of the same
+     * peer and guid should be kept.
+     *
+     * @param channel the channel that received the handshake.
+     * @param address the address of the peer.
+     * @param mtu the negotiated mtu.
+     * @param guid the guid of the peer.
+     */
+    void open(@NotNull Channel channel, @NotNull InetSocketAddress address, int mtu, long guid);
+  }
+}
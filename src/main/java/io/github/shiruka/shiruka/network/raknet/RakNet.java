@@ -0,0 +1,263 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that contains the RakNet message ids, limits and field codecs.
+ */
+public final class RakNet {
+
+  /**
+   * the ack datagram flag.
+   */
+  public static final int ACK = 0x40;
+
+  /**
+   * the connected ping message id.
+   */
+  public static final int CONNECTED_PING = 0x00;
+
+  /**
+   * the connected pong message id.
+   */
+  public static final int CONNECTED_PONG = 0x03;
+
+  /**
+   * the connection request message id.
+   */
+  public static final int CONNECTION_REQUEST = 0x09;
+
+  /**
+   * the connection request accepted message id.
+   */
+  public static final int CONNECTION_REQUEST_ACCEPTED = 0x10;
+
+  /**
+   * the disconnect notification message id.
+   */
+  public static final int DISCONNECT_NOTIFICATION = 0x15;
+
+  /**
+   * the game packet message id, which is the batch header of the game layer.
+   */
+  public static final int GAME_PACKET = 0xFE;
+
+  /**
+   * the incompatible protocol version message id.
+   */
+  public static final int INCOMPATIBLE_PROTOCOL_VERSION = 0x19;
+
+  /**
+   * the maximum mtu.
+   */
+  public static final int MAX_MTU = 1492;
+
+  /**
+   * the minimum mtu.
+   */
+  public static final int MIN_MTU = 576;
+
+  /**
+   * the nack datagram flag.
+   */
+  public static final int NACK = 0x20;
+
+  /**
+   * the needs b and as datagram flag, which every frame set sets.
+   */
+  public static final int NEEDS_B_AND_AS = 0x04;
+
+  /**
+   * the new incoming connection message id.
+   */
+  public static final int NEW_INCOMING_CONNECTION = 0x13;
+
+  /**
+   * the open connection reply 1 message id.
+   */
+  public static final int OPEN_CONNECTION_REPLY_1 = 0x06;
+
+  /**
+   * the open connection reply 2 message id.
+   */
+  public static final int OPEN_CONNECTION_REPLY_2 = 0x08;
+
+  /**
+   * the open connection request 1 message id.
+   */
+  public static final int OPEN_CONNECTION_REQUEST_1 = 0x05;
+
+  /**
+   * the open connection request 2 message id.
+   */
+  public static final int OPEN_CONNECTION_REQUEST_2 = 0x07;
+
+  /**
+   * the protocol version of Bedrock's RakNet.
+   */
+  public static final int PROTOCOL_VERSION = 11;
+
+  /**
+   * the system address count of the connection handshake.
+   */
+  public static final int SYSTEM_ADDRESSES = 20;
+
+  /**
+   * the overhead of the IP and UDP headers, which the mtu includes.
+   */
+  public static final int UDP_HEADER_SIZE = 28;
+
+  /**
+   * the unconnected ping message id.
+   */
+  public static final int UNCONNECTED_PING = 0x01;
+
+  /**
+   * the unconnected ping open connections message id.
+   */
+  public static final int UNCONNECTED_PING_OPEN_CONNECTIONS = 0x02;
+
+  /**
+   * the unconnected pong message id.
+   */
+  public static final int UNCONNECTED_PONG = 0x1C;
+
+  /**
+   * the valid datagram flag, which every connected datagram sets.
+   */
+  public static final int VALID = 0x80;
+
+  /**
+   * the mask of the 24 bit indices.
+   */
+  static final int INDEX_MASK = 0xFFFFFF;
+
+  /**
+   * the magic of the offline messages.
+   */
+  private static final byte[] MAGIC = {
+    (byte) 0x00, (byte) 0xFF, (byte) 0xFF, (byte) 0x00, (byte) 0xFE, (byte) 0xFE, (byte) 0xFE, (byte) 0xFE,
+    (byte) 0xFD, (byte) 0xFD, (byte) 0xFD, (byte) 0xFD, (byte) 0x12, (byte) 0x34, (byte) 0x56, (byte) 0x78
+  };
+
+  /**
+   * the half of the 24 bit index space.
+   */
+  private static final int HALF_INDEX = 0x800000;
+
+  /**
+   * ctor.
+   */
+  private RakNet() {
+  }
+
+  /**
+   * checks if the given 24 bit index comes after the other one, with the wrap around.
+   *
+   * @param index the index to check.
+   * @param other the other index to compare.
+   *
+   * @return {@code true} if the index comes after the other one.
+   */
+  public static boolean after(final int index, final int other) {
+    final var distance = (index - other) & RakNet.INDEX_MASK;
+    return distance != 0 && distance < RakNet.HALF_INDEX;
+  }
+
+  /**
+   * reads an address.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return address.
+   */
+  @NotNull
+  public static InetSocketAddress readAddress(@NotNull final ByteBuf buffer) {
+    final var version = buffer.readUnsignedByte();
+    final byte[] bytes;
+    final int port;
+    if (version == 4) {
+      bytes = new byte[4];
+      for (var index = 0; index < bytes.length; index++) {
+        bytes[index] = (byte) ~buffer.readByte();
+      }
+      port = buffer.readUnsignedShort();
+    } else if (version == 6) {
+      buffer.skipBytes(2);
+      port = buffer.readUnsignedShort();
+      buffer.skipBytes(4);
+      bytes = new byte[16];
+      buffer.readBytes(bytes);
+      buffer.skipBytes(4);
+    } else {
+      throw new CorruptedFrameException("Unknown address version " + version);
+    }
+    try {
+      return new InetSocketAddress(InetAddress.getByAddress(bytes), port);
+    } catch (final UnknownHostException e) {
+      throw new CorruptedFrameException(e);
+    }
+  }
+
+  /**
+   * reads and checks the magic of an offline message.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return {@code true} if the magic matches.
+   */
+  public static boolean readMagic(@NotNull final ByteBuf buffer) {
+    if (buffer.readableBytes() < RakNet.MAGIC.length) {
+      return false;
+    }
+    for (final var value : RakNet.MAGIC) {
+      if (buffer.readByte() != value) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * writes the given address.
+   *
+   * @param buffer the buffer to write.
+   * @param address the address to write.
+   */
+  public static void writeAddress(@NotNull final ByteBuf buffer, @NotNull final InetSocketAddress address) {
+    final var inet = address.getAddress();
+    if (inet instanceof Inet6Address) {
+      buffer.writeByte(6);
+      buffer.writeShortLE(23);
+      buffer.writeShort(address.getPort());
+      buffer.writeInt(0);
+      buffer.writeBytes(inet.getAddress());
+      buffer.writeInt(((Inet6Address) inet).getScopeId());
+      return;
+    }
+    final var bytes = inet instanceof Inet4Address
+      ? inet.getAddress()
+      : new byte[4];
+    buffer.writeByte(4);
+    for (final var value : bytes) {
+      buffer.writeByte(~value);
+    }
+    buffer.writeShort(address.getPort());
+  }
+
+  /**
+   * writes the magic of an offline message.
+   *
+   * @param buffer the buffer to write.
+   */
+  public static void writeMagic(@NotNull final ByteBuf buffer) {
+    buffer.writeBytes(RakNet.MAGIC);
+  }
+}
@@ -0,0 +1,245 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.CorruptedFrameException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the client side of RakNet, which runs the offline handshake against a server and then
+ * routes the datagrams of its own channel to its session.
+ * <p>
+ * the mtu is discovered by padding the first open connection request to the largest candidate and falling back to
+ * the smaller candidates when the server does not answer.
+ */
+@Accessors(fluent = true)
+public final class RakNetClient extends SimpleChannelInboundHandler<DatagramPacket> {
+
+  /**
+   * the attempts per mtu candidate.
+   */
+  private static final int ATTEMPTS = 4;
+
+  /**
+   * the mtu candidates.
+   */
+  private static final int[] MTU_CANDIDATES = {RakNet.MAX_MTU, 1200, RakNet.MIN_MTU};
+
+  /**
+   * the retry interval of the offline handshake in milliseconds.
+   */
+  private static final long RETRY_INTERVAL = 500L;
+
+  /**
+   * the guid.
+   */
+  private final long guid = ThreadLocalRandom.current().nextLong();
+
+  /**
+   * the listener.
+   */
+  @NotNull
+  private final SessionListener listener;
+
+  /**
+   * the target.
+   */
+  @NotNull
+  private final InetSocketAddress target;
+
+  /**
+   * the handshake attempts.
+   */
+  private int attempts;
+
+  /**
+   * the channel.
+   */
+  @Nullable
+  @Getter
+  private volatile Channel channel;
+
+  /**
+   * the retry task of the offline handshake.
+   */
+  @Nullable
+  private ScheduledFuture<?> retry;
+
+  /**
+   * the session, {@code null} until the offline handshake is completed.
+   */
+  @Nullable
+  @Getter
+  private volatile RakNetSession session;
+
+  /**
+   * ctor.
+   *
+   * @param target the target.
+   * @param listener the listener.
+   */
+  public RakNetClient(@NotNull final InetSocketAddress target, @NotNull final SessionListener listener) {
+    this.target = target;
+    this.listener = listener;
+  }
+
+  /**
+   * closes the session and the channel.
+   */
+  public void close() {
+    final var session = this.session;
+    if (session != null) {
+      session.close();
+    }
+    final var channel = this.channel;
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  /**
+   * binds a channel and starts the handshake.
+   *
+   * @param bootstrap the bootstrap to bind.
+   */
+  public void connect(@NotNull final Bootstrap bootstrap) {
+    bootstrap.clone().handler(this).bind(0).addListener((ChannelFutureListener) future -> {
+      if (!future.isSuccess()) {
+        this.listener.disconnected();
+        return;
+      }
+      this.channel = future.channel();
+      this.request1();
+    });
+  }
+
+  /**
+   * sends the given message reliably and in order, the message is dropped until the session is open.
+   *
+   * @param message the message to send, the client takes the ownership of it.
+   */
+  public void send(@NotNull final ByteBuf message) {
+    final var session = this.session;
+    if (session == null) {
+      message.release();
+      return;
+    }
+    session.send(message);
+  }
+
+  @Override
+  protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg) {
+    final var content = msg.content();
+    if (!content.isReadable()) {
+      return;
+    }
+    final var session = this.session;
+    if (session != null) {
+      if ((content.getUnsignedByte(content.readerIndex()) & RakNet.VALID) != 0) {
+        session.receive(content);
+      }
+      return;
+    }
+    try {
+      switch (content.readUnsignedByte()) {
+        case RakNet.OPEN_CONNECTION_REPLY_1 -> this.request2(ctx.channel(), content);
+        case RakNet.OPEN_CONNECTION_REPLY_2 -> this.open(ctx.channel(), content);
+        case RakNet.INCOMPATIBLE_PROTOCOL_VERSION -> {
+          this.cancelRetry();
+          this.listener.disconnected();
+          ctx.channel().close();
+        }
+        default -> {
+        }
+      }
+    } catch (final CorruptedFrameException | IndexOutOfBoundsException e) {
+      // ignored, the handshake is retried.
+    }
+  }
+
+  /**
+   * cancels the retry task of the offline handshake.
+   */
+  private void cancelRetry() {
+    if (this.retry != null) {
+      this.retry.cancel(false);
+      this.retry = null;
+    }
+  }
+
+  /**
+   * opens the session after the second open connection reply.
+   *
+   * @param channel the channel to open.
+   * @param reply the reply of the server.
+   */
+  private void open(@NotNull final Channel channel, @NotNull final ByteBuf reply) {
+    if (!RakNet.readMagic(reply)) {
+      return;
+    }
+    final var serverGuid = reply.readLong();
+    RakNet.readAddress(reply);
+    final var mtu = reply.readUnsignedShort();
+    this.cancelRetry();
+    final var session = new RakNetSession(channel, this.target, mtu, this.guid, serverGuid, true, this.listener);
+    this.session = session;
+    session.start();
+  }
+
+  /**
+   * sends the first open connection request padded to the current mtu candidate and schedules its retry.
+   */
+  private void request1() {
+    final var channel = this.channel;
+    if (channel == null || this.session != null) {
+      return;
+    }
+    final var candidate = this.attempts++ / RakNetClient.ATTEMPTS;
+    if (candidate >= RakNetClient.MTU_CANDIDATES.length) {
+      this.listener.disconnected();
+      channel.close();
+      return;
+    }
+    final var size = RakNetClient.MTU_CANDIDATES[candidate] - RakNet.UDP_HEADER_SIZE;
+    final var request = channel.alloc().ioBuffer(size);
+    request.writeByte(RakNet.OPEN_CONNECTION_REQUEST_1);
+    RakNet.writeMagic(request);
+    request.writeByte(RakNet.PROTOCOL_VERSION);
+    request.writeZero(size - request.writerIndex());
+    channel.writeAndFlush(new DatagramPacket(request, this.target), channel.voidPromise());
+    this.retry = channel.eventLoop().schedule(this::request1, RakNetClient.RETRY_INTERVAL, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * sends the second open connection request after the first reply.
+   *
+   * @param channel the channel to send.
+   * @param reply the reply of the server.
+   */
+  private void request2(@NotNull final Channel channel, @NotNull final ByteBuf reply) {
+    if (!RakNet.readMagic(reply)) {
+      return;
+    }
+    reply.skipBytes(9);
+    final var mtu = reply.readUnsignedShort();
+    final var request = channel.alloc().ioBuffer(34);
+    request.writeByte(RakNet.OPEN_CONNECTION_REQUEST_2);
+    RakNet.writeMagic(request);
+    RakNet.writeAddress(request, this.target);
+    request.writeShort(mtu);
+    request.writeLong(this.guid);
+    channel.writeAndFlush(new DatagramPacket(request, this.target), channel.voidPromise());
+  }
+}
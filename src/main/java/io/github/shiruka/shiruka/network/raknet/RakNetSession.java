@@ -0,0 +1,1119 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.handler.codec.CorruptedFrameException;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents RakNet sessions which carry the game messages of a peer over UDP.
+ * <p>
+ * the outbound messages are split into frames which fit the negotiated mtu, packed into datagrams and resent until
+ * the peer acknowledges them. the datagrams in flight are limited by a congestion window, which grows with the
+ * acknowledgements and shrinks on losses, so a burst does not overflow the socket buffers. the inbound datagrams are
+ * acknowledged, the gaps are reported back, the duplicates are dropped, the split messages are reassembled and the
+ * ordered ones are held back until their predecessors arrive, so the game layer sees every message exactly once
+ * and in order. except the thread-safe {@link #send(ByteBuf)} and {@link #close()}, the session is used only by the
+ * event loop of its channel, so its state is not locked.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class RakNetSession {
+
+  /**
+   * the order channels.
+   */
+  private static final int CHANNELS = 32;
+
+  /**
+   * the datagram header size.
+   */
+  private static final int DATAGRAM_HEADER_SIZE = 4;
+
+  /**
+   * the initial congestion window in datagrams.
+   */
+  private static final double INITIAL_WINDOW = 16.0D;
+
+  /**
+   * the retransmission timeout before the first round trip is measured in nanoseconds.
+   */
+  private static final long INITIAL_RTO = TimeUnit.MILLISECONDS.toNanos(500L);
+
+  /**
+   * the idle time after which a connected ping is sent in nanoseconds.
+   */
+  private static final long KEEP_ALIVE = TimeUnit.SECONDS.toNanos(5L);
+
+  /**
+   * the maximum datagram sequences which an acknowledgement may carry.
+   */
+  private static final int MAX_ACK_ENTRIES = 4096;
+
+  /**
+   * the maximum messages which wait for their order.
+   */
+  private static final int MAX_HELD = 4096;
+
+  /**
+   * the maximum missing datagrams which are reported at once.
+   */
+  private static final int MAX_NACKS = 1024;
+
+  /**
+   * the maximum distance of a reliable index from the oldest missing one.
+   */
+  private static final int MAX_RELIABLE_WINDOW = 65536;
+
+  /**
+   * the maximum retransmission timeout in nanoseconds.
+   */
+  private static final long MAX_RTO = TimeUnit.SECONDS.toNanos(2L);
+
+  /**
+   * the maximum part count of a split message.
+   */
+  private static final int MAX_SPLIT_COUNT = 2048;
+
+  /**
+   * the maximum parts of the split messages which are reassembled at once.
+   */
+  private static final int MAX_SPLIT_PARTS = 8192;
+
+  /**
+   * the maximum congestion window in datagrams.
+   */
+  private static final double MAX_WINDOW = 512.0D;
+
+  /**
+   * the minimum congestion window in datagrams.
+   */
+  private static final double MIN_WINDOW = 4.0D;
+
+  /**
+   * the minimum retransmission timeout in nanoseconds.
+   */
+  private static final long MIN_RTO = TimeUnit.MILLISECONDS.toNanos(50L);
+
+  /**
+   * the maximum size of an acknowledgement record.
+   */
+  private static final int RECORD_SIZE = 7;
+
+  /**
+   * the address which fills the system addresses of the connection handshake.
+   */
+  private static final InetSocketAddress SYSTEM_ADDRESS = InetSocketAddress.createUnresolved("0.0.0.0", 0);
+
+  /**
+   * the time without any datagram after which the session is closed in nanoseconds.
+   */
+  private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10L);
+
+  /**
+   * the update interval in milliseconds, which is also the longest delay of the acknowledgements.
+   */
+  private static final long UPDATE_INTERVAL = 10L;
+
+  /**
+   * the received datagram sequences which are acknowledged on the next update.
+   */
+  private final IntRBTreeSet acks = new IntRBTreeSet();
+
+  /**
+   * the address of the peer.
+   */
+  @NotNull
+  @Getter
+  private final InetSocketAddress address;
+
+  /**
+   * the channel.
+   */
+  @NotNull
+  @Getter
+  private final Channel channel;
+
+  /**
+   * whether the session connects to a server.
+   */
+  private final boolean client;
+
+  /**
+   * the guid of this side.
+   */
+  private final long guid;
+
+  /**
+   * the ordered messages which wait for their predecessors by channel and order index.
+   */
+  private final Int2ObjectOpenHashMap<ByteBuf> held = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * the next order index by inbound channel.
+   */
+  private final int[] inboundOrder = new int[RakNetSession.CHANNELS];
+
+  /**
+   * the next sequence index by inbound channel.
+   */
+  private final int[] inboundSequence = new int[RakNetSession.CHANNELS];
+
+  /**
+   * the listener.
+   */
+  @NotNull
+  private final SessionListener listener;
+
+  /**
+   * the mtu.
+   */
+  @Getter
+  private final int mtu;
+
+  /**
+   * the missing datagram sequences which are reported on the next update.
+   */
+  private final IntRBTreeSet nacks = new IntRBTreeSet();
+
+  /**
+   * the guid of the peer.
+   */
+  @Getter
+  private final long peerGuid;
+
+  /**
+   * the frames which wait to be sent.
+   */
+  private final ArrayDeque<Frame> queue = new ArrayDeque<>();
+
+  /**
+   * the received reliable indices after the oldest missing one.
+   */
+  private final IntOpenHashSet reliables = new IntOpenHashSet();
+
+  /**
+   * the resent frames.
+   */
+  private final LongAdder resent = new LongAdder();
+
+  /**
+   * the split messages which are reassembled by split id.
+   */
+  private final Int2ObjectOpenHashMap<Split> splits = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * the start time in nanoseconds, the handshake times are relative to it.
+   */
+  private final long started = System.nanoTime();
+
+  /**
+   * the datagrams which are not acknowledged yet by sequence.
+   */
+  private final Int2ObjectOpenHashMap<Sent> unacked = new Int2ObjectOpenHashMap<>();
+
+  /**
+   * whether the session is closed.
+   */
+  private boolean closed;
+
+  /**
+   * the congestion window in datagrams.
+   */
+  private double congestionWindow = RakNetSession.INITIAL_WINDOW;
+
+  /**
+   * whether the connection handshake is completed.
+   */
+  @Getter
+  private volatile boolean connected;
+
+  /**
+   * the next expected inbound datagram sequence.
+   */
+  private int expectedSequence;
+
+  /**
+   * the last receive time in nanoseconds.
+   */
+  private long lastReceive = System.nanoTime();
+
+  /**
+   * the last reduction time of the congestion window in nanoseconds.
+   */
+  private long lastReduction;
+
+  /**
+   * the last send time in nanoseconds.
+   */
+  private long lastSend = System.nanoTime();
+
+  /**
+   * the next outbound reliable index.
+   */
+  private int nextReliable;
+
+  /**
+   * the next outbound datagram sequence.
+   */
+  private int nextSequence;
+
+  /**
+   * the next outbound order index.
+   */
+  private int orderIndex;
+
+  /**
+   * the oldest missing inbound reliable index.
+   */
+  private int reliableStart;
+
+  /**
+   * the retransmission timeout in nanoseconds.
+   */
+  private long rto = RakNetSession.INITIAL_RTO;
+
+  /**
+   * the round trip time variation in nanoseconds.
+   */
+  private long rttVariation;
+
+  /**
+   * the next outbound sequence index.
+   */
+  private int sequenceIndex;
+
+  /**
+   * the slow start threshold of the congestion window in datagrams.
+   */
+  private double slowStartThreshold = RakNetSession.MAX_WINDOW;
+
+  /**
+   * the smoothed round trip time in nanoseconds, -1 if it is not measured yet.
+   */
+  private long smoothedRtt = -1L;
+
+  /**
+   * the next split id.
+   */
+  private int splitId;
+
+  /**
+   * the parts of the split messages which are reassembled.
+   */
+  private int splitParts;
+
+  /**
+   * whether a datagram is written since the last channel flush.
+   */
+  private boolean unflushed;
+
+  /**
+   * the update task.
+   */
+  @Nullable
+  private ScheduledFuture<?> updater;
+
+  /**
+   * ctor.
+   *
+   * @param channel the channel.
+   * @param address the address of the peer.
+   * @param mtu the mtu which is negotiated by the offline handshake.
+   * @param guid the guid of this side.
+   * @param peerGuid the guid of the peer.
+   * @param client whether the session connects to a server.
+   * @param listener the listener.
+   */
+  public RakNetSession(@NotNull final Channel channel, @NotNull final InetSocketAddress address, final int mtu,
+                       final long guid, final long peerGuid, final boolean client,
+                       @NotNull final SessionListener listener) {
+    this.channel = channel;
+    this.address = address;
+    this.mtu = Math.max(RakNet.MIN_MTU, Math.min(RakNet.MAX_MTU, mtu));
+    this.guid = guid;
+    this.peerGuid = peerGuid;
+    this.client = client;
+    this.listener = listener;
+  }
+
+  /**
+   * reads the datagram sequences of an acknowledgement.
+   *
+   * @param buffer the buffer to read.
+   * @param consumer the consumer to pass the sequences.
+   */
+  private static void readRanges(@NotNull final ByteBuf buffer, @NotNull final IntConsumer consumer) {
+    final var count = buffer.readUnsignedShort();
+    var entries = 0;
+    for (var record = 0; record < count; record++) {
+      final var single = buffer.readBoolean();
+      final var start = buffer.readUnsignedMediumLE();
+      final var end = single ? start : buffer.readUnsignedMediumLE();
+      final var length = ((end - start) & RakNet.INDEX_MASK) + 1;
+      entries += length;
+      if (entries > RakNetSession.MAX_ACK_ENTRIES) {
+        throw new CorruptedFrameException("Too many acknowledged datagrams");
+      }
+      for (var index = 0; index < length; index++) {
+        consumer.accept((start + index) & RakNet.INDEX_MASK);
+      }
+    }
+  }
+
+  /**
+   * writes the system addresses of the connection handshake.
+   *
+   * @param buffer the buffer to write.
+   */
+  private static void writeSystemAddresses(@NotNull final ByteBuf buffer) {
+    for (var index = 0; index < RakNet.SYSTEM_ADDRESSES; index++) {
+      RakNet.writeAddress(buffer, RakNetSession.SYSTEM_ADDRESS);
+    }
+  }
+
+  /**
+   * closes the session, notifying the peer.
+   * <p>
+   * the queued frames are sent once more and the listener is notified, it can be called by any thread.
+   */
+  public void close() {
+    final var loop = this.channel.eventLoop();
+    if (loop.inEventLoop()) {
+      this.close(true);
+      return;
+    }
+    try {
+      loop.execute(() -> this.close(true));
+    } catch (final RejectedExecutionException e) {
+      this.close(false);
+    }
+  }
+
+  /**
+   * receives the given connected datagram.
+   *
+   * @param datagram the datagram to receive.
+   */
+  public void receive(@NotNull final ByteBuf datagram) {
+    if (this.closed) {
+      return;
+    }
+    this.lastReceive = System.nanoTime();
+    try {
+      final var flags = datagram.readUnsignedByte();
+      if ((flags & RakNet.ACK) != 0) {
+        RakNetSession.readRanges(datagram, this::acknowledge);
+      } else if ((flags & RakNet.NACK) != 0) {
+        RakNetSession.readRanges(datagram, this::retransmit);
+      } else {
+        this.track(datagram.readUnsignedMediumLE());
+        while (datagram.isReadable() && !this.closed) {
+          final var frame = Frame.read(datagram);
+          try {
+            this.handle(frame);
+          } finally {
+            frame.payload().release();
+          }
+        }
+      }
+    } catch (final CorruptedFrameException | IndexOutOfBoundsException e) {
+      RakNetSession.log.debug("Closing the session of {} because of a malformed datagram", this.address, e);
+      this.close(true);
+      return;
+    }
+    this.flush(false);
+  }
+
+  /**
+   * obtains the frames which are resent since they were lost or acknowledged too late.
+   *
+   * @return resent frame count.
+   */
+  public long resent() {
+    return this.resent.sum();
+  }
+
+  /**
+   * sends the given message reliably and in order, it can be called by any thread.
+   *
+   * @param message the message to send, the session takes the ownership of it.
+   */
+  public void send(@NotNull final ByteBuf message) {
+    this.send(message, Reliability.RELIABLE_ORDERED);
+  }
+
+  /**
+   * sends the given message with the given reliability, it can be called by any thread.
+   * <p>
+   * the messages which are larger than a datagram are split and the parts are sent reliably.
+   *
+   * @param message the message to send, the session takes the ownership of it.
+   * @param reliability the reliability to send.
+   */
+  public void send(@NotNull final ByteBuf message, @NotNull final Reliability reliability) {
+    final var loop = this.channel.eventLoop();
+    if (loop.inEventLoop()) {
+      this.enqueue(message, reliability);
+      this.flush(false);
+      return;
+    }
+    try {
+      loop.execute(() -> {
+        this.enqueue(message, reliability);
+        this.flush(false);
+      });
+    } catch (final RejectedExecutionException e) {
+      message.release();
+    }
+  }
+
+  /**
+   * starts the updates of the session and, on the client side, the connection handshake.
+   * <p>
+   * called by the event loop of the channel right after the offline handshake.
+   */
+  public void start() {
+    this.updater = this.channel.eventLoop().scheduleAtFixedRate(this::update, RakNetSession.UPDATE_INTERVAL,
+      RakNetSession.UPDATE_INTERVAL, TimeUnit.MILLISECONDS);
+    if (!this.client) {
+      return;
+    }
+    final var request = this.channel.alloc().ioBuffer(18);
+    request.writeByte(RakNet.CONNECTION_REQUEST);
+    request.writeLong(this.guid);
+    request.writeLong(this.time());
+    request.writeBoolean(false);
+    this.enqueue(request, Reliability.RELIABLE);
+    this.flush(false);
+  }
+
+  /**
+   * accepts the connection request of a client.
+   *
+   * @param request the request to accept.
+   */
+  private void accept(@NotNull final ByteBuf request) {
+    request.skipBytes(9);
+    final var time = request.readLong();
+    final var reply = this.channel.alloc().ioBuffer(192);
+    reply.writeByte(RakNet.CONNECTION_REQUEST_ACCEPTED);
+    RakNet.writeAddress(reply, this.address);
+    reply.writeShort(0);
+    RakNetSession.writeSystemAddresses(reply);
+    reply.writeLong(time);
+    reply.writeLong(this.time());
+    this.enqueue(reply, Reliability.RELIABLE);
+  }
+
+  /**
+   * releases the frames of the given acknowledged datagram and measures the round trip time.
+   *
+   * @param sequence the sequence of the datagram.
+   */
+  private void acknowledge(final int sequence) {
+    final var sent = this.unacked.remove(sequence);
+    if (sent == null) {
+      return;
+    }
+    sent.frames().forEach(frame -> frame.payload().release());
+    this.congestionWindow = Math.min(RakNetSession.MAX_WINDOW, this.congestionWindow +
+      (this.congestionWindow < this.slowStartThreshold ? 1.0D : 1.0D / this.congestionWindow));
+    final var rtt = this.lastReceive - sent.time();
+    if (this.smoothedRtt < 0L) {
+      this.smoothedRtt = rtt;
+      this.rttVariation = rtt / 2L;
+    } else {
+      this.rttVariation = (3L * this.rttVariation + Math.abs(this.smoothedRtt - rtt)) / 4L;
+      this.smoothedRtt = (7L * this.smoothedRtt + rtt) / 8L;
+    }
+    final var variation = Math.max(TimeUnit.MILLISECONDS.toNanos(RakNetSession.UPDATE_INTERVAL),
+      4L * this.rttVariation);
+    this.rto = Math.max(RakNetSession.MIN_RTO, Math.min(RakNetSession.MAX_RTO, this.smoothedRtt + variation));
+  }
+
+  /**
+   * delivers the given message of the given frame, holding the ordered ones back until their predecessors arrive.
+   *
+   * @param frame the frame of the message.
+   * @param message the message to deliver.
+   */
+  private void arrange(@NotNull final Frame frame, @NotNull final ByteBuf message) {
+    final var reliability = frame.reliability();
+    if (!reliability.arranged()) {
+      this.deliver(message);
+      return;
+    }
+    final var channel = frame.orderChannel();
+    if (channel >= RakNetSession.CHANNELS) {
+      throw new CorruptedFrameException("Invalid order channel " + channel);
+    }
+    if (reliability.sequenced()) {
+      final var sequence = frame.sequenceIndex();
+      final var next = this.inboundSequence[channel];
+      if (sequence == next || RakNet.after(sequence, next)) {
+        this.inboundSequence[channel] = (sequence + 1) & RakNet.INDEX_MASK;
+        this.deliver(message);
+      }
+      return;
+    }
+    final var index = frame.orderIndex();
+    final var expected = this.inboundOrder[channel];
+    if (index == expected) {
+      var next = (expected + 1) & RakNet.INDEX_MASK;
+      this.inboundOrder[channel] = next;
+      this.deliver(message);
+      ByteBuf waiting;
+      while (!this.closed && (waiting = this.held.remove(channel << 24 | next)) != null) {
+        next = (next + 1) & RakNet.INDEX_MASK;
+        this.inboundOrder[channel] = next;
+        try {
+          this.deliver(waiting);
+        } finally {
+          waiting.release();
+        }
+      }
+      return;
+    }
+    if (!RakNet.after(index, expected)) {
+      return;
+    }
+    if (this.held.size() >= RakNetSession.MAX_HELD) {
+      throw new CorruptedFrameException("Too many messages wait for their order");
+    }
+    if (this.held.putIfAbsent(channel << 24 | index, message.retain()) != null) {
+      message.release();
+    }
+  }
+
+  /**
+   * closes the session.
+   *
+   * @param notify whether the peer is notified.
+   */
+  private void close(final boolean notify) {
+    if (this.closed) {
+      return;
+    }
+    if (notify) {
+      final var notification = this.channel.alloc().ioBuffer(1);
+      notification.writeByte(RakNet.DISCONNECT_NOTIFICATION);
+      this.enqueue(notification, Reliability.RELIABLE_ORDERED);
+      this.flush(true);
+    }
+    this.closed = true;
+    this.connected = false;
+    if (this.updater != null) {
+      this.updater.cancel(false);
+    }
+    this.queue.forEach(frame -> frame.payload().release());
+    this.queue.clear();
+    this.unacked.values().forEach(sent -> sent.frames().forEach(frame -> frame.payload().release()));
+    this.unacked.clear();
+    this.held.values().forEach(ByteBuf::release);
+    this.held.clear();
+    this.splits.values().forEach(Split::release);
+    this.splits.clear();
+    this.listener.disconnected();
+  }
+
+  /**
+   * delivers the given message to the listener or answers it if it belongs to the session.
+   *
+   * @param message the message to deliver.
+   */
+  private void deliver(@NotNull final ByteBuf message) {
+    switch (message.getUnsignedByte(message.readerIndex())) {
+      case RakNet.GAME_PACKET -> {
+        if (this.connected) {
+          this.listener.message(message);
+        }
+      }
+      case RakNet.CONNECTED_PING -> {
+        final var pong = this.channel.alloc().ioBuffer(17);
+        pong.writeByte(RakNet.CONNECTED_PONG);
+        pong.writeLong(message.getLong(message.readerIndex() + 1));
+        pong.writeLong(this.time());
+        this.enqueue(pong, Reliability.UNRELIABLE);
+      }
+      case RakNet.CONNECTION_REQUEST -> {
+        if (!this.client && !this.connected) {
+          this.accept(message);
+        }
+      }
+      case RakNet.CONNECTION_REQUEST_ACCEPTED -> {
+        if (this.client && !this.connected) {
+          this.establish(message);
+        }
+      }
+      case RakNet.NEW_INCOMING_CONNECTION -> {
+        if (!this.client && !this.connected) {
+          this.connected = true;
+          this.listener.connected();
+        }
+      }
+      case RakNet.DISCONNECT_NOTIFICATION -> this.close(false);
+      default -> {
+      }
+    }
+  }
+
+  /**
+   * queues the given message as one or more frames.
+   *
+   * @param message the message to queue, it is released.
+   * @param requested the requested reliability.
+   */
+  private void enqueue(@NotNull final ByteBuf message, @NotNull final Reliability requested) {
+    try {
+      final var length = message.readableBytes();
+      if (this.closed || length == 0) {
+        return;
+      }
+      final var budget = this.mtu - RakNet.UDP_HEADER_SIZE - RakNetSession.DATAGRAM_HEADER_SIZE -
+        Frame.MAX_HEADER_SIZE;
+      final var split = length > budget;
+      final var reliability = split ? requested.asReliable() : requested;
+      final var order = reliability.arranged() ? this.orderIndex : 0;
+      if (reliability.ordered()) {
+        this.orderIndex = (order + 1) & RakNet.INDEX_MASK;
+      }
+      final var sequence = reliability.sequenced() ? this.sequenceIndex : 0;
+      if (reliability.sequenced()) {
+        this.sequenceIndex = (sequence + 1) & RakNet.INDEX_MASK;
+      }
+      if (!split) {
+        final var reliable = reliability.reliable() ? this.nextReliable() : 0;
+        this.queue.add(new Frame(reliability, reliable, sequence, order, 0, 0, 0, 0, message.retain()));
+        return;
+      }
+      final var count = (length + budget - 1) / budget;
+      final var id = this.splitId;
+      this.splitId = (id + 1) & 0xFFFF;
+      for (var index = 0; index < count; index++) {
+        final var offset = index * budget;
+        final var part = message.retainedSlice(message.readerIndex() + offset, Math.min(budget, length - offset));
+        this.queue.add(new Frame(reliability, this.nextReliable(), sequence, order, 0, count, id, index, part));
+      }
+    } finally {
+      message.release();
+    }
+  }
+
+  /**
+   * completes the connection handshake on the client side.
+   *
+   * @param accepted the accepted message of the server.
+   */
+  private void establish(@NotNull final ByteBuf accepted) {
+    final var time = accepted.getLong(accepted.writerIndex() - 8);
+    final var reply = this.channel.alloc().ioBuffer(192);
+    reply.writeByte(RakNet.NEW_INCOMING_CONNECTION);
+    RakNet.writeAddress(reply, this.address);
+    RakNetSession.writeSystemAddresses(reply);
+    reply.writeLong(time);
+    reply.writeLong(this.time());
+    this.enqueue(reply, Reliability.RELIABLE_ORDERED);
+    this.connected = true;
+    this.listener.connected();
+  }
+
+  /**
+   * checks if the given reliable index is received for the first time.
+   *
+   * @param index the index to check.
+   *
+   * @return {@code true} if the index is new.
+   */
+  private boolean firstReceipt(final int index) {
+    if (index == this.reliableStart) {
+      var next = (index + 1) & RakNet.INDEX_MASK;
+      while (this.reliables.remove(next)) {
+        next = (next + 1) & RakNet.INDEX_MASK;
+      }
+      this.reliableStart = next;
+      return true;
+    }
+    if (!RakNet.after(index, this.reliableStart)) {
+      return false;
+    }
+    if (((index - this.reliableStart) & RakNet.INDEX_MASK) > RakNetSession.MAX_RELIABLE_WINDOW) {
+      throw new CorruptedFrameException("Reliable index " + index + " is too far ahead");
+    }
+    return this.reliables.add(index);
+  }
+
+  /**
+   * packs the queued frames into datagrams and writes them while the congestion window allows.
+   *
+   * @param force whether the window is ignored.
+   */
+  private void flush(final boolean force) {
+    final var budget = this.mtu - RakNet.UDP_HEADER_SIZE - RakNetSession.DATAGRAM_HEADER_SIZE;
+    while (!this.queue.isEmpty() && (force || this.unacked.size() < (int) this.congestionWindow)) {
+      final var sequence = this.nextSequence;
+      this.nextSequence = (sequence + 1) & RakNet.INDEX_MASK;
+      final var datagram = this.channel.alloc().ioBuffer(budget + RakNetSession.DATAGRAM_HEADER_SIZE);
+      datagram.writeByte(RakNet.VALID | RakNet.NEEDS_B_AND_AS);
+      datagram.writeMediumLE(sequence);
+      ObjectArrayList<Frame> reliable = null;
+      var size = 0;
+      Frame frame;
+      while ((frame = this.queue.peekFirst()) != null && (size == 0 || size + frame.size() <= budget)) {
+        this.queue.pollFirst();
+        frame.write(datagram);
+        size += frame.size();
+        if (!frame.reliability().reliable()) {
+          frame.payload().release();
+          continue;
+        }
+        if (reliable == null) {
+          reliable = new ObjectArrayList<>();
+        }
+        reliable.add(frame);
+      }
+      if (reliable != null) {
+        this.unacked.put(sequence, new Sent(System.nanoTime(), reliable));
+      }
+      this.write(datagram);
+    }
+    if (this.unflushed) {
+      this.unflushed = false;
+      this.channel.flush();
+    }
+  }
+
+  /**
+   * handles the given frame.
+   *
+   * @param frame the frame to handle.
+   */
+  private void handle(@NotNull final Frame frame) {
+    if (frame.reliability().reliable() && !this.firstReceipt(frame.reliableIndex())) {
+      return;
+    }
+    if (frame.splitCount() == 0) {
+      this.arrange(frame, frame.payload());
+      return;
+    }
+    final var message = this.reassemble(frame);
+    if (message == null) {
+      return;
+    }
+    try {
+      this.arrange(frame, message);
+    } finally {
+      message.release();
+    }
+  }
+
+  /**
+   * obtains the next outbound reliable index.
+   *
+   * @return next reliable index.
+   */
+  private int nextReliable() {
+    final var index = this.nextReliable;
+    this.nextReliable = (index + 1) & RakNet.INDEX_MASK;
+    return index;
+  }
+
+  /**
+   * adds the given part to its split message.
+   *
+   * @param frame the frame of the part.
+   *
+   * @return the reassembled message which the caller has to release, {@code null} if parts are missing.
+   */
+  @Nullable
+  private ByteBuf reassemble(@NotNull final Frame frame) {
+    var split = this.splits.get(frame.splitId());
+    if (split == null) {
+      if (frame.splitCount() > RakNetSession.MAX_SPLIT_COUNT ||
+        this.splitParts + frame.splitCount() > RakNetSession.MAX_SPLIT_PARTS) {
+        throw new CorruptedFrameException("Too many split parts");
+      }
+      split = new Split(frame.splitCount());
+      this.splits.put(frame.splitId(), split);
+      this.splitParts += frame.splitCount();
+    } else if (split.parts.length != frame.splitCount()) {
+      throw new CorruptedFrameException("Inconsistent split count " + frame.splitCount());
+    }
+    if (split.parts[frame.splitIndex()] != null) {
+      return null;
+    }
+    split.parts[frame.splitIndex()] = frame.payload().retain();
+    split.bytes += frame.payload().readableBytes();
+    split.received++;
+    if (split.received < split.parts.length) {
+      return null;
+    }
+    this.splits.remove(frame.splitId());
+    this.splitParts -= split.parts.length;
+    final var message = this.channel.alloc().ioBuffer(split.bytes);
+    for (final var part : split.parts) {
+      message.writeBytes(part);
+    }
+    split.release();
+    return message;
+  }
+
+  /**
+   * queues the frames of the given lost datagram again.
+   *
+   * @param sequence the sequence of the datagram.
+   */
+  private void retransmit(final int sequence) {
+    final var sent = this.unacked.remove(sequence);
+    if (sent == null) {
+      return;
+    }
+    this.requeue(sent);
+    final var now = this.lastReceive;
+    final var interval = Math.max(this.smoothedRtt, TimeUnit.MILLISECONDS.toNanos(RakNetSession.UPDATE_INTERVAL));
+    if (now - this.lastReduction > interval) {
+      this.lastReduction = now;
+      this.slowStartThreshold = Math.max(RakNetSession.MIN_WINDOW, this.congestionWindow / 2.0D);
+      this.congestionWindow = this.slowStartThreshold;
+    }
+  }
+
+  /**
+   * queues the frames of the given datagram ahead of the new ones.
+   *
+   * @param sent the datagram to queue.
+   */
+  private void requeue(@NotNull final Sent sent) {
+    final var frames = sent.frames();
+    for (var index = frames.size() - 1; index >= 0; index--) {
+      this.queue.addFirst(frames.get(index));
+    }
+    this.resent.add(frames.size());
+  }
+
+  /**
+   * sends the pending acknowledgements.
+   * <p>
+   * scheduled when the first datagram is tracked, so it runs once the event loop has read the pending datagrams and
+   * the peer can grow its congestion window without waiting for the next update.
+   */
+  private void sendAcks() {
+    if (this.closed || this.acks.isEmpty()) {
+      return;
+    }
+    this.sendRanges(RakNet.ACK, this.acks);
+    this.flush(false);
+  }
+
+  /**
+   * sends the given datagram sequences as acknowledgement records.
+   *
+   * @param flag the flag of the acknowledgement.
+   * @param sequences the sequences to send, they are cleared.
+   */
+  private void sendRanges(final int flag, @NotNull final IntRBTreeSet sequences) {
+    final var limit = (this.mtu - RakNet.UDP_HEADER_SIZE - 3) / RakNetSession.RECORD_SIZE;
+    final var iterator = sequences.iterator();
+    var start = iterator.nextInt();
+    var end = start;
+    ByteBuf buffer = null;
+    var records = 0;
+    while (true) {
+      final var more = iterator.hasNext();
+      final var next = more ? iterator.nextInt() : 0;
+      if (more && next == end + 1) {
+        end = next;
+        continue;
+      }
+      if (buffer == null) {
+        buffer = this.channel.alloc().ioBuffer(3 + limit * RakNetSession.RECORD_SIZE);
+        buffer.writeByte(RakNet.VALID | flag);
+        buffer.writeShort(0);
+        records = 0;
+      }
+      buffer.writeBoolean(start == end);
+      buffer.writeMediumLE(start);
+      if (start != end) {
+        buffer.writeMediumLE(end);
+      }
+      records++;
+      if (records == limit || !more) {
+        buffer.setShort(1, records);
+        this.write(buffer);
+        buffer = null;
+      }
+      if (!more) {
+        break;
+      }
+      start = next;
+      end = next;
+    }
+    sequences.clear();
+  }
+
+  /**
+   * obtains the time since the session started in milliseconds.
+   *
+   * @return session time.
+   */
+  private long time() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.started);
+  }
+
+  /**
+   * records the given inbound datagram sequence to acknowledge it and to report the gap before it.
+   *
+   * @param sequence the sequence to record.
+   */
+  private void track(final int sequence) {
+    if (this.acks.isEmpty()) {
+      this.channel.eventLoop().execute(this::sendAcks);
+    }
+    this.acks.add(sequence);
+    if (this.acks.size() >= RakNetSession.MAX_ACK_ENTRIES) {
+      this.sendRanges(RakNet.ACK, this.acks);
+    }
+    if (sequence == this.expectedSequence) {
+      this.expectedSequence = (sequence + 1) & RakNet.INDEX_MASK;
+      return;
+    }
+    if (!RakNet.after(sequence, this.expectedSequence)) {
+      this.nacks.remove(sequence);
+      return;
+    }
+    for (var missing = this.expectedSequence; missing != sequence && this.nacks.size() < RakNetSession.MAX_NACKS;
+         missing = (missing + 1) & RakNet.INDEX_MASK) {
+      this.nacks.add(missing);
+    }
+    this.expectedSequence = (sequence + 1) & RakNet.INDEX_MASK;
+  }
+
+  /**
+   * sends the acknowledgements, resends the expired datagrams and keeps the session alive.
+   * <p>
+   * called by the event loop every {@value #UPDATE_INTERVAL} milliseconds.
+   */
+  private void update() {
+    if (this.closed) {
+      return;
+    }
+    final var now = System.nanoTime();
+    if (now - this.lastReceive > RakNetSession.TIMEOUT) {
+      RakNetSession.log.debug("Closing the session of {} because it timed out", this.address);
+      this.close(false);
+      return;
+    }
+    if (!this.acks.isEmpty()) {
+      this.sendRanges(RakNet.ACK, this.acks);
+    }
+    if (!this.nacks.isEmpty()) {
+      this.sendRanges(RakNet.NACK, this.nacks);
+    }
+    if (!this.unacked.isEmpty()) {
+      var expired = false;
+      final var iterator = this.unacked.int2ObjectEntrySet().fastIterator();
+      while (iterator.hasNext()) {
+        final var sent = iterator.next().getValue();
+        if (now - sent.time() >= this.rto) {
+          iterator.remove();
+          this.requeue(sent);
+          expired = true;
+        }
+      }
+      if (expired) {
+        this.rto = Math.min(RakNetSession.MAX_RTO, this.rto * 2L);
+        this.slowStartThreshold = Math.max(RakNetSession.MIN_WINDOW, this.congestionWindow / 2.0D);
+        this.congestionWindow = RakNetSession.MIN_WINDOW;
+        this.lastReduction = now;
+      }
+    }
+    if (this.connected && now - this.lastSend >= RakNetSession.KEEP_ALIVE) {
+      final var ping = this.channel.alloc().ioBuffer(9);
+      ping.writeByte(RakNet.CONNECTED_PING);
+      ping.writeLong(this.time());
+      this.enqueue(ping, Reliability.UNRELIABLE);
+    }
+    this.flush(false);
+  }
+
+  /**
+   * writes the given datagram to the peer, the channel is flushed by {@link #flush(boolean)}.
+   *
+   * @param datagram the datagram to write.
+   */
+  private void write(@NotNull final ByteBuf datagram) {
+    this.lastSend = System.nanoTime();
+    this.unflushed = true;
+    this.channel.write(new DatagramPacket(datagram, this.address), this.channel.voidPromise());
+  }
+
+  /**
+   * a record class that represents datagrams which wait for their acknowledgement.
+   *
+   * @param time the send time in nanoseconds.
+   * @param frames the reliable frames of the datagram.
+   */
+  private record Sent(
+    long time,
+    @NotNull ObjectArrayList<Frame> frames
+  ) {
+
+  }
+
+  /**
+   * a class that represents split messages which are reassembled.
+   */
+  private static final class Split {
+
+    /**
+     * the parts.
+     */
+    private final ByteBuf[] parts;
+
+    /**
+     * the received bytes.
+     */
+    private int bytes;
+
+    /**
+     * the received parts.
+     */
+    private int received;
+
+    /**
+     * ctor.
+     *
+     * @param count the part count.
+     */
+    private Split(final int count) {
+      this.parts = new ByteBuf[count];
+    }
+
+    /**
+     * releases the received parts.
+     */
+    private void release() {
+      for (final var part : this.parts) {
+        if (part != null) {
+          part.release();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an enum class that contains the delivery guarantees of RakNet frames.
+ */
+public enum Reliability {
+  /**
+   * sent once, may be lost, duplicated or reordered.
+   */
+  UNRELIABLE(false, false, false),
+  /**
+   * sent once, the older frames of the channel are dropped.
+   */
+  UNRELIABLE_SEQUENCED(false, false, true),
+  /**
+   * resent until acknowledged, may be reordered.
+   */
+  RELIABLE(true, false, false),
+  /**
+   * resent until acknowledged and delivered in order within the channel.
+   */
+  RELIABLE_ORDERED(true, true, false),
+  /**
+   * resent until acknowledged, the older frames of the channel are dropped.
+   */
+  RELIABLE_SEQUENCED(true, false, true);
+
+  /**
+   * the values by id.
+   */
+  private static final Reliability[] VALUES = Reliability.values();
+
+  /**
+   * the ordered.
+   */
+  private final boolean ordered;
+
+  /**
+   * the reliable.
+   */
+  private final boolean reliable;
+
+  /**
+   * the sequenced.
+   */
+  private final boolean sequenced;
+
+  /**
+   * ctor.
+   *
+   * @param reliable the reliable.
+   * @param ordered the ordered.
+   * @param sequenced the sequenced.
+   */
+  Reliability(final boolean reliable, final boolean ordered, final boolean sequenced) {
+    this.reliable = reliable;
+    this.ordered = ordered;
+    this.sequenced = sequenced;
+  }
+
+  /**
+   * obtains the reliability of the given id.
+   * <p>
+   * the ack receipt variants, which servers never request, are treated as their plain variants.
+   *
+   * @param id the id to get.
+   *
+   * @return reliability.
+   */
+  @NotNull
+  static Reliability of(final int id) {
+    return switch (id) {
+      case 5 -> Reliability.UNRELIABLE;
+      case 6 -> Reliability.RELIABLE;
+      case 7 -> Reliability.RELIABLE_ORDERED;
+      default -> Reliability.VALUES[id];
+    };
+  }
+
+  /**
+   * checks if the frames have an order index.
+   *
+   * @return {@code true} if the frames are ordered or sequenced.
+   */
+  boolean arranged() {
+    return this.ordered || this.sequenced;
+  }
+
+  /**
+   * obtains the reliable variant of the reliability, which the parts of the split messages need.
+   *
+   * @return reliable variant.
+   */
+  @NotNull
+  Reliability asReliable() {
+    return switch (this) {
+      case UNRELIABLE -> Reliability.RELIABLE;
+      case UNRELIABLE_SEQUENCED -> Reliability.RELIABLE_SEQUENCED;
+      default -> this;
+    };
+  }
+
+  /**
+   * checks if the frames are delivered in order.
+   *
+   * @return {@code true} if the frames are ordered.
+   */
+  boolean ordered() {
+    return this.ordered;
+  }
+
+  /**
+   * checks if the frames are resent until acknowledged.
+   *
+   * @return {@code true} if the frames are reliable.
+   */
+  boolean reliable() {
+    return this.reliable;
+  }
+
+  /**
+   * checks if the older frames are dropped.
+   *
+   * @return {@code true} if the frames are sequenced.
+   */
+  boolean sequenced() {
+    return this.sequenced;
+  }
+}
@@ -0,0 +1,32 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import io.netty.buffer.ByteBuf;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an interface to determine listeners of RakNet sessions.
+ * <p>
+ * listeners are called by the event loop of the session's channel.
+ */
+public interface SessionListener {
+
+  /**
+   * called when the connection handshake of the session is completed.
+   */
+  default void connected() {
+  }
+
+  /**
+   * called once when the session is closed, either side may have closed it.
+   */
+  default void disconnected() {
+  }
+
+  /**
+   * handles the given game message, which is delivered exactly once and in order.
+   *
+   * @param message the message whose reader index points to the message id, it is released after the listener
+   *   returns.
+   */
+  void message(@NotNull ByteBuf message);
+}
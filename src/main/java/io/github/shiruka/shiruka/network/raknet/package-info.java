@@ -0,0 +1,8 @@
+/**
+ * the package that contains RakNet session classes.
+ * <p>
+ * the server carries its own RakNet implementation instead of a RakNet library, the sessions are driven by the
+ * datagrams of {@link io.github.shiruka.shiruka.network.NetworkListener}'s sharded channels on their event loops, so
+ * the inbound limits, the batch compression and the metrics see every connection without a second event loop.
+ */
+package io.github.shiruka.shiruka.network.raknet;
@@ -0,0 +1,100 @@
+package io.github.shiruka.shiruka.profiler;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents call trees which merge stack samples by method.
+ * <p>
+ * only accessed by the profiler thread.
+ */
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+final class CallTree {
+
+  /**
+   * the maximum depth which is printed.
+   */
+  private static final int MAX_DEPTH = 96;
+
+  /**
+   * the children.
+   */
+  private final Map<String, CallTree> children = new HashMap<>();
+
+  /**
+   * the frame.
+   */
+  @NotNull
+  @Getter
+  private final String frame;
+
+  /**
+   * the samples which the frame is on the stack.
+   */
+  @Getter
+  private long samples;
+
+  /**
+   * the samples which the frame is on the top of the stack.
+   */
+  private long self;
+
+  /**
+   * adds the given stack which is ordered from the top frame to the bottom one.
+   *
+   * @param stack the stack to add.
+   */
+  void add(@NotNull final StackTraceElement[] stack) {
+    this.samples++;
+    var node = this;
+    for (var index = stack.length - 1; index >= 0; index--) {
+      final var element = stack[index];
+      node = node.children.computeIfAbsent(element.getClassName() + '.' + element.getMethodName(), CallTree::new);
+      node.samples++;
+    }
+    node.self++;
+  }
+
+  /**
+   * prints the tree.
+   *
+   * @param lines the lines to print.
+   * @param total the total samples to calculate percentages.
+   * @param minimum the minimum share of a node to print, from 0 to 1.
+   */
+  void print(@NotNull final List<String> lines, final long total, final double minimum) {
+    this.print(lines, total, minimum, 0);
+  }
+
+  /**
+   * prints the children of the node.
+   *
+   * @param lines the lines to print.
+   * @param total the total samples to calculate percentages.
+   * @param minimum the minimum share of a node to print.
+   * @param depth the depth of the children.
+   */
+  private void print(@NotNull final List<String> lines, final long total, final double minimum, final int depth) {
+    if (depth >= CallTree.MAX_DEPTH) {
+      return;
+    }
+    final var sorted = new ArrayList<>(this.children.values());
+    sorted.sort(Comparator.comparingLong(CallTree::samples).reversed());
+    for (final var child : sorted) {
+      if (child.samples < total * minimum) {
+        break;
+      }
+      lines.add("%s%6.2f%% %6.2f%% %s".formatted("  ".repeat(depth), child.samples * 100.0D / total,
+        child.self * 100.0D / total, child.frame));
+      child.print(lines, total, minimum, depth + 1);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package io.github.shiruka.shiruka.profiler;
+
+/**
+ * an enum class that contains the thread groups which the sampling profiler can sample.
+ */
+public enum ProfilerTarget {
+  /**
+   * the main thread.
+   */
+  MAIN,
+  /**
+   * the async scheduler's worker threads.
+   */
+  ASYNC,
+  /**
+   * both the main thread and the async scheduler's worker threads.
+   */
+  ALL
+}
@@ -0,0 +1,422 @@
+package io.github.shiruka.shiruka.profiler;
+
+import io.github.shiruka.api.plugin.Plugin;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents sampling profilers which run inside the server.
+ * <p>
+ * the stacks of the target threads are sampled with {@link ThreadMXBean} on a dedicated daemon thread, merged into a
+ * call tree and every sample is attributed to the innermost plugin frame. plugins are recognized by the class
+ * loaders of every plugin which the plugin manager has loaded, so listeners and plugin threads are attributed as
+ * well as scheduled tasks.
+ */
+@Log4j2
+public final class SamplingProfiler {
+
+  /**
+   * the prefix of the async scheduler's worker threads.
+   */
+  private static final String ASYNC_THREAD_PREFIX = "Shiru ka Scheduler Thread";
+
+  /**
+   * the date format of the report files.
+   */
+  private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+  /**
+   * the frame of idle pool threads.
+   */
+  private static final String IDLE_FRAME = "java.util.concurrent.ThreadPoolExecutor";
+
+  /**
+   * the minimum share of the printed call tree nodes.
+   */
+  private static final double MINIMUM_SHARE = 0.005D;
+
+  /**
+   * the name of the samples which are not attributed to a plugin.
+   */
+  private static final String SERVER = "(server)";
+
+  /**
+   * the maximum sampled stack depth.
+   */
+  private static final int STACK_DEPTH = 256;
+
+  /**
+   * the thread id refresh interval in nanoseconds.
+   */
+  private static final long THREAD_REFRESH = TimeUnit.SECONDS.toNanos(1L);
+
+  /**
+   * the reports path.
+   */
+  @NotNull
+  private final Path reportsPath;
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the thread bean.
+   */
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  /**
+   * the running session.
+   */
+  @Nullable
+  private volatile Session session;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param reportsPath the reports path.
+   */
+  public SamplingProfiler(@NotNull final ShirukaServer server, @NotNull final Path reportsPath) {
+    this.server = server;
+    this.reportsPath = reportsPath;
+  }
+
+  /**
+   * checks if the profiler is running.
+   *
+   * @return {@code true} if the profiler is running.
+   */
+  public boolean running() {
+    return this.session != null;
+  }
+
+  /**
+   * starts sampling the given target.
+   *
+   * @param target the target to sample.
+   * @param interval the sample interval in milliseconds.
+   *
+   * @return {@code false} if the profiler is already running.
+   */
+  public synchronized boolean start(@NotNull final ProfilerTarget target, final long interval) {
+    if (this.session != null) {
+      return false;
+    }
+    final var session = new Session(target, TimeUnit.MILLISECONDS.toNanos(Math.max(1L, interval)));
+    final var thread = new Thread(session, "Shiru ka Profiler Thread");
+    thread.setDaemon(true);
+    session.thread = thread;
+    this.session = session;
+    thread.start();
+    return true;
+  }
+
+  /**
+   * stops sampling and writes the report.
+   *
+   * @return summary lines of the report, {@code null} if the profiler is not running.
+   */
+  @Nullable
+  public synchronized List<String> stop() {
+    final var session = this.session;
+    if (session == null) {
+      return null;
+    }
+    this.session = null;
+    session.stop();
+    final var lines = session.report();
+    final var file = this.reportsPath.resolve("profile-%s.txt".formatted(
+      LocalDateTime.now().format(SamplingProfiler.FILE_DATE)));
+    try {
+      Files.createDirectories(this.reportsPath);
+      Files.write(file, lines);
+    } catch (final IOException e) {
+      SamplingProfiler.log.error("Could not write the profiler report to {}:", file, e);
+      return lines;
+    }
+    final var summary = new ArrayList<>(lines.subList(0, Math.min(lines.size(), session.summaryLines())));
+    summary.add("The full report is written to " + file);
+    return summary;
+  }
+
+  /**
+   * a class that represents profiling sessions.
+   */
+  private final class Session implements Runnable {
+
+    /**
+     * the owners of the sampled classes, an empty string means no plugin.
+     */
+    private final Map<String, String> owners = new HashMap<>();
+
+    /**
+     * the samples by plugin.
+     */
+    private final Map<String, Long> plugins = new HashMap<>();
+
+    /**
+     * the trees by thread group.
+     */
+    private final Map<String, CallTree> trees = new HashMap<>();
+
+    /**
+     * the interval in nanoseconds.
+     */
+    private final long interval;
+
+    /**
+     * the target.
+     */
+    @NotNull
+    private final ProfilerTarget target;
+
+    /**
+     * the containers which are checked for ownership.
+     */
+    private Set<Plugin.Container> containers = Set.of();
+
+    /**
+     * the end time in nanoseconds.
+     */
+    private volatile long end;
+
+    /**
+     * the ids of the sampled threads.
+     */
+    private long[] ids = new long[0];
+
+    /**
+     * the last refresh of the thread ids.
+     */
+    private long lastRefresh;
+
+    /**
+     * the samples.
+     */
+    private long samples;
+
+    /**
+     * the start time in nanoseconds.
+     */
+    private long start;
+
+    /**
+     * the stopped.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * the thread.
+     */
+    @Nullable
+    private Thread thread;
+
+    /**
+     * ctor.
+     *
+     * @param target the target.
+     * @param interval the interval in nanoseconds.
+     */
+    private Session(@NotNull final ProfilerTarget target, final long interval) {
+      this.target = target;
+      this.interval = interval;
+    }
+
+    @Override
+    public void run() {
+      this.start = System.nanoTime();
+      var next = this.start;
+      while (!this.stopped) {
+        try {
+          this.sample();
+        } catch (final Exception e) {
+          SamplingProfiler.log.error("The profiler could not take a sample:", e);
+        }
+        next += this.interval;
+        final var remaining = next - System.nanoTime();
+        if (remaining > 0L) {
+          try {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+          } catch (final InterruptedException e) {
+            break;
+          }
+        } else {
+          next = System.nanoTime();
+        }
+      }
+      this.end = System.nanoTime();
+    }
+
+    /**
+     * creates the report.
+     *
+     * @return report lines.
+     */
+    @NotNull
+    private List<String> report() {
+      final var lines = new ArrayList<String>();
+      final var duration = (this.end - this.start) / (double) TimeUnit.SECONDS.toNanos(1L);
+      lines.add("Profile of %s thread(s): %d samples over %.1f s with %d ms interval".formatted(
+        this.target.name().toLowerCase(Locale.ROOT), this.samples, duration,
+        TimeUnit.NANOSECONDS.toMillis(this.interval)));
+      final var total = Math.max(1L, this.trees.values().stream().mapToLong(CallTree::samples).sum());
+      lines.add("Samples by plugin (attributed to the innermost plugin frame):");
+      this.plugins.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+        .forEach(entry -> lines.add("  %6.2f%% %s (%d)".formatted(entry.getValue() * 100.0D / total,
+          entry.getKey(), entry.getValue())));
+      lines.add("");
+      lines.add("Call tree (total%, self%, frame):");
+      this.trees.forEach((group, tree) -> {
+        lines.add("[%s] %d samples".formatted(group, tree.samples()));
+        tree.print(lines, total, SamplingProfiler.MINIMUM_SHARE);
+      });
+      return lines;
+    }
+
+    /**
+     * obtains the owner of the given class.
+     *
+     * @param className the class name to get.
+     *
+     * @return name of the plugin which owns the class, empty if the class is not owned by a plugin.
+     */
+    @NotNull
+    private String owner(@NotNull final String className) {
+      return this.owners.computeIfAbsent(className, key -> {
+        for (final var container : this.containers) {
+          final var loader = container.plugin().getClass().getClassLoader();
+          if (loader == null || loader == SamplingProfiler.class.getClassLoader()) {
+            continue;
+          }
+          try {
+            if (Class.forName(key, false, loader).getClassLoader() == loader) {
+              return container.description().name();
+            }
+          } catch (final ClassNotFoundException | LinkageError ignored) {
+          }
+        }
+        return "";
+      });
+    }
+
+    /**
+     * refreshes the ids of the sampled threads.
+     */
+    private void refresh() {
+      final var now = System.nanoTime();
+      if (this.lastRefresh != 0L && now - this.lastRefresh < SamplingProfiler.THREAD_REFRESH) {
+        return;
+      }
+      this.lastRefresh = now;
+      final var ids = new ArrayList<Long>();
+      final var mainThread = SamplingProfiler.this.server.mainThread();
+      if (this.target != ProfilerTarget.ASYNC && mainThread != null) {
+        ids.add(mainThread.getId());
+      }
+      if (this.target != ProfilerTarget.MAIN) {
+        for (final var info : SamplingProfiler.this.threads.getThreadInfo(
+          SamplingProfiler.this.threads.getAllThreadIds(), 0)) {
+          if (info != null && info.getThreadName().startsWith(SamplingProfiler.ASYNC_THREAD_PREFIX)) {
+            ids.add(info.getThreadId());
+          }
+        }
+      }
+      this.ids = ids.stream().mapToLong(Long::longValue).toArray();
+      final var containers = Set.copyOf(SamplingProfiler.this.server.pluginManager().getPlugins());
+      if (!containers.equals(this.containers)) {
+        this.containers = containers;
+        this.owners.values().removeIf(String::isEmpty);
+      }
+    }
+
+    /**
+     * takes a sample.
+     */
+    private void sample() {
+      this.refresh();
+      if (this.ids.length == 0) {
+        return;
+      }
+      final var mainThread = SamplingProfiler.this.server.mainThread();
+      final var mainId = mainThread == null ? -1L : mainThread.getId();
+      this.samples++;
+      for (final var info : SamplingProfiler.this.threads.getThreadInfo(this.ids, SamplingProfiler.STACK_DEPTH)) {
+        if (info == null || this.idle(info)) {
+          continue;
+        }
+        final var stack = info.getStackTrace();
+        final var group = info.getThreadId() == mainId ? "main" : "async";
+        this.trees.computeIfAbsent(group, CallTree::new).add(stack);
+        var plugin = SamplingProfiler.SERVER;
+        for (final var element : stack) {
+          final var owner = this.owner(element.getClassName());
+          if (!owner.isEmpty()) {
+            plugin = owner;
+            break;
+          }
+        }
+        this.plugins.merge(plugin, 1L, Long::sum);
+      }
+    }
+
+    /**
+     * checks if the given thread is an idle pool worker.
+     *
+     * @param info the info to check.
+     *
+     * @return {@code true} if the thread waits for a task.
+     */
+    private boolean idle(@NotNull final ThreadInfo info) {
+      return info.getThreadState() != Thread.State.RUNNABLE && Arrays.stream(info.getStackTrace())
+        .anyMatch(element -> element.getClassName().equals(SamplingProfiler.IDLE_FRAME)
+          && element.getMethodName().equals("getTask"));
+    }
+
+    /**
+     * stops the session and waits for the profiler thread.
+     */
+    private void stop() {
+      this.stopped = true;
+      final var thread = this.thread;
+      if (thread == null) {
+        return;
+      }
+      try {
+        thread.join(TimeUnit.SECONDS.toMillis(5L));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    /**
+     * obtains the count of the summary lines of the report.
+     *
+     * @return summary line count.
+     */
+    private int summaryLines() {
+      return this.plugins.size() + 2;
+    }
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains sampling profiler classes.
+ */
+package io.github.shiruka.shiruka.profiler;
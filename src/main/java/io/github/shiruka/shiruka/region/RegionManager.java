@@ -0,0 +1,370 @@
+package io.github.shiruka.shiruka.region;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.shiruka.api.scheduler.ScheduledTask;
+import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.scheduler.DrainPolicy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that ticks independent parts of the worlds in parallel.
+ * <p>
+ * the worlds are split into sections of {@code 1 << sectionShift} chunks, each with its own scheduler and message
+ * queue. sections which are within {@code mergeRadius} sections of each other are merged into one region, and the
+ * regions are ticked in parallel by the region threads while the main thread waits. a section is only ever ticked
+ * by one thread at a time, so the tasks of a section may touch its chunks without locking, and talk to other
+ * sections only through {@link #send(String, int, int, Runnable)}.
+ */
+@Log4j2
+public final class RegionManager {
+
+  /**
+   * the ticks which an idle section waits before it is removed.
+   */
+  private static final int IDLE_TICKS = 600;
+
+  /**
+   * the interval of the idle section checks in ticks.
+   */
+  private static final int RETIRE_INTERVAL = 100;
+
+  /**
+   * the actors.
+   */
+  private final Map<Object, SectionPos> actors = new ConcurrentHashMap<>();
+
+  /**
+   * the executor.
+   */
+  @NotNull
+  private final ExecutorService executor;
+
+  /**
+   * the merge radius in sections.
+   */
+  private final int mergeRadius;
+
+  /**
+   * the section shift.
+   */
+  private final int sectionShift;
+
+  /**
+   * the sections.
+   */
+  private final Map<SectionPos, RegionSection> sections = new ConcurrentHashMap<>();
+
+  /**
+   * the current tick.
+   */
+  private volatile int currentTick;
+
+  /**
+   * the dirty, {@code true} when the regions have to be regrouped.
+   */
+  private volatile boolean dirty;
+
+  /**
+   * the regions, only accessed by the main thread.
+   */
+  @NotNull
+  private List<TickRegion> regions = List.of();
+
+  /**
+   * ctor.
+   *
+   * @param threads the threads, 0 means the number of available processors.
+   * @param sectionShift the section shift, the sections are {@code 1 << sectionShift} chunks wide.
+   * @param mergeRadius the merge radius in sections.
+   */
+  public RegionManager(final int threads, final int sectionShift, final int mergeRadius) {
+    Preconditions.checkArgument(sectionShift >= 0 && sectionShift < 16, "sectionShift");
+    Preconditions.checkArgument(mergeRadius >= 0, "mergeRadius");
+    this.sectionShift = sectionShift;
+    this.mergeRadius = mergeRadius;
+    this.executor = Executors.newFixedThreadPool(threads > 0
+      ? threads
+      : Runtime.getRuntime().availableProcessors(), new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Region Thread - %1$d")
+      .setDaemon(true)
+      .build());
+  }
+
+  /**
+   * waits for the region threads to drain the sections after a {@link #shutdown(DrainPolicy)}.
+   *
+   * @param timeout the timeout to wait.
+   * @param unit the unit of the timeout.
+   *
+   * @return {@code true} if every section is drained in time.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting.
+   */
+  public boolean awaitTermination(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+    return this.executor.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * schedules the given task on the section which owns the given chunk.
+   * <p>
+   * the task runs on a region thread together with the other tasks of the nearby sections, never on the main thread.
+   *
+   * @param world the world of the chunk.
+   * @param chunkX the chunk x.
+   * @param chunkZ the chunk z.
+   * @param task the task to schedule.
+   *
+   * @return scheduled task.
+   */
+  @NotNull
+  public ScheduledTask execute(@NotNull final String world, final int chunkX, final int chunkZ,
+                               @NotNull final Task task) {
+    final var pos = SectionPos.ofChunk(world, chunkX, chunkZ, this.sectionShift);
+    while (true) {
+      final var scheduled = this.section(pos).execute(task, this.currentTick);
+      if (scheduled != null) {
+        return scheduled;
+      }
+    }
+  }
+
+  /**
+   * obtains the region count.
+   *
+   * @return region count.
+   */
+  public int regions() {
+    return this.regions.size();
+  }
+
+  /**
+   * obtains the section count.
+   *
+   * @return section count.
+   */
+  public int sections() {
+    return this.sections.size();
+  }
+
+  /**
+   * sends the given message to the section which owns the given chunk.
+   * <p>
+   * the message runs on the owner's region thread at the start of its next tick, this is the only safe way to touch
+   * the state of another section.
+   *
+   * @param world the world of the chunk.
+   * @param chunkX the chunk x.
+   * @param chunkZ the chunk z.
+   * @param message the message to send.
+   */
+  public void send(@NotNull final String world, final int chunkX, final int chunkZ,
+                   @NotNull final Runnable message) {
+    final var pos = SectionPos.ofChunk(world, chunkX, chunkZ, this.sectionShift);
+    while (!this.section(pos).send(message, this.currentTick)) {
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * stops the region threads after they drain the sections by the given policy.
+   * <p>
+   * called by the main thread after the last tick. every region drains its sections on a region thread, so the tasks
+   * of a section still never run in parallel. the calling thread does not wait, use
+   * {@link #awaitTermination(long, TimeUnit)} to wait for the drained tasks.
+   *
+   * @param policy the policy to drain.
+   */
+  public void shutdown(@NotNull final DrainPolicy policy) {
+    if (this.dirty) {
+      this.dirty = false;
+      this.regroup();
+    }
+    for (final var region : this.regions) {
+      this.executor.execute(() -> region.drain(policy));
+    }
+    this.executor.shutdown();
+  }
+
+  /**
+   * interrupts the region threads which are still draining.
+   */
+  public void shutdownNow() {
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * ticks the regions in parallel and waits for all of them.
+   * <p>
+   * called by the main thread once per tick.
+   *
+   * @param tick the tick to run.
+   */
+  public void tick(final int tick) {
+    this.currentTick = tick;
+    if (tick % RegionManager.RETIRE_INTERVAL == 0) {
+      this.retireIdle(tick);
+    }
+    if (this.dirty) {
+      this.dirty = false;
+      this.regroup();
+    }
+    final var regions = this.regions;
+    if (regions.isEmpty()) {
+      return;
+    }
+    final var calls = new ArrayList<Callable<Void>>(regions.size());
+    for (final var region : regions) {
+      calls.add(() -> {
+        region.tick(tick);
+        return null;
+      });
+    }
+    try {
+      for (final var future : this.executor.invokeAll(calls)) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          RegionManager.log.error("An exception occurred while ticking a region:", e.getCause());
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * tracks the given actor, such as a player or an entity, in the section which owns the given chunk.
+   * <p>
+   * sections which have actors are never removed, and calling this again moves the actor.
+   *
+   * @param actor the actor to track.
+   * @param world the world of the chunk.
+   * @param chunkX the chunk x.
+   * @param chunkZ the chunk z.
+   */
+  public void track(@NotNull final Object actor, @NotNull final String world, final int chunkX, final int chunkZ) {
+    final var pos = SectionPos.ofChunk(world, chunkX, chunkZ, this.sectionShift);
+    if (!pos.equals(this.actors.put(actor, pos))) {
+      this.dirty = true;
+    }
+  }
+
+  /**
+   * stops tracking the given actor.
+   *
+   * @param actor the actor to untrack.
+   */
+  public void untrack(@NotNull final Object actor) {
+    if (this.actors.remove(actor) != null) {
+      this.dirty = true;
+    }
+  }
+
+  /**
+   * finds the root of the given index and compresses the path.
+   *
+   * @param parents the parents.
+   * @param index the index to find.
+   *
+   * @return root index.
+   */
+  private static int find(final int[] parents, final int index) {
+    var root = index;
+    while (parents[root] != root) {
+      root = parents[root];
+    }
+    var current = index;
+    while (parents[current] != root) {
+      final var next = parents[current];
+      parents[current] = root;
+      current = next;
+    }
+    return root;
+  }
+
+  /**
+   * groups the sections into regions by merging the sections which are within the merge radius of each other.
+   */
+  private void regroup() {
+    for (final var pos : Set.copyOf(this.actors.values())) {
+      this.section(pos);
+    }
+    final var sections = new ArrayList<>(this.sections.values());
+    final var indexes = new HashMap<SectionPos, Integer>(sections.size() * 2);
+    final var parents = new int[sections.size()];
+    for (var index = 0; index < parents.length; index++) {
+      indexes.put(sections.get(index).pos(), index);
+      parents[index] = index;
+    }
+    final var radius = this.mergeRadius;
+    for (var index = 0; index < parents.length; index++) {
+      final var pos = sections.get(index).pos();
+      for (var x = -radius; x <= radius; x++) {
+        for (var z = -radius; z <= radius; z++) {
+          final var neighbour = indexes.get(new SectionPos(pos.world(), pos.x() + x, pos.z() + z));
+          if (neighbour != null) {
+            parents[RegionManager.find(parents, neighbour)] = RegionManager.find(parents, index);
+          }
+        }
+      }
+    }
+    final var groups = new HashMap<Integer, List<RegionSection>>();
+    for (var index = 0; index < parents.length; index++) {
+      groups.computeIfAbsent(RegionManager.find(parents, index), key -> new ArrayList<>())
+        .add(sections.get(index));
+    }
+    final var regions = new ArrayList<TickRegion>(groups.size());
+    for (final var group : groups.values()) {
+      regions.add(new TickRegion(group));
+    }
+    this.regions = regions;
+  }
+
+  /**
+   * removes the sections which have had nothing to do for a while.
+   *
+   * @param tick the current tick.
+   */
+  private void retireIdle(final int tick) {
+    final var occupied = Set.copyOf(this.actors.values());
+    for (final var section : this.sections.values()) {
+      if (tick - section.lastUsed() >= RegionManager.IDLE_TICKS && !occupied.contains(section.pos())
+        && section.retire()) {
+        this.sections.remove(section.pos(), section);
+        this.dirty = true;
+      }
+    }
+  }
+
+  /**
+   * obtains or creates the section of the given position.
+   *
+   * @param pos the position to get.
+   *
+   * @return section.
+   */
+  @NotNull
+  private RegionSection section(@NotNull final SectionPos pos) {
+    final var section = this.sections.get(pos);
+    if (section != null) {
+      return section;
+    }
+    return this.sections.computeIfAbsent(pos, key -> {
+      this.dirty = true;
+      return new RegionSection(key, this.currentTick);
+    });
+  }
+}
@@ -0,0 +1,159 @@
+package io.github.shiruka.shiruka.region;
+
+import io.github.shiruka.api.scheduler.ScheduledTask;
+import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.scheduler.DrainPolicy;
+import io.github.shiruka.shiruka.scheduler.SyncScheduler;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents sections which own the tasks and messages of a square group of chunks.
+ * <p>
+ * a section is ticked by exactly one region thread at a time, so its tasks never run in parallel with each other.
+ */
+@Log4j2
+@Accessors(fluent = true)
+final class RegionSection {
+
+  /**
+   * the messages.
+   */
+  private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+
+  /**
+   * the position.
+   */
+  @NotNull
+  @Getter
+  private final SectionPos pos;
+
+  /**
+   * the scheduler.
+   */
+  @NotNull
+  @Getter
+  private final SyncScheduler scheduler = new SyncScheduler();
+
+  /**
+   * the last tick which the section is used.
+   */
+  @Getter
+  private volatile int lastUsed;
+
+  /**
+   * the retired.
+   */
+  private boolean retired;
+
+  /**
+   * ctor.
+   *
+   * @param pos the position.
+   * @param lastUsed the last used.
+   */
+  RegionSection(@NotNull final SectionPos pos, final int lastUsed) {
+    this.pos = pos;
+    this.lastUsed = lastUsed;
+  }
+
+  /**
+   * schedules the given task on the section's scheduler.
+   *
+   * @param task the task to schedule.
+   * @param tick the current tick.
+   *
+   * @return scheduled task, {@code null} if the section is retired.
+   */
+  @Nullable
+  synchronized ScheduledTask execute(@NotNull final Task task, final int tick) {
+    if (this.retired) {
+      return null;
+    }
+    this.lastUsed = tick;
+    return this.scheduler.execute(task);
+  }
+
+  /**
+   * drains the messages and the tasks of the section by the given policy.
+   * <p>
+   * the messages are one-shot as well, so they run or are dropped together with the pending one-shot tasks.
+   *
+   * @param policy the policy to drain.
+   */
+  void drain(@NotNull final DrainPolicy policy) {
+    if (policy == DrainPolicy.CANCEL) {
+      this.messages.clear();
+    }
+    this.runMessages();
+    this.scheduler.shutdown(policy);
+  }
+
+  /**
+   * checks if the section has nothing to do.
+   *
+   * @return {@code true} if the section is idle.
+   */
+  boolean idle() {
+    return this.messages.isEmpty() && this.scheduler.pendingTasks() == 0 && this.scheduler.runningTasks() == 0;
+  }
+
+  /**
+   * retires the section if it is idle, so no task or message is added after it is removed.
+   *
+   * @return {@code true} if the section is retired.
+   */
+  synchronized boolean retire() {
+    if (!this.idle()) {
+      return false;
+    }
+    this.retired = true;
+    return true;
+  }
+
+  /**
+   * queues the given message.
+   *
+   * @param message the message to queue.
+   * @param tick the current tick.
+   *
+   * @return {@code false} if the section is retired.
+   */
+  synchronized boolean send(@NotNull final Runnable message, final int tick) {
+    if (this.retired) {
+      return false;
+    }
+    this.lastUsed = tick;
+    this.messages.add(message);
+    return true;
+  }
+
+  /**
+   * runs the messages and the tasks of the section.
+   *
+   * @param tick the tick to run.
+   */
+  void tick(final int tick) {
+    this.runMessages();
+    this.scheduler.heartbeat(tick);
+  }
+
+  /**
+   * runs the queued messages.
+   */
+  private void runMessages() {
+    Runnable message;
+    while ((message = this.messages.poll()) != null) {
+      try {
+        message.run();
+      } catch (final Exception e) {
+        RegionSection.log.error("An exception occurred while handling a message in section {}:", this.pos, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package io.github.shiruka.shiruka.region;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents positions of region sections, which are square groups of chunks in a world.
+ *
+ * @param world the world.
+ * @param x the section x.
+ * @param z the section z.
+ */
+public record SectionPos(
+  @NotNull String world,
+  int x,
+  int z
+) {
+
+  /**
+   * obtains the section position of the given chunk.
+   *
+   * @param world the world of the chunk.
+   * @param chunkX the chunk x.
+   * @param chunkZ the chunk z.
+   * @param shift the shift of the section size in chunks, the sections are {@code 1 << shift} chunks wide.
+   *
+   * @return section position.
+   */
+  @NotNull
+  public static SectionPos ofChunk(@NotNull final String world, final int chunkX, final int chunkZ, final int shift) {
+    return new SectionPos(world, chunkX >> shift, chunkZ >> shift);
+  }
+}
@@ -0,0 +1,39 @@
+package io.github.shiruka.shiruka.region;
+
+import io.github.shiruka.shiruka.scheduler.DrainPolicy;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents groups of neighbour sections which are ticked sequentially by one region thread.
+ * <p>
+ * sections are merged into the same region when they are close enough to interact, so their tasks never race.
+ *
+ * @param sections the sections.
+ */
+record TickRegion(
+  @NotNull List<RegionSection> sections
+) {
+
+  /**
+   * drains the sections of the region by the given policy.
+   *
+   * @param policy the policy to drain.
+   */
+  void drain(@NotNull final DrainPolicy policy) {
+    for (final var section : this.sections) {
+      section.drain(policy);
+    }
+  }
+
+  /**
+   * ticks the sections of the region.
+   *
+   * @param tick the tick to run.
+   */
+  void tick(final int tick) {
+    for (final var section : this.sections) {
+      section.tick(tick);
+    }
+  }
+}
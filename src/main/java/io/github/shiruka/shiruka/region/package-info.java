@@ -0,0 +1,4 @@
+/**
+ * the package that contains region-parallel ticking classes.
+ */
+package io.github.shiruka.shiruka.region;
@@ -5,17 +5,16 @@ import io.github.shiruka.api.Shiruka;
 import io.github.shiruka.api.event.events.server.ServerExceptionEvent;
 import io.github.shiruka.api.exception.ServerSchedulerException;
 import io.github.shiruka.api.plugin.Plugin;
-import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.jfr.TaskEvent;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Executor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import lombok.experimental.Accessors;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -33,9 +32,14 @@ public final class AsyncScheduler extends SyncScheduler {
   /**
    * the management.
    */
-  private final Executor management = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+  private final ExecutorService management = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
     .setNameFormat("Shiru ka Async Scheduler Management Thread").build());
 
+  /**
+   * the tasks which the worker threads are running right now.
+   */
+  private final Map<Thread, SyncScheduler.SyncTask> running = new ConcurrentHashMap<>();
+
   /**
    * the temp.
    */
@@ -49,9 +53,41 @@ public final class AsyncScheduler extends SyncScheduler {
     this.executor.prestartAllCoreThreads();
   }
 
+  /**
+   * obtains the count of the worker threads which are running a task.
+   *
+   * @return active worker count.
+   */
+  public int activeWorkers() {
+    return this.executor.getActiveCount();
+  }
+
+  /**
+   * waits for the drained tasks and the running tasks to finish after a {@link #shutdown(DrainPolicy)}.
+   *
+   * @param timeout the timeout to wait.
+   * @param unit the unit of the timeout.
+   *
+   * @return {@code true} if every task finished in time.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting.
+   */
+  public boolean awaitTermination(final long timeout, @NotNull final TimeUnit unit) throws InterruptedException {
+    final var deadline = System.nanoTime() + unit.toNanos(timeout);
+    if (!this.management.awaitTermination(timeout, unit)) {
+      return false;
+    }
+    this.executor.shutdown();
+    return this.executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
   @Override
   public void cancelTask(final int taskId) {
-    this.management.execute(() -> this.removeTask(taskId));
+    if (this.management.isShutdown()) {
+      this.removeTask(taskId);
+    } else {
+      this.management.execute(() -> this.removeTask(taskId));
+    }
   }
 
   @Override
@@ -73,6 +109,51 @@ public final class AsyncScheduler extends SyncScheduler {
     this.management.execute(() -> this.runTasks(currentTick));
   }
 
+  /**
+   * obtains the descriptions of the tasks which the worker threads are running right now.
+   *
+   * @return running task descriptions.
+   */
+  @NotNull
+  public List<String> runningTaskNames() {
+    final var names = new ArrayList<String>();
+    this.running.forEach((thread, task) -> names.add("#%d %s of %s on %s".formatted(task.id(), task.task().name(),
+      task.task().plugin().description().fullName(), thread.getName())));
+    return names;
+  }
+
+  /**
+   * stops accepting new tasks and hands the drained tasks over to the worker threads.
+   * <p>
+   * the calling thread does not wait, use {@link #awaitTermination(long, TimeUnit)} to wait for the tasks.
+   *
+   * @param policy the policy to drain.
+   */
+  @Override
+  public void shutdown(@NotNull final DrainPolicy policy) {
+    this.drainPending(policy);
+    final var currentTick = this.currentTick;
+    this.management.execute(() -> this.runTasks(currentTick));
+    this.management.shutdown();
+  }
+
+  /**
+   * interrupts the tasks which are still running.
+   */
+  public void shutdownNow() {
+    this.management.shutdownNow();
+    this.executor.shutdownNow();
+  }
+
+  /**
+   * obtains the count of the worker threads.
+   *
+   * @return worker count.
+   */
+  public int workers() {
+    return this.executor.getPoolSize();
+  }
+
   /**
    * executes the given task.
    *
@@ -86,6 +167,13 @@ public final class AsyncScheduler extends SyncScheduler {
     }
     this.runners.put(task.id(), task);
     this.executor.execute(() -> {
+      final var accounting = this.accounting();
+      final var cpuTime = accounting == null ? 0L : accounting.cpuTime();
+      final var allocated = accounting == null ? 0L : accounting.allocatedBytes();
+      final var thread = Thread.currentThread();
+      this.running.put(thread, task);
+      final var event = new TaskEvent();
+      event.begin();
       try {
         task.run();
       } catch (final RuntimeException e) {
@@ -93,6 +181,22 @@ public final class AsyncScheduler extends SyncScheduler {
         throw e;
       } catch (final Throwable t) {
         Shiruka.eventManager().call(new ServerExceptionEvent(new ServerSchedulerException(t, task)));
+      } finally {
+        this.running.remove(thread);
+        if (task.period() <= 0L) {
+          this.runners.remove(task.id(), task);
+        }
+        if (accounting != null) {
+          accounting.record(task.task().plugin(), cpuTime, allocated, false);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+          event.id = task.id();
+          event.name = task.task().name();
+          event.plugin = task.task().plugin().description().name();
+          event.sync = false;
+          event.commit();
+        }
       }
     });
     return true;
@@ -135,102 +239,4 @@ public final class AsyncScheduler extends SyncScheduler {
     this.pending.addAll(this.temp);
     this.temp.clear();
   }
-
-  /**
-   * a class that represents async scheduled tasks.
-   */
-  @Accessors(fluent = true)
-  public static final class AsyncTask extends SyncScheduler.SyncTask {
-
-    /**
-     * the runners.
-     */
-    @NotNull
-    private final Map<Integer, SyncScheduler.SyncTask> runners;
-
-    /**
-     * the workers.
-     */
-    private final LinkedList<Task.Worker> workers = new LinkedList<>();
-
-    /**
-     * ctor.
-     *
-     * @param task the tas.
-     * @param id the id.
-     * @param runners the runners.
-     */
-    public AsyncTask(@NotNull final Task task, final int id,
-                     @NotNull final Map<Integer, SyncScheduler.SyncTask> runners) {
-      super(task, id);
-      this.runners = runners;
-    }
-
-    @Override
-    public void run() {
-      final var thread = Thread.currentThread();
-      final var nameBefore = thread.getName();
-      final var plugin = this.task().plugin();
-      final var description = plugin.description();
-      thread.setName(nameBefore + " - " + description.name());
-      try {
-        synchronized (this.workers) {
-          if (this.period() == SyncScheduler.SyncTask.CANCEL) {
-            return;
-          }
-          this.workers.add(new Task.Worker(this.id(), plugin, thread));
-        }
-        Throwable thrown = null;
-        final var fullName = description.fullName();
-        try {
-          super.run();
-        } catch (final Throwable t) {
-          thrown = t;
-          plugin.logger().warn(
-            "Plugin %s generated an exception while executing task %s"
-              .formatted(fullName, this.id()),
-            thrown);
-        } finally {
-          synchronized (this.workers) {
-            try {
-              final var workers = this.workers.iterator();
-              var removed = false;
-              while (workers.hasNext()) {
-                if (workers.next().thread() == thread) {
-                  workers.remove();
-                  removed = true;
-                  break;
-                }
-              }
-              if (!removed) {
-                throw new IllegalStateException(
-                  String.format(
-                    "Unable to remove worker %s on task %s for %s",
-                    thread.getName(),
-                    this.id(),
-                    fullName),
-                  thrown);
-              }
-            } finally {
-              if (this.period() < 0 && this.workers.isEmpty()) {
-                this.runners.remove(this.id());
-              }
-            }
-          }
-        }
-      } finally {
-        thread.setName(nameBefore);
-      }
-    }
-
-    @Override
-    protected void cancel0() {
-      synchronized (this.workers) {
-        super.cancel0();
-        if (this.workers.isEmpty()) {
-          this.runners.remove(this.id());
-        }
-      }
-    }
-  }
 }
@@ -0,0 +1,17 @@
+package io.github.shiruka.shiruka.scheduler;
+
+/**
+ * an enum class that contains the policies which decide what happens to the pending tasks on shutdown.
+ * <p>
+ * repeating tasks are always cancelled, the policies only apply to the one-shot tasks.
+ */
+public enum DrainPolicy {
+  /**
+   * runs the pending one-shot tasks right away without waiting for their delays.
+   */
+  RUN,
+  /**
+   * cancels the pending one-shot tasks.
+   */
+  CANCEL
+}
@@ -8,6 +8,8 @@ import io.github.shiruka.api.plugin.Plugin;
 import io.github.shiruka.api.scheduler.ScheduledTask;
 import io.github.shiruka.api.scheduler.Scheduler;
 import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.accounting.PluginAccounting;
+import io.github.shiruka.shiruka.jfr.TaskEvent;
 import io.github.shiruka.shiruka.server.ShirukaServer;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -18,6 +20,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.IntUnaryOperator;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -71,12 +74,26 @@ public class SyncScheduler implements Scheduler.Async {
    */
   protected volatile int currentTick = -1;
 
+  /**
+   * the plugin accounting, {@code null} if the plugins are not accounted.
+   */
+  @Nullable
+  @Setter
+  @Getter(AccessLevel.PROTECTED)
+  @Accessors(fluent = true)
+  private volatile PluginAccounting accounting;
+
   /**
    * the currently running task.
    */
   @Nullable
   private volatile SyncTask currentTask = null;
 
+  /**
+   * the shut down, {@code true} once the scheduler stops accepting new tasks.
+   */
+  private volatile boolean shutDown;
+
   /**
    * the head task.
    */
@@ -188,6 +205,7 @@ public class SyncScheduler implements Scheduler.Async {
   @Override
   public final ScheduledTask execute(@NotNull final Task task) {
     Preconditions.checkState(task.plugin().enabled(), "Plugin attempted to register task while disabled!");
+    Preconditions.checkState(!this.shutDown, "Plugin attempted to register task while the server is stopping!");
     final var interval = task.interval();
     final long period;
     if (interval == SyncTask.ERROR) {
@@ -203,6 +221,7 @@ public class SyncScheduler implements Scheduler.Async {
   @Override
   public void heartbeat(final int currentTick) {
     this.currentTick = currentTick;
+    this.parsePending();
     while (this.isReady(currentTick)) {
       final var remove = this.pending.remove();
       final var task = remove.task();
@@ -215,7 +234,17 @@ public class SyncScheduler implements Scheduler.Async {
       }
       final var plugin = task.plugin();
       if (task.isSync()) {
+        final var accounting = this.accounting;
+        if (accounting != null && accounting.defer(plugin)) {
+          remove.nextRun(currentTick + 1L);
+          this.temp.add(remove);
+          continue;
+        }
+        final var cpuTime = accounting == null ? 0L : accounting.cpuTime();
+        final var allocated = accounting == null ? 0L : accounting.allocatedBytes();
         this.currentTask = remove;
+        final var event = new TaskEvent();
+        event.begin();
         try {
           remove.run();
         } catch (final Throwable throwable) {
@@ -228,6 +257,17 @@ public class SyncScheduler implements Scheduler.Async {
           Shiruka.eventManager().call(new ServerExceptionEvent(new ServerSchedulerException(msg, throwable, remove)));
         } finally {
           this.currentTask = null;
+          if (accounting != null) {
+            accounting.record(plugin, cpuTime, allocated, true);
+          }
+          event.end();
+          if (event.shouldCommit()) {
+            event.id = remove.id();
+            event.name = task.name();
+            event.plugin = plugin.description().name();
+            event.sync = true;
+            event.commit();
+          }
         }
         this.parsePending();
       } else {
@@ -245,6 +285,58 @@ public class SyncScheduler implements Scheduler.Async {
     this.temp.clear();
   }
 
+  /**
+   * obtains the task which the main thread is running right now.
+   *
+   * @return currently running task, {@code null} if no task is running.
+   */
+  @Nullable
+  public final SyncTask currentTask() {
+    return this.currentTask;
+  }
+
+  /**
+   * checks if the scheduler stopped accepting new tasks.
+   *
+   * @return {@code true} if the scheduler is shut down.
+   */
+  public final boolean isShutDown() {
+    return this.shutDown;
+  }
+
+  /**
+   * obtains the count of the pending tasks.
+   * <p>
+   * the value is read without synchronization, so it is only an estimate when read by another thread.
+   *
+   * @return pending task count.
+   */
+  public final int pendingTasks() {
+    return this.pending.size();
+  }
+
+  /**
+   * obtains the count of the scheduled tasks which are not finished yet.
+   *
+   * @return running task count.
+   */
+  public final int runningTasks() {
+    return this.runners.size();
+  }
+
+  /**
+   * stops accepting new tasks and drains the pending ones by the given policy.
+   * <p>
+   * the drained tasks run on the calling thread, so this should be called by the main thread after the last tick.
+   *
+   * @param policy the policy to drain.
+   */
+  public void shutdown(@NotNull final DrainPolicy policy) {
+    this.accounting = null;
+    this.drainPending(policy);
+    this.heartbeat(this.currentTick);
+  }
+
   /**
    * adds the given task to the tail.
    *
@@ -258,6 +350,26 @@ public class SyncScheduler implements Scheduler.Async {
     tailTask.next(task);
   }
 
+  /**
+   * stops accepting new tasks, cancels the repeating tasks and makes the one-shot tasks due by the given policy.
+   *
+   * @param policy the policy to drain.
+   */
+  protected final synchronized void drainPending(@NotNull final DrainPolicy policy) {
+    this.shutDown = true;
+    this.parsePending();
+    final var tasks = new ArrayList<>(this.pending);
+    this.pending.clear();
+    for (final var task : tasks) {
+      final var period = task.period();
+      if (policy != DrainPolicy.RUN || period > 0L || period < SyncTask.NO_REPEATING) {
+        task.cancel0();
+      }
+      task.nextRun(this.currentTick);
+    }
+    this.pending.addAll(tasks);
+  }
+
   /**
    * handles the given task with a delay.
    *
@@ -268,6 +380,7 @@ public class SyncScheduler implements Scheduler.Async {
    */
   @NotNull
   protected final SyncTask handle(@NotNull final SyncTask task, final long delay) {
+    task.scheduler = this;
     task.nextRun(this.currentTick + Math.max(delay, 0L));
     this.addTask(task);
     return task;
@@ -392,6 +505,12 @@ public class SyncScheduler implements Scheduler.Async {
     @Getter
     private long period;
 
+    /**
+     * the scheduler which the task is handled by.
+     */
+    @Nullable
+    private volatile SyncScheduler scheduler;
+
     /**
      * ctor.
      *
@@ -426,7 +545,12 @@ public class SyncScheduler implements Scheduler.Async {
 
     @Override
     public final void cancel() {
-      Shiruka.syncScheduler().cancelTask(this.id);
+      final var scheduler = this.scheduler;
+      if (scheduler != null) {
+        scheduler.cancelTask(this.id);
+      } else {
+        Shiruka.syncScheduler().cancelTask(this.id);
+      }
     }
 
     @Override
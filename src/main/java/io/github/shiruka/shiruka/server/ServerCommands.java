@@ -0,0 +1,150 @@
+package io.github.shiruka.shiruka.server;
+
+import io.github.shiruka.shiruka.console.ConsoleCommand;
+import io.github.shiruka.shiruka.console.ConsoleCommands;
+import io.github.shiruka.shiruka.profiler.ProfilerTarget;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that contains the built-in console commands of the server.
+ */
+@Log4j2
+final class ServerCommands {
+
+  /**
+   * the default packet ids and connections which the network command lists.
+   */
+  private static final int NETWORK_LIMIT = 10;
+
+  /**
+   * the default profiler sample interval in milliseconds.
+   */
+  private static final long PROFILER_INTERVAL = 10L;
+
+  /**
+   * ctor.
+   */
+  private ServerCommands() {
+  }
+
+  /**
+   * registers the built-in commands of the given server.
+   *
+   * @param server the server to register.
+   * @param commands the commands to register.
+   */
+  static void register(@NotNull final ShirukaServer server, @NotNull final ConsoleCommands commands) {
+    commands.register("help", "help", "Lists the commands.", false, args ->
+      commands.help().forEach(ServerCommands.log::info));
+    commands.register("stop", "stop", "Stops the server.", true, args -> {
+      ServerCommands.log.info("Stopping the server...");
+      server.stop();
+    });
+    commands.register("tps", "tps", "Shows the ticks per second and the milliseconds per tick.", false, args -> {
+      final var statistics = server.tickStatistics();
+      ServerCommands.log.info("TPS: {}, MSPT: {}", "%.2f".formatted(statistics.tps()),
+        "%.2f".formatted(statistics.mspt()));
+    });
+    commands.register("network", "network [limit]", "Shows the traffic per packet id and connection.", false,
+      args -> {
+        final var network = server.network();
+        final var limit = args.isEmpty() ? ServerCommands.NETWORK_LIMIT : Integer.parseInt(args.get(0));
+        network.metrics().report(network.connections(), limit).forEach(ServerCommands.log::info);
+      });
+    commands.register("profiler", "profiler <start [main|async|all] [interval]|stop>",
+      "Starts or stops the sampling profiler.", false, new ProfilerCommand(server));
+    commands.register("plugins", "plugins", "Shows the cpu time and the allocations of the plugins.", false,
+      args -> ServerCommands.plugins(server));
+  }
+
+  /**
+   * logs the plugin accounting of the given server.
+   *
+   * @param server the server to log.
+   */
+  private static void plugins(@NotNull final ShirukaServer server) {
+    final var accounting = server.accounting();
+    if (accounting == null) {
+      ServerCommands.log.info("The plugin accounting is disabled.");
+      return;
+    }
+    for (final var usage : accounting.usages()) {
+      ServerCommands.log.info("{}: sync {} ms, async {} ms, {} ms/tick average, {} MB allocated, {} invocations",
+        usage.name(), usage.syncCpuTime() / 1_000_000L, usage.asyncCpuTime() / 1_000_000L,
+        "%.3f".formatted(usage.averageTickTime() / 1_000_000.0D), usage.allocatedBytes() / 1_048_576L,
+        usage.invocations());
+    }
+  }
+
+  /**
+   * a class that represents the profiler command.
+   */
+  private static final class ProfilerCommand implements ConsoleCommand {
+
+    /**
+     * the server.
+     */
+    @NotNull
+    private final ShirukaServer server;
+
+    /**
+     * ctor.
+     *
+     * @param server the server.
+     */
+    private ProfilerCommand(@NotNull final ShirukaServer server) {
+      this.server = server;
+    }
+
+    @NotNull
+    @Override
+    public List<String> complete(@NotNull final List<String> args) {
+      if (args.size() == 1) {
+        return List.of(this.server.profiler().running() ? "stop" : "start");
+      }
+      if (args.size() == 2 && "start".equalsIgnoreCase(args.get(0))) {
+        final var targets = new ArrayList<String>();
+        for (final var target : ProfilerTarget.values()) {
+          targets.add(target.name().toLowerCase(Locale.ROOT));
+        }
+        return targets;
+      }
+      return List.of();
+    }
+
+    @Override
+    public void execute(@NotNull final List<String> args) {
+      final var profiler = this.server.profiler();
+      if (args.isEmpty()) {
+        ServerCommands.log.info("The profiler is {}.", profiler.running() ? "running" : "not running");
+        return;
+      }
+      switch (args.get(0).toLowerCase(Locale.ROOT)) {
+        case "start" -> {
+          final var target = args.size() > 1
+            ? ProfilerTarget.valueOf(args.get(1).toUpperCase(Locale.ROOT))
+            : ProfilerTarget.ALL;
+          final var interval = args.size() > 2 ? Long.parseLong(args.get(2)) : ServerCommands.PROFILER_INTERVAL;
+          if (profiler.start(target, interval)) {
+            ServerCommands.log.info("The profiler started sampling {} every {} ms.", target, interval);
+          } else {
+            ServerCommands.log.warn("The profiler is already running.");
+          }
+        }
+        case "stop" -> {
+          final var summary = profiler.stop();
+          if (summary == null) {
+            ServerCommands.log.warn("The profiler is not running.");
+          } else {
+            summary.forEach(ServerCommands.log::info);
+          }
+        }
+        default -> ServerCommands.log.warn("Usage: profiler <start [main|async|all] [interval]|stop>");
+      }
+    }
+  }
+}
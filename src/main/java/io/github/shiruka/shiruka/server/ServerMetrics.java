@@ -0,0 +1,287 @@
+package io.github.shiruka.shiruka.server;
+
+import io.github.shiruka.shiruka.accounting.PluginAccounting;
+import io.github.shiruka.shiruka.accounting.PluginUsage;
+import io.github.shiruka.shiruka.data.DataStorage;
+import io.github.shiruka.shiruka.event.ShirukaEventManager;
+import io.github.shiruka.shiruka.log.ShirukaQueueFullPolicy;
+import io.github.shiruka.shiruka.metrics.MetricsRegistry;
+import io.github.shiruka.shiruka.network.NetworkManager;
+import io.github.shiruka.shiruka.network.PacketMetrics;
+import io.github.shiruka.shiruka.storage.WorldStorage;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.async.AsyncLoggerContext;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that contains the built-in metric sources of the server.
+ */
+final class ServerMetrics {
+
+  /**
+   * the nanoseconds to seconds scale.
+   */
+  private static final double NANOS = 1.0E-9D;
+
+  /**
+   * ctor.
+   */
+  private ServerMetrics() {
+  }
+
+  /**
+   * registers the built-in metrics of the given server.
+   *
+   * @param server the server to register.
+   * @param events the event manager to register.
+   * @param registry the registry to register.
+   */
+  static void register(@NotNull final ShirukaServer server, @NotNull final ShirukaEventManager events,
+                       @NotNull final MetricsRegistry registry) {
+    final var statistics = server.tickStatistics();
+    registry.gauge("shiruka_tps", "Ticks per second over the last 100 ticks.", statistics::tps);
+    registry.gauge("shiruka_mspt", "Average milliseconds per tick over the last 100 ticks.", statistics::mspt);
+    registry.counter("shiruka_ticks_total", "Ticks run by the main thread.", statistics::ticks);
+    registry.histogram("shiruka_tick_duration_seconds", "Duration of the main thread's ticks.",
+      statistics.histogram(), ServerMetrics.NANOS);
+    final var sync = server.syncScheduler();
+    final var async = server.asyncScheduler();
+    registry.gauge("shiruka_scheduler_sync_pending", "Pending tasks of the sync scheduler.", sync::pendingTasks);
+    registry.gauge("shiruka_scheduler_sync_runners", "Unfinished tasks of the sync scheduler.", sync::runningTasks);
+    registry.gauge("shiruka_scheduler_async_pending", "Pending tasks of the async scheduler.", async::pendingTasks);
+    registry.gauge("shiruka_scheduler_async_runners", "Unfinished tasks of the async scheduler.",
+      async::runningTasks);
+    registry.gauge("shiruka_scheduler_async_workers", "Threads of the async scheduler's pool.", async::workers);
+    registry.gauge("shiruka_scheduler_async_workers_active", "Threads of the async scheduler's pool running a task.",
+      async::activeWorkers);
+    registry.labelled("shiruka_events_called_total", "Events dispatched by the event manager.",
+      MetricsRegistry.Type.COUNTER, "event", events::calls);
+    registry.labelled("shiruka_events_coalesced_total", "Posted events merged into an earlier one of the same tick.",
+      MetricsRegistry.Type.COUNTER, "event", events::coalesced);
+    registry.gauge("shiruka_events_coalescing_pending", "Posted events which wait for the next dispatch.",
+      events::pendingCoalesced);
+    final var login = server.loginVerifier();
+    registry.histogram("shiruka_login_verify_seconds", "Time from a login chain's submission to its result.",
+      login.latency(), ServerMetrics.NANOS);
+    registry.counter("shiruka_login_cache_hits_total", "Login chains answered from the result cache.",
+      login::cacheHits);
+    final var accounting = server.accounting();
+    if (accounting != null) {
+      ServerMetrics.registerAccounting(accounting, registry);
+    }
+    final var regions = server.regions();
+    if (regions != null) {
+      registry.gauge("shiruka_regions", "Regions ticked in parallel by the region threads.", regions::regions);
+      registry.gauge("shiruka_region_sections", "Sections owned by the regions.", regions::sections);
+    }
+    final var generation = server.generation();
+    registry.gauge("shiruka_generation_pending", "Chunks being generated, including the requested ones' dependencies.",
+      generation::pending);
+    registry.counter("shiruka_generation_chunks_total", "Chunks which completed every generation stage.",
+      generation::generated);
+    registry.labelled("shiruka_generation_stage_seconds_total", "Time which the generation stages took.",
+      MetricsRegistry.Type.COUNTER, "stage", () -> generation.stageTimes().entrySet().stream()
+        .collect(Collectors.toMap(entry -> entry.getKey().name().toLowerCase(Locale.ROOT),
+          entry -> entry.getValue() * ServerMetrics.NANOS)));
+    final var tracker = server.tracker();
+    registry.gauge("shiruka_entities", "Entities in the spatial index.", () -> tracker.index().size());
+    registry.gauge("shiruka_tracking_viewers", "Viewers whose visible entities are tracked.", tracker::viewers);
+    registry.counter("shiruka_tracking_added_total", "Entities which came into a viewer's range.", tracker::added);
+    registry.counter("shiruka_tracking_removed_total", "Entities which left a viewer's range.", tracker::removed);
+    registry.histogram("shiruka_tracking_tick_seconds", "Duration of the entity tracking's ticks.",
+      tracker.tickTime(), ServerMetrics.NANOS);
+    ServerMetrics.registerData(server.dataStorage(), registry);
+    ServerMetrics.registerStorage(server.worldStorage(), registry);
+    ServerMetrics.registerNetwork(server.network(), registry);
+    ServerMetrics.registerJvm(registry);
+    ServerMetrics.registerLogging(registry);
+  }
+
+  /**
+   * collects a value of every seen packet id.
+   *
+   * @param network the network to collect.
+   * @param value the value to collect.
+   *
+   * @return values by packet id.
+   */
+  @NotNull
+  private static Map<String, Long> packets(@NotNull final NetworkManager network,
+                                           @NotNull final ToLongFunction<PacketMetrics> value) {
+    final var packets = new HashMap<String, Long>();
+    for (final var packet : network.metrics().packets()) {
+      packets.put("0x%02X".formatted(packet.id()), value.applyAsLong(packet));
+    }
+    return packets;
+  }
+
+  /**
+   * collects a value of every accounted plugin.
+   *
+   * @param accounting the accounting to collect.
+   * @param value the value to collect.
+   *
+   * @return values by plugin name.
+   */
+  @NotNull
+  private static Map<String, Double> plugins(@NotNull final PluginAccounting accounting,
+                                             @NotNull final ToDoubleFunction<PluginUsage> value) {
+    final var plugins = new HashMap<String, Double>();
+    for (final var usage : accounting.usages()) {
+      plugins.merge(usage.name(), value.applyAsDouble(usage), Double::sum);
+    }
+    return plugins;
+  }
+
+  /**
+   * registers the plugin accounting metrics.
+   *
+   * @param accounting the accounting to register.
+   * @param registry the registry to register.
+   */
+  private static void registerAccounting(@NotNull final PluginAccounting accounting,
+                                         @NotNull final MetricsRegistry registry) {
+    registry.labelled("shiruka_plugin_sync_cpu_seconds_total", "Main thread cpu time of the plugins' sync tasks.",
+      MetricsRegistry.Type.COUNTER, "plugin",
+      () -> ServerMetrics.plugins(accounting, usage -> usage.syncCpuTime() * ServerMetrics.NANOS));
+    registry.labelled("shiruka_plugin_async_cpu_seconds_total", "Cpu time of the plugins' async tasks.",
+      MetricsRegistry.Type.COUNTER, "plugin",
+      () -> ServerMetrics.plugins(accounting, usage -> usage.asyncCpuTime() * ServerMetrics.NANOS));
+    registry.labelled("shiruka_plugin_allocated_bytes_total", "Bytes allocated by the plugins' tasks.",
+      MetricsRegistry.Type.COUNTER, "plugin", () -> ServerMetrics.plugins(accounting, PluginUsage::allocatedBytes));
+    registry.labelled("shiruka_plugin_tick_seconds", "Average main thread time of the plugins per tick.",
+      MetricsRegistry.Type.GAUGE, "plugin",
+      () -> ServerMetrics.plugins(accounting, usage -> usage.averageTickTime() * ServerMetrics.NANOS));
+  }
+
+  /**
+   * registers the data storage metrics.
+   *
+   * @param storage the storage to register.
+   * @param registry the registry to register.
+   */
+  private static void registerData(@NotNull final DataStorage storage, @NotNull final MetricsRegistry registry) {
+    registry.gauge("shiruka_data_dirty", "Data files whose writes wait for a flush.", storage::dirty);
+    registry.gauge("shiruka_data_flush_lag_seconds", "Age of the oldest data file write which waits for a flush.",
+      () -> storage.lag() * ServerMetrics.NANOS);
+    registry.histogram("shiruka_data_flush_delay_seconds", "Time from a data file's first write to its flush.",
+      storage.flushLag(), ServerMetrics.NANOS);
+    registry.counter("shiruka_data_writes_total", "Writes of the data files.", storage::writes);
+    registry.counter("shiruka_data_writes_coalesced_total", "Data file writes which replaced an unflushed write.",
+      storage::coalesced);
+    registry.counter("shiruka_data_flushed_total", "Data files written to the disk.", storage::flushed);
+    registry.counter("shiruka_data_flush_failures_total", "Data files which could not be written to the disk.",
+      storage::failures);
+    registry.counter("shiruka_data_cache_hits_total", "Data file reads answered from the memory.", storage::hits);
+    registry.counter("shiruka_data_cache_misses_total", "Data file reads which read the disk.", storage::misses);
+  }
+
+  /**
+   * registers the heap and garbage collector metrics.
+   *
+   * @param registry the registry to register.
+   */
+  private static void registerJvm(@NotNull final MetricsRegistry registry) {
+    final var memory = ManagementFactory.getMemoryMXBean();
+    registry.gauge("jvm_heap_used_bytes", "Used heap memory.", () -> memory.getHeapMemoryUsage().getUsed());
+    registry.gauge("jvm_heap_committed_bytes", "Committed heap memory.",
+      () -> memory.getHeapMemoryUsage().getCommitted());
+    registry.gauge("jvm_heap_max_bytes", "Maximum heap memory.", () -> memory.getHeapMemoryUsage().getMax());
+    final var collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    registry.labelled("jvm_gc_collections_total", "Collections by garbage collector.", MetricsRegistry.Type.COUNTER,
+      "gc", () -> collectors.stream().collect(Collectors.toMap(GarbageCollectorMXBean::getName,
+        GarbageCollectorMXBean::getCollectionCount)));
+    registry.labelled("jvm_gc_collection_seconds_total", "Collection time by garbage collector.",
+      MetricsRegistry.Type.COUNTER, "gc", () -> collectors.stream().collect(Collectors.toMap(
+        GarbageCollectorMXBean::getName, collector -> collector.getCollectionTime() / 1000.0D)));
+  }
+
+  /**
+   * registers the ring buffer metrics of the async loggers, if they are enabled.
+   *
+   * @param registry the registry to register.
+   */
+  private static void registerLogging(@NotNull final MetricsRegistry registry) {
+    if (!(LogManager.getContext(false) instanceof AsyncLoggerContext context)) {
+      return;
+    }
+    final var ringBuffer = context.createRingBufferAdmin();
+    registry.gauge("log4j_ring_buffer_size", "Capacity of the async loggers' ring buffer.",
+      ringBuffer::getBufferSize);
+    registry.gauge("log4j_ring_buffer_used", "Log events waiting in the async loggers' ring buffer.",
+      () -> ringBuffer.getBufferSize() - ringBuffer.getRemainingCapacity());
+    registry.gauge("log4j_ring_buffer_remaining", "Free slots of the async loggers' ring buffer.",
+      ringBuffer::getRemainingCapacity);
+    registry.counter("log4j_queue_full_total", "Log events which found the async loggers' ring buffer full.",
+      ShirukaQueueFullPolicy::queueFull);
+    registry.labelled("log4j_dropped_events_total", "Log events dropped while the ring buffer was full.",
+      MetricsRegistry.Type.COUNTER, "level", ShirukaQueueFullPolicy::droppedByLevel);
+  }
+
+  /**
+   * registers the network metrics.
+   *
+   * @param network the network to register.
+   * @param registry the registry to register.
+   */
+  private static void registerNetwork(@NotNull final NetworkManager network, @NotNull final MetricsRegistry registry) {
+    final var metrics = network.metrics();
+    registry.gauge("shiruka_network_connections", "Open connections.", () -> network.connections().size());
+    registry.counter("shiruka_network_received_bytes_total", "Datagram bytes received.", metrics::receivedBytes);
+    registry.counter("shiruka_network_sent_bytes_total", "Datagram bytes sent.", metrics::sentBytes);
+    registry.counter("shiruka_network_uncompressed_bytes_total", "Outbound batch bytes before compression.",
+      metrics::uncompressedBytes);
+    registry.counter("shiruka_network_compressed_bytes_total", "Outbound batch bytes after compression.",
+      metrics::compressedBytes);
+    registry.histogram("shiruka_network_encode_seconds", "Time to compress and encrypt an outbound batch.",
+      metrics.encodeTime(), ServerMetrics.NANOS);
+    registry.histogram("shiruka_network_decode_seconds", "Time to decrypt, inflate and split an inbound batch.",
+      metrics.decodeTime(), ServerMetrics.NANOS);
+    registry.labelled("shiruka_network_packets_in_total", "Inbound packets by packet id.",
+      MetricsRegistry.Type.COUNTER, "id", () -> ServerMetrics.packets(network, PacketMetrics::packetsIn));
+    registry.labelled("shiruka_network_packets_out_total", "Outbound packets by packet id.",
+      MetricsRegistry.Type.COUNTER, "id", () -> ServerMetrics.packets(network, PacketMetrics::packetsOut));
+    registry.labelled("shiruka_network_bytes_in_total", "Uncompressed inbound bytes by packet id.",
+      MetricsRegistry.Type.COUNTER, "id", () -> ServerMetrics.packets(network, PacketMetrics::bytesIn));
+    registry.labelled("shiruka_network_bytes_out_total", "Uncompressed outbound bytes by packet id.",
+      MetricsRegistry.Type.COUNTER, "id", () -> ServerMetrics.packets(network, PacketMetrics::bytesOut));
+    final var chunks = network.chunkCache();
+    registry.counter("shiruka_chunk_cache_hits_total", "Chunk sends which reused a cached compressed batch.",
+      chunks::hits);
+    registry.counter("shiruka_chunk_cache_misses_total", "Chunk sends which encoded and compressed the chunk.",
+      chunks::misses);
+    registry.counter("shiruka_chunk_cache_evictions_total", "Cached chunk batches evicted to stay within the size.",
+      chunks::evictions);
+    registry.gauge("shiruka_chunk_cache_hit_ratio", "Ratio of the chunk sends which reused a cached batch.",
+      chunks::hitRate);
+    registry.gauge("shiruka_chunk_cache_bytes", "Compressed bytes of the cached chunk batches.", chunks::bytes);
+    registry.gauge("shiruka_chunk_cache_entries", "Cached chunk batches.", chunks::size);
+  }
+
+  /**
+   * registers the world storage metrics.
+   *
+   * @param storage the storage to register.
+   * @param registry the registry to register.
+   */
+  private static void registerStorage(@NotNull final WorldStorage storage, @NotNull final MetricsRegistry registry) {
+    final var database = storage.database();
+    registry.histogram("shiruka_storage_read_seconds", "Time to read a key of the world storage.",
+      storage.readLatency(), ServerMetrics.NANOS);
+    registry.counter("shiruka_storage_block_cache_hits_total", "Table blocks found in the block cache.",
+      () -> database.blockCacheStats().hitCount());
+    registry.counter("shiruka_storage_block_cache_misses_total", "Table blocks read from the mapped tables.",
+      () -> database.blockCacheStats().missCount());
+    registry.gauge("shiruka_storage_level0_tables", "Level 0 tables waiting for a compaction.",
+      () -> database.tables(0));
+    registry.counter("shiruka_storage_compactions_total", "Compactions of the world storage.", storage::compactions);
+  }
+}
@@ -1,5 +1,6 @@
 package io.github.shiruka.shiruka.server;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.github.shiruka.api.Provider;
 import io.github.shiruka.api.Server;
 import io.github.shiruka.api.Shiruka;
@@ -7,13 +8,49 @@ import io.github.shiruka.api.plugin.InvalidDescriptionException;
 import io.github.shiruka.api.plugin.Plugin;
 import io.github.shiruka.api.plugin.PluginManager;
 import io.github.shiruka.api.plugin.java.JavaPluginLoader;
+import io.github.shiruka.shiruka.Config;
 import io.github.shiruka.shiruka.Constants;
+import io.github.shiruka.shiruka.accounting.PluginAccounting;
+import io.github.shiruka.shiruka.console.ConsoleCommands;
+import io.github.shiruka.shiruka.console.ShirukaConsole;
+import io.github.shiruka.shiruka.data.DataStorage;
+import io.github.shiruka.shiruka.entity.EntityTracker;
+import io.github.shiruka.shiruka.entity.SpatialIndex;
 import io.github.shiruka.shiruka.event.ShirukaEventManager;
+import io.github.shiruka.shiruka.generation.GenerationPipeline;
+import io.github.shiruka.shiruka.generation.TerrainGenerator;
+import io.github.shiruka.shiruka.jfr.SchedulerSnapshotEvent;
+import io.github.shiruka.shiruka.jfr.TickEvent;
+import io.github.shiruka.shiruka.log.ShirukaQueueFullPolicy;
+import io.github.shiruka.shiruka.metrics.MetricsExporter;
+import io.github.shiruka.shiruka.metrics.MetricsRegistry;
+import io.github.shiruka.shiruka.network.BatchCompressor;
+import io.github.shiruka.shiruka.network.InboundLimits;
+import io.github.shiruka.shiruka.network.LatencyHandler;
+import io.github.shiruka.shiruka.network.NetworkManager;
+import io.github.shiruka.shiruka.network.NetworkTransport;
+import io.github.shiruka.shiruka.network.PacketIds;
+import io.github.shiruka.shiruka.network.login.LoginHandler;
+import io.github.shiruka.shiruka.network.login.LoginVerifier;
+import io.github.shiruka.shiruka.profiler.SamplingProfiler;
+import io.github.shiruka.shiruka.region.RegionManager;
 import io.github.shiruka.shiruka.scheduler.AsyncScheduler;
 import io.github.shiruka.shiruka.scheduler.SyncScheduler;
+import io.github.shiruka.shiruka.storage.WorldStorage;
+import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import jdk.jfr.FlightRecorder;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 import org.apache.logging.log4j.LogManager;
@@ -27,36 +64,280 @@ import org.jetbrains.annotations.Nullable;
 @Accessors(fluent = true)
 public final class ShirukaServer implements Server {
 
+  /**
+   * the tick duration in nanoseconds.
+   */
+  private static final long TICK_DURATION = TimeUnit.SECONDS.toNanos(1L) / 20L;
+
+  /**
+   * the interval of the dropped log event reports in ticks.
+   */
+  private static final int DROPPED_LOGS_INTERVAL = 200;
+
+  /**
+   * the extra time in milliseconds which the shutdown hook waits for the shutdown coordinator.
+   */
+  private static final long SHUTDOWN_GRACE = 5000L;
+
+  /**
+   * the behind duration in nanoseconds which makes the tick loop give up catching up.
+   */
+  private static final long MAX_BEHIND = TimeUnit.SECONDS.toNanos(2L);
+
   /**
    * the internal plugin.
    */
   @Nullable
   private static Plugin.Container internalPlugin;
 
+  /**
+   * the plugin accounting, {@code null} if it is disabled.
+   */
+  @Nullable
+  @Getter
+  private final PluginAccounting accounting;
+
+  /**
+   * the async scheduler.
+   */
+  @NotNull
+  @Getter
+  private final AsyncScheduler asyncScheduler;
+
+  /**
+   * the console commands.
+   */
+  @NotNull
+  @Getter
+  private final ConsoleCommands commands;
+
+  /**
+   * the console worker which runs the completions and the commands that are not sync.
+   */
+  @NotNull
+  private final ExecutorService consoleWorker = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+    .setNameFormat("Shiru ka Console Worker")
+    .setDaemon(true)
+    .build());
+
+  /**
+   * the data storage.
+   */
+  @NotNull
+  @Getter
+  private final DataStorage dataStorage;
+
+  /**
+   * the event manager.
+   */
+  @NotNull
+  @Getter
+  private final ShirukaEventManager eventManager = new ShirukaEventManager();
+
+  /**
+   * the generation pipeline.
+   */
+  @NotNull
+  @Getter
+  private final GenerationPipeline generation;
+
   /**
    * the logger.
    */
   @Getter
   private final Logger logger = LogManager.getLogger("Shiru ka");
 
+  /**
+   * the login verifier.
+   */
+  @NotNull
+  @Getter
+  private final LoginVerifier loginVerifier = new LoginVerifier(Config.loginThreads);
+
+  /**
+   * the metrics.
+   */
+  @NotNull
+  @Getter
+  private final MetricsRegistry metrics = new MetricsRegistry();
+
+  /**
+   * the metrics exporter.
+   */
+  @Nullable
+  private final MetricsExporter metricsExporter;
+
+  /**
+   * the network.
+   */
+  @NotNull
+  @Getter
+  private final NetworkManager network;
+
+  /**
+   * the plugin manager.
+   */
+  @NotNull
+  @Getter
+  private final PluginManager pluginManager;
+
+  /**
+   * the profiler.
+   */
+  @NotNull
+  @Getter
+  private final SamplingProfiler profiler = new SamplingProfiler(this, Constants.herePath().resolve("profiles"));
+
   /**
    * the provider.
    */
   @Getter
   private final Provider provider = Provider.create();
 
+  /**
+   * the region manager, {@code null} if the region threading is disabled.
+   */
+  @Nullable
+  @Getter
+  private final RegionManager regions;
+
+  /**
+   * the shutdown coordinator.
+   */
+  @NotNull
+  @Getter
+  private final ShutdownCoordinator shutdownCoordinator = new ShutdownCoordinator();
+
+  /**
+   * the stopped latch which is released once the server is shut down.
+   */
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /**
+   * the sync scheduler.
+   */
+  @NotNull
+  @Getter
+  private final SyncScheduler syncScheduler;
+
+  /**
+   * the tick statistics.
+   */
+  @NotNull
+  @Getter
+  private final TickStatistics tickStatistics = new TickStatistics();
+
+  /**
+   * the entity tracker.
+   */
+  @NotNull
+  @Getter
+  private final EntityTracker tracker = new EntityTracker(new SpatialIndex());
+
+  /**
+   * the world storage.
+   */
+  @NotNull
+  @Getter
+  private final WorldStorage worldStorage;
+
+  /**
+   * the dropped log events which are already reported.
+   */
+  private long reportedDroppedLogs;
+
+  /**
+   * the current tick.
+   */
+  @Getter
+  private volatile int currentTick;
+
+  /**
+   * the main thread, {@code null} until the server starts.
+   */
+  @Nullable
+  @Getter
+  private volatile Thread mainThread;
+
+  /**
+   * the running.
+   */
+  @Getter
+  private volatile boolean running;
+
+  /**
+   * the start time of the running tick in nanoseconds, 0 while the main thread waits for the next tick.
+   */
+  @Getter(AccessLevel.PACKAGE)
+  private volatile long tickStartedAt;
+
   /**
    * ctor.
    *
    * @param pluginsPath the plugins path.
+   * @param address the address to listen.
    */
-  public ShirukaServer(@NotNull final Path pluginsPath) {
+  public ShirukaServer(@NotNull final Path pluginsPath, @NotNull final InetSocketAddress address) {
     Shiruka.server(this);
+    ShirukaQueueFullPolicy.policy(Config.logOverflowPolicy);
     ShirukaServer.prepareInternalPlugin();
-    this.provider.register(new PluginManager(pluginsPath));
-    this.provider.register(new ShirukaEventManager());
-    this.provider.register(new SyncScheduler());
-    this.provider.register(new AsyncScheduler());
+    this.pluginManager = new PluginManager(pluginsPath);
+    this.syncScheduler = new SyncScheduler();
+    this.asyncScheduler = new AsyncScheduler();
+    this.accounting = Config.pluginAccounting
+      ? new PluginAccounting(ShirukaServer.TICK_DURATION, Config.pluginQuota, Config.pluginQuotaAction)
+      : null;
+    this.syncScheduler.accounting(this.accounting);
+    this.asyncScheduler.accounting(this.accounting);
+    if (this.accounting != null) {
+      this.eventManager.accounting(this.accounting, this.pluginManager, this::mainThread);
+    }
+    this.regions = Config.regionThreading
+      ? new RegionManager(Config.regionThreads, Config.regionSectionShift, Config.regionMergeRadius)
+      : null;
+    try {
+      this.worldStorage = new WorldStorage(Constants.herePath().resolve(Config.worldDirectory),
+        Config.storageBlockCache, this.asyncScheduler);
+    } catch (final IOException e) {
+      throw new IllegalStateException("Could not open the world storage!", e);
+    }
+    this.dataStorage = new DataStorage(Constants.herePath().resolve(Config.dataDirectory), Config.dataCache,
+      Config.dataFlushInterval, this.asyncScheduler);
+    this.generation = new GenerationPipeline(new TerrainGenerator(Config.generationSeed), Config.generationThreads);
+    this.network = new NetworkManager(address, NetworkTransport.detect(Config.useNativeTransport),
+      Config.networkThreads, Config.networkChannels,
+      new BatchCompressor(Config.compressionThreads, Config.compressionLevel, Config.compressionThreshold),
+      new InboundLimits(Config.inboundBytesPerTick, Config.inboundMaxBytes, Config.inboundMaxPackets,
+        Config.inboundPacketsPerTick));
+    this.network.handler(PacketIds.NETWORK_STACK_LATENCY, new LatencyHandler());
+    this.network.handler(PacketIds.LOGIN, new LoginHandler(this.network, Config.onlineMode, this.loginVerifier));
+    this.commands = new ConsoleCommands(this.consoleWorker);
+    ServerCommands.register(this, this.commands);
+    ServerMetrics.register(this, this.eventManager, this.metrics);
+    this.metricsExporter = Config.metricsPort > 0
+      ? new MetricsExporter(this.metrics, new InetSocketAddress(Config.metricsAddress, Config.metricsPort))
+      : null;
+    this.provider.register(this.pluginManager);
+    this.provider.register(this.eventManager);
+    this.provider.register(this.syncScheduler);
+    this.provider.register(this.asyncScheduler);
+    this.provider.register(this.network);
+    this.provider.register(this.loginVerifier);
+    this.provider.register(this.metrics);
+    this.provider.register(this.profiler);
+    this.provider.register(this.commands);
+    this.provider.register(this.worldStorage);
+    this.provider.register(this.dataStorage);
+    this.provider.register(this.generation);
+    this.provider.register(this.tracker);
+    if (this.accounting != null) {
+      this.provider.register(this.accounting);
+    }
+    if (this.regions != null) {
+      this.provider.register(this.regions);
+    }
+    this.provider.register(this.shutdownCoordinator);
+    this.registerShutdownSteps();
   }
 
   /**
@@ -69,6 +350,234 @@ public final class ShirukaServer implements Server {
     return Objects.requireNonNull(ShirukaServer.internalPlugin, "internal plugin");
   }
 
+  /**
+   * runs the given ticks back to back on the current thread without binding the network or waiting between them.
+   * <p>
+   * used by the benchmark mode, the server keeps its state between the calls and is not shut down.
+   *
+   * @param ticks the ticks to run.
+   */
+  public void runTicks(final int ticks) {
+    this.mainThread = Thread.currentThread();
+    for (var index = 0; index < ticks; index++) {
+      this.tick();
+    }
+  }
+
+  /**
+   * starts the server and runs the tick loop on the current thread until the server stops.
+   */
+  public void start() {
+    this.network.start();
+    if (this.metricsExporter != null) {
+      try {
+        this.metricsExporter.start();
+      } catch (final IOException e) {
+        this.logger.error("Could not start the metrics exporter:", e);
+      }
+    }
+    this.running = true;
+    final var mainThread = Thread.currentThread();
+    this.mainThread = mainThread;
+    final var watchdog = Config.watchdogThreshold > 0L
+      ? new Watchdog(this, mainThread, Constants.herePath().resolve("stalls"), Config.watchdogThreshold,
+      Config.watchdogSampleInterval, Config.watchdogKillThreshold)
+      : null;
+    if (watchdog != null) {
+      watchdog.start();
+    }
+    new ShirukaConsole(this, this.commands, this.consoleWorker, Constants.herePath().resolve(".console_history"))
+      .startThread();
+    final var schedulerSnapshot = SchedulerSnapshotEvent.register(this.syncScheduler, this.asyncScheduler);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      this.stop();
+      try {
+        this.stopped.await(Config.shutdownTimeout + ShirukaServer.SHUTDOWN_GRACE, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException ignored) {
+      }
+    }, "Shiru ka Shutdown Thread"));
+    try {
+      this.loop();
+    } finally {
+      if (watchdog != null) {
+        watchdog.stop();
+      }
+      FlightRecorder.removePeriodicEvent(schedulerSnapshot);
+      this.shutdown();
+      LogManager.shutdown();
+      this.stopped.countDown();
+    }
+  }
+
+  /**
+   * stops the tick loop.
+   */
+  public void stop() {
+    this.running = false;
+  }
+
+  /**
+   * runs the tick loop until the server stops.
+   */
+  private void loop() {
+    var nextTick = System.nanoTime();
+    while (this.running) {
+      this.tick();
+      nextTick += ShirukaServer.TICK_DURATION;
+      final var remaining = nextTick - System.nanoTime();
+      if (remaining > 0L) {
+        LockSupport.parkNanos(remaining);
+      } else if (remaining < -ShirukaServer.MAX_BEHIND) {
+        this.logger.warn("Can't keep up! The server is {} ms behind, skipping {} tick(s).",
+          TimeUnit.NANOSECONDS.toMillis(-remaining), -remaining / ShirukaServer.TICK_DURATION);
+        nextTick = System.nanoTime();
+      }
+    }
+  }
+
+  /**
+   * registers the disable steps of the enabled plugins, a plugin is disabled before its dependencies and soft
+   * dependencies.
+   */
+  private void registerPluginSteps() {
+    for (final var plugin : this.pluginManager.getPlugins()) {
+      if (!plugin.enabled()) {
+        continue;
+      }
+      final var description = plugin.description();
+      final var dependencies = new ArrayList<>(description.depends());
+      dependencies.addAll(description.softDepends());
+      this.shutdownCoordinator.plugin(description.name(), dependencies,
+        () -> this.pluginManager.disablePlugin(plugin));
+    }
+  }
+
+  /**
+   * registers the stop steps of the server's services, they run after the plugins are disabled.
+   * <p>
+   * the storages are closed once the async scheduler finished their drained reads and writes, then the async tasks
+   * which are still running are interrupted and the network is closed last, so the clients stay connected until the
+   * worlds and the data are saved.
+   */
+  private void registerShutdownSteps() {
+    final var coordinator = this.shutdownCoordinator;
+    coordinator.service("storages", Set.of("async scheduler"), () -> {
+      try {
+        this.asyncScheduler.awaitTermination(Config.shutdownTimeout, TimeUnit.MILLISECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.worldStorage.close();
+      this.dataStorage.close();
+    });
+    coordinator.service("async scheduler", Set.of("network"), () -> {
+      final var running = this.asyncScheduler.runningTaskNames();
+      if (!running.isEmpty()) {
+        this.logger.warn("Interrupting {} async task(s) which are still running: {}", running.size(), running);
+      }
+      this.asyncScheduler.shutdownNow();
+    });
+    coordinator.service("network", this.network::close);
+    coordinator.service("generation", this.generation::close);
+    coordinator.service("login verifier", this.loginVerifier::shutdown);
+    coordinator.service("console worker", this.consoleWorker::shutdownNow);
+    coordinator.service("profiler", () -> {
+      final var summary = this.profiler.stop();
+      if (summary != null) {
+        summary.forEach(this.logger::info);
+      }
+    });
+    if (this.metricsExporter != null) {
+      coordinator.service("metrics exporter", this.metricsExporter::stop);
+    }
+    final var regions = this.regions;
+    if (regions != null) {
+      coordinator.service("regions", () -> {
+        try {
+          if (!regions.awaitTermination(Config.shutdownTimeout, TimeUnit.MILLISECONDS)) {
+            this.logger.warn("Interrupting the region threads which are still draining.");
+          }
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        regions.shutdownNow();
+      });
+    }
+  }
+
+  /**
+   * shuts the server down after the tick loop stops.
+   * <p>
+   * the schedulers stop accepting new tasks and drain the pending ones first, then the shutdown coordinator disables
+   * the plugins and stops the services within {@link Config#shutdownTimeout}.
+   */
+  private void shutdown() {
+    final var start = System.nanoTime();
+    this.logger.info("Stopping the server...");
+    this.syncScheduler.shutdown(Config.shutdownDrainPolicy);
+    this.asyncScheduler.shutdown(Config.shutdownDrainPolicy);
+    if (this.regions != null) {
+      this.regions.shutdown(Config.shutdownDrainPolicy);
+    }
+    this.registerPluginSteps();
+    final var unfinished = this.shutdownCoordinator.run(Config.shutdownTimeout);
+    this.asyncScheduler.shutdownNow();
+    if (unfinished.isEmpty()) {
+      this.logger.info("The server is stopped in {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } else {
+      this.logger.warn("The server is stopped in {} ms, leaving behind {}.",
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), unfinished);
+    }
+  }
+
+  /**
+   * warns about the log events which are dropped since the last report.
+   */
+  private void reportDroppedLogs() {
+    final var dropped = ShirukaQueueFullPolicy.dropped();
+    if (dropped > this.reportedDroppedLogs) {
+      this.logger.warn("{} log event(s) were dropped since the async logging queue was full.",
+        dropped - this.reportedDroppedLogs);
+      this.reportedDroppedLogs = dropped;
+    }
+  }
+
+  /**
+   * runs a single tick.
+   */
+  private void tick() {
+    final var event = new TickEvent();
+    event.begin();
+    final var start = System.nanoTime();
+    this.tickStartedAt = start;
+    final var tick = ++this.currentTick;
+    this.network.drain();
+    this.commands.drain();
+    this.generation.drain();
+    this.eventManager.dispatchCoalesced();
+    this.syncScheduler.heartbeat(tick);
+    if (this.regions != null) {
+      this.regions.tick(tick);
+    }
+    this.tracker.tick();
+    this.asyncScheduler.heartbeat(tick);
+    this.network.flush();
+    if (this.accounting != null) {
+      this.accounting.tick(tick);
+    }
+    if (tick % ShirukaServer.DROPPED_LOGS_INTERVAL == 0) {
+      this.reportDroppedLogs();
+    }
+    this.tickStartedAt = 0L;
+    this.tickStatistics.record(start, System.nanoTime());
+    event.end();
+    if (event.shouldCommit()) {
+      event.tick = tick;
+      event.mspt = this.tickStatistics.mspt();
+      event.commit();
+    }
+  }
+
   /**
    * prepares the internal plugin to use.
    */
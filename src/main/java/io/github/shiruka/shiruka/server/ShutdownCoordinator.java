@@ -0,0 +1,212 @@
+package io.github.shiruka.shiruka.server;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that runs the shutdown steps of the server in parallel within a deadline.
+ * <p>
+ * the plugins are disabled first, a plugin is disabled before the plugins it depends on and the plugins which do not
+ * depend on each other are disabled at the same time. the services are stopped the same way after every plugin, a
+ * service is stopped before the services it depends on. the steps which are still running at the deadline are
+ * reported with their stack traces and left behind.
+ */
+@Log4j2
+public final class ShutdownCoordinator {
+
+  /**
+   * the plugins' disable steps.
+   */
+  private final Map<String, Step> plugins = new LinkedHashMap<>();
+
+  /**
+   * the services' stop steps.
+   */
+  private final Map<String, Step> services = new LinkedHashMap<>();
+
+  /**
+   * registers the disable step of the given plugin.
+   *
+   * @param name the name of the plugin.
+   * @param dependencies the names of the plugins which the plugin depends on, they are disabled after it.
+   * @param disable the step which disables the plugin.
+   */
+  public synchronized void plugin(@NotNull final String name, @NotNull final Collection<String> dependencies,
+                                  @NotNull final Runnable disable) {
+    this.plugins.put(name, new Step(Set.copyOf(dependencies), disable));
+  }
+
+  /**
+   * runs the steps and waits for them until the timeout.
+   *
+   * @param timeout the timeout in milliseconds.
+   *
+   * @return the names of the steps which did not finish in time.
+   */
+  @NotNull
+  public synchronized List<String> run(final long timeout) {
+    final var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+    final var executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+      .setNameFormat("Shiru ka Shutdown Worker - %1$d")
+      .setDaemon(true)
+      .build());
+    final var unfinished = new ArrayList<String>();
+    try {
+      unfinished.addAll(ShutdownCoordinator.runWaves(executor, this.plugins, "plugin ", deadline));
+      unfinished.addAll(ShutdownCoordinator.runWaves(executor, this.services, "", deadline));
+    } finally {
+      executor.shutdownNow();
+    }
+    return unfinished;
+  }
+
+  /**
+   * registers the stop step of the given service.
+   *
+   * @param name the name of the service.
+   * @param stop the step which stops the service.
+   */
+  public synchronized void service(@NotNull final String name, @NotNull final Runnable stop) {
+    this.service(name, Set.of(), stop);
+  }
+
+  /**
+   * registers the stop step of the given service.
+   *
+   * @param name the name of the service.
+   * @param dependencies the names of the services which the service depends on, they are stopped after it.
+   * @param stop the step which stops the service.
+   */
+  public synchronized void service(@NotNull final String name, @NotNull final Collection<String> dependencies,
+                                   @NotNull final Runnable stop) {
+    this.services.put(name, new Step(Set.copyOf(dependencies), stop));
+  }
+
+  /**
+   * runs the given steps in parallel and waits for them until the deadline.
+   *
+   * @param executor the executor to run.
+   * @param steps the steps to run.
+   * @param deadline the deadline in nanoseconds.
+   *
+   * @return the names of the steps which did not finish in time.
+   */
+  @NotNull
+  private static List<String> runWave(@NotNull final ExecutorService executor,
+                                      @NotNull final Map<String, Runnable> steps, final long deadline) {
+    final var threads = new ConcurrentHashMap<String, Thread>();
+    final var futures = new LinkedHashMap<String, Future<?>>();
+    steps.forEach((name, step) -> futures.put(name, executor.submit(() -> {
+      threads.put(name, Thread.currentThread());
+      try {
+        step.run();
+      } finally {
+        threads.remove(name);
+      }
+    })));
+    final var unfinished = new ArrayList<String>();
+    for (final var entry : futures.entrySet()) {
+      final var name = entry.getKey();
+      try {
+        entry.getValue().get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      } catch (final TimeoutException e) {
+        unfinished.add(name);
+        final var thread = threads.get(name);
+        final var stack = new StringBuilder();
+        if (thread != null) {
+          for (final var element : thread.getStackTrace()) {
+            stack.append("\n\tat ").append(element);
+          }
+        }
+        ShutdownCoordinator.log.warn("The shutdown step '{}' is still running after the timeout:{}", name, stack);
+      } catch (final ExecutionException e) {
+        ShutdownCoordinator.log.error("An exception occurred in the shutdown step '{}':", name, e.getCause());
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        unfinished.add(name);
+      }
+    }
+    return unfinished;
+  }
+
+  /**
+   * runs the given steps in dependency waves and waits for them until the deadline.
+   *
+   * @param executor the executor to run.
+   * @param steps the steps to run.
+   * @param prefix the prefix of the step names.
+   * @param deadline the deadline in nanoseconds.
+   *
+   * @return the names of the steps which did not finish in time.
+   */
+  @NotNull
+  private static List<String> runWaves(@NotNull final ExecutorService executor,
+                                       @NotNull final Map<String, Step> steps,
+                                       @NotNull final String prefix, final long deadline) {
+    final var unfinished = new ArrayList<String>();
+    final var remaining = new LinkedHashMap<>(steps);
+    while (!remaining.isEmpty()) {
+      final var wave = new LinkedHashMap<String, Runnable>();
+      for (final var name : ShutdownCoordinator.wave(remaining)) {
+        wave.put(prefix + name, remaining.remove(name).run());
+      }
+      unfinished.addAll(ShutdownCoordinator.runWave(executor, wave, deadline));
+    }
+    return unfinished;
+  }
+
+  /**
+   * finds the steps which no remaining step depends on.
+   *
+   * @param remaining the remaining steps.
+   *
+   * @return names of the steps which can run now.
+   */
+  @NotNull
+  private static List<String> wave(@NotNull final Map<String, Step> remaining) {
+    final var required = new HashSet<String>();
+    for (final var step : remaining.values()) {
+      required.addAll(step.dependencies());
+    }
+    final var wave = new ArrayList<String>();
+    for (final var name : remaining.keySet()) {
+      if (!required.contains(name)) {
+        wave.add(name);
+      }
+    }
+    if (wave.isEmpty()) {
+      ShutdownCoordinator.log.warn("The shutdown steps {} depend on each other, running them together.",
+        remaining.keySet());
+      wave.addAll(remaining.keySet());
+    }
+    return wave;
+  }
+
+  /**
+   * a record class that represents shutdown steps.
+   *
+   * @param dependencies the dependencies.
+   * @param run the run.
+   */
+  private record Step(
+    @NotNull Set<String> dependencies,
+    @NotNull Runnable run
+  ) {
+
+  }
+}
@@ -0,0 +1,87 @@
+package io.github.shiruka.shiruka.server;
+
+import io.github.shiruka.shiruka.metrics.Histogram;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents statistics of the main thread's ticks.
+ * <p>
+ * recorded only by the main thread, the rolling values are published through volatile fields.
+ */
+@Accessors(fluent = true)
+public final class TickStatistics {
+
+  /**
+   * the rolling window in ticks.
+   */
+  private static final int WINDOW = 100;
+
+  /**
+   * the durations of the ticks in the window.
+   */
+  private final long[] durations = new long[TickStatistics.WINDOW];
+
+  /**
+   * the tick duration histogram in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram histogram = new Histogram();
+
+  /**
+   * the start times of the ticks in the window.
+   */
+  private final long[] starts = new long[TickStatistics.WINDOW];
+
+  /**
+   * the index.
+   */
+  private int index;
+
+  /**
+   * the average milliseconds per tick in the window.
+   */
+  @Getter
+  private volatile double mspt;
+
+  /**
+   * the recorded ticks.
+   */
+  @Getter
+  private volatile long ticks;
+
+  /**
+   * the ticks per second in the window.
+   */
+  @Getter
+  private volatile double tps;
+
+  /**
+   * records the given tick.
+   *
+   * @param start the start time of the tick in nanoseconds.
+   * @param end the end time of the tick in nanoseconds.
+   */
+  void record(final long start, final long end) {
+    final var duration = end - start;
+    this.histogram.record(duration);
+    this.durations[this.index] = duration;
+    this.starts[this.index] = start;
+    this.index = (this.index + 1) % TickStatistics.WINDOW;
+    final var ticks = this.ticks + 1L;
+    this.ticks = ticks;
+    final var count = (int) Math.min(ticks, TickStatistics.WINDOW);
+    var total = 0L;
+    for (var offset = 0; offset < count; offset++) {
+      total += this.durations[offset];
+    }
+    this.mspt = (double) total / count / TimeUnit.MILLISECONDS.toNanos(1L);
+    if (count > 1) {
+      final var oldest = this.starts[count < TickStatistics.WINDOW ? 0 : this.index];
+      this.tps = Math.min(20.0D, (count - 1) * (double) TimeUnit.SECONDS.toNanos(1L) / (start - oldest));
+    }
+  }
+}
@@ -0,0 +1,344 @@
+package io.github.shiruka.shiruka.server;
+
+import io.github.shiruka.shiruka.scheduler.SyncScheduler;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents watchdogs which detect stalls of the main thread.
+ * <p>
+ * while a tick runs longer than the threshold, the main thread's stack and the scheduler's current task are sampled
+ * every interval. a partial stall report is written as soon as the threshold is crossed and rewritten every
+ * {@value #REPORT_SAMPLES} samples, so a tick which never ends still leaves a report behind. the report is completed
+ * when the tick finally ends, or right before the process is halted when the optional kill threshold is reached. the
+ * last {@value #MAX_SAMPLES} samples of a stall are kept.
+ */
+@Log4j2
+final class Watchdog implements Runnable {
+
+  /**
+   * the date format of the report files.
+   */
+  private static final DateTimeFormatter FILE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+  /**
+   * the maximum samples which are kept of a stall.
+   */
+  private static final int MAX_SAMPLES = 64;
+
+  /**
+   * the samples between two rewrites of the report of an ongoing stall.
+   */
+  private static final int REPORT_SAMPLES = 20;
+
+  /**
+   * the sample interval in nanoseconds.
+   */
+  private final long interval;
+
+  /**
+   * the kill threshold in nanoseconds, 0 disables it.
+   */
+  private final long killThreshold;
+
+  /**
+   * the main thread.
+   */
+  @NotNull
+  private final Thread mainThread;
+
+  /**
+   * the reports path.
+   */
+  @NotNull
+  private final Path reportsPath;
+
+  /**
+   * the server.
+   */
+  @NotNull
+  private final ShirukaServer server;
+
+  /**
+   * the threshold in nanoseconds.
+   */
+  private final long threshold;
+
+  /**
+   * the current stall.
+   */
+  @Nullable
+  private Stall stall;
+
+  /**
+   * the thread.
+   */
+  @Nullable
+  private Thread thread;
+
+  /**
+   * ctor.
+   *
+   * @param server the server.
+   * @param mainThread the main thread.
+   * @param reportsPath the reports path.
+   * @param threshold the threshold in milliseconds.
+   * @param interval the sample interval in milliseconds.
+   * @param killThreshold the kill threshold in milliseconds, 0 disables it.
+   */
+  Watchdog(@NotNull final ShirukaServer server, @NotNull final Thread mainThread, @NotNull final Path reportsPath,
+           final long threshold, final long interval, final long killThreshold) {
+    this.server = server;
+    this.mainThread = mainThread;
+    this.reportsPath = reportsPath;
+    this.threshold = TimeUnit.MILLISECONDS.toNanos(threshold);
+    this.interval = TimeUnit.MILLISECONDS.toNanos(Math.max(10L, interval));
+    this.killThreshold = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, killThreshold));
+  }
+
+  /**
+   * describes the given task.
+   *
+   * @param task the task to describe.
+   *
+   * @return task description.
+   */
+  @NotNull
+  private static String describe(@Nullable final SyncScheduler.SyncTask task) {
+    if (task == null) {
+      return "none";
+    }
+    final var inner = task.task();
+    return "#%d '%s' of %s".formatted(task.id(), inner.name(), inner.plugin().description().fullName());
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(this.interval);
+      } catch (final InterruptedException e) {
+        break;
+      }
+      try {
+        this.check();
+      } catch (final Exception e) {
+        Watchdog.log.error("The watchdog could not check the main thread:", e);
+      }
+    }
+    if (this.stall != null) {
+      this.finish(System.nanoTime());
+    }
+  }
+
+  /**
+   * starts the watchdog thread.
+   */
+  void start() {
+    final var thread = new Thread(this, "Shiru ka Watchdog Thread");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MAX_PRIORITY);
+    thread.start();
+    this.thread = thread;
+  }
+
+  /**
+   * stops the watchdog thread.
+   */
+  void stop() {
+    if (this.thread != null) {
+      this.thread.interrupt();
+      this.thread = null;
+    }
+  }
+
+  /**
+   * checks the running tick.
+   */
+  private void check() {
+    final var now = System.nanoTime();
+    final var startedAt = this.server.tickStartedAt();
+    if (this.stall != null && this.stall.startedAt != startedAt) {
+      this.finish(now);
+    }
+    if (startedAt == 0L || now - startedAt < this.threshold) {
+      return;
+    }
+    final var task = Watchdog.describe(this.server.syncScheduler().currentTask());
+    var stall = this.stall;
+    if (stall == null) {
+      stall = new Stall(this.server.currentTick(), startedAt, this.reportsPath.resolve("stall-%s.txt"
+        .formatted(LocalDateTime.now().format(Watchdog.FILE_DATE))));
+      this.stall = stall;
+    }
+    stall.add(new Sample(now - startedAt, task, this.mainThread.getStackTrace()));
+    if (this.killThreshold > 0L && now - startedAt >= this.killThreshold) {
+      final var report = this.write(stall, now, "ongoing, the server is halted");
+      Watchdog.log.fatal("The main thread has been stuck for {} ms, halting the server. Stall report: {}",
+        TimeUnit.NANOSECONDS.toMillis(now - startedAt), report);
+      LogManager.shutdown();
+      Runtime.getRuntime().halt(1);
+    }
+    if ((stall.taken - 1) % Watchdog.REPORT_SAMPLES == 0) {
+      final var report = this.write(stall, now, "ongoing, the report is rewritten while the tick runs");
+      Watchdog.log.warn("The main thread has been stuck in tick {} for {} ms, running task {}. Stall report: {}",
+        stall.tick, TimeUnit.NANOSECONDS.toMillis(now - startedAt), task, report);
+    }
+  }
+
+  /**
+   * finishes the current stall.
+   *
+   * @param now the current time in nanoseconds.
+   */
+  private void finish(final long now) {
+    final var stall = this.stall;
+    this.stall = null;
+    if (stall == null) {
+      return;
+    }
+    final var report = this.write(stall, now, "at most one sample interval longer");
+    Watchdog.log.warn("The main thread recovered from a stall of at least {} ms in tick {}. Stall report: {}",
+      TimeUnit.NANOSECONDS.toMillis(now - stall.startedAt), stall.tick, report);
+  }
+
+  /**
+   * writes the report of the given stall.
+   *
+   * @param stall the stall to write.
+   * @param now the current time in nanoseconds.
+   * @param state the state of the stall.
+   *
+   * @return path of the written report, or the report itself if it could not be written.
+   */
+  @NotNull
+  private String write(@NotNull final Stall stall, final long now, @NotNull final String state) {
+    final var samples = stall.samples();
+    final var lines = new ArrayList<String>();
+    lines.add("Shiru ka stall report");
+    lines.add("Tick: " + stall.tick);
+    lines.add("Duration: %d ms (%s)".formatted(TimeUnit.NANOSECONDS.toMillis(now - stall.startedAt), state));
+    lines.add(stall.taken > samples.size()
+      ? "Samples: %d, the oldest %d are dropped".formatted(stall.taken, stall.taken - samples.size())
+      : "Samples: " + stall.taken);
+    StackTraceElement[] previous = null;
+    for (final var sample : samples) {
+      lines.add("");
+      lines.add("Sample at +%d ms, running task %s".formatted(TimeUnit.NANOSECONDS.toMillis(sample.elapsed()),
+        sample.task()));
+      if (Arrays.equals(previous, sample.stack())) {
+        lines.add("  (same stack as the previous sample)");
+        continue;
+      }
+      previous = sample.stack();
+      for (final var element : sample.stack()) {
+        lines.add("  at " + element);
+      }
+    }
+    final var file = stall.file;
+    try {
+      Files.createDirectories(this.reportsPath);
+      Files.write(file, lines);
+      return file.toString();
+    } catch (final IOException e) {
+      Watchdog.log.error("Could not write the stall report to {}:", file, e);
+      return String.join(System.lineSeparator(), lines);
+    }
+  }
+
+  /**
+   * a record class that represents stack samples of a stall.
+   *
+   * @param elapsed the elapsed time since the tick started in nanoseconds.
+   * @param task the running task.
+   * @param stack the stack of the main thread.
+   */
+  private record Sample(
+    long elapsed,
+    @NotNull String task,
+    @NotNull StackTraceElement[] stack
+  ) {
+
+  }
+
+  /**
+   * a class that represents stalls of the main thread.
+   */
+  private static final class Stall {
+
+    /**
+     * the report file.
+     */
+    @NotNull
+    private final Path file;
+
+    /**
+     * the ring buffer of the last samples.
+     */
+    private final Sample[] samples = new Sample[Watchdog.MAX_SAMPLES];
+
+    /**
+     * the start time of the tick in nanoseconds.
+     */
+    private final long startedAt;
+
+    /**
+     * the tick.
+     */
+    private final int tick;
+
+    /**
+     * the samples which are taken.
+     */
+    private int taken;
+
+    /**
+     * ctor.
+     *
+     * @param tick the tick.
+     * @param startedAt the start time of the tick in nanoseconds.
+     * @param file the report file.
+     */
+    private Stall(final int tick, final long startedAt, @NotNull final Path file) {
+      this.tick = tick;
+      this.startedAt = startedAt;
+      this.file = file;
+    }
+
+    /**
+     * adds the given sample, replacing the oldest one if the ring buffer is full.
+     *
+     * @param sample the sample to add.
+     */
+    private void add(@NotNull final Sample sample) {
+      this.samples[this.taken % this.samples.length] = sample;
+      this.taken++;
+    }
+
+    /**
+     * obtains the kept samples from the oldest to the newest.
+     *
+     * @return kept samples.
+     */
+    @NotNull
+    private List<Sample> samples() {
+      final var kept = Math.min(this.taken, this.samples.length);
+      final var samples = new ArrayList<Sample>(kept);
+      for (var index = this.taken - kept; index < this.taken; index++) {
+        samples.add(this.samples[index % this.samples.length]);
+      }
+      return samples;
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the uncompressed blocks of a table.
+ * <p>
+ * the entries are prefix compressed against the previous key and every restart point stores its key in full, so
+ * seeks do a binary search over the restart points and scan the rest.
+ */
+final class Block {
+
+  /**
+   * the data.
+   */
+  @NotNull
+  private final ByteBuffer data;
+
+  /**
+   * the restart point count.
+   */
+  private final int restartCount;
+
+  /**
+   * the offset of the restart points.
+   */
+  private final int restarts;
+
+  /**
+   * ctor.
+   *
+   * @param data the data.
+   */
+  Block(@NotNull final ByteBuffer data) {
+    this.data = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+    this.restartCount = this.data.getInt(this.data.limit() - 4);
+    this.restarts = this.data.limit() - 4 - (this.restartCount << 2);
+  }
+
+  /**
+   * creates a new cursor on the block.
+   *
+   * @return a new cursor which is not positioned yet.
+   */
+  @NotNull
+  Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * obtains the size of the block.
+   *
+   * @return size.
+   */
+  int size() {
+    return this.data.capacity();
+  }
+
+  /**
+   * a class that represents cursors over the entries of a block.
+   */
+  final class Cursor {
+
+    /**
+     * the view of the data.
+     */
+    private final ByteBuffer view = Block.this.data.duplicate();
+
+    /**
+     * the current key.
+     */
+    private byte[] key = new byte[0];
+
+    /**
+     * the offset of the next entry.
+     */
+    private int next;
+
+    /**
+     * the validity.
+     */
+    private boolean valid;
+
+    /**
+     * the current value's length.
+     */
+    private int valueLength;
+
+    /**
+     * the current value's offset.
+     */
+    private int valueOffset;
+
+    /**
+     * ctor.
+     */
+    private Cursor() {
+    }
+
+    /**
+     * obtains the current key.
+     *
+     * @return current key.
+     */
+    @NotNull
+    byte[] key() {
+      return this.key;
+    }
+
+    /**
+     * moves to the next entry.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     */
+    boolean next() {
+      if (this.next >= Block.this.restarts) {
+        this.valid = false;
+        return false;
+      }
+      this.view.position(this.next);
+      final var shared = (int) Coding.readVarInt(this.view);
+      final var nonShared = (int) Coding.readVarInt(this.view);
+      this.valueLength = (int) Coding.readVarInt(this.view);
+      final var key = new byte[shared + nonShared];
+      System.arraycopy(this.key, 0, key, 0, shared);
+      this.view.get(key, shared, nonShared);
+      this.key = key;
+      this.valueOffset = this.view.position();
+      this.next = this.valueOffset + this.valueLength;
+      this.valid = true;
+      return true;
+    }
+
+    /**
+     * moves to the first entry whose key is equal to or greater than the given internal key.
+     *
+     * @param target the target to seek.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     */
+    boolean seek(@NotNull final byte[] target) {
+      var left = 0;
+      var right = Block.this.restartCount - 1;
+      while (left < right) {
+        final var middle = left + right + 1 >>> 1;
+        this.restart(middle);
+        this.next();
+        if (InternalKeys.compare(this.key, target) < 0) {
+          left = middle;
+        } else {
+          right = middle - 1;
+        }
+      }
+      this.restart(left);
+      while (this.next()) {
+        if (InternalKeys.compare(this.key, target) >= 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * moves to the first entry.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     */
+    boolean seekToFirst() {
+      this.restart(0);
+      return this.next();
+    }
+
+    /**
+     * checks if the cursor is on an entry.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     */
+    boolean valid() {
+      return this.valid;
+    }
+
+    /**
+     * copies the current value.
+     *
+     * @return current value.
+     */
+    @NotNull
+    byte[] value() {
+      final var value = new byte[this.valueLength];
+      this.view.get(this.valueOffset, value);
+      return value;
+    }
+
+    /**
+     * reads the current value as a block handle.
+     *
+     * @return block handle.
+     */
+    @NotNull
+    BlockHandle valueHandle() {
+      return BlockHandle.read(this.view.position(this.valueOffset));
+    }
+
+    /**
+     * moves before the entry of the given restart point.
+     *
+     * @param index the index of the restart point.
+     */
+    private void restart(final int index) {
+      this.key = new byte[0];
+      this.next = Block.this.restartCount == 0
+        ? Block.this.restarts
+        : Block.this.data.getInt(Block.this.restarts + (index << 2));
+      this.valid = false;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package io.github.shiruka.shiruka.storage;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents builders of the prefix compressed blocks of a table.
+ */
+final class BlockBuilder {
+
+  /**
+   * the entry count between the restart points.
+   */
+  private static final int RESTART_INTERVAL = 16;
+
+  /**
+   * the buffer.
+   */
+  private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+
+  /**
+   * the restart points.
+   */
+  private final IntArrayList restarts = new IntArrayList();
+
+  /**
+   * the entry count since the last restart point.
+   */
+  private int counter;
+
+  /**
+   * the last key.
+   */
+  private byte[] lastKey = new byte[0];
+
+  /**
+   * ctor.
+   */
+  BlockBuilder() {
+    this.restarts.add(0);
+  }
+
+  /**
+   * adds the given entry, the keys have to be added in order.
+   *
+   * @param key the key to add.
+   * @param value the value to add.
+   */
+  void add(@NotNull final byte[] key, @NotNull final byte[] value) {
+    var shared = 0;
+    if (this.counter < BlockBuilder.RESTART_INTERVAL) {
+      final var mismatch = Arrays.mismatch(this.lastKey, key);
+      shared = mismatch < 0 ? key.length : Math.min(mismatch, key.length);
+    } else {
+      this.restarts.add(this.buffer.size());
+      this.counter = 0;
+    }
+    Coding.putVarInt(this.buffer, shared);
+    Coding.putVarInt(this.buffer, key.length - shared);
+    Coding.putVarInt(this.buffer, value.length);
+    this.buffer.write(key, shared, key.length - shared);
+    this.buffer.writeBytes(value);
+    this.lastKey = key;
+    this.counter++;
+  }
+
+  /**
+   * obtains the estimated size of the finished block.
+   *
+   * @return estimated size.
+   */
+  int estimatedSize() {
+    return this.buffer.size() + (this.restarts.size() << 2) + 4;
+  }
+
+  /**
+   * finishes the block and resets the builder.
+   *
+   * @return block contents.
+   */
+  @NotNull
+  byte[] finish() {
+    for (var index = 0; index < this.restarts.size(); index++) {
+      Coding.putFixed32(this.buffer, this.restarts.getInt(index));
+    }
+    Coding.putFixed32(this.buffer, this.restarts.size());
+    final var contents = this.buffer.toByteArray();
+    this.buffer.reset();
+    this.restarts.clear();
+    this.restarts.add(0);
+    this.counter = 0;
+    this.lastKey = new byte[0];
+    return contents;
+  }
+
+  /**
+   * checks if the block has no entry.
+   *
+   * @return {@code true} if the block has no entry.
+   */
+  boolean isEmpty() {
+    return this.buffer.size() == 0;
+  }
+}
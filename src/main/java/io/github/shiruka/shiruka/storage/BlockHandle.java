@@ -0,0 +1,51 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents pointers to the blocks of a table.
+ *
+ * @param offset the offset of the block.
+ * @param size the size of the block without its trailer.
+ */
+record BlockHandle(
+  long offset,
+  long size
+) {
+
+  /**
+   * reads a block handle.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return block handle.
+   */
+  @NotNull
+  static BlockHandle read(@NotNull final ByteBuffer buffer) {
+    return new BlockHandle(Coding.readVarInt(buffer), Coding.readVarInt(buffer));
+  }
+
+  /**
+   * encodes the handle.
+   *
+   * @return encoded handle.
+   */
+  @NotNull
+  byte[] encode() {
+    final var output = new ByteArrayOutputStream(20);
+    this.write(output);
+    return output.toByteArray();
+  }
+
+  /**
+   * writes the handle.
+   *
+   * @param output the output to write.
+   */
+  void write(@NotNull final ByteArrayOutputStream output) {
+    Coding.putVarInt(output, this.offset);
+    Coding.putVarInt(output, this.size);
+  }
+}
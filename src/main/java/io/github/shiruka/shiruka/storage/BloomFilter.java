@@ -0,0 +1,175 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the filter blocks of leveldb's builtin bloom filter policy.
+ * <p>
+ * the filters are built on the user keys of every 2 KB range of the data block offsets, so a negative answer skips
+ * reading the data block of a key which is not in the table.
+ */
+final class BloomFilter {
+
+  /**
+   * the name of the filter in the meta index block.
+   */
+  static final String NAME = "filter.leveldb.BuiltinBloomFilter2";
+
+  /**
+   * the seed of the hash.
+   */
+  private static final int SEED = 0xbc9f1d34;
+
+  /**
+   * the base lg of the filter ranges.
+   */
+  private final int baseLg;
+
+  /**
+   * the data.
+   */
+  @NotNull
+  private final ByteBuffer data;
+
+  /**
+   * the filter count.
+   */
+  private final int filters;
+
+  /**
+   * the offset of the filter offsets.
+   */
+  private final int offsets;
+
+  /**
+   * ctor.
+   *
+   * @param data the data.
+   */
+  private BloomFilter(@NotNull final ByteBuffer data) {
+    this.data = data;
+    this.baseLg = data.get(data.limit() - 1);
+    this.offsets = data.getInt(data.limit() - 5);
+    this.filters = (data.limit() - 5 - this.offsets) >>> 2;
+  }
+
+  /**
+   * reads the given filter block.
+   *
+   * @param block the block to read.
+   *
+   * @return filter, {@code null} if the block is malformed.
+   */
+  @Nullable
+  static BloomFilter read(@NotNull final ByteBuffer block) {
+    final var data = block.slice().order(ByteOrder.LITTLE_ENDIAN);
+    if (data.limit() < 5) {
+      return null;
+    }
+    final var offsets = data.getInt(data.limit() - 5);
+    if (offsets < 0 || offsets > data.limit() - 5) {
+      return null;
+    }
+    return new BloomFilter(data);
+  }
+
+  /**
+   * computes leveldb's hash of the given key.
+   *
+   * @param key the key to hash.
+   * @param signed the signed tail bytes which the older builds of leveldb use.
+   *
+   * @return hash.
+   */
+  private static int hash(@NotNull final byte[] key, final boolean signed) {
+    final var multiplier = 0xc6a4a793;
+    var hash = BloomFilter.SEED ^ key.length * multiplier;
+    var index = 0;
+    for (; index + 4 <= key.length; index += 4) {
+      hash += key[index] & 0xFF | (key[index + 1] & 0xFF) << 8 | (key[index + 2] & 0xFF) << 16
+        | (key[index + 3] & 0xFF) << 24;
+      hash *= multiplier;
+      hash ^= hash >>> 16;
+    }
+    final var mask = signed ? -1 : 0xFF;
+    final var tail = key.length - index;
+    if (tail == 0) {
+      return hash;
+    }
+    if (tail == 3) {
+      hash += (key[index + 2] & mask) << 16;
+    }
+    if (tail >= 2) {
+      hash += (key[index + 1] & mask) << 8;
+    }
+    hash += key[index] & mask;
+    hash *= multiplier;
+    hash ^= hash >>> 24;
+    return hash;
+  }
+
+  /**
+   * checks if the bloom filter at the given range may contain the given hash.
+   *
+   * @param start the start of the filter.
+   * @param limit the limit of the filter.
+   * @param initial the hash of the key.
+   *
+   * @return {@code false} if the key is not in the filter.
+   */
+  private boolean contains(final int start, final int limit, final int initial) {
+    final var length = limit - start;
+    if (length < 2) {
+      return false;
+    }
+    final var probes = this.data.get(limit - 1);
+    if (probes > 30) {
+      return true;
+    }
+    final var bits = (length - 1) * 8L;
+    final var delta = initial >>> 17 | initial << 15;
+    var hash = initial;
+    for (var probe = 0; probe < probes; probe++) {
+      final var position = Integer.toUnsignedLong(hash) % bits;
+      if ((this.data.get(start + (int) (position >>> 3)) & 1 << (position & 7)) == 0) {
+        return false;
+      }
+      hash += delta;
+    }
+    return true;
+  }
+
+  /**
+   * checks if the data block at the given offset may contain the given user key.
+   *
+   * @param blockOffset the offset of the data block.
+   * @param userKey the user key to check.
+   *
+   * @return {@code false} if the key is not in the data block.
+   */
+  boolean mayContain(final long blockOffset, @NotNull final byte[] userKey) {
+    final var index = blockOffset >>> this.baseLg;
+    if (index >= this.filters) {
+      return true;
+    }
+    final var start = this.data.getInt(this.offsets + ((int) index << 2));
+    final var limit = index + 1 < this.filters
+      ? this.data.getInt(this.offsets + ((int) index + 1 << 2))
+      : this.offsets;
+    if (start > limit || limit > this.offsets) {
+      return true;
+    }
+    if (start == limit) {
+      return false;
+    }
+    final var unsigned = BloomFilter.hash(userKey, false);
+    if (this.contains(start, limit, unsigned)) {
+      return true;
+    }
+    final var signed = BloomFilter.hash(userKey, true);
+    return signed != unsigned && this.contains(start, limit, signed);
+  }
+}
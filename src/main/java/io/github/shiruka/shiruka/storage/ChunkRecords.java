@@ -0,0 +1,57 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a record class that represents the raw records of a chunk which are stored in a bedrock edition world.
+ *
+ * @param version the version record, {@code null} if the chunk does not exist.
+ * @param biomes the height map and biome record.
+ * @param subChunks the sub-chunk records from the lowest sub-chunk index, the missing ones are {@code null}.
+ * @param blockEntities the block entity record.
+ * @param entities the entity record.
+ */
+public record ChunkRecords(
+  @Nullable byte[] version,
+  @Nullable byte[] biomes,
+  @NotNull List<byte[]> subChunks,
+  @Nullable byte[] blockEntities,
+  @Nullable byte[] entities
+) {
+
+  /**
+   * checks if the chunk exists.
+   *
+   * @return {@code true} if the chunk has a version record.
+   */
+  public boolean exists() {
+    return this.version != null;
+  }
+
+  /**
+   * obtains the total bytes of the records.
+   *
+   * @return size in bytes.
+   */
+  public long size() {
+    var size = ChunkRecords.size(this.version) + ChunkRecords.size(this.biomes)
+      + ChunkRecords.size(this.blockEntities) + ChunkRecords.size(this.entities);
+    for (final var subChunk : this.subChunks) {
+      size += ChunkRecords.size(subChunk);
+    }
+    return size;
+  }
+
+  /**
+   * obtains the size of the given record.
+   *
+   * @param record the record to get.
+   *
+   * @return size in bytes.
+   */
+  private static long size(@Nullable final byte[] record) {
+    return record == null ? 0L : record.length;
+  }
+}
@@ -0,0 +1,118 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that contains the leveldb encodings of numbers, length-prefixed slices and checksums.
+ */
+final class Coding {
+
+  /**
+   * the delta which masks the stored checksums.
+   */
+  private static final int MASK_DELTA = 0xa282ead8;
+
+  /**
+   * ctor.
+   */
+  private Coding() {
+  }
+
+  /**
+   * masks the given crc32c so checksums of data which contains checksums stay useful.
+   *
+   * @param crc the crc to mask.
+   *
+   * @return masked checksum.
+   */
+  static int mask(@NotNull final CRC32C crc) {
+    final var value = (int) crc.getValue();
+    return (value >>> 15 | value << 17) + Coding.MASK_DELTA;
+  }
+
+  /**
+   * writes the given int as 4 little endian bytes.
+   *
+   * @param output the output to write.
+   * @param value the value to write.
+   */
+  static void putFixed32(@NotNull final ByteArrayOutputStream output, final int value) {
+    output.write(value);
+    output.write(value >>> 8);
+    output.write(value >>> 16);
+    output.write(value >>> 24);
+  }
+
+  /**
+   * writes the given long as 8 little endian bytes.
+   *
+   * @param output the output to write.
+   * @param value the value to write.
+   */
+  static void putFixed64(@NotNull final ByteArrayOutputStream output, final long value) {
+    Coding.putFixed32(output, (int) value);
+    Coding.putFixed32(output, (int) (value >>> 32));
+  }
+
+  /**
+   * writes the given bytes with a varint length prefix.
+   *
+   * @param output the output to write.
+   * @param bytes the bytes to write.
+   */
+  static void putLengthPrefixed(@NotNull final ByteArrayOutputStream output, @NotNull final byte[] bytes) {
+    Coding.putVarInt(output, bytes.length);
+    output.writeBytes(bytes);
+  }
+
+  /**
+   * writes the given unsigned value as a varint.
+   *
+   * @param output the output to write.
+   * @param value the value to write.
+   */
+  static void putVarInt(@NotNull final ByteArrayOutputStream output, final long value) {
+    var remaining = value;
+    while ((remaining & ~0x7FL) != 0L) {
+      output.write((int) (remaining & 0x7FL) | 0x80);
+      remaining >>>= 7;
+    }
+    output.write((int) remaining);
+  }
+
+  /**
+   * reads a varint length prefixed byte array.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return bytes.
+   */
+  @NotNull
+  static byte[] readLengthPrefixed(@NotNull final ByteBuffer buffer) {
+    final var bytes = new byte[(int) Coding.readVarInt(buffer)];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * reads an unsigned varint of at most 64 bits.
+   *
+   * @param buffer the buffer to read.
+   *
+   * @return value.
+   */
+  static long readVarInt(@NotNull final ByteBuffer buffer) {
+    var value = 0L;
+    for (var shift = 0; shift < 64; shift += 7) {
+      final var current = buffer.get();
+      value |= (current & 0x7FL) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("The varint is too long!");
+  }
+}
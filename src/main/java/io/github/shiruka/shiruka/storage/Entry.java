@@ -0,0 +1,24 @@
+package io.github.shiruka.shiruka.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents the entries which are found in a memtable or a table.
+ *
+ * @param key the internal key.
+ * @param value the value.
+ */
+record Entry(
+  @NotNull byte[] key,
+  @NotNull byte[] value
+) {
+
+  /**
+   * checks if the entry is a deletion.
+   *
+   * @return {@code true} if the entry is a deletion.
+   */
+  boolean deleted() {
+    return InternalKeys.type(this.key) == InternalKeys.TYPE_DELETION;
+  }
+}
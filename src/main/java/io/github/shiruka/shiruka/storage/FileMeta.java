@@ -0,0 +1,44 @@
+package io.github.shiruka.shiruka.storage;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a record class that represents the metadata of the table files.
+ *
+ * @param number the file number.
+ * @param size the file size.
+ * @param smallest the smallest internal key.
+ * @param largest the largest internal key.
+ */
+record FileMeta(
+  long number,
+  long size,
+  @NotNull byte[] smallest,
+  @NotNull byte[] largest
+) {
+
+  /**
+   * checks if the file's key range contains the given user key.
+   *
+   * @param userKey the user key to check.
+   *
+   * @return {@code true} if the file may contain the user key.
+   */
+  boolean contains(@NotNull final byte[] userKey) {
+    final var key = InternalKeys.encode(userKey, 0L, 0);
+    return InternalKeys.compareUser(this.smallest, key) <= 0 && InternalKeys.compareUser(this.largest, key) >= 0;
+  }
+
+  /**
+   * checks if the file's key range overlaps the given user key range.
+   *
+   * @param smallest the smallest internal key of the range.
+   * @param largest the largest internal key of the range.
+   *
+   * @return {@code true} if the ranges overlap.
+   */
+  boolean overlaps(@NotNull final byte[] smallest, @NotNull final byte[] largest) {
+    return InternalKeys.compareUser(this.largest, smallest) >= 0
+      && InternalKeys.compareUser(this.smallest, largest) <= 0;
+  }
+}
@@ -0,0 +1,148 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that encodes and compares leveldb's internal keys.
+ * <p>
+ * an internal key is the user key followed by 8 little endian bytes which pack the sequence number and the type,
+ * the keys are ordered by the user key bytewise and then by the newest sequence first.
+ */
+final class InternalKeys {
+
+  /**
+   * the comparator of the internal keys.
+   */
+  static final Comparator<byte[]> COMPARATOR = InternalKeys::compare;
+
+  /**
+   * the maximum sequence number.
+   */
+  static final long MAX_SEQUENCE = (1L << 56) - 1L;
+
+  /**
+   * the type of the deletions.
+   */
+  static final int TYPE_DELETION = 0;
+
+  /**
+   * the type of the values.
+   */
+  static final int TYPE_VALUE = 1;
+
+  /**
+   * ctor.
+   */
+  private InternalKeys() {
+  }
+
+  /**
+   * compares the given internal keys.
+   *
+   * @param first the first key to compare.
+   * @param second the second key to compare.
+   *
+   * @return comparison result.
+   */
+  static int compare(@NotNull final byte[] first, @NotNull final byte[] second) {
+    final var result = InternalKeys.compareUser(first, second);
+    if (result != 0) {
+      return result;
+    }
+    return Long.compareUnsigned(InternalKeys.trailer(second), InternalKeys.trailer(first));
+  }
+
+  /**
+   * compares the user keys of the given internal keys.
+   *
+   * @param first the first key to compare.
+   * @param second the second key to compare.
+   *
+   * @return comparison result.
+   */
+  static int compareUser(@NotNull final byte[] first, @NotNull final byte[] second) {
+    return Arrays.compareUnsigned(first, 0, first.length - 8, second, 0, second.length - 8);
+  }
+
+  /**
+   * encodes an internal key.
+   *
+   * @param userKey the user key to encode.
+   * @param sequence the sequence to encode.
+   * @param type the type to encode.
+   *
+   * @return internal key.
+   */
+  @NotNull
+  static byte[] encode(@NotNull final byte[] userKey, final long sequence, final int type) {
+    final var key = Arrays.copyOf(userKey, userKey.length + 8);
+    final var trailer = sequence << 8 | type;
+    for (var index = 0; index < 8; index++) {
+      key[userKey.length + index] = (byte) (trailer >>> (index << 3));
+    }
+    return key;
+  }
+
+  /**
+   * obtains the sequence of the given internal key.
+   *
+   * @param key the key to get.
+   *
+   * @return sequence.
+   */
+  static long sequence(@NotNull final byte[] key) {
+    return InternalKeys.trailer(key) >>> 8;
+  }
+
+  /**
+   * obtains the trailer of the given internal key.
+   *
+   * @param key the key to get.
+   *
+   * @return trailer.
+   */
+  static long trailer(@NotNull final byte[] key) {
+    var trailer = 0L;
+    for (var index = 7; index >= 0; index--) {
+      trailer = trailer << 8 | key[key.length - 8 + index] & 0xFFL;
+    }
+    return trailer;
+  }
+
+  /**
+   * obtains the type of the given internal key.
+   *
+   * @param key the key to get.
+   *
+   * @return type.
+   */
+  static int type(@NotNull final byte[] key) {
+    return (int) (InternalKeys.trailer(key) & 0xFFL);
+  }
+
+  /**
+   * checks if the given internal key has the given user key.
+   *
+   * @param key the internal key to check.
+   * @param userKey the user key to check.
+   *
+   * @return {@code true} if the user keys are equal.
+   */
+  static boolean userKeyEquals(@NotNull final byte[] key, @NotNull final byte[] userKey) {
+    return Arrays.equals(key, 0, key.length - 8, userKey, 0, userKey.length);
+  }
+
+  /**
+   * obtains the user key of the given internal key.
+   *
+   * @param key the key to get.
+   *
+   * @return user key.
+   */
+  @NotNull
+  static byte[] userKey(@NotNull final byte[] key) {
+    return Arrays.copyOf(key, key.length - 8);
+  }
+}
@@ -0,0 +1,759 @@
+package io.github.shiruka.shiruka.storage;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents pure java databases which read and write the leveldb format of bedrock edition's worlds.
+ * <p>
+ * the writes go to the write-ahead log and the memtable, a full memtable is flushed to a level 0 table. the level 0
+ * tables are compacted into level 1 once there are enough of them, and a deeper level is compacted into the next one
+ * a table at a time once it grows over its size target, so a compaction rewrites a bounded slice of the next level
+ * instead of all of it. the tables are memory-mapped and their decompressed blocks are kept in a block cache of a
+ * bounded size. the reads do not take any lock.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class LevelDb implements Closeable {
+
+  /**
+   * the comparator name.
+   */
+  private static final String COMPARATOR = "leveldb.BytewiseComparator";
+
+  /**
+   * the deflate level of the written tables.
+   */
+  private static final int COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
+  /**
+   * the memtable size which flushes it to a table.
+   */
+  private static final long MEMTABLE_SIZE = 4L * 1024L * 1024L;
+
+  /**
+   * the maximum count of the open tables.
+   */
+  private static final int OPEN_TABLES = 500;
+
+  /**
+   * the size of the tables which are written by the compactions.
+   */
+  private static final long TABLE_SIZE = 2L * 1024L * 1024L;
+
+  /**
+   * the block cache.
+   */
+  @NotNull
+  private final Cache<Table.BlockKey, Block> blocks;
+
+  /**
+   * the largest keys of the last compacted tables per level, the next compaction of a level starts after them.
+   */
+  private final byte[][] compactPointers = new byte[Version.LEVELS][];
+
+  /**
+   * the compaction lock.
+   */
+  private final Object compactionLock = new Object();
+
+  /**
+   * the directory.
+   */
+  @NotNull
+  @Getter
+  private final Path directory;
+
+  /**
+   * the channel of the lock file which is held while the database is open.
+   */
+  @NotNull
+  private final FileChannel lockChannel;
+
+  /**
+   * the open tables.
+   */
+  private final Cache<Long, Table> tables = CacheBuilder.newBuilder()
+    .maximumSize(LevelDb.OPEN_TABLES)
+    .build();
+
+  /**
+   * the write lock.
+   */
+  private final Object writeLock = new Object();
+
+  /**
+   * the closed.
+   */
+  private volatile boolean closed;
+
+  /**
+   * the last sequence.
+   */
+  private long lastSequence;
+
+  /**
+   * the number of the write-ahead log.
+   */
+  private long logNumber;
+
+  /**
+   * the write-ahead log.
+   */
+  private LogWriter logWriter;
+
+  /**
+   * the manifest.
+   */
+  private LogWriter manifest;
+
+  /**
+   * the number of the manifest.
+   */
+  private long manifestNumber;
+
+  /**
+   * the memtable.
+   */
+  @NotNull
+  private volatile Memtable memtable = new Memtable();
+
+  /**
+   * the next file number.
+   */
+  private long nextFileNumber;
+
+  /**
+   * the current version.
+   */
+  @NotNull
+  private volatile Version version = Version.EMPTY;
+
+  /**
+   * ctor.
+   *
+   * @param directory the directory.
+   * @param blockCacheBytes the maximum bytes of the block cache.
+   * @param lockChannel the channel of the lock file.
+   */
+  private LevelDb(@NotNull final Path directory, final long blockCacheBytes, @NotNull final FileChannel lockChannel) {
+    this.directory = directory;
+    this.lockChannel = lockChannel;
+    this.blocks = CacheBuilder.newBuilder()
+      .maximumWeight(blockCacheBytes)
+      .<Table.BlockKey, Block>weigher((key, value) -> value.size())
+      .recordStats()
+      .build();
+  }
+
+  /**
+   * opens the database in the given directory, creating it if it does not exist.
+   * <p>
+   * the write-ahead logs are replayed into a level 0 table and a new manifest is written, so a database which is not
+   * closed properly opens without losing the logged writes.
+   *
+   * @param directory the directory to open.
+   * @param blockCacheBytes the maximum bytes of the block cache.
+   *
+   * @return database.
+   *
+   * @throws IOException if the database is in use or could not be read.
+   */
+  @NotNull
+  public static LevelDb open(@NotNull final Path directory, final long blockCacheBytes) throws IOException {
+    Files.createDirectories(directory);
+    final var channel = FileChannel.open(directory.resolve("LOCK"), StandardOpenOption.CREATE,
+      StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch (final OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      channel.close();
+      throw new IOException("The database " + directory + " is in use!");
+    }
+    final var database = new LevelDb(directory, blockCacheBytes, channel);
+    try {
+      database.recover();
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    return database;
+  }
+
+  /**
+   * parses the file number of the given file name.
+   *
+   * @param name the name to parse.
+   * @param prefix the prefix of the name.
+   * @param suffix the suffix of the name.
+   *
+   * @return file number, -1 if the name does not match.
+   */
+  private static long number(@NotNull final String name, @NotNull final String prefix,
+                             @NotNull final String suffix) {
+    if (!name.startsWith(prefix) || !name.endsWith(suffix) || name.length() == prefix.length() + suffix.length()) {
+      return -1L;
+    }
+    try {
+      return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    } catch (final NumberFormatException e) {
+      return -1L;
+    }
+  }
+
+  /**
+   * obtains the statistics of the block cache.
+   *
+   * @return block cache statistics.
+   */
+  @NotNull
+  public CacheStats blockCacheStats() {
+    return this.blocks.stats();
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this.compactionLock) {
+      synchronized (this.writeLock) {
+        if (this.closed) {
+          return;
+        }
+        this.flush();
+        this.closed = true;
+        this.logWriter.close();
+        this.manifest.close();
+      }
+    }
+    this.tables.invalidateAll();
+    this.blocks.invalidateAll();
+    this.lockChannel.close();
+  }
+
+  /**
+   * compacts the level which is the most over its size target into the next level.
+   * <p>
+   * a level 0 compaction takes the oldest level 0 table and every level 0 table which overlaps it, a deeper level
+   * takes the table after the one which it compacted last, and the tables of the next level which overlap them are
+   * merged in. a single table with nothing to merge is moved to the next level without being rewritten. the tables
+   * are merged without holding the write lock, only the newest entry of every key is kept and the deletions are
+   * dropped when no deeper level may have the key.
+   *
+   * @return {@code true} if a compaction ran.
+   *
+   * @throws IOException if the tables could not be read or written.
+   */
+  public boolean compact() throws IOException {
+    synchronized (this.compactionLock) {
+      Preconditions.checkState(!this.closed, "The database is closed!");
+      final var version = this.version;
+      final var level = version.compactionLevel();
+      if (level < 0) {
+        return false;
+      }
+      final var start = System.nanoTime();
+      final var picked = this.pick(version, level);
+      var smallest = picked.get(0).smallest();
+      var largest = picked.get(0).largest();
+      for (final var file : picked) {
+        if (InternalKeys.compare(file.smallest(), smallest) < 0) {
+          smallest = file.smallest();
+        }
+        if (InternalKeys.compare(file.largest(), largest) > 0) {
+          largest = file.largest();
+        }
+      }
+      this.compactPointers[level] = largest;
+      final var overlapping = version.overlapping(level + 1, smallest, largest);
+      final var edit = new VersionEdit();
+      if (picked.size() == 1 && overlapping.isEmpty()) {
+        edit.delete(level, picked.get(0)).add(level + 1, picked.get(0));
+        synchronized (this.writeLock) {
+          this.logAndApply(edit);
+        }
+        LevelDb.log.debug("Moved table {} of {} to level {}", picked.get(0).number(), this.directory, level + 1);
+        return true;
+      }
+      final var inputs = new ArrayList<VersionEdit.LevelFile>();
+      picked.forEach(file -> inputs.add(new VersionEdit.LevelFile(level, file)));
+      overlapping.forEach(file -> inputs.add(new VersionEdit.LevelFile(level + 1, file)));
+      final var outputs = this.merge(version, inputs, level + 1);
+      inputs.forEach(input -> edit.delete(input.level(), input.meta()));
+      outputs.forEach(output -> edit.add(level + 1, output));
+      synchronized (this.writeLock) {
+        this.logAndApply(edit);
+      }
+      for (final var input : inputs) {
+        this.tables.invalidate(input.meta().number());
+        Files.deleteIfExists(this.tableFile(input.meta().number()));
+      }
+      LevelDb.log.debug("Compacted {} table(s) of {} into {} table(s) of level {} in {} ms", inputs.size(),
+        this.directory, outputs.size(), level + 1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return true;
+    }
+  }
+
+  /**
+   * obtains the value of the given key.
+   *
+   * @param key the key to get.
+   *
+   * @return value, {@code null} if the key does not exist.
+   *
+   * @throws IOException if a table could not be read.
+   */
+  @Nullable
+  public byte[] get(@NotNull final byte[] key) throws IOException {
+    Preconditions.checkState(!this.closed, "The database is closed!");
+    final var found = this.memtable.get(key);
+    if (found != null) {
+      return found.deleted() ? null : found.value();
+    }
+    while (true) {
+      final var version = this.version;
+      try {
+        final var entry = this.get(version, key);
+        return entry == null || entry.deleted() ? null : entry.value();
+      } catch (final NoSuchFileException e) {
+        if (version == this.version) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * obtains the table count of the given level.
+   *
+   * @param level the level to get.
+   *
+   * @return table count.
+   */
+  public int tables(final int level) {
+    return this.version.files(level).size();
+  }
+
+  /**
+   * checks if there are enough level 0 tables or a deeper level is over its size target.
+   *
+   * @return {@code true} if a compaction is needed.
+   */
+  public boolean needsCompaction() {
+    return this.version.compactionLevel() >= 0;
+  }
+
+  /**
+   * writes the given batch.
+   *
+   * @param batch the batch to write.
+   * @param sync the sync to force the write-ahead log to the disk before returning.
+   *
+   * @throws IOException if the batch could not be written.
+   */
+  public void write(@NotNull final WriteBatch batch, final boolean sync) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+    synchronized (this.writeLock) {
+      Preconditions.checkState(!this.closed, "The database is closed!");
+      final var record = batch.encode(this.lastSequence + 1L);
+      this.logWriter.add(record, sync);
+      this.lastSequence = this.memtable.apply(record);
+      if (this.memtable.size() >= LevelDb.MEMTABLE_SIZE) {
+        this.flush();
+      }
+    }
+  }
+
+  /**
+   * deletes the files which the current version does not use.
+   *
+   * @throws IOException if the directory could not be listed.
+   */
+  private void deleteObsoleteFiles() throws IOException {
+    final var live = new HashSet<Long>();
+    for (var level = 0; level < Version.LEVELS; level++) {
+      this.version.files(level).forEach(file -> live.add(file.number()));
+    }
+    try (final var files = Files.list(this.directory)) {
+      for (final var file : (Iterable<Path>) files::iterator) {
+        final var name = file.getFileName().toString();
+        final var log = LevelDb.number(name, "", ".log");
+        final var manifest = LevelDb.number(name, "MANIFEST-", "");
+        final var ldb = LevelDb.number(name, "", ".ldb");
+        final var table = ldb >= 0L ? ldb : LevelDb.number(name, "", ".sst");
+        final var obsolete = log >= 0L && log < this.logNumber
+          || manifest >= 0L && manifest != this.manifestNumber
+          || table >= 0L && !live.contains(table)
+          || LevelDb.number(name, "", ".dbtmp") >= 0L;
+        if (obsolete) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * writes the memtable to a level 0 table and starts a new write-ahead log, the caller holds the write lock.
+   *
+   * @throws IOException if the table could not be written.
+   */
+  private void flush() throws IOException {
+    final var memtable = this.memtable;
+    if (memtable.isEmpty()) {
+      return;
+    }
+    final var file = this.writeTable(memtable);
+    final var logNumber = this.nextFileNumber++;
+    final var logWriter = new LogWriter(this.logFile(logNumber));
+    this.logAndApply(new VersionEdit()
+      .add(0, file)
+      .logNumber(logNumber));
+    this.memtable = new Memtable();
+    this.logWriter.close();
+    Files.deleteIfExists(this.logFile(this.logNumber));
+    this.logWriter = logWriter;
+    this.logNumber = logNumber;
+  }
+
+  /**
+   * obtains the newest entry of the given key in the tables of the given version.
+   *
+   * @param version the version to search.
+   * @param key the key to get.
+   *
+   * @return entry, {@code null} if the tables do not have the key.
+   *
+   * @throws IOException if a table could not be read.
+   */
+  @Nullable
+  private Entry get(@NotNull final Version version, @NotNull final byte[] key) throws IOException {
+    final var lookup = InternalKeys.encode(key, InternalKeys.MAX_SEQUENCE, InternalKeys.TYPE_VALUE);
+    for (final var file : version.files(0)) {
+      if (file.contains(key)) {
+        final var entry = this.table(file.number()).get(lookup, key);
+        if (entry != null) {
+          return entry;
+        }
+      }
+    }
+    for (var level = 1; level < Version.LEVELS; level++) {
+      final var files = version.files(level);
+      final var index = version.find(level, lookup);
+      if (index < files.size() && files.get(index).contains(key)) {
+        final var entry = this.table(files.get(index).number()).get(lookup, key);
+        if (entry != null) {
+          return entry;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * obtains the path of the given write-ahead log.
+   *
+   * @param number the number of the log.
+   *
+   * @return log path.
+   */
+  @NotNull
+  private Path logFile(final long number) {
+    return this.directory.resolve("%06d.log".formatted(number));
+  }
+
+  /**
+   * records the given edit in the manifest and installs the next version, the caller holds the write lock.
+   *
+   * @param edit the edit to apply.
+   *
+   * @throws IOException if the manifest could not be written.
+   */
+  private void logAndApply(@NotNull final VersionEdit edit) throws IOException {
+    if (edit.logNumber() == null) {
+      edit.logNumber(this.logNumber);
+    }
+    edit.nextFileNumber(this.nextFileNumber).lastSequence(this.lastSequence);
+    this.manifest.add(edit.encode(), true);
+    this.version = this.version.apply(edit);
+  }
+
+  /**
+   * merges the given input tables into new tables of the given output level.
+   *
+   * @param version the version of the inputs.
+   * @param inputs the inputs to merge.
+   * @param level the output level.
+   *
+   * @return output tables.
+   *
+   * @throws IOException if the tables could not be read or written.
+   */
+  @NotNull
+  private List<FileMeta> merge(@NotNull final Version version, @NotNull final List<VersionEdit.LevelFile> inputs,
+                               final int level) throws IOException {
+    final var cursors = new PriorityQueue<Table.Cursor>((first, second) ->
+      InternalKeys.compare(first.key(), second.key()));
+    for (final var input : inputs) {
+      final var cursor = this.table(input.meta().number()).cursor();
+      if (cursor.seekToFirst()) {
+        cursors.add(cursor);
+      }
+    }
+    final var outputs = new ArrayList<FileMeta>();
+    TableBuilder builder = null;
+    var number = 0L;
+    byte[] lastUserKey = null;
+    try {
+      while (!cursors.isEmpty()) {
+        final var cursor = cursors.poll();
+        final var key = cursor.key();
+        if (lastUserKey == null || !InternalKeys.userKeyEquals(key, lastUserKey)) {
+          lastUserKey = InternalKeys.userKey(key);
+          if (InternalKeys.type(key) != InternalKeys.TYPE_DELETION || version.existsBelow(level, lastUserKey)) {
+            if (builder != null && builder.offset() >= LevelDb.TABLE_SIZE) {
+              outputs.add(LevelDb.finish(builder, number));
+              builder = null;
+            }
+            if (builder == null) {
+              number = this.newFileNumber();
+              builder = new TableBuilder(this.directory.resolve("%06d.ldb".formatted(number)),
+                LevelDb.COMPRESSION_LEVEL);
+            }
+            builder.add(key, cursor.value());
+          }
+        }
+        if (cursor.next()) {
+          cursors.add(cursor);
+        }
+      }
+      if (builder != null) {
+        outputs.add(LevelDb.finish(builder, number));
+        builder = null;
+      }
+    } finally {
+      if (builder != null) {
+        builder.close();
+      }
+    }
+    return outputs;
+  }
+
+  /**
+   * finishes and closes the given table builder.
+   *
+   * @param builder the builder to finish.
+   * @param number the file number of the table.
+   *
+   * @return file metadata.
+   *
+   * @throws IOException if the table could not be written.
+   */
+  @NotNull
+  private static FileMeta finish(@NotNull final TableBuilder builder, final long number) throws IOException {
+    try (builder) {
+      final var size = builder.finish();
+      return new FileMeta(number, size, builder.smallest(), builder.largest());
+    }
+  }
+
+  /**
+   * allocates a new file number.
+   *
+   * @return file number.
+   */
+  private long newFileNumber() {
+    synchronized (this.writeLock) {
+      return this.nextFileNumber++;
+    }
+  }
+
+  /**
+   * picks the tables of the given level to compact.
+   *
+   * @param version the version to pick.
+   * @param level the level to pick.
+   *
+   * @return picked tables.
+   */
+  @NotNull
+  private List<FileMeta> pick(@NotNull final Version version, final int level) {
+    final var files = version.files(level);
+    if (level == 0) {
+      final var oldest = files.get(files.size() - 1);
+      return version.overlapping(0, oldest.smallest(), oldest.largest());
+    }
+    final var pointer = this.compactPointers[level];
+    for (final var file : files) {
+      if (pointer == null || InternalKeys.compare(file.largest(), pointer) > 0) {
+        return List.of(file);
+      }
+    }
+    return List.of(files.get(0));
+  }
+
+  /**
+   * recovers the database from the manifest and the write-ahead logs.
+   *
+   * @throws IOException if the database could not be read.
+   */
+  private void recover() throws IOException {
+    var version = Version.EMPTY;
+    var logNumber = 0L;
+    var previousLogNumber = 0L;
+    var nextFileNumber = 2L;
+    var lastSequence = 0L;
+    final var current = this.directory.resolve("CURRENT");
+    if (Files.exists(current)) {
+      final var manifest = Files.readString(current, StandardCharsets.US_ASCII).trim();
+      for (final var record : LogReader.read(this.directory.resolve(manifest))) {
+        final var edit = VersionEdit.decode(record);
+        if (edit.comparator() != null && !LevelDb.COMPARATOR.equals(edit.comparator())) {
+          throw new IOException("The database " + this.directory + " uses an unsupported comparator "
+            + edit.comparator());
+        }
+        version = version.apply(edit);
+        logNumber = edit.logNumber() == null ? logNumber : edit.logNumber();
+        previousLogNumber = edit.previousLogNumber() == null ? previousLogNumber : edit.previousLogNumber();
+        nextFileNumber = edit.nextFileNumber() == null ? nextFileNumber : edit.nextFileNumber();
+        lastSequence = edit.lastSequence() == null ? lastSequence : edit.lastSequence();
+      }
+    }
+    final var memtable = new Memtable();
+    final var logs = new ArrayList<Long>();
+    try (final var files = Files.list(this.directory)) {
+      files.forEach(file -> {
+        final var number = LevelDb.number(file.getFileName().toString(), "", ".log");
+        if (number >= 0L) {
+          logs.add(number);
+        }
+      });
+    }
+    logs.sort(null);
+    for (final var log : logs) {
+      if (log >= logNumber || log == previousLogNumber) {
+        for (final var record : LogReader.read(this.logFile(log))) {
+          if (record.length >= WriteBatch.HEADER_SIZE) {
+            lastSequence = Math.max(lastSequence, memtable.apply(record));
+          }
+        }
+      }
+      nextFileNumber = Math.max(nextFileNumber, log + 1L);
+    }
+    this.nextFileNumber = nextFileNumber;
+    this.lastSequence = lastSequence;
+    if (!memtable.isEmpty()) {
+      version = version.apply(new VersionEdit().add(0, this.writeTable(memtable)));
+    }
+    this.logNumber = this.nextFileNumber++;
+    this.logWriter = new LogWriter(this.logFile(this.logNumber));
+    this.manifestNumber = this.nextFileNumber++;
+    final var snapshot = new VersionEdit()
+      .comparator(LevelDb.COMPARATOR)
+      .logNumber(this.logNumber)
+      .previousLogNumber(0L)
+      .nextFileNumber(this.nextFileNumber)
+      .lastSequence(this.lastSequence);
+    for (var level = 0; level < Version.LEVELS; level++) {
+      for (final var file : version.files(level)) {
+        snapshot.add(level, file);
+      }
+    }
+    final var manifest = "MANIFEST-%06d".formatted(this.manifestNumber);
+    this.manifest = new LogWriter(this.directory.resolve(manifest));
+    this.manifest.add(snapshot.encode(), true);
+    final var temporary = this.directory.resolve("%06d.dbtmp".formatted(this.manifestNumber));
+    Files.writeString(temporary, manifest + "\n", StandardCharsets.US_ASCII);
+    Files.move(temporary, current, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    this.version = version;
+    this.deleteObsoleteFiles();
+  }
+
+  /**
+   * obtains the open table of the given file number, opening it if it is not open.
+   *
+   * @param number the file number to get.
+   *
+   * @return table.
+   *
+   * @throws IOException if the table could not be opened.
+   */
+  @NotNull
+  private Table table(final long number) throws IOException {
+    try {
+      return this.tables.get(number, () -> new Table(number, this.tableFile(number), this.blocks));
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * obtains the path of the given table, the tables of the original leveldb use the {@code .sst} extension.
+   *
+   * @param number the file number of the table.
+   *
+   * @return table path.
+   */
+  @NotNull
+  private Path tableFile(final long number) {
+    final var ldb = this.directory.resolve("%06d.ldb".formatted(number));
+    final var sst = this.directory.resolve("%06d.sst".formatted(number));
+    return Files.notExists(ldb) && Files.exists(sst) ? sst : ldb;
+  }
+
+  /**
+   * writes the given memtable to a new table.
+   *
+   * @param memtable the memtable to write.
+   *
+   * @return file metadata.
+   *
+   * @throws IOException if the table could not be written.
+   */
+  @NotNull
+  private FileMeta writeTable(@NotNull final Memtable memtable) throws IOException {
+    final var number = this.newFileNumber();
+    final var builder = new TableBuilder(this.directory.resolve("%06d.ldb".formatted(number)),
+      LevelDb.COMPRESSION_LEVEL);
+    try {
+      for (final var entry : memtable.entries()) {
+        builder.add(entry.getKey(), entry.getValue());
+      }
+    } catch (final IOException | RuntimeException e) {
+      builder.close();
+      throw e;
+    }
+    return LevelDb.finish(builder, number);
+  }
+}
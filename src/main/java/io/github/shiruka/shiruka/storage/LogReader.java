@@ -0,0 +1,95 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that reads the records of leveldb's log format.
+ */
+@Log4j2
+final class LogReader {
+
+  /**
+   * ctor.
+   */
+  private LogReader() {
+  }
+
+  /**
+   * reads the records of the given file.
+   * <p>
+   * reading stops at the first corrupted or torn fragment, which is what a crash in the middle of a write leaves.
+   *
+   * @param file the file to read.
+   *
+   * @return records.
+   *
+   * @throws IOException if the file could not be read.
+   */
+  @NotNull
+  static List<byte[]> read(@NotNull final Path file) throws IOException {
+    final var data = Files.readAllBytes(file);
+    final var records = new ArrayList<byte[]>();
+    final var fragments = new ByteArrayOutputStream();
+    var inRecord = false;
+    var offset = 0;
+    while (offset + LogWriter.HEADER_SIZE <= data.length) {
+      final var leftover = LogWriter.BLOCK_SIZE - offset % LogWriter.BLOCK_SIZE;
+      if (leftover < LogWriter.HEADER_SIZE) {
+        offset += leftover;
+        continue;
+      }
+      final var checksum = data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8 | (data[offset + 2] & 0xFF) << 16
+        | (data[offset + 3] & 0xFF) << 24;
+      final var length = data[offset + 4] & 0xFF | (data[offset + 5] & 0xFF) << 8;
+      final var type = data[offset + 6];
+      final var start = offset + LogWriter.HEADER_SIZE;
+      if (type == 0 && length == 0) {
+        offset += leftover;
+        continue;
+      }
+      if (start + length > data.length || length > leftover - LogWriter.HEADER_SIZE) {
+        LogReader.log.warn("Ignoring the torn tail of {} at {}", file, offset);
+        break;
+      }
+      final var crc = new CRC32C();
+      crc.update(type);
+      crc.update(data, start, length);
+      if (Coding.mask(crc) != checksum) {
+        LogReader.log.warn("Ignoring the corrupted tail of {} at {}", file, offset);
+        break;
+      }
+      switch (type) {
+        case LogWriter.TYPE_FULL -> {
+          records.add(Arrays.copyOfRange(data, start, start + length));
+          inRecord = false;
+        }
+        case LogWriter.TYPE_FIRST -> {
+          fragments.reset();
+          fragments.write(data, start, length);
+          inRecord = true;
+        }
+        case LogWriter.TYPE_MIDDLE, LogWriter.TYPE_LAST -> {
+          if (inRecord) {
+            fragments.write(data, start, length);
+            if (type == LogWriter.TYPE_LAST) {
+              records.add(fragments.toByteArray());
+              inRecord = false;
+            }
+          }
+        }
+        default -> LogReader.log.warn("Skipping an unknown record type {} in {}", type, file);
+      }
+      offset = start + length;
+    }
+    return records;
+  }
+}
@@ -0,0 +1,127 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents writers of leveldb's log format which the write-ahead logs and the manifests use.
+ * <p>
+ * the records are split into fragments which do not cross the 32 KB blocks, every fragment has a header of a
+ * masked crc32c, its length and its type.
+ */
+final class LogWriter implements Closeable {
+
+  /**
+   * the block size.
+   */
+  static final int BLOCK_SIZE = 32768;
+
+  /**
+   * the header size of the fragments.
+   */
+  static final int HEADER_SIZE = 7;
+
+  /**
+   * the type of the first fragments.
+   */
+  static final byte TYPE_FIRST = 2;
+
+  /**
+   * the type of the whole records.
+   */
+  static final byte TYPE_FULL = 1;
+
+  /**
+   * the type of the last fragments.
+   */
+  static final byte TYPE_LAST = 4;
+
+  /**
+   * the type of the middle fragments.
+   */
+  static final byte TYPE_MIDDLE = 3;
+
+  /**
+   * the channel.
+   */
+  @NotNull
+  private final FileChannel channel;
+
+  /**
+   * the offset in the current block.
+   */
+  private int blockOffset;
+
+  /**
+   * ctor.
+   *
+   * @param file the file to create.
+   *
+   * @throws IOException if the file could not be created.
+   */
+  LogWriter(@NotNull final Path file) throws IOException {
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+      StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  /**
+   * appends the given record.
+   *
+   * @param record the record to append.
+   * @param sync the sync to force the record to the disk.
+   *
+   * @throws IOException if the record could not be written.
+   */
+  void add(@NotNull final byte[] record, final boolean sync) throws IOException {
+    final var buffer = ByteBuffer.allocate(record.length + (record.length / LogWriter.BLOCK_SIZE + 2)
+      * (LogWriter.HEADER_SIZE + LogWriter.HEADER_SIZE))
+      .order(ByteOrder.LITTLE_ENDIAN);
+    var offset = 0;
+    var first = true;
+    do {
+      final var leftover = LogWriter.BLOCK_SIZE - this.blockOffset;
+      if (leftover < LogWriter.HEADER_SIZE) {
+        buffer.put(new byte[leftover]);
+        this.blockOffset = 0;
+      }
+      final var available = LogWriter.BLOCK_SIZE - this.blockOffset - LogWriter.HEADER_SIZE;
+      final var length = Math.min(available, record.length - offset);
+      final var last = offset + length == record.length;
+      final byte type;
+      if (first) {
+        type = last ? LogWriter.TYPE_FULL : LogWriter.TYPE_FIRST;
+      } else {
+        type = last ? LogWriter.TYPE_LAST : LogWriter.TYPE_MIDDLE;
+      }
+      final var crc = new CRC32C();
+      crc.update(type);
+      crc.update(record, offset, length);
+      buffer.putInt(Coding.mask(crc));
+      buffer.putShort((short) length);
+      buffer.put(type);
+      buffer.put(record, offset, length);
+      this.blockOffset += LogWriter.HEADER_SIZE + length;
+      offset += length;
+      first = false;
+    } while (offset < record.length);
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      this.channel.write(buffer);
+    }
+    if (sync) {
+      this.channel.force(false);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.channel.close();
+  }
+}
@@ -0,0 +1,95 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the in-memory tables of the recent writes which are not flushed to a table yet.
+ * <p>
+ * the entries are written under the database's write lock and read without any lock.
+ */
+final class Memtable {
+
+  /**
+   * the entries.
+   */
+  private final ConcurrentSkipListMap<byte[], byte[]> entries = new ConcurrentSkipListMap<>(InternalKeys.COMPARATOR);
+
+  /**
+   * the approximate memory usage.
+   */
+  private final AtomicLong size = new AtomicLong();
+
+  /**
+   * applies the given encoded write batch.
+   *
+   * @param batch the batch to apply.
+   *
+   * @return the last sequence of the batch.
+   */
+  long apply(@NotNull final byte[] batch) {
+    final var buffer = ByteBuffer.wrap(batch).order(ByteOrder.LITTLE_ENDIAN);
+    var sequence = buffer.getLong();
+    final var count = buffer.getInt();
+    for (var index = 0; index < count; index++) {
+      final var type = buffer.get();
+      final var key = Coding.readLengthPrefixed(buffer);
+      final var value = type == InternalKeys.TYPE_VALUE
+        ? Coding.readLengthPrefixed(buffer)
+        : new byte[0];
+      this.entries.put(InternalKeys.encode(key, sequence++, type), value);
+      this.size.addAndGet(key.length + value.length + 40L);
+    }
+    return sequence - 1L;
+  }
+
+  /**
+   * obtains the entries in the internal key order.
+   *
+   * @return entries.
+   */
+  @NotNull
+  Iterable<Map.Entry<byte[], byte[]>> entries() {
+    return this.entries.entrySet();
+  }
+
+  /**
+   * obtains the newest entry of the given user key.
+   *
+   * @param userKey the user key to get.
+   *
+   * @return entry, {@code null} if the memtable does not have the user key.
+   */
+  @Nullable
+  Entry get(@NotNull final byte[] userKey) {
+    final var found = this.entries.ceilingEntry(
+      InternalKeys.encode(userKey, InternalKeys.MAX_SEQUENCE, InternalKeys.TYPE_VALUE));
+    if (found == null || !InternalKeys.userKeyEquals(found.getKey(), userKey)) {
+      return null;
+    }
+    return new Entry(found.getKey(), found.getValue());
+  }
+
+  /**
+   * checks if the memtable has no entry.
+   *
+   * @return {@code true} if the memtable has no entry.
+   */
+  boolean isEmpty() {
+    return this.entries.isEmpty();
+  }
+
+  /**
+   * obtains the approximate memory usage.
+   *
+   * @return size in bytes.
+   */
+  long size() {
+    return this.size.get();
+  }
+}
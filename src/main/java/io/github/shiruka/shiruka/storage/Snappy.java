@@ -0,0 +1,71 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.nio.ByteBuffer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * an utility class that decompresses the snappy compressed blocks of the tables which are written by the original
+ * leveldb.
+ */
+final class Snappy {
+
+  /**
+   * ctor.
+   */
+  private Snappy() {
+  }
+
+  /**
+   * decompresses the given snappy block.
+   *
+   * @param input the input to decompress.
+   *
+   * @return decompressed bytes.
+   */
+  @NotNull
+  static byte[] decompress(@NotNull final ByteBuffer input) {
+    final var output = new byte[(int) Coding.readVarInt(input)];
+    var position = 0;
+    while (input.hasRemaining()) {
+      final var tag = input.get() & 0xFF;
+      final int length;
+      final int offset;
+      switch (tag & 3) {
+        case 0 -> {
+          var literal = tag >>> 2;
+          if (literal >= 60) {
+            final var bytes = literal - 59;
+            literal = 0;
+            for (var index = 0; index < bytes; index++) {
+              literal |= (input.get() & 0xFF) << (index << 3);
+            }
+          }
+          input.get(output, position, literal + 1);
+          position += literal + 1;
+          continue;
+        }
+        case 1 -> {
+          length = (tag >>> 2 & 7) + 4;
+          offset = (tag >>> 5) << 8 | input.get() & 0xFF;
+        }
+        case 2 -> {
+          length = (tag >>> 2) + 1;
+          offset = input.get() & 0xFF | (input.get() & 0xFF) << 8;
+        }
+        default -> {
+          length = (tag >>> 2) + 1;
+          offset = input.get() & 0xFF | (input.get() & 0xFF) << 8 | (input.get() & 0xFF) << 16
+            | (input.get() & 0xFF) << 24;
+        }
+      }
+      if (offset <= 0 || offset > position) {
+        throw new IllegalStateException("Invalid snappy copy offset " + offset);
+      }
+      for (var index = 0; index < length; index++) {
+        output[position] = output[position - offset];
+        position++;
+      }
+    }
+    return output;
+  }
+}
@@ -0,0 +1,375 @@
+package io.github.shiruka.shiruka.storage;
+
+import com.google.common.cache.Cache;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the memory-mapped sorted string tables.
+ * <p>
+ * the file is mapped once when the table opens, the uncompressed blocks are used in place and the compressed ones
+ * are inflated into the shared block cache.
+ */
+final class Table {
+
+  /**
+   * the footer size.
+   */
+  static final int FOOTER_SIZE = 48;
+
+  /**
+   * the magic number at the end of the footer.
+   */
+  static final long MAGIC = 0xdb4775248b80fb57L;
+
+  /**
+   * the raw inflaters of the threads.
+   */
+  private static final ThreadLocal<Inflater> RAW_INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * the zlib inflaters of the threads.
+   */
+  private static final ThreadLocal<Inflater> ZLIB_INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+  /**
+   * the block cache.
+   */
+  @NotNull
+  private final Cache<BlockKey, Block> blocks;
+
+  /**
+   * the mapped data.
+   */
+  @NotNull
+  private final ByteBuffer data;
+
+  /**
+   * the bloom filter, {@code null} if the table has not any.
+   */
+  @Nullable
+  private final BloomFilter filter;
+
+  /**
+   * the index block.
+   */
+  @NotNull
+  private final Block index;
+
+  /**
+   * the file number.
+   */
+  private final long number;
+
+  /**
+   * ctor.
+   *
+   * @param number the file number.
+   * @param file the file to map.
+   * @param blocks the block cache.
+   *
+   * @throws IOException if the file could not be read or it is not a table.
+   */
+  Table(final long number, @NotNull final Path file, @NotNull final Cache<BlockKey, Block> blocks)
+    throws IOException {
+    this.number = number;
+    this.blocks = blocks;
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      if (size < Table.FOOTER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid table size " + size + " of " + file);
+      }
+      this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+    }
+    final var footer = this.data.slice(this.data.limit() - Table.FOOTER_SIZE, Table.FOOTER_SIZE)
+      .order(ByteOrder.LITTLE_ENDIAN);
+    if (footer.getLong(Table.FOOTER_SIZE - 8) != Table.MAGIC) {
+      throw new IOException("Invalid table magic of " + file);
+    }
+    final var metaIndex = BlockHandle.read(footer);
+    this.index = this.read(BlockHandle.read(footer));
+    this.filter = this.readFilter(metaIndex);
+  }
+
+  /**
+   * inflates the given block.
+   *
+   * @param inflater the inflater to use.
+   * @param input the input to inflate.
+   *
+   * @return inflated bytes.
+   *
+   * @throws IOException if the block is corrupted.
+   */
+  @NotNull
+  private static ByteBuffer inflate(@NotNull final Inflater inflater, @NotNull final ByteBuffer input)
+    throws IOException {
+    inflater.reset();
+    inflater.setInput(input);
+    var output = new byte[Math.max(input.remaining() << 2, 64)];
+    var length = 0;
+    try {
+      while (!inflater.finished()) {
+        if (length == output.length) {
+          output = Arrays.copyOf(output, output.length << 1);
+        }
+        final var inflated = inflater.inflate(output, length, output.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += inflated;
+      }
+    } catch (final DataFormatException e) {
+      throw new IOException("Corrupted table block", e);
+    }
+    return ByteBuffer.wrap(output, 0, length);
+  }
+
+  /**
+   * creates a new cursor which iterates over all the entries without filling the block cache.
+   *
+   * @return a new cursor which is not positioned yet.
+   */
+  @NotNull
+  Cursor cursor() {
+    return new Cursor();
+  }
+
+  /**
+   * obtains the newest entry of the given lookup key's user key.
+   *
+   * @param lookup the internal lookup key to get.
+   * @param userKey the user key of the lookup key.
+   *
+   * @return entry, {@code null} if the table does not have the user key.
+   *
+   * @throws IOException if a block could not be read.
+   */
+  @Nullable
+  Entry get(@NotNull final byte[] lookup, @NotNull final byte[] userKey) throws IOException {
+    final var indexCursor = this.index.cursor();
+    if (!indexCursor.seek(lookup)) {
+      return null;
+    }
+    final var handle = indexCursor.valueHandle();
+    if (this.filter != null && !this.filter.mayContain(handle.offset(), userKey)) {
+      return null;
+    }
+    final var cursor = this.block(handle, true).cursor();
+    if (!cursor.seek(lookup) || !InternalKeys.userKeyEquals(cursor.key(), userKey)) {
+      return null;
+    }
+    return new Entry(cursor.key(), cursor.value());
+  }
+
+  /**
+   * obtains the block of the given handle from the block cache or reads it.
+   *
+   * @param handle the handle to get.
+   * @param fill the fill to put the block into the cache if it is read.
+   *
+   * @return block.
+   *
+   * @throws IOException if the block could not be read.
+   */
+  @NotNull
+  private Block block(@NotNull final BlockHandle handle, final boolean fill) throws IOException {
+    final var key = new BlockKey(this.number, handle.offset());
+    final var cached = this.blocks.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    final var block = this.read(handle);
+    if (fill) {
+      this.blocks.put(key, block);
+    }
+    return block;
+  }
+
+  /**
+   * reads the block of the given handle.
+   *
+   * @param handle the handle to read.
+   *
+   * @return block.
+   *
+   * @throws IOException if the block is corrupted.
+   */
+  @NotNull
+  private Block read(@NotNull final BlockHandle handle) throws IOException {
+    return new Block(this.readContents(handle));
+  }
+
+  /**
+   * reads the uncompressed contents of the given handle.
+   *
+   * @param handle the handle to read.
+   *
+   * @return contents.
+   *
+   * @throws IOException if the block is corrupted.
+   */
+  @NotNull
+  private ByteBuffer readContents(@NotNull final BlockHandle handle) throws IOException {
+    final var offset = (int) handle.offset();
+    final var size = (int) handle.size();
+    if (offset < 0 || size < 0 || (long) offset + size + 5L > this.data.limit()) {
+      throw new IOException("Invalid block handle " + handle + " in table " + this.number);
+    }
+    final var contents = this.data.slice(offset, size);
+    return switch (this.data.get(offset + size)) {
+      case 0 -> contents;
+      case 1 -> ByteBuffer.wrap(Snappy.decompress(contents));
+      case 2 -> Table.inflate(Table.ZLIB_INFLATER.get(), contents);
+      case 4 -> Table.inflate(Table.RAW_INFLATER.get(), contents);
+      default -> throw new IOException("Unknown compression type " + this.data.get(offset + size)
+        + " in table " + this.number);
+    };
+  }
+
+  /**
+   * reads the bloom filter which is referenced by the given meta index block.
+   *
+   * @param metaIndex the meta index block to read.
+   *
+   * @return bloom filter, {@code null} if the table has not any.
+   *
+   * @throws IOException if a block could not be read.
+   */
+  @Nullable
+  private BloomFilter readFilter(@NotNull final BlockHandle metaIndex) throws IOException {
+    final var name = BloomFilter.NAME.getBytes(StandardCharsets.US_ASCII);
+    final var cursor = new Block(this.readContents(metaIndex)).cursor();
+    for (var valid = cursor.seekToFirst(); valid; valid = cursor.next()) {
+      if (Arrays.equals(cursor.key(), name)) {
+        return BloomFilter.read(this.readContents(cursor.valueHandle()));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * a record class that represents the keys of the block cache.
+   *
+   * @param file the file number of the table.
+   * @param offset the offset of the block.
+   */
+  record BlockKey(
+    long file,
+    long offset
+  ) {
+
+  }
+
+  /**
+   * a class that represents cursors over all the entries of a table.
+   */
+  final class Cursor {
+
+    /**
+     * the index cursor.
+     */
+    private final Block.Cursor indexCursor = Table.this.index.cursor();
+
+    /**
+     * the data cursor.
+     */
+    @Nullable
+    private Block.Cursor dataCursor;
+
+    /**
+     * ctor.
+     */
+    private Cursor() {
+    }
+
+    /**
+     * obtains the current key.
+     *
+     * @return current key.
+     */
+    @NotNull
+    byte[] key() {
+      return this.current().key();
+    }
+
+    /**
+     * moves to the next entry.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     *
+     * @throws IOException if a block could not be read.
+     */
+    boolean next() throws IOException {
+      if (this.dataCursor != null && this.dataCursor.next()) {
+        return true;
+      }
+      while (this.indexCursor.next()) {
+        if (this.open()) {
+          return true;
+        }
+      }
+      this.dataCursor = null;
+      return false;
+    }
+
+    /**
+     * moves to the first entry.
+     *
+     * @return {@code true} if the cursor is on an entry.
+     *
+     * @throws IOException if a block could not be read.
+     */
+    boolean seekToFirst() throws IOException {
+      if (!this.indexCursor.seekToFirst()) {
+        return false;
+      }
+      return this.open() || this.next();
+    }
+
+    /**
+     * copies the current value.
+     *
+     * @return current value.
+     */
+    @NotNull
+    byte[] value() {
+      return this.current().value();
+    }
+
+    /**
+     * obtains the current data cursor.
+     *
+     * @return current data cursor.
+     */
+    @NotNull
+    private Block.Cursor current() {
+      if (this.dataCursor == null || !this.dataCursor.valid()) {
+        throw new IllegalStateException("The cursor is not on an entry!");
+      }
+      return this.dataCursor;
+    }
+
+    /**
+     * opens the data block of the current index entry.
+     *
+     * @return {@code true} if the data block has an entry.
+     *
+     * @throws IOException if the block could not be read.
+     */
+    private boolean open() throws IOException {
+      this.dataCursor = Table.this.block(this.indexCursor.valueHandle(), false).cursor();
+      return this.dataCursor.seekToFirst();
+    }
+  }
+}
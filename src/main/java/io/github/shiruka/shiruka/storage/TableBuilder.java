@@ -0,0 +1,201 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+import java.util.zip.Deflater;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents writers of the sorted string tables.
+ * <p>
+ * the blocks are compressed with raw deflate, the compression type which bedrock edition writes, and stored as is
+ * when that does not save at least an eighth of them.
+ */
+@Accessors(fluent = true)
+final class TableBuilder implements Closeable {
+
+  /**
+   * the uncompressed size of the data blocks.
+   */
+  private static final int BLOCK_SIZE = 4096;
+
+  /**
+   * the data block.
+   */
+  private final BlockBuilder dataBlock = new BlockBuilder();
+
+  /**
+   * the deflater.
+   */
+  private final Deflater deflater;
+
+  /**
+   * the index block.
+   */
+  private final BlockBuilder indexBlock = new BlockBuilder();
+
+  /**
+   * the output.
+   */
+  @NotNull
+  private final OutputStream output;
+
+  /**
+   * the largest key.
+   */
+  @Nullable
+  @Getter
+  private byte[] largest;
+
+  /**
+   * the written bytes.
+   */
+  @Getter
+  private long offset;
+
+  /**
+   * the handle of the last data block which waits for its index entry.
+   */
+  @Nullable
+  private BlockHandle pending;
+
+  /**
+   * the smallest key.
+   */
+  @Nullable
+  @Getter
+  private byte[] smallest;
+
+  /**
+   * ctor.
+   *
+   * @param file the file to write.
+   * @param level the deflate level.
+   *
+   * @throws IOException if the file could not be created.
+   */
+  TableBuilder(@NotNull final Path file, final int level) throws IOException {
+    this.output = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16);
+    this.deflater = new Deflater(level, true);
+  }
+
+  /**
+   * adds the given entry, the keys have to be added in the internal key order.
+   *
+   * @param key the internal key to add.
+   * @param value the value to add.
+   *
+   * @throws IOException if a block could not be written.
+   */
+  void add(@NotNull final byte[] key, @NotNull final byte[] value) throws IOException {
+    if (this.pending != null) {
+      this.indexBlock.add(this.largest, this.pending.encode());
+      this.pending = null;
+    }
+    if (this.smallest == null) {
+      this.smallest = key;
+    }
+    this.largest = key;
+    this.dataBlock.add(key, value);
+    if (this.dataBlock.estimatedSize() >= TableBuilder.BLOCK_SIZE) {
+      this.pending = this.writeBlock(this.dataBlock.finish());
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.deflater.end();
+    this.output.close();
+  }
+
+  /**
+   * writes the remaining data block, the meta index and index blocks and the footer.
+   *
+   * @return file size.
+   *
+   * @throws IOException if the table could not be written.
+   */
+  long finish() throws IOException {
+    if (!this.dataBlock.isEmpty()) {
+      this.pending = this.writeBlock(this.dataBlock.finish());
+    }
+    if (this.pending != null) {
+      this.indexBlock.add(this.largest, this.pending.encode());
+      this.pending = null;
+    }
+    final var metaIndex = this.writeRaw(new BlockBuilder().finish(), (byte) 0);
+    final var index = this.writeBlock(this.indexBlock.finish());
+    final var footer = new ByteArrayOutputStream(Table.FOOTER_SIZE);
+    metaIndex.write(footer);
+    index.write(footer);
+    footer.writeBytes(new byte[Table.FOOTER_SIZE - 8 - footer.size()]);
+    Coding.putFixed64(footer, Table.MAGIC);
+    footer.writeTo(this.output);
+    this.offset += Table.FOOTER_SIZE;
+    this.output.flush();
+    return this.offset;
+  }
+
+  /**
+   * compresses and writes the given block contents.
+   *
+   * @param contents the contents to write.
+   *
+   * @return block handle.
+   *
+   * @throws IOException if the block could not be written.
+   */
+  @NotNull
+  private BlockHandle writeBlock(@NotNull final byte[] contents) throws IOException {
+    this.deflater.reset();
+    this.deflater.setInput(contents);
+    this.deflater.finish();
+    final var limit = contents.length - (contents.length >>> 3);
+    final var compressed = new byte[limit];
+    var length = 0;
+    while (!this.deflater.finished() && length < limit) {
+      length += this.deflater.deflate(compressed, length, limit - length);
+    }
+    if (this.deflater.finished()) {
+      return this.writeRaw(Arrays.copyOf(compressed, length), (byte) 4);
+    }
+    return this.writeRaw(contents, (byte) 0);
+  }
+
+  /**
+   * writes the given block contents with the trailer.
+   *
+   * @param contents the contents to write.
+   * @param type the compression type of the contents.
+   *
+   * @return block handle.
+   *
+   * @throws IOException if the block could not be written.
+   */
+  @NotNull
+  private BlockHandle writeRaw(@NotNull final byte[] contents, final byte type) throws IOException {
+    final var handle = new BlockHandle(this.offset, contents.length);
+    this.output.write(contents);
+    this.output.write(type);
+    final var crc = new CRC32C();
+    crc.update(contents);
+    crc.update(type);
+    final var checksum = Coding.mask(crc);
+    this.output.write(checksum);
+    this.output.write(checksum >>> 8);
+    this.output.write(checksum >>> 16);
+    this.output.write(checksum >>> 24);
+    this.offset += contents.length + 5L;
+    return handle;
+  }
+}
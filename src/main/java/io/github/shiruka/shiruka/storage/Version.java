@@ -0,0 +1,242 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the immutable sets of the live table files per level.
+ * <p>
+ * the level 0 files may overlap each other and are kept from the newest to the oldest, the files of the other
+ * levels do not overlap and are kept in the key order.
+ * <p>
+ * level 0 is limited by its file count and every other level by its bytes, level 1 may hold
+ * {@link #LEVEL1_MAX_BYTES} and each deeper level ten times the level above it. the level which exceeds its limit
+ * the most is the one to compact next.
+ */
+final class Version {
+
+  /**
+   * the level 0 table count which starts a compaction.
+   */
+  static final int LEVEL0_COMPACTION_TRIGGER = 4;
+
+  /**
+   * the level count.
+   */
+  static final int LEVELS = 7;
+
+  /**
+   * the empty version.
+   */
+  static final Version EMPTY = new Version(Collections.nCopies(Version.LEVELS, List.of()));
+
+  /**
+   * the maximum bytes of level 1.
+   */
+  private static final long LEVEL1_MAX_BYTES = 10L * 1024L * 1024L;
+
+  /**
+   * the level to compact next, -1 if every level is within its limit.
+   */
+  private final int compactionLevel;
+
+  /**
+   * the files of the levels.
+   */
+  @NotNull
+  private final List<List<FileMeta>> levels;
+
+  /**
+   * ctor.
+   *
+   * @param levels the files of the levels.
+   */
+  private Version(@NotNull final List<List<FileMeta>> levels) {
+    this.levels = levels;
+    var compactionLevel = -1;
+    var compactionScore = 0.0D;
+    for (var level = 0; level < Version.LEVELS - 1; level++) {
+      final var score = level == 0
+        ? levels.get(level).size() / (double) Version.LEVEL0_COMPACTION_TRIGGER
+        : Version.bytes(levels.get(level)) / (double) Version.maxBytes(level);
+      if (score >= 1.0D && score > compactionScore) {
+        compactionLevel = level;
+        compactionScore = score;
+      }
+    }
+    this.compactionLevel = compactionLevel;
+  }
+
+  /**
+   * sums the sizes of the given files.
+   *
+   * @param files the files to sum.
+   *
+   * @return total bytes.
+   */
+  private static long bytes(@NotNull final List<FileMeta> files) {
+    var bytes = 0L;
+    for (final var file : files) {
+      bytes += file.size();
+    }
+    return bytes;
+  }
+
+  /**
+   * obtains the maximum bytes of the given level.
+   *
+   * @param level the level to get, it has to be greater than 0.
+   *
+   * @return maximum bytes.
+   */
+  private static long maxBytes(final int level) {
+    var bytes = Version.LEVEL1_MAX_BYTES;
+    for (var deeper = 1; deeper < level; deeper++) {
+      bytes *= 10L;
+    }
+    return bytes;
+  }
+
+  /**
+   * creates the next version by applying the given edit.
+   *
+   * @param edit the edit to apply.
+   *
+   * @return next version.
+   */
+  @NotNull
+  Version apply(@NotNull final VersionEdit edit) {
+    final var levels = new ArrayList<List<FileMeta>>(Version.LEVELS);
+    for (var level = 0; level < Version.LEVELS; level++) {
+      final var deleted = new HashSet<Long>();
+      for (final var file : edit.deleted()) {
+        if (file.level() == level) {
+          deleted.add(file.meta().number());
+        }
+      }
+      final var files = new ArrayList<FileMeta>();
+      for (final var file : this.levels.get(level)) {
+        if (!deleted.contains(file.number())) {
+          files.add(file);
+        }
+      }
+      for (final var file : edit.added()) {
+        if (file.level() == level) {
+          files.add(file.meta());
+        }
+      }
+      files.sort(level == 0
+        ? Comparator.comparingLong(FileMeta::number).reversed()
+        : (first, second) -> InternalKeys.compare(first.smallest(), second.smallest()));
+      levels.add(List.copyOf(files));
+    }
+    return new Version(List.copyOf(levels));
+  }
+
+  /**
+   * obtains the level to compact next.
+   *
+   * @return level to compact, -1 if every level is within its limit.
+   */
+  int compactionLevel() {
+    return this.compactionLevel;
+  }
+
+  /**
+   * obtains the files of the given level.
+   *
+   * @param level the level to get.
+   *
+   * @return files.
+   */
+  @NotNull
+  List<FileMeta> files(final int level) {
+    return this.levels.get(level);
+  }
+
+  /**
+   * finds the file of the given level which may contain the given lookup key.
+   *
+   * @param level the level to find, it has to be greater than 0.
+   * @param lookup the internal lookup key to find.
+   *
+   * @return index of the first file whose largest key is not smaller than the lookup key.
+   */
+  int find(final int level, @NotNull final byte[] lookup) {
+    final var files = this.levels.get(level);
+    var left = 0;
+    var right = files.size();
+    while (left < right) {
+      final var middle = left + right >>> 1;
+      if (InternalKeys.compare(files.get(middle).largest(), lookup) < 0) {
+        left = middle + 1;
+      } else {
+        right = middle;
+      }
+    }
+    return left;
+  }
+
+  /**
+   * obtains the files of the given level which overlap the given user key range.
+   * <p>
+   * the level 0 files overlap each other, so the range grows with every overlapping level 0 file and the search
+   * starts over, no older level 0 file is left behind with a key of the range.
+   *
+   * @param level the level to get.
+   * @param smallest the smallest internal key of the range.
+   * @param largest the largest internal key of the range.
+   *
+   * @return overlapping files.
+   */
+  @NotNull
+  List<FileMeta> overlapping(final int level, @NotNull final byte[] smallest, @NotNull final byte[] largest) {
+    var low = smallest;
+    var high = largest;
+    final var overlapping = new ArrayList<FileMeta>();
+    final var files = this.levels.get(level);
+    for (var index = 0; index < files.size(); index++) {
+      final var file = files.get(index);
+      if (!file.overlaps(low, high)) {
+        continue;
+      }
+      overlapping.add(file);
+      if (level != 0) {
+        continue;
+      }
+      final var lower = InternalKeys.compareUser(file.smallest(), low) < 0;
+      final var higher = InternalKeys.compareUser(file.largest(), high) > 0;
+      if (lower || higher) {
+        low = lower ? file.smallest() : low;
+        high = higher ? file.largest() : high;
+        overlapping.clear();
+        index = -1;
+      }
+    }
+    return overlapping;
+  }
+
+  /**
+   * checks if any file below the given level may contain the given user key.
+   *
+   * @param level the level to check.
+   * @param userKey the user key to check.
+   *
+   * @return {@code true} if the user key may exist in a deeper level.
+   */
+  boolean existsBelow(final int level, @NotNull final byte[] userKey) {
+    final var lookup = InternalKeys.encode(userKey, InternalKeys.MAX_SEQUENCE, InternalKeys.TYPE_VALUE);
+    for (var deeper = level + 1; deeper < Version.LEVELS; deeper++) {
+      final var files = this.levels.get(deeper);
+      final var index = this.find(deeper, lookup);
+      if (index < files.size() && files.get(index).contains(userKey)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
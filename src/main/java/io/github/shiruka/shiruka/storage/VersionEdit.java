@@ -0,0 +1,227 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the edits which the manifest records to move from a version to the next one.
+ */
+@Getter
+@Setter
+@Accessors(fluent = true)
+final class VersionEdit {
+
+  /**
+   * the tag of the comparator name.
+   */
+  private static final int COMPARATOR = 1;
+
+  /**
+   * the tag of the compaction pointers.
+   */
+  private static final int COMPACT_POINTER = 5;
+
+  /**
+   * the tag of the deleted files.
+   */
+  private static final int DELETED_FILE = 6;
+
+  /**
+   * the tag of the last sequence.
+   */
+  private static final int LAST_SEQUENCE = 4;
+
+  /**
+   * the tag of the log number.
+   */
+  private static final int LOG_NUMBER = 2;
+
+  /**
+   * the tag of the new files.
+   */
+  private static final int NEW_FILE = 7;
+
+  /**
+   * the tag of the next file number.
+   */
+  private static final int NEXT_FILE_NUMBER = 3;
+
+  /**
+   * the tag of the previous log number.
+   */
+  private static final int PREVIOUS_LOG_NUMBER = 9;
+
+  /**
+   * the added files.
+   */
+  private final List<LevelFile> added = new ArrayList<>();
+
+  /**
+   * the deleted files.
+   */
+  private final List<LevelFile> deleted = new ArrayList<>();
+
+  /**
+   * the comparator name.
+   */
+  @Nullable
+  private String comparator;
+
+  /**
+   * the last sequence.
+   */
+  @Nullable
+  private Long lastSequence;
+
+  /**
+   * the log number.
+   */
+  @Nullable
+  private Long logNumber;
+
+  /**
+   * the next file number.
+   */
+  @Nullable
+  private Long nextFileNumber;
+
+  /**
+   * the previous log number.
+   */
+  @Nullable
+  private Long previousLogNumber;
+
+  /**
+   * decodes the given record.
+   *
+   * @param record the record to decode.
+   *
+   * @return version edit.
+   *
+   * @throws IOException if the record has an unknown tag.
+   */
+  @NotNull
+  static VersionEdit decode(@NotNull final byte[] record) throws IOException {
+    final var edit = new VersionEdit();
+    final var buffer = ByteBuffer.wrap(record);
+    while (buffer.hasRemaining()) {
+      final var tag = (int) Coding.readVarInt(buffer);
+      switch (tag) {
+        case VersionEdit.COMPARATOR -> edit.comparator = new String(Coding.readLengthPrefixed(buffer),
+          StandardCharsets.UTF_8);
+        case VersionEdit.LOG_NUMBER -> edit.logNumber = Coding.readVarInt(buffer);
+        case VersionEdit.NEXT_FILE_NUMBER -> edit.nextFileNumber = Coding.readVarInt(buffer);
+        case VersionEdit.LAST_SEQUENCE -> edit.lastSequence = Coding.readVarInt(buffer);
+        case VersionEdit.COMPACT_POINTER -> {
+          Coding.readVarInt(buffer);
+          Coding.readLengthPrefixed(buffer);
+        }
+        case VersionEdit.DELETED_FILE -> edit.deleted.add(new LevelFile((int) Coding.readVarInt(buffer),
+          new FileMeta(Coding.readVarInt(buffer), 0L, new byte[0], new byte[0])));
+        case VersionEdit.NEW_FILE -> edit.added.add(new LevelFile((int) Coding.readVarInt(buffer),
+          new FileMeta(Coding.readVarInt(buffer), Coding.readVarInt(buffer), Coding.readLengthPrefixed(buffer),
+            Coding.readLengthPrefixed(buffer))));
+        case VersionEdit.PREVIOUS_LOG_NUMBER -> edit.previousLogNumber = Coding.readVarInt(buffer);
+        default -> throw new IOException("Unknown version edit tag " + tag);
+      }
+    }
+    return edit;
+  }
+
+  /**
+   * adds the given file.
+   *
+   * @param level the level to add.
+   * @param file the file to add.
+   *
+   * @return {@code this} for the chain.
+   */
+  @NotNull
+  VersionEdit add(final int level, @NotNull final FileMeta file) {
+    this.added.add(new LevelFile(level, file));
+    return this;
+  }
+
+  /**
+   * deletes the given file.
+   *
+   * @param level the level to delete.
+   * @param file the file to delete.
+   *
+   * @return {@code this} for the chain.
+   */
+  @NotNull
+  VersionEdit delete(final int level, @NotNull final FileMeta file) {
+    this.deleted.add(new LevelFile(level, file));
+    return this;
+  }
+
+  /**
+   * encodes the edit.
+   *
+   * @return encoded edit.
+   */
+  @NotNull
+  byte[] encode() {
+    final var output = new ByteArrayOutputStream();
+    if (this.comparator != null) {
+      Coding.putVarInt(output, VersionEdit.COMPARATOR);
+      Coding.putLengthPrefixed(output, this.comparator.getBytes(StandardCharsets.UTF_8));
+    }
+    VersionEdit.putNumber(output, VersionEdit.LOG_NUMBER, this.logNumber);
+    VersionEdit.putNumber(output, VersionEdit.PREVIOUS_LOG_NUMBER, this.previousLogNumber);
+    VersionEdit.putNumber(output, VersionEdit.NEXT_FILE_NUMBER, this.nextFileNumber);
+    VersionEdit.putNumber(output, VersionEdit.LAST_SEQUENCE, this.lastSequence);
+    for (final var file : this.deleted) {
+      Coding.putVarInt(output, VersionEdit.DELETED_FILE);
+      Coding.putVarInt(output, file.level());
+      Coding.putVarInt(output, file.meta().number());
+    }
+    for (final var file : this.added) {
+      Coding.putVarInt(output, VersionEdit.NEW_FILE);
+      Coding.putVarInt(output, file.level());
+      Coding.putVarInt(output, file.meta().number());
+      Coding.putVarInt(output, file.meta().size());
+      Coding.putLengthPrefixed(output, file.meta().smallest());
+      Coding.putLengthPrefixed(output, file.meta().largest());
+    }
+    return output.toByteArray();
+  }
+
+  /**
+   * writes the given number field if it is set.
+   *
+   * @param output the output to write.
+   * @param tag the tag of the field.
+   * @param value the value to write.
+   */
+  private static void putNumber(@NotNull final ByteArrayOutputStream output, final int tag,
+                                @Nullable final Long value) {
+    if (value != null) {
+      Coding.putVarInt(output, tag);
+      Coding.putVarInt(output, value);
+    }
+  }
+
+  /**
+   * a record class that represents the files of a level.
+   *
+   * @param level the level.
+   * @param meta the file metadata.
+   */
+  record LevelFile(
+    int level,
+    @NotNull FileMeta meta
+  ) {
+
+  }
+}
@@ -0,0 +1,352 @@
+package io.github.shiruka.shiruka.storage;
+
+import io.github.shiruka.api.scheduler.Task;
+import io.github.shiruka.shiruka.metrics.Histogram;
+import io.github.shiruka.shiruka.scheduler.AsyncScheduler;
+import io.github.shiruka.shiruka.server.ShirukaServer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import lombok.extern.log4j.Log4j2;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * a class that represents the storage of a bedrock edition world's {@code db} directory.
+ * <p>
+ * the reads, the writes and the compactions run on the async scheduler, so the main thread only waits for the
+ * returned futures. compactions are started after a write which leaves enough level 0 tables or a level over its size
+ * target, and run until every level is within its target.
+ */
+@Log4j2
+@Accessors(fluent = true)
+public final class WorldStorage {
+
+  /**
+   * the highest sub-chunk index of the overworld.
+   */
+  public static final int MAX_SUB_CHUNK = 19;
+
+  /**
+   * the lowest sub-chunk index of the overworld.
+   */
+  public static final int MIN_SUB_CHUNK = -4;
+
+  /**
+   * the tag of the block entity records.
+   */
+  public static final byte TAG_BLOCK_ENTITIES = 49;
+
+  /**
+   * the tag of the height map and 2d biome records.
+   */
+  public static final byte TAG_DATA_2D = 45;
+
+  /**
+   * the tag of the height map and 3d biome records.
+   */
+  public static final byte TAG_DATA_3D = 43;
+
+  /**
+   * the tag of the entity records.
+   */
+  public static final byte TAG_ENTITIES = 50;
+
+  /**
+   * the tag of the legacy version records.
+   */
+  public static final byte TAG_LEGACY_VERSION = 118;
+
+  /**
+   * the tag of the sub-chunk records.
+   */
+  public static final byte TAG_SUB_CHUNK = 47;
+
+  /**
+   * the tag of the version records.
+   */
+  public static final byte TAG_VERSION = 44;
+
+  /**
+   * the compacting.
+   */
+  private final AtomicBoolean compacting = new AtomicBoolean();
+
+  /**
+   * the compactions.
+   */
+  private final LongAdder compactions = new LongAdder();
+
+  /**
+   * the database.
+   */
+  @NotNull
+  @Getter
+  private final LevelDb database;
+
+  /**
+   * the read latency in nanoseconds.
+   */
+  @NotNull
+  @Getter
+  private final Histogram readLatency = new Histogram();
+
+  /**
+   * the scheduler.
+   */
+  @NotNull
+  private final AsyncScheduler scheduler;
+
+  /**
+   * ctor.
+   *
+   * @param directory the world directory which contains the {@code db} directory.
+   * @param blockCacheBytes the maximum bytes of the block cache.
+   * @param scheduler the scheduler.
+   *
+   * @throws IOException if the database could not be opened.
+   */
+  public WorldStorage(@NotNull final Path directory, final long blockCacheBytes,
+                      @NotNull final AsyncScheduler scheduler) throws IOException {
+    this.database = LevelDb.open(directory.resolve("db"), blockCacheBytes);
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * creates the key of a chunk record.
+   *
+   * @param chunkX the chunk x to create.
+   * @param chunkZ the chunk z to create.
+   * @param dimension the dimension to create, the overworld's 0 is not written into the key.
+   * @param tag the tag to create.
+   *
+   * @return chunk key.
+   */
+  @NotNull
+  public static byte[] chunkKey(final int chunkX, final int chunkZ, final int dimension, final byte tag) {
+    final var key = new byte[dimension == 0 ? 9 : 13];
+    WorldStorage.putInt(key, 0, chunkX);
+    WorldStorage.putInt(key, 4, chunkZ);
+    if (dimension != 0) {
+      WorldStorage.putInt(key, 8, dimension);
+    }
+    key[key.length - 1] = tag;
+    return key;
+  }
+
+  /**
+   * creates the key of a sub-chunk record.
+   *
+   * @param chunkX the chunk x to create.
+   * @param chunkZ the chunk z to create.
+   * @param dimension the dimension to create.
+   * @param index the sub-chunk index to create.
+   *
+   * @return sub-chunk key.
+   */
+  @NotNull
+  public static byte[] subChunkKey(final int chunkX, final int chunkZ, final int dimension, final int index) {
+    final var chunkKey = WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_SUB_CHUNK);
+    final var key = new byte[chunkKey.length + 1];
+    System.arraycopy(chunkKey, 0, key, 0, chunkKey.length);
+    key[chunkKey.length] = (byte) index;
+    return key;
+  }
+
+  /**
+   * writes the given int as 4 little endian bytes.
+   *
+   * @param bytes the bytes to write.
+   * @param offset the offset to write.
+   * @param value the value to write.
+   */
+  private static void putInt(@NotNull final byte[] bytes, final int offset, final int value) {
+    bytes[offset] = (byte) value;
+    bytes[offset + 1] = (byte) (value >>> 8);
+    bytes[offset + 2] = (byte) (value >>> 16);
+    bytes[offset + 3] = (byte) (value >>> 24);
+  }
+
+  /**
+   * closes the database, the memtable is flushed so the next start does not replay the write-ahead log.
+   */
+  public void close() {
+    try {
+      this.database.close();
+    } catch (final IOException e) {
+      WorldStorage.log.error("Could not close the world storage {}:", this.database.directory(), e);
+    }
+  }
+
+  /**
+   * obtains the compactions which are finished.
+   *
+   * @return compactions.
+   */
+  public long compactions() {
+    return this.compactions.sum();
+  }
+
+  /**
+   * reads the value of the given key on the async scheduler.
+   *
+   * @param key the key to read.
+   *
+   * @return a future which completes with the value, or {@code null} if the key does not exist.
+   */
+  @NotNull
+  public CompletableFuture<byte[]> read(@NotNull final byte[] key) {
+    return this.submit("World Storage Read", () -> this.timed(key));
+  }
+
+  /**
+   * reads the records of the given chunk on the async scheduler.
+   *
+   * @param chunkX the chunk x to read.
+   * @param chunkZ the chunk z to read.
+   * @param dimension the dimension to read.
+   *
+   * @return a future which completes with the records of the chunk.
+   */
+  @NotNull
+  public CompletableFuture<ChunkRecords> readChunk(final int chunkX, final int chunkZ, final int dimension) {
+    return this.submit("World Storage Chunk Read", () -> this.readChunkNow(chunkX, chunkZ, dimension));
+  }
+
+  /**
+   * reads the records of the given chunk on the current thread.
+   *
+   * @param chunkX the chunk x to read.
+   * @param chunkZ the chunk z to read.
+   * @param dimension the dimension to read.
+   *
+   * @return records of the chunk.
+   *
+   * @throws IOException if a table could not be read.
+   */
+  @NotNull
+  public ChunkRecords readChunkNow(final int chunkX, final int chunkZ, final int dimension) throws IOException {
+    var version = this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_VERSION));
+    if (version == null) {
+      version = this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_LEGACY_VERSION));
+    }
+    if (version == null) {
+      return new ChunkRecords(null, null, Collections.emptyList(), null, null);
+    }
+    var biomes = this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_DATA_3D));
+    if (biomes == null) {
+      biomes = this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_DATA_2D));
+    }
+    final var min = dimension == 0 ? WorldStorage.MIN_SUB_CHUNK : 0;
+    final var max = dimension == 0 ? WorldStorage.MAX_SUB_CHUNK : 15;
+    final var subChunks = new ArrayList<byte[]>(max - min + 1);
+    for (var index = min; index <= max; index++) {
+      subChunks.add(this.timed(WorldStorage.subChunkKey(chunkX, chunkZ, dimension, index)));
+    }
+    return new ChunkRecords(version, biomes, subChunks,
+      this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_BLOCK_ENTITIES)),
+      this.timed(WorldStorage.chunkKey(chunkX, chunkZ, dimension, WorldStorage.TAG_ENTITIES)));
+  }
+
+  /**
+   * writes the given batch on the async scheduler.
+   *
+   * @param batch the batch to write.
+   *
+   * @return a future which completes once the batch is in the write-ahead log.
+   */
+  @NotNull
+  public CompletableFuture<Void> write(@NotNull final WriteBatch batch) {
+    return this.submit("World Storage Write", () -> {
+      this.database.write(batch, false);
+      this.compactIfNeeded();
+      return null;
+    });
+  }
+
+  /**
+   * starts the compactions on the async scheduler if the database needs one and none is running.
+   * <p>
+   * the compactions are skipped once the scheduler is shut down, the first write after a reopen starts them again.
+   */
+  private void compactIfNeeded() {
+    if (this.scheduler.isShutDown() || !this.database.needsCompaction()
+      || !this.compacting.compareAndSet(false, true)) {
+      return;
+    }
+    final CompletableFuture<Void> compaction;
+    try {
+      compaction = this.submit("World Storage Compaction", () -> {
+        try {
+          while (this.database.compact()) {
+            this.compactions.increment();
+          }
+        } finally {
+          this.compacting.set(false);
+        }
+        return null;
+      });
+    } catch (final IllegalStateException e) {
+      this.compacting.set(false);
+      WorldStorage.log.debug("Skipped the compaction of the world storage {}, the scheduler is shut down.",
+        this.database.directory());
+      return;
+    }
+    compaction.exceptionally(throwable -> {
+      WorldStorage.log.error("Could not compact the world storage {}:", this.database.directory(), throwable);
+      return null;
+    });
+  }
+
+  /**
+   * runs the given job on the async scheduler.
+   *
+   * @param name the name of the task.
+   * @param job the job to run.
+   * @param <T> type of the result.
+   *
+   * @return a future which completes with the result of the job.
+   */
+  @NotNull
+  private <T> CompletableFuture<T> submit(@NotNull final String name, @NotNull final Callable<T> job) {
+    final var future = new CompletableFuture<T>();
+    this.scheduler.execute(Task.asyncBuilder()
+      .withPlugin(ShirukaServer.getInternalPlugin())
+      .withName(name)
+      .withJob(task -> {
+        try {
+          future.complete(job.call());
+        } catch (final Exception e) {
+          future.completeExceptionally(e);
+        }
+      })
+      .build());
+    return future;
+  }
+
+  /**
+   * reads the value of the given key and records the read latency.
+   *
+   * @param key the key to read.
+   *
+   * @return value, {@code null} if the key does not exist.
+   *
+   * @throws IOException if a table could not be read.
+   */
+  @Nullable
+  private byte[] timed(@NotNull final byte[] key) throws IOException {
+    final var start = System.nanoTime();
+    try {
+      return this.database.get(key);
+    } finally {
+      this.readLatency.record(System.nanoTime() - start);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package io.github.shiruka.shiruka.storage;
+
+import java.io.ByteArrayOutputStream;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * a class that represents the puts and deletions which are written to the database atomically.
+ */
+@Accessors(fluent = true)
+public final class WriteBatch {
+
+  /**
+   * the header size of the encoded batches.
+   */
+  static final int HEADER_SIZE = 12;
+
+  /**
+   * the records.
+   */
+  private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+
+  /**
+   * the record count.
+   */
+  @Getter
+  private int count;
+
+  /**
+   * deletes the given key.
+   *
+   * @param key the key to delete.
+   *
+   * @return {@code this} for the chain.
+   */
+  @NotNull
+  public WriteBatch delete(@NotNull final byte[] key) {
+    this.records.write(InternalKeys.TYPE_DELETION);
+    Coding.putLengthPrefixed(this.records, key);
+    this.count++;
+    return this;
+  }
+
+  /**
+   * checks if the batch has no record.
+   *
+   * @return {@code true} if the batch has no record.
+   */
+  public boolean isEmpty() {
+    return this.count == 0;
+  }
+
+  /**
+   * puts the given value of the given key.
+   *
+   * @param key the key to put.
+   * @param value the value to put.
+   *
+   * @return {@code this} for the chain.
+   */
+  @NotNull
+  public WriteBatch put(@NotNull final byte[] key, @NotNull final byte[] value) {
+    this.records.write(InternalKeys.TYPE_VALUE);
+    Coding.putLengthPrefixed(this.records, key);
+    Coding.putLengthPrefixed(this.records, value);
+    this.count++;
+    return this;
+  }
+
+  /**
+   * obtains the encoded size of the batch.
+   *
+   * @return size in bytes.
+   */
+  public int size() {
+    return WriteBatch.HEADER_SIZE + this.records.size();
+  }
+
+  /**
+   * encodes the batch as a write-ahead log record.
+   *
+   * @param sequence the sequence of the first record.
+   *
+   * @return encoded batch.
+   */
+  @NotNull
+  byte[] encode(final long sequence) {
+    final var output = new ByteArrayOutputStream(this.size());
+    Coding.putFixed64(output, sequence);
+    Coding.putFixed32(output, this.count);
+    output.writeBytes(this.records.toByteArray());
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,4 @@
+/**
+ * the package that contains world storage classes.
+ */
+package io.github.shiruka.shiruka.storage;
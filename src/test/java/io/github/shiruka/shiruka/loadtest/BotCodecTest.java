@@ -0,0 +1,72 @@
+package io.github.shiruka.shiruka.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.shiruka.shiruka.network.BatchCompressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.DataFormatException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+/**
+ * a class that tests {@link BotCodec}.
+ */
+final class BotCodecTest {
+
+  /**
+   * decodes the given batch into copied packets.
+   *
+   * @param batch the batch to decode, it is released.
+   *
+   * @return decoded packets.
+   *
+   * @throws DataFormatException if the batch is corrupted.
+   */
+  @NotNull
+  private static ArrayList<byte[]> decode(@NotNull final ByteBuf batch) throws DataFormatException {
+    final var packets = new ArrayList<byte[]>();
+    try {
+      BotCodec.decode(batch, packet -> packets.add(ByteBufUtil.getBytes(packet)));
+    } finally {
+      batch.release();
+    }
+    return packets;
+  }
+
+  @Test
+  void ignoresForeignMessages() throws DataFormatException {
+    final var message = Unpooled.wrappedBuffer(new byte[]{0x01, 0x02, 0x03});
+    assertTrue(BotCodecTest.decode(message).isEmpty());
+  }
+
+  @Test
+  void rejectsCorruptedBatches() {
+    final var batch = Unpooled.buffer();
+    batch.writeByte(BatchCompressor.BATCH_HEADER);
+    batch.writeBytes(new byte[]{(byte) 0xFF, (byte) 0xFF, 0x00, 0x11, 0x22});
+    assertThrows(DataFormatException.class, () -> BotCodecTest.decode(batch));
+  }
+
+  @Test
+  void roundTripsPackets() throws DataFormatException {
+    final var first = new byte[]{0x01, 0x00, 0x00, 0x01, (byte) 0xD7};
+    final var second = new byte[300_000];
+    ThreadLocalRandom.current().nextBytes(second);
+    final var batch = BotCodec.encode(ByteBufAllocator.DEFAULT, Unpooled.wrappedBuffer(first),
+      Unpooled.wrappedBuffer(second), Unpooled.buffer(0));
+    assertEquals(BatchCompressor.BATCH_HEADER, batch.getUnsignedByte(0));
+    final var packets = BotCodecTest.decode(batch);
+    assertEquals(3, packets.size());
+    assertArrayEquals(first, packets.get(0));
+    assertArrayEquals(second, packets.get(1));
+    assertEquals(0, packets.get(2).length);
+  }
+}
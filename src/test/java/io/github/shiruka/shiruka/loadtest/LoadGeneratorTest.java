@@ -0,0 +1,91 @@
+package io.github.shiruka.shiruka.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.shiruka.shiruka.network.login.LoginVerifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+/**
+ * a class that tests the login chains of {@link LoadGenerator}.
+ */
+final class LoadGeneratorTest {
+
+  /**
+   * generates a secp384r1 key pair.
+   *
+   * @return key pair.
+   *
+   * @throws GeneralSecurityException if the key pair could not be generated.
+   */
+  @NotNull
+  private static KeyPair keyPair() throws GeneralSecurityException {
+    final var generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec("secp384r1"));
+    return generator.generateKeyPair();
+  }
+
+  /**
+   * reads the length prefixed part of the given login request.
+   *
+   * @param request the request to read.
+   *
+   * @return part.
+   */
+  @NotNull
+  private static String readPart(@NotNull final ByteBuffer request) {
+    final var part = new byte[request.getInt()];
+    request.get(part);
+    return new String(part, StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void loginRequestPassesTheVerifier() throws GeneralSecurityException {
+    final var keyPair = LoadGeneratorTest.keyPair();
+    final var request = ByteBuffer.wrap(LoadGenerator.loginRequest(keyPair, "Bot7")).order(ByteOrder.LITTLE_ENDIAN);
+    final var chain = LoadGeneratorTest.readPart(request);
+    final var skin = LoadGeneratorTest.readPart(request);
+    assertFalse(request.hasRemaining());
+    final var verifier = new LoginVerifier(1);
+    try {
+      final var result = verifier.verifyNow(chain);
+      assertEquals("Bot7", result.displayName());
+      assertEquals(keyPair.getPublic(), result.identityPublicKey());
+      assertFalse(result.trusted());
+      assertTrue(result.expiresAt() > System.currentTimeMillis() / 1000L);
+    } finally {
+      verifier.shutdown();
+    }
+    assertEquals(3, skin.split("\\.").length);
+  }
+
+  @Test
+  void tokenIsSignedByTheKeyPair() throws Exception {
+    final var keyPair = LoadGeneratorTest.keyPair();
+    final var token = LoadGenerator.token(keyPair, "{\"answer\":42}");
+    final var parts = token.split("\\.");
+    assertEquals(3, parts.length);
+    final var decoder = Base64.getUrlDecoder();
+    final var mapper = new ObjectMapper();
+    final var header = mapper.readTree(decoder.decode(parts[0]));
+    assertEquals("ES384", header.path("alg").asText());
+    assertEquals(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()), header.path("x5u").asText());
+    assertEquals(42, mapper.readTree(decoder.decode(parts[1])).path("answer").asInt());
+    final var signature = Signature.getInstance("SHA384withECDSAinP1363Format");
+    signature.initVerify(keyPair.getPublic());
+    signature.update((parts[0] + '.' + parts[1]).getBytes(StandardCharsets.US_ASCII));
+    assertTrue(signature.verify(decoder.decode(parts[2])));
+  }
+}
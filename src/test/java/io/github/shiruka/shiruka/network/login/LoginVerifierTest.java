@@ -0,0 +1,206 @@
+package io.github.shiruka.shiruka.network.login;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * a class that tests {@link LoginVerifier} with chains which are signed by locally generated keys.
+ */
+final class LoginVerifierTest {
+
+  /**
+   * the identity of the chains.
+   */
+  private static final UUID IDENTITY = UUID.fromString("7d3c8d5e-2a54-4b8f-9d1e-6a0f3b2c1d4e");
+
+  /**
+   * the verifier.
+   */
+  private final LoginVerifier verifier = new LoginVerifier(1);
+
+  /**
+   * wraps the given tokens into a chain json.
+   *
+   * @param tokens the tokens to wrap.
+   *
+   * @return chain json.
+   */
+  @NotNull
+  private static String chain(@NotNull final String... tokens) {
+    return "{\"chain\":[\"" + String.join("\",\"", tokens) + "\"]}";
+  }
+
+  /**
+   * encodes the given public key as the chains do.
+   *
+   * @param keyPair the key pair to encode.
+   *
+   * @return base64 encoded public key.
+   */
+  @NotNull
+  private static String encode(@NotNull final KeyPair keyPair) {
+    return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+  }
+
+  /**
+   * creates the identity token which hands the chain over to the given identity key.
+   *
+   * @param signer the key pair which signs the token.
+   * @param identity the identity key pair.
+   * @param expiration the expiration of the token in epoch seconds.
+   *
+   * @return identity token.
+   *
+   * @throws GeneralSecurityException if the token could not be signed.
+   */
+  @NotNull
+  private static String identityToken(@NotNull final KeyPair signer, @NotNull final KeyPair identity,
+                                      final long expiration) throws GeneralSecurityException {
+    return LoginVerifierTest.token(signer, LoginVerifierTest.encode(signer), """
+      {"nbf":%d,"exp":%d,"identityPublicKey":"%s","extraData":{"displayName":"Steve","identity":"%s","XUID":"42"}}"""
+      .formatted(expiration - 86400L, expiration, LoginVerifierTest.encode(identity), LoginVerifierTest.IDENTITY));
+  }
+
+  /**
+   * generates a secp384r1 key pair.
+   *
+   * @return key pair.
+   *
+   * @throws GeneralSecurityException if the key pair could not be generated.
+   */
+  @NotNull
+  private static KeyPair keyPair() throws GeneralSecurityException {
+    final var generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(new ECGenParameterSpec("secp384r1"));
+    return generator.generateKeyPair();
+  }
+
+  /**
+   * obtains the current time in epoch seconds.
+   *
+   * @return current time.
+   */
+  private static long now() {
+    return System.currentTimeMillis() / 1000L;
+  }
+
+  /**
+   * signs a token with the given payload.
+   *
+   * @param signer the key pair which signs the token.
+   * @param x5u the signing key which the header names.
+   * @param payload the payload to sign.
+   *
+   * @return signed token.
+   *
+   * @throws GeneralSecurityException if the token could not be signed.
+   */
+  @NotNull
+  private static String token(@NotNull final KeyPair signer, @NotNull final String x5u,
+                              @NotNull final String payload) throws GeneralSecurityException {
+    final var encoder = Base64.getUrlEncoder().withoutPadding();
+    final var content = encoder.encodeToString(("{\"alg\":\"ES384\",\"x5u\":\"" + x5u + "\"}")
+      .getBytes(StandardCharsets.UTF_8)) + '.' + encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    final var signature = Signature.getInstance("SHA384withECDSAinP1363Format");
+    signature.initSign(signer.getPrivate());
+    signature.update(content.getBytes(StandardCharsets.US_ASCII));
+    return content + '.' + encoder.encodeToString(signature.sign());
+  }
+
+  @Test
+  void cachesVerifiedChains() throws GeneralSecurityException {
+    final var keyPair = LoginVerifierTest.keyPair();
+    final var chain = LoginVerifierTest.chain(
+      LoginVerifierTest.identityToken(keyPair, keyPair, LoginVerifierTest.now() + 3600L));
+    final var first = this.verifier.verifyNow(chain);
+    assertEquals(0L, this.verifier.cacheHits());
+    assertSame(first, this.verifier.verify(chain).join());
+    assertEquals(1L, this.verifier.cacheHits());
+    assertEquals(1L, this.verifier.latency().count());
+  }
+
+  @AfterEach
+  void close() {
+    this.verifier.shutdown();
+  }
+
+  @Test
+  void rejectsBrokenChain() throws GeneralSecurityException {
+    final var root = LoginVerifierTest.keyPair();
+    final var stranger = LoginVerifierTest.keyPair();
+    final var identity = LoginVerifierTest.keyPair();
+    final var expiration = LoginVerifierTest.now() + 3600L;
+    final var chain = LoginVerifierTest.chain(
+      LoginVerifierTest.identityToken(root, identity, expiration),
+      LoginVerifierTest.identityToken(stranger, identity, expiration));
+    assertEquals("Broken chain",
+      assertThrows(InvalidLoginException.class, () -> this.verifier.verifyNow(chain)).getMessage());
+  }
+
+  @Test
+  void rejectsExpiredChain() throws GeneralSecurityException {
+    final var keyPair = LoginVerifierTest.keyPair();
+    final var chain = LoginVerifierTest.chain(
+      LoginVerifierTest.identityToken(keyPair, keyPair, LoginVerifierTest.now() - 3600L));
+    final var exception = assertThrows(CompletionException.class, () -> this.verifier.verify(chain).join());
+    assertEquals(InvalidLoginException.class, exception.getCause().getClass());
+    assertEquals("Expired chain", exception.getCause().getMessage());
+  }
+
+  @Test
+  void rejectsForgedTrustedRoot() throws GeneralSecurityException {
+    final var forger = LoginVerifierTest.keyPair();
+    final var identity = LoginVerifierTest.keyPair();
+    final var payload = """
+      {"exp":%d,"identityPublicKey":"%s","extraData":{"displayName":"Steve","identity":"%s","XUID":"42"}}"""
+      .formatted(LoginVerifierTest.now() + 3600L, LoginVerifierTest.encode(identity), LoginVerifierTest.IDENTITY);
+    final var chain = LoginVerifierTest.chain(
+      LoginVerifierTest.token(forger, LoginVerifier.MOJANG_PUBLIC_KEY, payload));
+    assertEquals("Invalid signature",
+      assertThrows(InvalidLoginException.class, () -> this.verifier.verifyNow(chain)).getMessage());
+  }
+
+  @Test
+  void rejectsTamperedSignature() throws GeneralSecurityException {
+    final var keyPair = LoginVerifierTest.keyPair();
+    final var token = LoginVerifierTest.identityToken(keyPair, keyPair, LoginVerifierTest.now() + 3600L);
+    final var parts = token.split("\\.");
+    final var signature = Base64.getUrlDecoder().decode(parts[2]);
+    signature[signature.length / 2] ^= 0x01;
+    final var tampered = parts[0] + '.' + parts[1] + '.' +
+      Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    assertThrows(InvalidLoginException.class, () -> this.verifier.verifyNow(LoginVerifierTest.chain(tampered)));
+  }
+
+  @Test
+  void verifiesChainOfUntrustedRoot() throws GeneralSecurityException {
+    final var root = LoginVerifierTest.keyPair();
+    final var identity = LoginVerifierTest.keyPair();
+    final var expiration = LoginVerifierTest.now() + 3600L;
+    final var chain = LoginVerifierTest.chain(
+      LoginVerifierTest.identityToken(root, identity, expiration + 60L),
+      LoginVerifierTest.identityToken(identity, identity, expiration));
+    final var result = this.verifier.verifyNow(chain);
+    assertEquals("Steve", result.displayName());
+    assertEquals(LoginVerifierTest.IDENTITY, result.identity());
+    assertEquals(identity.getPublic(), result.identityPublicKey());
+    assertEquals(expiration, result.expiresAt());
+    assertFalse(result.trusted());
+    assertEquals("", result.xuid());
+  }
+}
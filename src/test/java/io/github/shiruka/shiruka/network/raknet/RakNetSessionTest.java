@@ -0,0 +1,242 @@
+package io.github.shiruka.shiruka.network.raknet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.socket.DatagramPacket;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+/**
+ * a class that tests {@link RakNetSession} by pumping the datagrams of two sessions between embedded channels.
+ */
+final class RakNetSessionTest {
+
+  /**
+   * the address of the peers.
+   */
+  private static final InetSocketAddress ADDRESS = new InetSocketAddress("127.0.0.1", 19132);
+
+  /**
+   * the time which a pump may take in nanoseconds.
+   */
+  private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10L);
+
+  /**
+   * creates a game message which carries its index and is filled with it.
+   *
+   * @param index the index of the message.
+   * @param size the size of the message.
+   *
+   * @return game message.
+   */
+  @NotNull
+  private static ByteBuf message(final int index, final int size) {
+    final var message = Unpooled.buffer(size);
+    message.writeByte(RakNet.GAME_PACKET);
+    message.writeInt(index);
+    while (message.writerIndex() < size) {
+      message.writeByte(index);
+    }
+    return message;
+  }
+
+  /**
+   * writes the outbound datagrams of the given channel to the given session.
+   *
+   * @param from the channel to read.
+   * @param to the session to receive.
+   * @param dropped the drop period of the data datagrams, 0 to drop nothing.
+   * @param counter the data datagram counter.
+   */
+  private static void forward(@NotNull final EmbeddedChannel from, @NotNull final RakNetSession to,
+                              final int dropped, @NotNull final int[] counter) {
+    DatagramPacket packet;
+    while ((packet = from.readOutbound()) != null) {
+      try {
+        final var content = packet.content();
+        final var data = (content.getUnsignedByte(content.readerIndex()) & (RakNet.ACK | RakNet.NACK)) == 0;
+        if (data && dropped > 0 && ++counter[0] % dropped == 0) {
+          continue;
+        }
+        to.receive(content);
+      } finally {
+        packet.release();
+      }
+    }
+  }
+
+  /**
+   * pumps the datagrams of the given sessions until the given condition holds.
+   *
+   * @param pair the sessions to pump.
+   * @param dropped the drop period of the data datagrams of the client, 0 to drop nothing.
+   * @param condition the condition to wait.
+   *
+   * @throws InterruptedException if the current thread is interrupted while waiting.
+   */
+  private static void pump(@NotNull final Pair pair, final int dropped, @NotNull final BooleanSupplier condition)
+    throws InterruptedException {
+    final var counter = new int[1];
+    final var start = System.nanoTime();
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() - start < RakNetSessionTest.TIMEOUT, "the sessions did not settle in time");
+      pair.clientChannel.runPendingTasks();
+      pair.serverChannel.runPendingTasks();
+      RakNetSessionTest.forward(pair.clientChannel, pair.server, dropped, counter);
+      RakNetSessionTest.forward(pair.serverChannel, pair.client, 0, counter);
+      Thread.sleep(1L);
+    }
+  }
+
+  @Test
+  void connects() throws InterruptedException {
+    final var pair = new Pair();
+    RakNetSessionTest.pump(pair, 0, () -> pair.client.connected() && pair.server.connected());
+    assertEquals(1, pair.clientListener.connected);
+    assertEquals(1, pair.serverListener.connected);
+  }
+
+  @Test
+  void closesOnMalformedDatagram() throws InterruptedException {
+    final var pair = new Pair();
+    RakNetSessionTest.pump(pair, 0, () -> pair.client.connected() && pair.server.connected());
+    final var datagram = Unpooled.buffer();
+    datagram.writeByte(RakNet.VALID);
+    datagram.writeMediumLE(1000);
+    datagram.writeByte(0);
+    datagram.writeShort(8 * 100);
+    datagram.writeByte(RakNet.GAME_PACKET);
+    pair.server.receive(datagram);
+    datagram.release();
+    assertEquals(1, pair.serverListener.disconnected);
+  }
+
+  @Test
+  void deliversInOrderDespiteLoss() throws InterruptedException {
+    final var pair = new Pair();
+    RakNetSessionTest.pump(pair, 0, () -> pair.client.connected() && pair.server.connected());
+    final var count = 300;
+    for (var index = 0; index < count; index++) {
+      pair.client.send(RakNetSessionTest.message(index, index % 2 == 0 ? 16 : 4000));
+    }
+    RakNetSessionTest.pump(pair, 5, () -> pair.serverListener.received.size() == count);
+    for (var index = 0; index < count; index++) {
+      assertEquals(index, pair.serverListener.received.getInt(index));
+    }
+    assertEquals(0, pair.serverListener.invalid);
+    assertTrue(pair.client.resent() > 0);
+  }
+
+  @Test
+  void disconnectsThePeer() throws InterruptedException {
+    final var pair = new Pair();
+    RakNetSessionTest.pump(pair, 0, () -> pair.client.connected() && pair.server.connected());
+    pair.client.close();
+    RakNetSessionTest.pump(pair, 0, () -> pair.serverListener.disconnected == 1);
+    assertEquals(1, pair.clientListener.disconnected);
+  }
+
+  /**
+   * a class that represents the listeners which record the session events.
+   */
+  private static final class Listener implements SessionListener {
+
+    /**
+     * the received message indexes.
+     */
+    private final IntArrayList received = new IntArrayList();
+
+    /**
+     * the connected count.
+     */
+    private int connected;
+
+    /**
+     * the disconnected count.
+     */
+    private int disconnected;
+
+    /**
+     * the messages whose content does not match their index.
+     */
+    private int invalid;
+
+    @Override
+    public void connected() {
+      this.connected++;
+    }
+
+    @Override
+    public void disconnected() {
+      this.disconnected++;
+    }
+
+    @Override
+    public void message(@NotNull final ByteBuf message) {
+      final var index = message.getInt(message.readerIndex() + 1);
+      for (var position = message.readerIndex() + 5; position < message.writerIndex(); position++) {
+        if (message.getByte(position) != (byte) index) {
+          this.invalid++;
+          break;
+        }
+      }
+      this.received.add(index);
+    }
+  }
+
+  /**
+   * a class that represents a client session and a server session on embedded channels.
+   */
+  private static final class Pair {
+
+    /**
+     * the client session.
+     */
+    private final RakNetSession client;
+
+    /**
+     * the client channel.
+     */
+    private final EmbeddedChannel clientChannel = new EmbeddedChannel();
+
+    /**
+     * the client listener.
+     */
+    private final Listener clientListener = new Listener();
+
+    /**
+     * the server session.
+     */
+    private final RakNetSession server;
+
+    /**
+     * the server channel.
+     */
+    private final EmbeddedChannel serverChannel = new EmbeddedChannel();
+
+    /**
+     * the server listener.
+     */
+    private final Listener serverListener = new Listener();
+
+    /**
+     * ctor.
+     */
+    private Pair() {
+      this.server = new RakNetSession(this.serverChannel, RakNetSessionTest.ADDRESS, RakNet.MAX_MTU, 1L, 2L, false,
+        this.serverListener);
+      this.client = new RakNetSession(this.clientChannel, RakNetSessionTest.ADDRESS, RakNet.MAX_MTU, 2L, 1L, true,
+        this.clientListener);
+      this.server.start();
+      this.client.start();
+    }
+  }
+}
@@ -0,0 +1,246 @@
+package io.github.shiruka.shiruka.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * a class that tests {@link LevelDb} through its flushes, recoveries and compactions.
+ */
+final class LevelDbTest {
+
+  /**
+   * the block cache bytes of the opened databases.
+   */
+  private static final long BLOCK_CACHE = 1024L * 1024L;
+
+  /**
+   * the key count of the shuffled writes, which fills more than the level 1 size target.
+   */
+  private static final int SHUFFLED_KEYS = 4500;
+
+  /**
+   * the size of the written values, the values are random so they do not compress.
+   */
+  private static final int VALUE_SIZE = 4096;
+
+  /**
+   * the directory of the database.
+   */
+  @TempDir
+  Path directory;
+
+  /**
+   * asserts that the given database has the values of the given generation for the given keys.
+   *
+   * @param database the database to check.
+   * @param from the first key index.
+   * @param to the last key index, exclusive.
+   * @param generation the generation of the values.
+   *
+   * @throws IOException if a table could not be read.
+   */
+  private static void assertValues(@NotNull final LevelDb database, final int from, final int to,
+                                   final int generation) throws IOException {
+    for (var index = from; index < to; index++) {
+      assertArrayEquals(LevelDbTest.value(index, generation), database.get(LevelDbTest.key(index)),
+        "key " + index);
+    }
+  }
+
+  /**
+   * creates the key of the given index.
+   *
+   * @param index the index of the key.
+   *
+   * @return key.
+   */
+  @NotNull
+  private static byte[] key(final int index) {
+    return "key-%06d".formatted(index).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * creates the value of the given key index and generation.
+   *
+   * @param index the index of the key.
+   * @param generation the generation of the value.
+   *
+   * @return value.
+   */
+  @NotNull
+  private static byte[] value(final int index, final int generation) {
+    final var value = new byte[LevelDbTest.VALUE_SIZE];
+    new Random(index * 31L + generation).nextBytes(value);
+    return value;
+  }
+
+  /**
+   * puts the values of the given generation for the given keys, a batch per key.
+   *
+   * @param database the database to write.
+   * @param from the first key index.
+   * @param to the last key index, exclusive.
+   * @param generation the generation of the values.
+   *
+   * @throws IOException if a batch could not be written.
+   */
+  private static void write(@NotNull final LevelDb database, final int from, final int to, final int generation)
+    throws IOException {
+    for (var index = from; index < to; index++) {
+      database.write(new WriteBatch().put(LevelDbTest.key(index), LevelDbTest.value(index, generation)), false);
+    }
+  }
+
+  /**
+   * puts the values of the given generation for the shuffled keys, so every flushed table spans all the keys.
+   *
+   * @param database the database to write.
+   * @param generation the generation of the values.
+   *
+   * @throws IOException if a batch could not be written.
+   */
+  private static void writeShuffled(@NotNull final LevelDb database, final int generation) throws IOException {
+    for (var position = 0; position < LevelDbTest.SHUFFLED_KEYS; position++) {
+      final var index = (int) (position * 7919L % LevelDbTest.SHUFFLED_KEYS);
+      database.write(new WriteBatch().put(LevelDbTest.key(index), LevelDbTest.value(index, generation)), false);
+    }
+  }
+
+  @Test
+  void compactionKeepsTheNewestValuesAndDropsTheDeletions() throws IOException {
+    for (var generation = 0; generation < Version.LEVEL0_COMPACTION_TRIGGER; generation++) {
+      try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+        LevelDbTest.write(database, 0, 200, generation);
+        if (generation == Version.LEVEL0_COMPACTION_TRIGGER - 1) {
+          for (var index = 0; index < 50; index++) {
+            database.write(new WriteBatch().delete(LevelDbTest.key(index)), false);
+          }
+        }
+      }
+    }
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      assertEquals(Version.LEVEL0_COMPACTION_TRIGGER, database.tables(0));
+      assertTrue(database.needsCompaction());
+      assertTrue(database.compact());
+      assertEquals(0, database.tables(0));
+      assertFalse(database.needsCompaction());
+      for (var index = 0; index < 50; index++) {
+        assertNull(database.get(LevelDbTest.key(index)));
+      }
+      LevelDbTest.assertValues(database, 50, 200, Version.LEVEL0_COMPACTION_TRIGGER - 1);
+    }
+    final var blocks = CacheBuilder.newBuilder().<Table.BlockKey, Block>build();
+    final var userKeys = new HashSet<String>();
+    var entries = 0;
+    try (final var files = Files.list(this.directory)) {
+      for (final var file : (Iterable<Path>) files::iterator) {
+        if (!file.getFileName().toString().endsWith(".ldb")) {
+          continue;
+        }
+        final var cursor = new Table(0L, file, blocks).cursor();
+        for (var valid = cursor.seekToFirst(); valid; valid = cursor.next()) {
+          assertEquals(InternalKeys.TYPE_VALUE, InternalKeys.type(cursor.key()));
+          userKeys.add(new String(InternalKeys.userKey(cursor.key()), StandardCharsets.UTF_8));
+          entries++;
+        }
+      }
+    }
+    assertEquals(150, entries);
+    assertEquals(150, userKeys.size());
+  }
+
+  @Test
+  void compactsDeeperLevelsByTheirSizeTargets() throws IOException {
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      for (var generation = 0; generation < 2; generation++) {
+        LevelDbTest.writeShuffled(database, generation);
+        while (database.compact()) {
+          assertTrue(database.tables(0) < Version.LEVEL0_COMPACTION_TRIGGER);
+        }
+        assertFalse(database.needsCompaction());
+        assertTrue(database.tables(1) > 0);
+        assertTrue(database.tables(2) > 0);
+        LevelDbTest.assertValues(database, 0, LevelDbTest.SHUFFLED_KEYS, generation);
+      }
+    }
+  }
+
+  @Test
+  void putsGetsAndDeletesAcrossAFlush() throws IOException {
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      LevelDbTest.write(database, 0, 1500, 0);
+      assertTrue(database.tables(0) > 0);
+      for (var index = 0; index < 1500; index += 3) {
+        database.write(new WriteBatch().delete(LevelDbTest.key(index)), false);
+      }
+      for (var index = 1; index < 1500; index += 3) {
+        assertArrayEquals(LevelDbTest.value(index, 0), database.get(LevelDbTest.key(index)));
+        assertNull(database.get(LevelDbTest.key(index - 1)));
+      }
+      assertNull(database.get(LevelDbTest.key(1500)));
+    }
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      for (var index = 0; index < 1500; index++) {
+        if (index % 3 == 0) {
+          assertNull(database.get(LevelDbTest.key(index)));
+        } else {
+          assertArrayEquals(LevelDbTest.value(index, 0), database.get(LevelDbTest.key(index)));
+        }
+      }
+    }
+  }
+
+  @Test
+  void recoversTheLogAfterACrash() throws IOException {
+    final var crashed = Files.createDirectory(this.directory.resolve("crashed"));
+    final var origin = Files.createDirectory(this.directory.resolve("origin"));
+    try (final var database = LevelDb.open(origin, LevelDbTest.BLOCK_CACHE)) {
+      for (var index = 0; index < 100; index++) {
+        database.write(new WriteBatch().put(LevelDbTest.key(index), LevelDbTest.value(index, 0)), true);
+      }
+      database.write(new WriteBatch().delete(LevelDbTest.key(0)), true);
+      assertEquals(0, database.tables(0));
+      try (final var files = Files.list(origin)) {
+        for (final var file : (Iterable<Path>) files::iterator) {
+          Files.copy(file, crashed.resolve(file.getFileName()));
+        }
+      }
+    }
+    try (final var database = LevelDb.open(crashed, LevelDbTest.BLOCK_CACHE)) {
+      assertEquals(1, database.tables(0));
+      assertNull(database.get(LevelDbTest.key(0)));
+      LevelDbTest.assertValues(database, 1, 100, 0);
+    }
+  }
+
+  @Test
+  void reopensFromTheManifest() throws IOException {
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      LevelDbTest.write(database, 0, 100, 0);
+    }
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      assertEquals(1, database.tables(0));
+      LevelDbTest.assertValues(database, 0, 100, 0);
+      LevelDbTest.write(database, 50, 150, 1);
+    }
+    try (final var database = LevelDb.open(this.directory, LevelDbTest.BLOCK_CACHE)) {
+      assertEquals(2, database.tables(0));
+      LevelDbTest.assertValues(database, 0, 50, 0);
+      LevelDbTest.assertValues(database, 50, 150, 1);
+    }
+  }
+}